@@ -1,3 +1,5 @@
+import java.io.ByteArrayOutputStream
+
 version = "1.0.0"
 
 plugins {
@@ -33,6 +35,35 @@ tasks.named<Test>("test") {
     useJUnitPlatform()
 }
 
+// The macro performance tests play fixed-seed workloads at the scale of a real run, and compare
+// their speed and allocations with src/perfTest/baseline.properties. They take a minute, so they
+// are not part of "check". Record a new baseline with: gradle perfTest -Pperf.update
+sourceSets {
+    create("perfTest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["perfTestImplementation"].extendsFrom(configurations.testImplementation.get())
+configurations["perfTestRuntimeOnly"].extendsFrom(configurations.testRuntimeOnly.get())
+
+tasks.register<Test>("perfTest") {
+    description = "Compare the speed and allocations of macro workloads with the baseline"
+    group = "verification"
+    testClassesDirs = sourceSets["perfTest"].output.classesDirs
+    classpath = sourceSets["perfTest"].runtimeClasspath
+    useJUnitPlatform()
+    maxHeapSize = "1g"
+    systemProperty("perf.baseline", file("src/perfTest/baseline.properties").path)
+    if (project.hasProperty("perf.update")) {
+        systemProperty("perf.update", "true")
+    }
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+    shouldRunAfter(tasks.named("test"))
+}
+
 spotless {
     java {
         googleJavaFormat("1.15.0").aosp().groupArtifact("com.google.googlejavaformat:google-java-format")
@@ -48,3 +79,81 @@ tasks.register("fmt") {
         }
     }
 }
+
+// Fast startup for short runs, like playing a single round: a runtime image with only the modules
+// that the program uses, and an AppCDS archive of the classes that a training run loads, so that
+// they are mapped from the archive instead of being loaded and verified at every start.
+val fastDir = layout.buildDirectory.dir("fast")
+
+tasks.register("runtimeImage") {
+    description = "Build a Java runtime image with only the modules that the program uses"
+    group = "distribution"
+    val runtime = fastDir.get().dir("runtime").asFile
+    outputs.dir(runtime)
+    doLast {
+        delete(runtime)
+        project.exec {
+            commandLine(
+                "${System.getProperty("java.home")}/bin/jlink",
+                "--add-modules", "java.base,java.management,jdk.httpserver",
+                "--strip-debug", "--no-header-files", "--no-man-pages", "--compress=2",
+                "--output", runtime.path)
+        }
+    }
+}
+
+tasks.register("fastStart") {
+    description = "Build build/fast/bin/blackjack, with a runtime image and an AppCDS archive"
+    group = "distribution"
+    dependsOn(tasks.jar, "runtimeImage")
+    outputs.dirs(fastDir.get().dir("lib"), fastDir.get().dir("bin"))
+    doLast {
+        val dir = fastDir.get().asFile
+        val runtimeJava = File(dir, "runtime/bin/java").path
+        val lib = File(dir, "lib")
+        val jar = File(lib, "blackjack.jar")
+        copy {
+            from(tasks.jar.get().archiveFile)
+            into(lib)
+            rename { jar.name }
+        }
+        // the training run plays a single round, and lists the classes that it loads
+        val classList = File(lib, "classes.lst")
+        project.exec {
+            commandLine(runtimeJava, "-Xshare:off", "-XX:DumpLoadedClassList=${classList.path}",
+                        "-jar", jar.path)
+            standardOutput = ByteArrayOutputStream()
+        }
+        project.exec {
+            commandLine(runtimeJava, "-Xshare:dump", "-XX:SharedClassListFile=${classList.path}",
+                        "-XX:SharedArchiveFile=${File(lib, "blackjack.jsa").path}",
+                        "-cp", jar.path)
+            standardOutput = ByteArrayOutputStream()
+        }
+        val launcher = File(dir, "bin/blackjack")
+        launcher.parentFile.mkdirs()
+        launcher.writeText("""
+            |#!/bin/sh
+            |# Start blackjack with the runtime image and the AppCDS archive. For single rounds,
+            |# JAVA_OPTS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC" makes it start even faster.
+            |dir=${'$'}(cd "${'$'}(dirname "${'$'}0")/.." && pwd)
+            |exec "${'$'}dir/runtime/bin/java" -XX:SharedArchiveFile="${'$'}dir/lib/blackjack.jsa" \
+            |    -Xshare:auto ${'$'}JAVA_OPTS -jar "${'$'}dir/lib/blackjack.jar" "${'$'}@"
+            |""".trimMargin())
+        launcher.setExecutable(true)
+    }
+}
+
+tasks.register<JavaExec>("startupBenchmark") {
+    description = "Compare the time to the first result of the plain jar and of fastStart"
+    group = "verification"
+    dependsOn(tasks.jar, "fastStart")
+    classpath = sourceSets["perfTest"].runtimeClasspath
+    mainClass.set("blackjack.StartupBenchmark")
+    args(
+        "20",
+        "${System.getProperty("java.home")}/bin/java", "-jar",
+        tasks.jar.get().archiveFile.get().asFile.path,
+        ";",
+        fastDir.get().file("bin/blackjack").asFile.path)
+}
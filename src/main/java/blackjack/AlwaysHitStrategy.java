@@ -9,25 +9,13 @@ public final class AlwaysHitStrategy implements Strategy {
     }
 
     @Override
-    public final String toString() {
-        return "Always Hit";
-    }
-
-    @Override
-    public boolean nextParameter(boolean randomValues) {
-        return false;
-    }
-
-    @Override
-    public final void resetParameters() {}
-
-    @Override
-    public final int possibilities() {
-        return 1;
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return true;
     }
 
     @Override
-    public final AlwaysHitStrategy copy() {
-        return new AlwaysHitStrategy();
+    public final String toString() {
+        return "Always Hit";
     }
 }
@@ -9,25 +9,13 @@ public final class AlwaysStayStrategy implements Strategy {
     }
 
     @Override
-    public final String toString() {
-        return "Always Stay";
-    }
-
-    @Override
-    public boolean nextParameter(boolean randomValues) {
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
         return false;
     }
 
     @Override
-    public final void resetParameters() {}
-
-    @Override
-    public final int possibilities() {
-        return 1;
-    }
-
-    @Override
-    public final AlwaysStayStrategy copy() {
-        return new AlwaysStayStrategy();
+    public final String toString() {
+        return "Always Stay";
     }
 }
@@ -5,37 +5,25 @@ public final class BasicStrategy implements Strategy {
 
     @Override
     public final boolean shouldHit(Hand hand, Card dealerUpcard) {
+        return shouldHit(hand.score(), hand.aces(), hand.count(), dealerUpcard.score());
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
 
-        int ds = dealerUpcard.score();
+        final int ds = dealerUpcardScore;
 
         // The basic strategy is based on information from "How to play Blackjack":
         // https://bicyclecards.com/how-to-play/blackjack/
 
         if (ds >= 7) {
-            return hand.score() <= 17;
+            return playerTotal <= 17;
         }
         if (3 < ds && ds < 7) {
-            return hand.score() < 12;
+            return playerTotal < 12;
         }
-        return hand.score() < 13;
-    }
-
-    @Override
-    public void resetParameters() {}
-
-    @Override
-    public boolean nextParameter(boolean randomValues) {
-        return false;
-    }
-
-    @Override
-    public final int possibilities() {
-        return 1;
-    }
-
-    @Override
-    public final BasicStrategy copy() {
-        return new BasicStrategy();
+        return playerTotal < 13;
     }
 
     @Override
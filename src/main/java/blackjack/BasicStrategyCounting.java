@@ -0,0 +1,136 @@
+package blackjack;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * BasicStrategyCounting is the BasicStrategyOptimized strategy, adjusted by the Hi-Lo true count.
+ *
+ * <p>A high true count means that the deck is rich in tens and aces, which makes it more likely to
+ * go above 21 when hitting. The stop drawing limits are lowered by the true count times a weight,
+ * and raised for a negative true count.
+ */
+public final class BasicStrategyCounting implements Strategy {
+
+    // the strategy that is adjusted, with the parameters found by running with the -o flag
+    private final BasicStrategyOptimized basic = new BasicStrategyOptimized();
+
+    /** The factory for BasicStrategyCounting strategies with other count weights */
+    static final StrategyFactory FACTORY = new Factory();
+
+    // how much the stop drawing limits are lowered per true count. Other weights can be tried with
+    // -c -o.
+    private static final double DEFAULT_COUNT_WEIGHT = 0.15;
+
+    private final double countWeight;
+
+    /** Create a BasicStrategyCounting strategy with the default count weight. */
+    BasicStrategyCounting() {
+        this(DEFAULT_COUNT_WEIGHT);
+    }
+
+    /**
+     * Create a BasicStrategyCounting strategy with the given count weight.
+     *
+     * @param countWeight is how much the stop drawing limits are lowered per true count
+     */
+    BasicStrategyCounting(double countWeight) {
+        this.countWeight = countWeight;
+    }
+
+    @Override
+    public final boolean shouldHit(Hand hand, Card dealerUpcard) {
+        // without knowing the state of the deck, this is the same as BasicStrategyOptimized
+        return basic.shouldHit(hand.score(), dealerUpcard.score(), 0);
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return basic.shouldHit(playerTotal, dealerUpcardScore, 0);
+    }
+
+    @Override
+    public final boolean shouldHit(Hand hand, Card dealerUpcard, ShoeState shoe) {
+        final int adjustment = (int) Math.round(shoe.trueCount() * countWeight);
+        return basic.shouldHit(hand.score(), dealerUpcard.score(), adjustment);
+    }
+
+    @Override
+    public final Parameters parameters() {
+        return Parameters.of(countWeight);
+    }
+
+    @Override
+    public final StrategyFactory factory() {
+        return FACTORY;
+    }
+
+    /** Factory lists count weights from 0 to 1, in steps of 0.05 */
+    private static final class Factory implements StrategyFactory {
+
+        // the number of steps from 0 to 1
+        private static final int STEPS = 20;
+
+        @Override
+        public Parameters defaults() {
+            return Parameters.of(DEFAULT_COUNT_WEIGHT);
+        }
+
+        @Override
+        public Parameters first() {
+            return Parameters.of(0);
+        }
+
+        /*
+         * next finds the next count weight from the step it is closest to, so that rounding errors
+         * do not add up, and 1 is always the last weight
+         *
+         * @return the next count weight, or an empty Optional when 1 has been reached
+         */
+        @Override
+        public Optional<Parameters> next(final Parameters params) {
+            final long step = Math.round(params.get(0) * STEPS) + 1;
+            if (step > STEPS) {
+                return Optional.empty();
+            }
+            return Optional.of(Parameters.of((double) step / STEPS));
+        }
+
+        @Override
+        public Parameters random() {
+            return Parameters.of(Math.random());
+        }
+
+        @Override
+        public int possibilities() {
+            return STEPS + 1;
+        }
+
+        @Override
+        public List<Parameters> neighbors(final Parameters params) {
+            // the weight goes from 0 to 1, where 1 is listed too
+            return StrategyFactory.neighbors(
+                    params, 1.0 / STEPS, new double[] {0}, new double[] {1 + 0.5 / STEPS});
+        }
+
+        @Override
+        public BasicStrategyCounting create(final Parameters params) {
+            if (params.size() != 1) {
+                throw new IllegalArgumentException(
+                        "BasicStrategyCounting has 1 parameter, not " + params.size());
+            }
+            return new BasicStrategyCounting(params.get(0));
+        }
+    }
+
+    /**
+     * Create a string representation.
+     *
+     * @return a strategy name + the current parameters
+     */
+    @Override
+    public final String toString() {
+        return String.format("C %s (%f)", basic.toString().substring(2), countWeight);
+    }
+}
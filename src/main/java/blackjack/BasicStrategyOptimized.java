@@ -1,101 +1,185 @@
 package blackjack;
 
+import java.util.List;
+import java.util.Optional;
+
 /** BasicStrategyOptimized implements a basic Blackjack strategy, but with optimized parameters. */
 public final class BasicStrategyOptimized implements Strategy {
 
+    /** The factory for BasicStrategyOptimized strategies with other parameters */
+    static final StrategyFactory FACTORY = new Factory();
+
     // These values were found by running the program with the -o flag
-    private int upperGoodScoreLimit = 4;
-    private int lowerGoodScoreLimit = 3;
-    private int stopDrawingLimit1 = 20;
-    private int stopDrawingLimit2 = 5;
-    private int stopDrawingLimit3 = 14;
+    private static final BasicStrategyOptimized DEFAULT =
+            new BasicStrategyOptimized(4, 3, 20, 5, 14);
+
+    private final int upperGoodScoreLimit;
+    private final int lowerGoodScoreLimit;
+    private final int stopDrawingLimit1;
+    private final int stopDrawingLimit2;
+    private final int stopDrawingLimit3;
+
+    /** Create a BasicStrategyOptimized strategy with the optimized parameters. */
+    BasicStrategyOptimized() {
+        this(
+                DEFAULT.upperGoodScoreLimit,
+                DEFAULT.lowerGoodScoreLimit,
+                DEFAULT.stopDrawingLimit1,
+                DEFAULT.stopDrawingLimit2,
+                DEFAULT.stopDrawingLimit3);
+    }
+
+    /**
+     * Create a BasicStrategyOptimized strategy with the given parameters.
+     *
+     * @param upperGoodScoreLimit is the dealer upcard score from which stopDrawingLimit1 is used
+     * @param lowerGoodScoreLimit is the dealer upcard score above which stopDrawingLimit2 is used
+     * @param stopDrawingLimit1 is the score that Sam stops drawing at for high dealer upcards
+     * @param stopDrawingLimit2 is the score that Sam stops drawing at for medium dealer upcards
+     * @param stopDrawingLimit3 is the score that Sam stops drawing at for low dealer upcards
+     */
+    BasicStrategyOptimized(
+            int upperGoodScoreLimit,
+            int lowerGoodScoreLimit,
+            int stopDrawingLimit1,
+            int stopDrawingLimit2,
+            int stopDrawingLimit3) {
+        this.upperGoodScoreLimit = upperGoodScoreLimit;
+        this.lowerGoodScoreLimit = lowerGoodScoreLimit;
+        this.stopDrawingLimit1 = stopDrawingLimit1;
+        this.stopDrawingLimit2 = stopDrawingLimit2;
+        this.stopDrawingLimit3 = stopDrawingLimit3;
+    }
 
     @Override
     public final boolean shouldHit(Hand hand, Card dealerUpcard) {
-        final int ds = dealerUpcard.score();
+        return shouldHit(hand.score(), dealerUpcard.score(), 0);
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return shouldHit(playerTotal, dealerUpcardScore, 0);
+    }
+
+    /**
+     * Decide if Sam should hit, with all stop drawing limits lowered by the given adjustment.
+     *
+     * @param score is the score of the hand
+     * @param ds is the score of the dealer upcard
+     * @param adjustment is subtracted from the stop drawing limits, 0 for no adjustment
+     * @return true if another card should be drawn
+     */
+    final boolean shouldHit(final int score, final int ds, final int adjustment) {
         if (ds >= upperGoodScoreLimit) {
-            return hand.score() < stopDrawingLimit1;
+            return score < stopDrawingLimit1 - adjustment;
         }
         if (lowerGoodScoreLimit < ds && ds < upperGoodScoreLimit) {
-            return hand.score() < stopDrawingLimit2;
+            return score < stopDrawingLimit2 - adjustment;
         }
-        return hand.score() < stopDrawingLimit3;
+        return score < stopDrawingLimit3 - adjustment;
     }
 
     @Override
-    public void resetParameters() {
-        upperGoodScoreLimit = 3; // ..11
-        lowerGoodScoreLimit = 3; // ..11
-        stopDrawingLimit1 = 16; // ..21
-        stopDrawingLimit2 = 0; // ..21
-        stopDrawingLimit3 = 2; // ..17
+    public final Parameters parameters() {
+        return Parameters.of(
+                upperGoodScoreLimit,
+                lowerGoodScoreLimit,
+                stopDrawingLimit1,
+                stopDrawingLimit2,
+                stopDrawingLimit3);
     }
 
-    private final int rInt(final int min, final int max) {
-        return (int) ((Math.random() * (max - min)) + min);
+    @Override
+    public final StrategyFactory factory() {
+        return FACTORY;
     }
 
-    private void setRandomParameters() {
-        upperGoodScoreLimit = rInt(3, 11);
-        lowerGoodScoreLimit = rInt(3, 11);
-        stopDrawingLimit1 = rInt(16, 21);
-        stopDrawingLimit2 = rInt(0, 21);
-        stopDrawingLimit3 = rInt(2, 17);
-    }
+    /** Factory lists the parameters of BasicStrategyOptimized, from 3,3,16,0,2 to 11,11,21,21,17 */
+    private static final class Factory implements StrategyFactory {
 
-    /*
-     * nextSetting iterates over all the parameters, from 3,3,16,0,2 to 11,11,21,21,17
-     *
-     * resetParameters should be called to set the parameters to their lowest values before starting.
-     *
-     * Note that the parameters in the method are listed in the reverse order from resetParameters.
-     *
-     * @param randomValues can be set to true to use random parameters instead
-     * @return true when the upper values have been reached.
-     */
-    @Override
-    public final boolean nextParameter(final boolean randomValues) {
-        if (randomValues) {
-            setRandomParameters();
-            return true;
+        // the lowest values of the parameters, and the values that they stay below
+        private static final double[] LOWEST = {3, 3, 16, 0, 2};
+        private static final double[] LIMITS = {11, 11, 21, 21, 17};
+
+        @Override
+        public Parameters defaults() {
+            return DEFAULT.parameters();
+        }
+
+        @Override
+        public Parameters first() {
+            return Parameters.of(3, 3, 16, 0, 2);
         }
-        stopDrawingLimit3++;
-        if (stopDrawingLimit3 >= 17) {
-            stopDrawingLimit3 = 2;
-            stopDrawingLimit2++;
-            if (stopDrawingLimit2 >= 21) {
-                stopDrawingLimit2 = 0;
-                stopDrawingLimit1++;
-                if (stopDrawingLimit1 >= 21) {
-                    stopDrawingLimit1 = 16;
-                    lowerGoodScoreLimit++;
-                    if (lowerGoodScoreLimit >= 11) {
-                        lowerGoodScoreLimit = 3;
-                        upperGoodScoreLimit++;
-                        if (upperGoodScoreLimit >= 11) {
-                            return false;
+
+        /*
+         * next iterates over all the parameters, where the last parameter changes the fastest
+         *
+         * @return the next parameters, or an empty Optional when the upper values have been reached
+         */
+        @Override
+        public Optional<Parameters> next(final Parameters params) {
+            int upper = params.getInt(0);
+            int lower = params.getInt(1);
+            int limit1 = params.getInt(2);
+            int limit2 = params.getInt(3);
+            int limit3 = params.getInt(4);
+            limit3++;
+            if (limit3 >= 17) {
+                limit3 = 2;
+                limit2++;
+                if (limit2 >= 21) {
+                    limit2 = 0;
+                    limit1++;
+                    if (limit1 >= 21) {
+                        limit1 = 16;
+                        lower++;
+                        if (lower >= 11) {
+                            lower = 3;
+                            upper++;
+                            if (upper >= 11) {
+                                return Optional.empty();
+                            }
                         }
                     }
                 }
             }
+            return Optional.of(Parameters.of(upper, lower, limit1, limit2, limit3));
         }
-        return true;
-    }
 
-    @Override
-    public final int possibilities() {
-        return 8 * 8 * 5 * 21 * 15;
-    }
+        @Override
+        public Parameters random() {
+            return Parameters.of(
+                    rInt(3, 11), rInt(3, 11), rInt(16, 21), rInt(0, 21), rInt(2, 17));
+        }
 
-    @Override
-    public final BasicStrategyOptimized copy() {
-        BasicStrategyOptimized strat = new BasicStrategyOptimized();
-        strat.upperGoodScoreLimit = upperGoodScoreLimit;
-        strat.lowerGoodScoreLimit = lowerGoodScoreLimit;
-        strat.stopDrawingLimit1 = stopDrawingLimit1;
-        strat.stopDrawingLimit2 = stopDrawingLimit2;
-        strat.stopDrawingLimit3 = stopDrawingLimit3;
-        return strat;
+        private static int rInt(final int min, final int max) {
+            return (int) ((Math.random() * (max - min)) + min);
+        }
+
+        @Override
+        public int possibilities() {
+            return 8 * 8 * 5 * 21 * 15;
+        }
+
+        @Override
+        public List<Parameters> neighbors(final Parameters params) {
+            return StrategyFactory.neighbors(params, 1, LOWEST, LIMITS);
+        }
+
+        @Override
+        public BasicStrategyOptimized create(final Parameters params) {
+            if (params.size() != 5) {
+                throw new IllegalArgumentException(
+                        "BasicStrategyOptimized has 5 parameters, not " + params.size());
+            }
+            return new BasicStrategyOptimized(
+                    params.getInt(0),
+                    params.getInt(1),
+                    params.getInt(2),
+                    params.getInt(3),
+                    params.getInt(4));
+        }
     }
 
     /**
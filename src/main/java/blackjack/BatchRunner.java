@@ -0,0 +1,177 @@
+package blackjack;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchRunner runs many jobs in the same JVM, so that JVM startup and JIT warm-up is only paid
+ * for once.
+ *
+ * <p>A jobs file has one set of command line flags and arguments per line, like "-t -2". Empty
+ * lines and lines starting with "#" are skipped. Quick tests (-t) and single rounds are supported,
+ * with any of the strategy flags. A job with any other flag is reported as an error, instead of
+ * being run as something that it is not. The jobs are independent of each other, and are run in
+ * parallel.
+ */
+public final class BatchRunner {
+
+    private static final String[] HEADER = {"#", "job", "strategy", "result", "seconds"};
+
+    // the flags that a job may have, in the same form as in the usage text
+    private static final String BATCH_FLAGS =
+            "-b --basicopt -2 --second -3 --third -a --always-hit -s --always-stay -c --counting"
+                    + " --rollout --rollouts N --table FILE --policy FILE"
+                    + " -t --test -n --noshuffle";
+
+    private BatchRunner() {}
+
+    /**
+     * Run all jobs in the given jobs file, and output a table of the results to stdout.
+     *
+     * @param filename is the path to a file with one job per line
+     * @param usageText is the usage text that contains all valid flags
+     * @param threads is the number of jobs to run at the same time
+     * @throws FileNotFoundException if the jobs file could not be opened
+     */
+    public static void run(final String filename, final String usageText, final int threads)
+            throws FileNotFoundException {
+        final ArrayList<String> lines = readJobs(filename);
+        final long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        ArrayList<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+        for (int i = 0; i < lines.size(); i++) {
+            final int number = i + 1;
+            final String line = lines.get(i);
+            futures.add(executor.submit(() -> runJob(number, line, usageText)));
+        }
+        executor.shutdown();
+
+        ArrayList<String[]> rows = new ArrayList<String[]>();
+        rows.add(HEADER);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                rows.add(futures.get(i).get());
+            } catch (ExecutionException ex) {
+                rows.add(row(i + 1, lines.get(i), "", "error: " + ex.getCause(), 0));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        printTable(rows);
+        System.out.printf(
+                "Ran %d jobs in %.3f seconds.\n", lines.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    // readJobs reads all non-empty lines that are not comments from the jobs file
+    private static ArrayList<String> readJobs(final String filename) throws FileNotFoundException {
+        ArrayList<String> lines = new ArrayList<String>();
+        final Scanner scanner = new Scanner(new File(filename));
+        while (scanner.hasNextLine()) {
+            final String line = scanner.nextLine().trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        scanner.close();
+        return lines;
+    }
+
+    /**
+     * Parse and run a single job.
+     *
+     * @param number is the number of the job, starting at 1
+     * @param line is the flags and arguments of the job
+     * @param usageText is the usage text that contains all valid flags
+     * @return a row for the results table, where the result starts with "error: " if the job
+     *     could not be run
+     */
+    static String[] runJob(final int number, final String line, final String usageText) {
+        final long start = System.nanoTime();
+        String strategyName = "";
+        String result;
+        try {
+            ParsedFlagsAndArguments pa =
+                    new ParsedFlagsAndArguments(line.split("\\s+"), usageText);
+            final Optional<String> maybeUnsupportedFlag = pa.findAnUnrecognizedFlag(BATCH_FLAGS);
+            if (maybeUnsupportedFlag.isPresent()) {
+                return row(
+                        number,
+                        line,
+                        strategyName,
+                        "error: only quick tests and single rounds can be batched, not "
+                                + maybeUnsupportedFlag.get(),
+                        System.nanoTime() - start);
+            }
+            final Strategy strat = Strategies.fromFlags(pa);
+            strategyName = strat.toString();
+            if (pa.hasFlags("-t", "--test")) {
+                final double winPercentage =
+                        Optimizer.getWinRatio(strat, Main.QUICK_TEST_ITERATIONS) * 100.0;
+                result = String.format("Sam wins %f%%", winPercentage);
+            } else {
+                final Optional<String> maybeFilename = pa.firstArg();
+                final boolean shuffle = !pa.hasFlags("-n", "--noshuffle");
+                Game game = new Game(maybeFilename, strat, false, shuffle);
+                result = game.summary(game.oneRound(strat)).replace("\n", "; ");
+            }
+        } catch (CardParseException
+                | IOException
+                | InvalidFlagValueException
+                | OutOfCardsException
+                | PolicyParseException
+                | UnrecognizedFlagException ex) {
+            result = "error: " + ex.getMessage();
+        }
+        return row(number, line, strategyName, result, System.nanoTime() - start);
+    }
+
+    // row creates a row for the results table
+    private static String[] row(
+            final int number,
+            final String line,
+            final String strategyName,
+            final String result,
+            final long nanos) {
+        return new String[] {
+            Integer.toString(number),
+            line,
+            strategyName,
+            result,
+            String.format("%.3f", nanos / 1e9)
+        };
+    }
+
+    // printTable outputs the rows with the columns lined up
+    private static void printTable(final ArrayList<String[]> rows) {
+        int[] widths = new int[HEADER.length];
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                widths[i] = Math.max(widths[i], row[i].length());
+            }
+        }
+        for (String[] row : rows) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                if (i != 0) {
+                    sb.append("  ");
+                }
+                sb.append(row[i]);
+                if (i != row.length - 1) {
+                    sb.append(" ".repeat(widths[i] - row[i].length()));
+                }
+            }
+            System.out.println(sb);
+        }
+    }
+}
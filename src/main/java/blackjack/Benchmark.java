@@ -0,0 +1,18 @@
+package blackjack;
+
+/**
+ * Benchmark measures how well a strategy does. The optimizers use Optimizer.getWinRatio, which plays
+ * rounds of Blackjack, but tests can measure candidates in a way that is cheap and repeatable.
+ */
+interface Benchmark {
+
+    /**
+     * Measure the win ratio of a strategy.
+     *
+     * @param strat is the strategy to measure
+     * @param nTimes is how many rounds should be won or lost
+     * @return the win ratio of the strategy
+     * @throws OutOfCardsException if there are fewer than 4 cards in the deck
+     */
+    public double winRatio(Strategy strat, int nTimes) throws OutOfCardsException;
+}
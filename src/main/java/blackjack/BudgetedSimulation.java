@@ -0,0 +1,145 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BudgetedSimulation tests a strategy on several threads, until the win ratio is known precisely
+ * enough, or until the time is up.
+ *
+ * <p>Every thread plays its own Game, with a deck that is seeded from the given seed. The games
+ * play steps of ROUNDS_PER_STEP rounds at the same time, and the budget is only checked between
+ * steps. A game is tied to its position and not to a thread, so a run that stops on the standard
+ * error plays the same rounds for the same seed and number of threads. A run that stops on the
+ * time plays the same rounds up to the step where the time ran out.
+ */
+public final class BudgetedSimulation {
+
+    /** The number of rounds that every thread plays between checks of the budget */
+    public static final int ROUNDS_PER_STEP = 20000;
+
+    // the number of standard deviations for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    /** Result is the combined tally of all threads, and how long it took. */
+    public static final class Result {
+
+        /** the won, lost and pushed rounds of all threads */
+        public final Tally tally;
+
+        /** the number of seconds that the rounds took */
+        public final double seconds;
+
+        private Result(final Tally tally, final double seconds) {
+            this.tally = tally;
+            this.seconds = seconds;
+        }
+
+        /** @return the win ratio, the number of won rounds divided by the number of lost rounds */
+        public double winRatio() {
+            return tally.winRatio();
+        }
+
+        /** @return the half-width of the 95% confidence interval of the win ratio */
+        public double error() {
+            return Z_95 * standardError(tally);
+        }
+
+        /** @return the number of rounds per second, including pushes */
+        public double roundsPerSecond() {
+            return tally.rounds() / seconds;
+        }
+    }
+
+    private final Strategy strat;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Create a new simulation.
+     *
+     * @param strat is the strategy to test, which is shared by all threads
+     * @param threads is the number of games to play at the same time
+     * @param seed is the seed for shuffling the decks of all games
+     */
+    BudgetedSimulation(final Strategy strat, final int threads, final long seed) {
+        this.strat = strat;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Find the standard error of the win ratio of a tally. Pushes are left out, like in the win
+     * ratio. With p as the share of won rounds out of n won or lost rounds, the win ratio is
+     * p / (1 - p), and its standard error follows from that of p by the delta method.
+     *
+     * @param tally is the tally
+     * @return the standard error, or infinity if there are no won or lost rounds
+     */
+    public static double standardError(final Tally tally) {
+        final double n = tally.wins() + tally.losses();
+        if (n == 0 || tally.losses() == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double p = tally.wins() / n;
+        return Math.sqrt(p * (1 - p) / n) / ((1 - p) * (1 - p));
+    }
+
+    /**
+     * Play steps of rounds on all threads, until the standard error of the win ratio is at most
+     * the target, or until the given number of seconds have passed, whichever comes first. At least
+     * one step is always played, and only one if neither is given.
+     *
+     * @param targetStandardError is the standard error to reach, or 0 to only stop on the time
+     * @param maxSeconds is the number of seconds to play for, or 0 to only stop on the precision
+     * @return the combined result of all threads
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public Result run(final double targetStandardError, final double maxSeconds)
+            throws OutOfCardsException {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<Tally>> tasks = new ArrayList<Callable<Tally>>();
+        for (int i = 0; i < threads; i++) {
+            final Game game = new Game(strat);
+            game.reset(Optional.of(random.nextLong()));
+            tasks.add(() -> Optimizer.play(game, ROUNDS_PER_STEP));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Tally tally = new Tally();
+        final long start = System.nanoTime();
+        try {
+            while (true) {
+                for (Future<Tally> result : executor.invokeAll(tasks)) {
+                    tally.add(result.get());
+                }
+                if (targetStandardError <= 0 && maxSeconds <= 0) {
+                    break;
+                }
+                if (targetStandardError > 0 && standardError(tally) <= targetStandardError) {
+                    break;
+                }
+                if (maxSeconds > 0 && (System.nanoTime() - start) / 1e9 >= maxSeconds) {
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OutOfCardsException) {
+                throw (OutOfCardsException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return new Result(tally, (System.nanoTime() - start) / 1e9);
+    }
+}
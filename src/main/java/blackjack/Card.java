@@ -1,8 +1,5 @@
 package blackjack;
 
-import java.util.HashMap;
-import java.util.Optional;
-
 /** Card is a playing card with a suite and a value. */
 public final class Card {
 
@@ -34,40 +31,59 @@ public final class Card {
     private final Suite suite;
     private final Value value;
 
-    private static final HashMap<Suite, String> suiteTable = new HashMap<Suite, String>();
-    private static final HashMap<Value, String> valueTable = new HashMap<Value, String>();
+    // one shared card per card score, from 2 to 11, for when only the score matters
+    private static final Card[] byScore = {
+        null,
+        null,
+        new Card(Suite.HEARTS, Value.TWO),
+        new Card(Suite.HEARTS, Value.THREE),
+        new Card(Suite.HEARTS, Value.FOUR),
+        new Card(Suite.HEARTS, Value.FIVE),
+        new Card(Suite.HEARTS, Value.SIX),
+        new Card(Suite.HEARTS, Value.SEVEN),
+        new Card(Suite.HEARTS, Value.EIGHT),
+        new Card(Suite.HEARTS, Value.NINE),
+        new Card(Suite.HEARTS, Value.TEN),
+        new Card(Suite.HEARTS, Value.ACE)
+    };
+
+    // the suites and values by ordinal, since values() makes a new array every time
+    private static final Suite[] SUITES = Suite.values();
+
+    private static final Value[] VALUE_ENUMS = Value.values();
+
+    // the number of card values, for finding the index of a card
+    private static final int VALUES = VALUE_ENUMS.length;
+
+    // one shared card per index, from 0 to 51, for when cards are read back from a RoundLog
+    private static final Card[] byIndex = new Card[52];
 
     static {
-        // Create a lookup table from the card Suite enum to the card Suite string (like "H")
-        suiteTable.put(Suite.CLUBS, "C");
-        suiteTable.put(Suite.DIAMONDS, "D");
-        suiteTable.put(Suite.HEARTS, "H");
-        suiteTable.put(Suite.SPADES, "S");
-
-        // Create a lookup table from the card Value enum to the card Value string (like "J")
-        valueTable.put(Value.TWO, "2");
-        valueTable.put(Value.THREE, "3");
-        valueTable.put(Value.FOUR, "4");
-        valueTable.put(Value.FIVE, "5");
-        valueTable.put(Value.SIX, "6");
-        valueTable.put(Value.SEVEN, "7");
-        valueTable.put(Value.EIGHT, "8");
-        valueTable.put(Value.NINE, "9");
-        valueTable.put(Value.TEN, "10");
-        valueTable.put(Value.JACK, "J");
-        valueTable.put(Value.QUEEN, "Q");
-        valueTable.put(Value.KING, "K");
-        valueTable.put(Value.ACE, "A");
+        for (Suite suite : SUITES) {
+            for (Value value : VALUE_ENUMS) {
+                final Card card = new Card(suite, value);
+                byIndex[card.index()] = card;
+            }
+        }
     }
 
-    // Search for a given string value and return the corresponding enum key
-    private <T> Optional<T> lookupByValue(HashMap<T, String> lookup, String lookingFor) {
-        for (T enumKey : lookup.keySet()) {
-            if (lookup.get(enumKey).equals(lookingFor)) {
-                return Optional.of(enumKey);
-            }
+    // the card strings of the suites and values, by ordinal, like "H" and "J"
+    private static final String[] SUITE_CODES = {"C", "D", "H", "S"};
+
+    private static final String[] VALUE_CODES = {
+        "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"
+    };
+
+    // the score of every value, by ordinal
+    private static final int[] SCORES = {2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10, 11};
+
+    // the card string of every card, by index, so that toString does not build strings
+    private static final String[] NAMES = new String[52];
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            NAMES[i] = SUITE_CODES[i / VALUES].concat(VALUE_CODES[i % VALUES]);
         }
-        return Optional.empty();
     }
 
     /**
@@ -84,23 +100,59 @@ public final class Card {
             throw new CardParseException(String.format("invalid length: %d (%s)", len, code));
         }
 
-        // check if the given card suite can be found in the enum lookup table
-        final String givenSuiteCode = code.substring(0, 1).toUpperCase();
-        Optional<Suite> maybeSuiteEnum = lookupByValue(suiteTable, givenSuiteCode);
-        if (maybeSuiteEnum.isEmpty()) {
-            throw new CardParseException("invalid card suite: " + givenSuiteCode);
+        // the suite is the first letter, and the value is the rest of the string
+        final int suiteOrdinal = suiteOrdinal(code.charAt(0));
+        if (suiteOrdinal < 0) {
+            throw new CardParseException(
+                    "invalid card suite: " + code.substring(0, 1).toUpperCase());
         }
-
-        // check if the given card value can be found in the enum lookup table
-        final String givenValueCode = code.substring(1).toUpperCase();
-        Optional<Value> maybeValueEnum = lookupByValue(valueTable, givenValueCode);
-        if (maybeValueEnum.isEmpty()) {
-            throw new CardParseException("invalid card value: " + givenValueCode);
+        final int valueOrdinal = valueOrdinal(code, len);
+        if (valueOrdinal < 0) {
+            throw new CardParseException("invalid card value: " + code.substring(1).toUpperCase());
         }
 
         // set the card suite and card value enums, since the card string is valid
-        suite = maybeSuiteEnum.get();
-        value = maybeValueEnum.get();
+        suite = SUITES[suiteOrdinal];
+        value = VALUE_ENUMS[valueOrdinal];
+    }
+
+    // suiteOrdinal returns the ordinal of the suite with the given letter, or -1
+    private static int suiteOrdinal(final char c) {
+        switch (Character.toUpperCase(c)) {
+            case 'C':
+                return 0;
+            case 'D':
+                return 1;
+            case 'H':
+                return 2;
+            case 'S':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    // valueOrdinal returns the ordinal of the value after the first letter of code, or -1
+    private static int valueOrdinal(final String code, final int len) {
+        final char c = Character.toUpperCase(code.charAt(1));
+        if (len == 3) {
+            return c == '1' && code.charAt(2) == '0' ? Value.TEN.ordinal() : -1;
+        }
+        if (c >= '2' && c <= '9') {
+            return c - '2';
+        }
+        switch (c) {
+            case 'J':
+                return Value.JACK.ordinal();
+            case 'Q':
+                return Value.QUEEN.ordinal();
+            case 'K':
+                return Value.KING.ordinal();
+            case 'A':
+                return Value.ACE.ordinal();
+            default:
+                return -1;
+        }
     }
 
     /**
@@ -114,40 +166,59 @@ public final class Card {
         this.value = value;
     }
 
+    /**
+     * Get a shared card with the given score. The suite is always hearts, and a score of 10 gives
+     * a ten.
+     *
+     * @param score is the card score, from 2 to 11
+     * @return a card with that score
+     */
+    static Card ofScore(final int score) {
+        return byScore[score];
+    }
+
+    /**
+     * Get a shared card with the given index.
+     *
+     * @param index is the index of the card, from 0 to 51, as returned by index
+     * @return the card
+     */
+    static Card ofIndex(final int index) {
+        return byIndex[index];
+    }
+
+    /**
+     * Get the index of this card, which is the same for all cards with the same suite and value.
+     *
+     * @return the index, from 0 to 51
+     */
+    final int index() {
+        return suite.ordinal() * VALUES + value.ordinal();
+    }
+
     /**
      * Score the current card by looking at the card value (and not the suite).
      *
      * @return the score, from 2 to 11
      */
     public final int score() {
-        switch (value) {
-            case TWO:
-                return 2;
-            case THREE:
-                return 3;
-            case FOUR:
-                return 4;
-            case FIVE:
-                return 5;
-            case SIX:
-                return 6;
-            case SEVEN:
-                return 7;
-            case EIGHT:
-                return 8;
-            case NINE:
-                return 9;
-            case TEN:
-            case JACK:
-            case QUEEN:
-            case KING:
-                return 10;
-            case ACE:
-                return 11;
-            default:
-                // The code does not reach here, this is just to make the compiler happy
-                return 0;
+        return SCORES[value.ordinal()];
+    }
+
+    /**
+     * Get the Hi-Lo card counting value of this card.
+     *
+     * @return +1 for 2 to 6, 0 for 7 to 9 and -1 for tens, face cards and aces
+     */
+    public final int hiLo() {
+        final int score = score();
+        if (score <= 6) {
+            return 1;
+        }
+        if (score <= 9) {
+            return 0;
         }
+        return -1;
     }
 
     /**
@@ -156,6 +227,6 @@ public final class Card {
      * @return a string on the form "suite + value"
      */
     public final String toString() {
-        return suiteTable.get(suite) + valueTable.get(value);
+        return NAMES[index()];
     }
 }
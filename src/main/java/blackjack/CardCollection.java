@@ -3,20 +3,34 @@ package blackjack;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * CardCollection is a generic collection of cards.
  *
  * <p>The Deck and Hand classes inherits from this class.
+ *
+ * <p>Drawing a card from the top only moves the start of the collection forward, and does not
+ * change the list of cards. This makes it possible to fork a collection in O(1), where the fork
+ * shares the list of cards with the original, and the list is only copied when either of them
+ * adds, removes or shuffles cards (copy-on-write).
  */
 public class CardCollection {
 
-    // The cards that this CardCollection contains and represents
+    // The cards that this CardCollection contains and represents, from the index first and on
     private ArrayList<Card> cards;
 
+    // the index of the top card in cards, the cards before it have been drawn
+    private int first = 0;
+
+    // is the list of cards shared with a fork, and must be copied before it is changed?
+    private boolean shared = false;
+
     // If a new Deck was created, save a copy of the initial cards in case
     // the we runs out of cards and need a fresh set of cards.
     private ArrayList<Card> initialCards;
@@ -24,12 +38,25 @@ public class CardCollection {
     // lastScore caches the score, to avoid re-calculating it needlessly
     private int lastScore;
 
+    // lastAces caches the number of aces, and is updated together with lastScore
+    private int lastAces;
+
     // has the cards been changed since last call to .score()?
     private boolean changed = true;
 
     // has the cards been shuffled?
     private boolean shuffled = false;
 
+    // the source of randomness when shuffling, or null for a thread local one
+    private Random random = null;
+
+    // the number of cards per card score (2 to 11) in this collection, kept up to date as cards
+    // are added and removed, so that the composition never needs to be counted
+    private final int[] composition = new int[12];
+
+    // the Hi-Lo running count of the cards that have been drawn since the last renew
+    private int runningCount = 0;
+
     /**
      * CardCollection constructs either an empty or a full deck of cards.
      *
@@ -43,6 +70,27 @@ public class CardCollection {
         }
         // make a copy of the initial cards
         initialCards = new ArrayList<Card>(cards);
+        recountComposition();
+    }
+
+    /**
+     * CardCollection constructs a fork of another collection, that shares the list of cards with
+     * it until either of them changes it.
+     *
+     * @param other is the collection to fork
+     */
+    protected CardCollection(final CardCollection other) {
+        cards = other.cards;
+        initialCards = other.initialCards;
+        first = other.first;
+        shared = true;
+        other.shared = true;
+        lastScore = other.lastScore;
+        lastAces = other.lastAces;
+        changed = other.changed;
+        shuffled = other.shuffled;
+        System.arraycopy(other.composition, 0, composition, 0, composition.length);
+        runningCount = other.runningCount;
     }
 
     /** Convenience constructor for creating an empty collection of cards. */
@@ -67,8 +115,30 @@ public class CardCollection {
         scanner.close();
     }
 
+    /**
+     * Fork this collection in O(1). Drawing from either the fork or the original does not change
+     * the other. The fork shuffles with its own unseeded source of randomness, until setSeed is
+     * called on it.
+     *
+     * @return a new collection with the same cards
+     */
+    public CardCollection fork() {
+        return new CardCollection(this);
+    }
+
+    // writable makes sure that the list of cards is not shared, so that it can be changed. The
+    // cards that have been drawn are left out of the copy.
+    private void writable() {
+        if (shared) {
+            cards = new ArrayList<Card>(cards.subList(first, cards.size()));
+            first = 0;
+            shared = false;
+        }
+    }
+
     /* add52 will generate and add a full deck of 52 unique cards */
     private void add52Cards() {
+        writable();
         for (Card.Suite suite : Card.Suite.values()) {
             for (Card.Value value : Card.Value.values()) {
                 cards.add(new Card(suite, value));
@@ -83,12 +153,14 @@ public class CardCollection {
      * @throws CardParseException if one of the card strings can not be parsed
      */
     public void addCards(String line) throws CardParseException {
+        writable();
         for (String code : line.split(",")) {
             cards.add(new Card(code.trim()));
             changed = true;
         }
         // make a copy of the cards
-        initialCards = new ArrayList<Card>(cards);
+        initialCards = new ArrayList<Card>(cards.subList(first, cards.size()));
+        recountComposition();
     }
 
     /**
@@ -105,6 +177,7 @@ public class CardCollection {
         }
         // make a copy of the cards
         initialCards = new ArrayList<Card>(cards);
+        recountComposition();
     }
 
     /**
@@ -114,11 +187,13 @@ public class CardCollection {
      */
     public final Optional<Card> draw() {
         changed = true;
-        if (cards.isEmpty()) {
+        if (first == cards.size()) {
             return Optional.empty();
         }
-        Optional<Card> maybeCard = Optional.of(cards.remove(0));
-        return maybeCard;
+        final Card card = cards.get(first++);
+        composition[card.score()]--;
+        runningCount += card.hiLo();
+        return Optional.of(card);
     }
 
     /**
@@ -134,7 +209,10 @@ public class CardCollection {
         if (maybeCard.isEmpty()) {
             return maybeCard;
         }
-        cards.add(maybeCard.get());
+        final Card card = maybeCard.get();
+        writable();
+        cards.add(card);
+        composition[card.score()]++;
         changed = true;
         return maybeCard;
     }
@@ -158,21 +236,49 @@ public class CardCollection {
                 throw new OutOfCardsException("deck is empty after re-initializing it");
             }
         }
-        cards.add(maybeCard.get());
+        final Card card = maybeCard.get();
+        writable();
+        cards.add(card);
+        composition[card.score()]++;
         changed = true;
         return maybeCard;
     }
 
     /** Shuffle the cards */
     public void shuffle() {
-        Collections.shuffle(cards);
+        writable();
+        Collections.shuffle(
+                cards.subList(first, cards.size()),
+                random != null ? random : ThreadLocalRandom.current());
         shuffled = true;
         changed = true;
     }
 
-    /** Clear the current collection of cards. */
+    /**
+     * Use a seeded source of randomness for all future shuffles, to get repeatable results.
+     *
+     * @param seed is the seed for the random number generator
+     */
+    public void setSeed(final long seed) {
+        random = new Random(seed);
+    }
+
+    /** Go back to using a thread local, unseeded source of randomness for all future shuffles. */
+    public void clearSeed() {
+        random = null;
+    }
+
+    /** Clear the current collection of cards, and start a new running count. */
     public void clear() {
-        cards.clear();
+        if (shared) {
+            cards = new ArrayList<Card>();
+            shared = false;
+        } else {
+            cards.clear();
+        }
+        first = 0;
+        Arrays.fill(composition, 0);
+        runningCount = 0;
         changed = true;
     }
 
@@ -188,21 +294,106 @@ public class CardCollection {
             return lastScore;
         }
         int sum = 0;
-        for (Card card : cards) {
-            sum += card.score();
+        int aces = 0;
+        for (int i = first; i < cards.size(); i++) {
+            final int cardScore = cards.get(i).score();
+            sum += cardScore;
+            if (cardScore == 11) {
+                aces++;
+            }
         }
         changed = false;
         lastScore = sum;
+        lastAces = aces;
+        return sum;
+    }
+
+    /**
+     * Count the aces in this collection of cards.
+     *
+     * @return the number of aces
+     */
+    public final int aces() {
+        score(); // update the cached values, if needed
+        return lastAces;
+    }
+
+    /**
+     * Calculate the best total score, where aces count as 1 instead of 11 if needed to stay at 21
+     * or below. The score method always counts aces as 11.
+     *
+     * @return the best total score
+     */
+    public final int bestScore() {
+        int sum = score();
+        int aces = lastAces;
+        while (sum > 21 && aces > 0) {
+            sum -= 10;
+            aces--;
+        }
         return sum;
     }
 
+    /**
+     * Check if the best total score is soft, which means that it counts an ace as 11.
+     *
+     * @return true if the best total score is soft
+     */
+    public final boolean isSoft() {
+        int sum = score();
+        int aces = lastAces;
+        while (sum > 21 && aces > 0) {
+            sum -= 10;
+            aces--;
+        }
+        return aces > 0;
+    }
+
+    /**
+     * Add a card to this collection of cards.
+     *
+     * @param card is the card to add
+     */
+    public final void add(Card card) {
+        writable();
+        cards.add(card);
+        composition[card.score()]++;
+        changed = true;
+    }
+
+    /**
+     * Remove the last card that was added to this collection of cards.
+     *
+     * @return either a Card wrapped in an Optional, or an empty Optional if the collection is empty
+     */
+    public final Optional<Card> removeLast() {
+        if (isEmpty()) {
+            return Optional.empty();
+        }
+        writable();
+        changed = true;
+        final Card card = cards.remove(cards.size() - 1);
+        composition[card.score()]--;
+        return Optional.of(card);
+    }
+
+    /**
+     * Get a card from this collection, without removing it.
+     *
+     * @param index is the position of the card, where 0 is the top of the pile / start of the list
+     * @return the card at the given position
+     */
+    public final Card get(final int index) {
+        return cards.get(first + index);
+    }
+
     /**
      * Check if the current card collection is empty.
      *
      * @return true if it is empty
      */
     public final boolean isEmpty() {
-        return cards.isEmpty();
+        return first == cards.size();
     }
 
     /**
@@ -211,7 +402,7 @@ public class CardCollection {
      * @return the number of cards in this collection
      */
     public final int count() {
-        return cards.size();
+        return cards.size() - first;
     }
 
     /**
@@ -225,9 +416,16 @@ public class CardCollection {
 
     /** Re-initialize the cards. */
     public final void renew() {
+        final ArrayList<Card> shoe = nextShoe();
+        if (shoe != null) {
+            renew(shoe);
+            return;
+        }
         if (!initialCards.isEmpty()) {
             // Make a copy of the initial cards
             cards = new ArrayList<Card>(initialCards);
+            first = 0;
+            shared = false;
         } else {
             // Generate and add 52 unique cards
             add52Cards();
@@ -235,14 +433,87 @@ public class CardCollection {
         if (shuffled) {
             shuffle();
         }
+        recountComposition();
+        runningCount = 0;
+        changed = true;
+        renewed();
+    }
+
+    /**
+     * Re-initialize the cards with cards that were shuffled elsewhere.
+     *
+     * @param shoe is the list of cards that this collection owns from now on
+     */
+    final void renew(final ArrayList<Card> shoe) {
+        cards = shoe;
+        first = 0;
+        shared = false;
+        shuffled = true;
+        recountComposition();
+        runningCount = 0;
         changed = true;
+        renewed();
+    }
+
+    /**
+     * nextShoe can be overridden to renew the collection with cards that were made elsewhere.
+     *
+     * @return a list of cards that this collection owns from now on, or null to renew from the
+     *     initial cards
+     */
+    protected ArrayList<Card> nextShoe() {
+        return null;
+    }
+
+    /** renewed is called after the collection has been renewed, and can be overridden. */
+    protected void renewed() {}
+
+    // recountComposition counts the cards per card score from scratch
+    private void recountComposition() {
+        Arrays.fill(composition, 0);
+        for (int i = first; i < cards.size(); i++) {
+            composition[cards.get(i).score()]++;
+        }
+    }
+
+    /**
+     * Get the Hi-Lo running count of the cards that have been drawn from this collection since it
+     * was last renewed. Cards from 2 to 6 count +1, 7 to 9 count 0 and tens and aces count -1.
+     *
+     * @return the running count
+     */
+    public final int runningCount() {
+        return runningCount;
+    }
+
+    /**
+     * Get the Hi-Lo true count, which is the running count per remaining deck of 52 cards.
+     *
+     * @return the true count, or the running count if there are no cards left
+     */
+    public final double trueCount() {
+        final int remaining = count();
+        if (remaining == 0) {
+            return runningCount;
+        }
+        return runningCount * 52.0 / remaining;
+    }
+
+    /**
+     * Count the cards in this collection with the given card score, without going through them.
+     *
+     * @param cardScore is the card score, from 2 to 11, where 10 is all tens and face cards
+     * @return the number of cards with that score
+     */
+    public final int remaining(final int cardScore) {
+        return composition[cardScore];
     }
 
     /** Return the current collection of cards as a comma separated string of cards. */
     public final String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < cards.size(); i++) {
-            if (i != 0) {
+        for (int i = first; i < cards.size(); i++) {
+            if (i != first) {
                 sb.append(", ");
             }
             sb.append(cards.get(i).toString());
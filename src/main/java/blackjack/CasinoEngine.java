@@ -0,0 +1,135 @@
+package blackjack;
+
+/**
+ * CasinoEngine plays rounds with casino rules where pairs are never split. Aces count as 1 or 11,
+ * the dealer stands on 17 (or hits a soft 17), and doubling and late surrender are optional.
+ */
+final class CasinoEngine implements RoundEngine {
+
+    private final boolean dealerHitsSoft17;
+    private final boolean doubling;
+    private final boolean surrender;
+    private final double blackjackPayout;
+
+    private final Deck deck;
+    private final Strategy strat;
+    private final Hand sam = new Hand();
+    private final Dealer dealer = new Dealer();
+
+    // the cards that Sam has not seen, which is what the strategy is shown of the deck
+    private final UnseenCards unseen = new UnseenCards();
+
+    // the hand that the strategy is shown, with the best score of Sam's hand
+    private final Hand view = new Hand();
+
+    /**
+     * Create a CasinoEngine.
+     *
+     * @param rules are the casino rules to play with. Splitting is ignored.
+     * @param deck is the deck to draw cards from
+     * @param strat is the strategy that Sam will be using
+     */
+    CasinoEngine(Rules rules, Deck deck, Strategy strat) {
+        this.dealerHitsSoft17 = rules.dealerHitsSoft17();
+        this.doubling = rules.doubling();
+        this.surrender = rules.surrender();
+        this.blackjackPayout = rules.blackjackPayout();
+        this.deck = deck;
+        this.strat = strat;
+    }
+
+    @Override
+    public double playRound() throws OutOfCardsException {
+        sam.clear();
+        dealer.clear();
+        if (deck.count() < 4) {
+            deck.renew();
+        }
+
+        sam.draw(deck);
+        dealer.draw(deck);
+        sam.draw(deck);
+        final Card dealerUpcard = dealer.draw(deck).get();
+        unseen.reset(deck, dealer.get(0));
+
+        // The dealer peeks for Blackjack before Sam plays
+        final boolean samNatural = sam.bestScore() == 21;
+        if (dealer.bestScore() == 21) {
+            return samNatural ? 0 : -1;
+        }
+        if (samNatural) {
+            return blackjackPayout;
+        }
+
+        if (surrender && strat.shouldSurrender(bestView(sam, view), dealerUpcard)) {
+            return -0.5;
+        }
+
+        double bet = 1;
+        if (doubling && strat.shouldDouble(bestView(sam, view), dealerUpcard)) {
+            bet = 2;
+            sam.draw(deck);
+        } else {
+            while (sam.bestScore() < 21
+                    && strat.shouldHit(bestView(sam, view), dealerUpcard, unseen)) {
+                sam.draw(deck);
+            }
+        }
+        if (sam.bestScore() > 21) {
+            return -bet;
+        }
+
+        dealerPlays(dealer, deck, dealerHitsSoft17);
+        return bet * settle(sam.bestScore(), dealer.bestScore());
+    }
+
+    /**
+     * Show a hand to a strategy with its best score. The strategies decide on Hand.score, which
+     * counts every ace as 11, so A,5,6 would look like a bust 22 instead of a hard 12. The view has
+     * the best score, at most one ace for a soft score, and the same number of cards. A hand with
+     * many aces and few other cards, like A,A, has no such view, and is shown as the closest hand.
+     *
+     * @param hand is the hand to show
+     * @param view is the hand to fill, and must not be kept by the strategy
+     * @return the view
+     */
+    static Hand bestView(final Hand hand, final Hand view) {
+        return SyntheticHand.fill(view, hand.bestScore(), hand.isSoft() ? 1 : 0, hand.count());
+    }
+
+    /**
+     * Let the dealer draw until standing on 17 or more, or hitting a soft 17 if the rules say so.
+     *
+     * @param dealer is the dealer hand
+     * @param deck is the deck to draw cards from
+     * @param hitsSoft17 is true if the dealer hits a soft 17
+     * @throws OutOfCardsException if the deck is empty even after re-initializing it
+     */
+    static void dealerPlays(final Dealer dealer, final Deck deck, final boolean hitsSoft17)
+            throws OutOfCardsException {
+        while (true) {
+            final int score = dealer.bestScore();
+            if (score > 17 || (score == 17 && !(hitsSoft17 && dealer.isSoft()))) {
+                return;
+            }
+            dealer.draw(deck);
+        }
+    }
+
+    /**
+     * Compare the best scores of a hand and of the dealer, when the hand is not bust.
+     *
+     * @param score is the best score of the hand, 21 or less
+     * @param dealerScore is the best score of the dealer
+     * @return 1 if the hand won, -1 if the dealer won and 0 for a push
+     */
+    static int settle(final int score, final int dealerScore) {
+        if (dealerScore > 21 || score > dealerScore) {
+            return 1;
+        }
+        if (score < dealerScore) {
+            return -1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+package blackjack;
+
+/**
+ * ClassicEngine plays rounds with the classic rules of this game, by using Game.oneRound as it is.
+ */
+final class ClassicEngine implements RoundEngine {
+
+    private final Game game;
+    private final Strategy strat;
+
+    /**
+     * Create a ClassicEngine.
+     *
+     * @param deck is the deck to draw cards from
+     * @param strat is the strategy that Sam will be using
+     */
+    ClassicEngine(Deck deck, Strategy strat) {
+        this.game = new Game(deck, strat, false, false);
+        this.strat = strat;
+    }
+
+    @Override
+    public double playRound() throws OutOfCardsException {
+        final Game.Result result = game.oneRound(strat);
+        game.prepareNewRound();
+        switch (result) {
+            case SAM_WON:
+                return 1;
+            case DEALER_WON:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+}
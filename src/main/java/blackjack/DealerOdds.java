@@ -0,0 +1,199 @@
+package blackjack;
+
+import java.util.HashMap;
+
+/**
+ * DealerOdds finds the exact probabilities of how a round ends once Sam stands, by enumerating the
+ * cards that the dealer can draw from the rest of the deck. The dealer draws while below the score
+ * of Sam, like in Game.oneRound, so the outcome only depends on the score of the dealer, the score
+ * of Sam and the composition of the deck.
+ *
+ * <p>outcomeFromUpcard also enumerates the hole card, from the cards that Sam has not seen, so
+ * that the outcome only depends on what Sam knows when standing. This removes the variance of the
+ * hole card too, which conditioning on the full score of the dealer would leave in.
+ *
+ * <p>The probabilities are cached by those three values, for every position that the dealer can
+ * reach, so that later rounds with the same or a smaller deck are mostly table lookups. A
+ * DealerOdds is not thread safe, and is meant to be used by one Game at a time.
+ */
+public final class DealerOdds {
+
+    // the indices of the probabilities in an outcome, as seen from Sam
+    public static final int WIN = 0;
+    public static final int LOSS = 1;
+    public static final int PUSH = 2;
+
+    private static final double[] SAM_WINS = {1, 0, 0};
+    private static final double[] DEALER_WINS = {0, 1, 0};
+    private static final double[] NOBODY_WINS = {0, 0, 1};
+
+    // The composition is packed into the lower 32 bits of the keys, like in ExactSolver, with 3
+    // bits per card score, except for the tens that need 5 bits.
+    private static final int[] COMPOSITION_SHIFT = {0, 0, 0, 3, 6, 9, 12, 15, 18, 21, 24, 29};
+    private static final int[] COMPOSITION_MAX = {0, 0, 7, 7, 7, 7, 7, 7, 7, 7, 31, 7};
+
+    // The dealer draws at least 2 points per card and has at least 4 points, so a deck with this
+    // many cards can not run out before the dealer is done, and is never renewed mid-round.
+    private static final int MIN_CARDS = 9;
+
+    // the bit that marks a key as the score of an upcard, before the hole card is enumerated
+    private static final long UPCARD_KEY = 1L << 42;
+
+    // the cache is cleared when it grows beyond this number of positions
+    private static final int MAX_POSITIONS = 1 << 20;
+
+    private final HashMap<Long, double[]> cache = new HashMap<Long, double[]>();
+    private final int[] composition = new int[12];
+
+    /**
+     * Find the probabilities of the outcomes of a round, where Sam stands and the dealer draws
+     * from the given deck while below the score of Sam.
+     *
+     * @param dealerScore is the score of the dealer, with both the upcard and the hole card
+     * @param samScore is the score that Sam stands on, where two aces are 22
+     * @param shoe is the deck that the dealer will draw from
+     * @param outcome is where the probabilities of SAM_WON, DEALER_WON and PUSH are written, at
+     *     the WIN, LOSS and PUSH indices
+     * @return false if the probabilities can not be found, because the deck is too small or has
+     *     too many cards of one score, and the dealer's cards should be dealt instead
+     */
+    public boolean outcome(
+            final int dealerScore,
+            final int samScore,
+            final ShoeState shoe,
+            final double[] outcome) {
+        if (shoe.count() < MIN_CARDS) {
+            return false;
+        }
+        final long key = compose(shoe);
+        if (key < 0) {
+            return false;
+        }
+        final double[] found = dealerTurn(dealerScore, samScore, key, shoe.count());
+        System.arraycopy(found, 0, outcome, 0, 3);
+        return true;
+    }
+
+    /**
+     * Find the probabilities of the outcomes of a round, where Sam stands and only the upcard of
+     * the dealer is known. The hole card is any of the unseen cards, and the dealer then draws from
+     * the rest of them while below the score of Sam. Two aces beat Sam, even when Sam has two aces.
+     *
+     * @param upcardScore is the score of the dealer's upcard
+     * @param samScore is the score that Sam stands on, where two aces are 22
+     * @param unseen is the cards that Sam has not seen, which are the deck that the dealer will
+     *     draw from, and the hole card
+     * @param outcome is where the probabilities of SAM_WON, DEALER_WON and PUSH are written, at
+     *     the WIN, LOSS and PUSH indices
+     * @return false if the probabilities can not be found, because the deck is too small or has
+     *     too many cards of one score, and the dealer's cards should be dealt instead
+     */
+    public boolean outcomeFromUpcard(
+            final int upcardScore,
+            final int samScore,
+            final ShoeState unseen,
+            final double[] outcome) {
+        if (unseen.count() < MIN_CARDS + 1) {
+            return false;
+        }
+        final long compositionKey = compose(unseen);
+        if (compositionKey < 0) {
+            return false;
+        }
+        final int cards = unseen.count();
+        final long key =
+                compositionKey
+                        | (long) upcardScore << 32
+                        | (long) samScore << 37
+                        | UPCARD_KEY;
+        double[] found = cache.get(key);
+        if (found == null) {
+            found = new double[3];
+            for (int score = 2; score <= 11; score++) {
+                final int n = composition[score];
+                if (n == 0) {
+                    continue;
+                }
+                final double p = (double) n / cards;
+                double[] next = DEALER_WINS;
+                if (upcardScore + score < 22) {
+                    composition[score]--;
+                    next =
+                            dealerTurn(
+                                    upcardScore + score,
+                                    samScore,
+                                    compositionKey - (1L << COMPOSITION_SHIFT[score]),
+                                    cards - 1);
+                    composition[score]++;
+                }
+                found[WIN] += p * next[WIN];
+                found[LOSS] += p * next[LOSS];
+                found[PUSH] += p * next[PUSH];
+            }
+            cache.put(key, found);
+        }
+        System.arraycopy(found, 0, outcome, 0, 3);
+        return true;
+    }
+
+    // compose copies the composition of the shoe, and returns it packed into a key, or -1 if there
+    // are too many cards of one score. The cache is cleared if it has grown too large.
+    private long compose(final ShoeState shoe) {
+        long key = 0;
+        for (int score = 2; score <= 11; score++) {
+            composition[score] = shoe.remaining(score);
+            if (composition[score] > COMPOSITION_MAX[score]) {
+                return -1;
+            }
+            key += (long) composition[score] << COMPOSITION_SHIFT[score];
+        }
+        if (cache.size() > MAX_POSITIONS) {
+            cache.clear();
+        }
+        return key;
+    }
+
+    /** @return the number of positions in the cache */
+    public int positions() {
+        return cache.size();
+    }
+
+    // dealerTurn lets the dealer draw while below the score of Sam, and looks up or stores the
+    // outcome
+    private double[] dealerTurn(
+            final int dealerScore, final int samScore, final long compositionKey, final int cards) {
+        // the dealer only busts by drawing, so two aces beat any score that Sam stands on
+        if (dealerScore >= samScore) {
+            return dealerScore > samScore ? DEALER_WINS : NOBODY_WINS;
+        }
+        final long key = compositionKey | (long) dealerScore << 32 | (long) samScore << 37;
+        final double[] cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        double[] outcome = new double[3];
+        for (int score = 2; score <= 11; score++) {
+            final int n = composition[score];
+            if (n == 0) {
+                continue;
+            }
+            final double p = (double) n / cards;
+            double[] next = SAM_WINS;
+            if (dealerScore + score <= 21) {
+                composition[score]--;
+                next =
+                        dealerTurn(
+                                dealerScore + score,
+                                samScore,
+                                compositionKey - (1L << COMPOSITION_SHIFT[score]),
+                                cards - 1);
+                composition[score]++;
+            }
+            outcome[WIN] += p * next[WIN];
+            outcome[LOSS] += p * next[LOSS];
+            outcome[PUSH] += p * next[PUSH];
+        }
+        cache.put(key, outcome);
+        return outcome;
+    }
+}
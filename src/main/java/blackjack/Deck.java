@@ -1,17 +1,85 @@
 package blackjack;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.function.Supplier;
 
 /**
  * Deck is a collection of cards that is a full deck of 52 cards by default, and can be drawn from.
  */
-public final class Deck extends CardCollection {
+public final class Deck extends CardCollection implements ShoeState {
+
+    // where shuffled shoes are taken from when the deck is renewed, or null to shuffle the deck
+    private final Supplier<ArrayList<Card>> shoes;
+
+    // where the new cards are logged when the deck is renewed, or null
+    private RoundLog log = null;
 
     Deck() {
         super(true); // start with 52 random cards
+        shoes = null;
     }
 
     Deck(String filename) throws FileNotFoundException, CardParseException {
         super(filename);
+        shoes = null;
+    }
+
+    /**
+     * Create a deck that is renewed with shoes that were shuffled by another thread, and start
+     * with the first of them. The deck must only be used by the consumer thread of the ring.
+     *
+     * @param shoes is the ring that shuffled shoes are taken from
+     */
+    Deck(ShoeRing shoes) {
+        this(shoes::take);
+    }
+
+    /**
+     * Create a deck that is renewed with shoes from elsewhere, and start with the first of them.
+     *
+     * @param shoes gives the next shoe, or null to renew the deck by shuffling it
+     */
+    Deck(Supplier<ArrayList<Card>> shoes) {
+        super(true);
+        this.shoes = shoes;
+        renew();
+    }
+
+    private Deck(Deck other) {
+        super(other);
+        // a fork may be used by another thread, so it shuffles its own cards
+        shoes = null;
+    }
+
+    @Override
+    protected ArrayList<Card> nextShoe() {
+        return shoes == null ? null : shoes.get();
+    }
+
+    @Override
+    protected void renewed() {
+        if (log != null) {
+            log.shoe(this);
+        }
+    }
+
+    /**
+     * Log the cards of the deck every time it is renewed.
+     *
+     * @param log is the log, or null to stop logging
+     */
+    void setLog(final RoundLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Fork this deck in O(1), for looking ahead without changing it.
+     *
+     * @return a new deck with the same cards left, in the same order
+     */
+    @Override
+    public Deck fork() {
+        return new Deck(this);
     }
 }
@@ -0,0 +1,566 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DistributedOptimizer runs the brute force search of Optimizer.run in several processes.
+ *
+ * <p>A coordinator splits the parameter space of a strategy into chunks, where a chunk is a range
+ * of candidate numbers, counted by calls to StrategyFactory.next. Workers connect to the
+ * coordinator over TCP, and ask for one chunk at a time. A worker evaluates its chunk the same way
+ * as Optimizer.run does, starting from the best win ratio that the coordinator knows of, and sends
+ * back the best results of the chunk. If a worker fails or disconnects, its chunk is given to
+ * another worker. Local worker processes that exit before all chunks are done are restarted, and
+ * the run fails if no chunk has been finished by any worker for ten minutes.
+ *
+ * <p>The protocol is one line of text per message:
+ *
+ * <ul>
+ *   <li>coordinator: CHUNK id name start end n nSecondary nTertiary threshold top
+ *   <li>worker: TOP winRatio params, for each of the top best results of the chunk
+ *   <li>worker: BEST winRatio params, if the chunk had a result that beat the threshold
+ *   <li>worker: DONE id candidates rounds
+ *   <li>coordinator: STOP, when there are no more chunks
+ * </ul>
+ *
+ * <p>Win ratios are written with Double.toString, so that the merged results are the same as the
+ * results of a single process.
+ *
+ * <p>The coordinator only listens on localhost. Workers on other hosts can connect through an SSH
+ * tunnel.
+ */
+public final class DistributedOptimizer {
+
+    /** The number of candidates in a chunk */
+    public static final int CHUNK_SIZE = 512;
+
+    // a worker that has not finished a chunk in this time is considered to have failed, and a run
+    // where no worker has finished a chunk in this time fails
+    private static final int WORKER_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+    // Chunk is a range of candidate numbers, from start to end, where end is not included
+    private static final class Chunk {
+        final int id;
+        final int start;
+        final int end;
+
+        Chunk(final int id, final int start, final int end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final Strategy strat;
+    private final String name;
+    private final int n;
+    private final int nSecondary;
+    private final int nTertiary;
+    private final int topResults;
+    private final int timeoutMillis;
+    private final Benchmark benchmark;
+    private final TopResults top;
+    private final LinkedBlockingQueue<Chunk> queue = new LinkedBlockingQueue<Chunk>();
+    private final AtomicInteger workers = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    private CountDownLatch remaining;
+    private boolean[] done;
+    private double bestRatio;
+    private String bestParams;
+    private long candidates = 0;
+    private long rounds = 0;
+    private long lastMergeNanos;
+
+    private DistributedOptimizer(
+            final Strategy strat,
+            final String name,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final int topResults,
+            final int timeoutMillis,
+            final Benchmark benchmark) {
+        this.strat = strat;
+        this.name = name;
+        this.n = n;
+        this.nSecondary = nSecondary;
+        this.nTertiary = nTertiary;
+        this.topResults = topResults;
+        this.timeoutMillis = timeoutMillis;
+        this.benchmark = benchmark;
+        this.top = new TopResults(topResults);
+    }
+
+    /**
+     * Coordinate a search through all possible parameters for the given strategy, until every
+     * chunk has been evaluated by a worker. The best results are listed on stdout at the end.
+     *
+     * @param strat is the strategy to optimize
+     * @param port is the port to listen to on localhost, or 0 for any free port
+     * @param localWorkers is the number of worker processes to start on this host
+     * @param n is the number of rounds to play when initially looking for a better win ratio
+     * @param nSecondary is the number of rounds to play if the win ratio after n rounds is better
+     * @param nTertiary is the number of rounds to play if the win ratio after nSecondary rounds is
+     *     better
+     * @param topResults is the number of best results to keep and list at the end
+     * @throws InvalidFlagValueException if the strategy can not be created by name by the workers
+     * @throws IOException if the coordinator could not listen to the port, or if no worker
+     *     finished a chunk for ten minutes
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static void coordinate(
+            final Strategy strat,
+            final int port,
+            final int localWorkers,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final int topResults)
+            throws InvalidFlagValueException, IOException, OutOfCardsException {
+        DistributedOptimizer coordinator =
+                create(
+                        strat,
+                        n,
+                        nSecondary,
+                        nTertiary,
+                        topResults,
+                        WORKER_TIMEOUT_MILLIS,
+                        Optimizer::getWinRatio);
+        try (ServerSocket server =
+                new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            coordinator.run(server, localWorkers);
+        }
+    }
+
+    // coordinate is the same as above, but with a socket that is already listening, which is
+    // closed when done, and without any worker processes. The candidates are measured with the
+    // given benchmark, which the workers must use too, and the run fails if no chunk is finished
+    // within timeoutMillis.
+    static void coordinate(
+            final Strategy strat,
+            final ServerSocket server,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final int topResults,
+            final int timeoutMillis,
+            final Benchmark benchmark)
+            throws InvalidFlagValueException, IOException, OutOfCardsException {
+        DistributedOptimizer coordinator =
+                create(strat, n, nSecondary, nTertiary, topResults, timeoutMillis, benchmark);
+        try (server) {
+            coordinator.run(server, 0);
+        }
+    }
+
+    // create returns a coordinator for a strategy that the workers can create by name
+    private static DistributedOptimizer create(
+            final Strategy strat,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final int topResults,
+            final int timeoutMillis,
+            final Benchmark benchmark)
+            throws InvalidFlagValueException {
+        final Optional<String> maybeName = Strategies.nameOf(strat);
+        if (maybeName.isEmpty()) {
+            throw new InvalidFlagValueException("this strategy can not be optimized by workers");
+        }
+        return new DistributedOptimizer(
+                strat,
+                maybeName.get(),
+                n,
+                nSecondary,
+                nTertiary,
+                topResults,
+                timeoutMillis,
+                benchmark);
+    }
+
+    // run splits the parameter space into chunks, and serves them until all of them are done
+    private void run(final ServerSocket server, final int localWorkers)
+            throws IOException, OutOfCardsException {
+        final StrategyFactory factory = strat.factory();
+        final Strategy first = factory.create(factory.first());
+        bestRatio = benchmark.winRatio(first, n);
+        bestParams = first.toString();
+
+        final int possibilities = factory.possibilities();
+        int chunks = 0;
+        for (int start = 0; start < possibilities; start += CHUNK_SIZE) {
+            queue.add(new Chunk(chunks++, start, Math.min(possibilities, start + CHUNK_SIZE)));
+        }
+        done = new boolean[chunks];
+        remaining = new CountDownLatch(chunks);
+
+        ArrayList<Process> processes = new ArrayList<Process>();
+        try {
+            System.out.printf(
+                    "Coordinating %d chunks of %s on port %d.\n",
+                    chunks, name, server.getLocalPort());
+            for (int i = 0; i < localWorkers; i++) {
+                processes.add(startWorker(server.getLocalPort()));
+            }
+            lastMergeNanos = System.nanoTime();
+            Thread acceptor = new Thread(() -> accept(server), "coordinator-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            awaitChunks(server.getLocalPort(), processes);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // the workers stop by themselves when all chunks are done
+            final boolean finished = remaining.getCount() == 0;
+            for (Process process : processes) {
+                try {
+                    if (!finished || !process.waitFor(5, TimeUnit.SECONDS)) {
+                        process.destroy();
+                    }
+                } catch (InterruptedException ex) {
+                    process.destroy();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        for (TopResults.Entry entry : top.sorted()) {
+            System.out.printf("%f: %s\n", entry.winRatio, entry.params);
+        }
+        System.out.printf(
+                "Evaluated %d candidates and played %d rounds in %.3f seconds.\n",
+                candidates, rounds, seconds);
+    }
+
+    // awaitChunks waits until all chunks are done. Local worker processes that exit before that are
+    // restarted, and if no chunk is finished within the timeout, the run fails.
+    private void awaitChunks(final int port, final ArrayList<Process> processes)
+            throws IOException, InterruptedException {
+        while (!remaining.await(Math.min(1000, timeoutMillis), TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < processes.size(); i++) {
+                final Process process = processes.get(i);
+                if (!process.isAlive()) {
+                    System.err.printf(
+                            "worker process %d exited with %d, starting a new one\n",
+                            process.pid(), process.exitValue());
+                    processes.set(i, startWorker(port));
+                }
+            }
+            final long idleMillis = idleMillis();
+            if (idleMillis >= timeoutMillis) {
+                throw new IOException(
+                        String.format(
+                                "no worker finished a chunk in %d ms, %d of %d chunks are left",
+                                idleMillis, remaining.getCount(), done.length));
+            }
+        }
+    }
+
+    // idleMillis returns the time since a chunk was last merged, or since the run started
+    private synchronized long idleMillis() {
+        return (System.nanoTime() - lastMergeNanos) / 1_000_000;
+    }
+
+    // accept accepts worker connections, and serves each one on its own thread
+    private void accept(final ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                final Socket socket = server.accept();
+                Thread thread = new Thread(() -> serve(socket), "coordinator-worker");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException ex) {
+                return; // the server socket was closed
+            }
+        }
+    }
+
+    // serve hands out chunks to one worker, and puts its chunk back in the queue if it fails
+    private void serve(final Socket socket) {
+        final int worker = workers.incrementAndGet();
+        Chunk chunk = null;
+        try (socket) {
+            socket.setSoTimeout(timeoutMillis);
+            BufferedReader in =
+                    new BufferedReader(
+                            new InputStreamReader(
+                                    socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out =
+                    new BufferedWriter(
+                            new OutputStreamWriter(
+                                    socket.getOutputStream(), StandardCharsets.UTF_8));
+            while (true) {
+                chunk = nextChunk();
+                if (chunk == null) {
+                    out.write("STOP\n");
+                    out.flush();
+                    return;
+                }
+                out.write(
+                        String.format(
+                                Locale.ROOT,
+                                "CHUNK %d %s %d %d %d %d %d %s %d\n",
+                                chunk.id,
+                                name,
+                                chunk.start,
+                                chunk.end,
+                                n,
+                                nSecondary,
+                                nTertiary,
+                                threshold(),
+                                topResults));
+                out.flush();
+                receive(in, chunk, worker);
+                chunk = null;
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.err.printf("worker %d failed: %s\n", worker, ex);
+        } finally {
+            workers.decrementAndGet();
+            if (chunk != null) {
+                queue.add(chunk);
+            }
+        }
+    }
+
+    // nextChunk waits for a chunk, and returns null when all chunks are done
+    private Chunk nextChunk() {
+        try {
+            while (remaining.getCount() > 0) {
+                final Chunk chunk = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    // receive reads the results of a chunk from a worker, and merges them
+    private void receive(final BufferedReader in, final Chunk chunk, final int worker)
+            throws IOException {
+        ArrayList<String> lines = new ArrayList<String>();
+        while (true) {
+            final String line = in.readLine();
+            if (line == null) {
+                throw new IOException("the worker disconnected");
+            }
+            if (line.startsWith("DONE ")) {
+                final String[] fields = line.split(" ");
+                if (fields.length != 4 || Integer.parseInt(fields[1]) != chunk.id) {
+                    throw new IOException("unexpected message: " + line);
+                }
+                merge(chunk, lines, Long.parseLong(fields[2]), Long.parseLong(fields[3]), worker);
+                return;
+            }
+            if (!line.startsWith("TOP ") && !line.startsWith("BEST ")) {
+                throw new IOException("unexpected message: " + line);
+            }
+            lines.add(line);
+        }
+    }
+
+    // merge adds the results of a chunk, if that chunk has not been merged before
+    private synchronized void merge(
+            final Chunk chunk,
+            final ArrayList<String> lines,
+            final long chunkCandidates,
+            final long chunkRounds,
+            final int worker) {
+        if (done[chunk.id]) {
+            return;
+        }
+        done[chunk.id] = true;
+        for (String line : lines) {
+            final int start = line.indexOf(' ') + 1;
+            final int space = line.indexOf(' ', start);
+            final double winRatio = Double.parseDouble(line.substring(start, space));
+            final String params = line.substring(space + 1);
+            if (line.startsWith("TOP ")) {
+                top.offer(winRatio, params);
+            } else if (winRatio > bestRatio * Optimizer.AN_IMPROVEMENT) {
+                bestRatio = winRatio;
+                bestParams = params;
+            }
+        }
+        candidates += chunkCandidates;
+        rounds += chunkRounds;
+        lastMergeNanos = System.nanoTime();
+        remaining.countDown();
+
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf(
+                "[%d/%d] best win ratio %f: %s, %.0f candidates/s, %.0f rounds/s, %d workers"
+                        + " (chunk %d from worker %d)\n",
+                done.length - remaining.getCount(),
+                done.length,
+                bestRatio,
+                bestParams,
+                candidates / seconds,
+                rounds / seconds,
+                workers.get(),
+                chunk.id,
+                worker);
+    }
+
+    // threshold is the win ratio that a candidate must beat to count as an improvement
+    private synchronized double threshold() {
+        return bestRatio * Optimizer.AN_IMPROVEMENT;
+    }
+
+    // startWorker starts a worker process on this host, with the same Java and class path
+    private static Process startWorker(final int port) throws IOException {
+        final String java =
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder =
+                new ProcessBuilder(
+                        java,
+                        "-cp",
+                        System.getProperty("java.class.path"),
+                        Main.class.getName(),
+                        "--worker",
+                        Integer.toString(port));
+        builder.inheritIO();
+        return builder.start();
+    }
+
+    /**
+     * Connect to a coordinator, and evaluate chunks until the coordinator says stop.
+     *
+     * @param address is the port of a coordinator on localhost, or host:port
+     * @throws InvalidFlagValueException if the address is not valid
+     * @throws IOException if the connection to the coordinator failed
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static void work(final String address)
+            throws InvalidFlagValueException, IOException, OutOfCardsException {
+        work(address, Optimizer::getWinRatio);
+    }
+
+    // work is the same as above, but the candidates are measured with the given benchmark
+    static void work(final String address, final Benchmark benchmark)
+            throws InvalidFlagValueException, IOException, OutOfCardsException {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        String port = address;
+        final int colon = address.lastIndexOf(':');
+        if (colon >= 0) {
+            host = address.substring(0, colon);
+            port = address.substring(colon + 1);
+        }
+        final InetSocketAddress socketAddress;
+        try {
+            socketAddress = new InetSocketAddress(host, Integer.parseInt(port));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidFlagValueException("invalid coordinator address: " + address);
+        }
+
+        try (Socket socket = new Socket()) {
+            socket.connect(socketAddress);
+            work(socket, benchmark);
+        }
+    }
+
+    // work evaluates the chunks that are received over the given connection
+    private static void work(final Socket socket, final Benchmark benchmark)
+            throws IOException, OutOfCardsException {
+        try {
+            BufferedReader in =
+                    new BufferedReader(
+                            new InputStreamReader(
+                                    socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out =
+                    new BufferedWriter(
+                            new OutputStreamWriter(
+                                    socket.getOutputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null && line.startsWith("CHUNK ")) {
+                evaluate(line.split(" "), out, benchmark);
+                out.flush();
+            }
+        } catch (SocketException ex) {
+            // the coordinator is done, and has closed the connection
+        }
+    }
+
+    // evaluate evaluates a chunk, like Optimizer.run, and writes the best results of the chunk
+    private static void evaluate(
+            final String[] fields, final Writer out, final Benchmark benchmark)
+            throws IOException, OutOfCardsException {
+        final String id = fields[1];
+        final StrategyFactory factory = Strategies.create(fields[2], new double[0]).factory();
+        final int start = Integer.parseInt(fields[3]);
+        final int end = Integer.parseInt(fields[4]);
+        final int n = Integer.parseInt(fields[5]);
+        final int nSecondary = Integer.parseInt(fields[6]);
+        final int nTertiary = Integer.parseInt(fields[7]);
+        double threshold = Double.parseDouble(fields[8]);
+        final int topResults = Integer.parseInt(fields[9]);
+
+        // candidate number i is the parameters after i + 1 calls to next, from the first ones
+        Optional<Parameters> params = Optional.of(factory.first());
+        for (int i = 0; i < start && params.isPresent(); i++) {
+            params = factory.next(params.get());
+        }
+
+        TopResults top = new TopResults(topResults);
+        double bestRatio = 0;
+        String bestParams = null;
+        long candidates = 0;
+        long rounds = 0;
+        for (int i = start; i < end && params.isPresent(); i++) {
+            params = factory.next(params.get());
+            if (params.isEmpty()) {
+                break;
+            }
+            final Strategy strat = factory.create(params.get());
+            double winRatio = benchmark.winRatio(strat, n);
+            rounds += n;
+            if (winRatio > threshold) {
+                winRatio = benchmark.winRatio(strat, nSecondary);
+                rounds += nSecondary;
+                if (winRatio > threshold) {
+                    winRatio = benchmark.winRatio(strat, nTertiary);
+                    rounds += nTertiary;
+                    if (winRatio > threshold) {
+                        bestRatio = winRatio;
+                        bestParams = strat.toString();
+                        threshold = bestRatio * Optimizer.AN_IMPROVEMENT;
+                    }
+                }
+            }
+            top.offer(winRatio, strat);
+            candidates++;
+        }
+
+        for (TopResults.Entry entry : top.sorted()) {
+            out.write(String.format(Locale.ROOT, "TOP %s %s\n", entry.winRatio, entry.params));
+        }
+        if (bestParams != null) {
+            out.write(String.format(Locale.ROOT, "BEST %s %s\n", bestRatio, bestParams));
+        }
+        out.write(String.format("DONE %s %d %d\n", id, candidates, rounds));
+    }
+}
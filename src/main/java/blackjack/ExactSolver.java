@@ -0,0 +1,445 @@
+package blackjack;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ExactSolver finds the exact probabilities of winning, losing and pushing a round of Blackjack
+ * with a given Strategy, by enumerating every possible order of the cards that are not known.
+ *
+ * <p>The deck is one deck of 52 cards, where the first cards are known, in order, and the rest of
+ * the cards are unknown and in a random order. With no known cards, the result is the exact odds of
+ * a round with a freshly shuffled deck. With all 52 cards known, the result is the single outcome
+ * of playing that deck without shuffling.
+ *
+ * <p>The round is played with the same rules as in Game.oneRound. The search is a depth first
+ * search over the cards that can be drawn next, where the outcome of each decision point is
+ * memoized in a transposition table that is keyed on the remaining composition of the deck and the
+ * hand totals. The strategy is asked to decide with a Hand that has the same score, aces and number
+ * of cards, and with a ShoeState for the cards that Sam has not seen, which are the cards that are
+ * left and the dealer's hole card, so strategies that decide on the exact cards in the hand, and
+ * not on the totals, are not supported. The first levels of the search
+ * are split into fork/join tasks that run in parallel and share the transposition table.
+ */
+public final class ExactSolver {
+
+    // the number of levels of random draws that are split into separate fork/join tasks
+    private static final int FORK_DEPTH = 2;
+
+    // the number of cards per card score in one deck of 52 cards
+    private static final int[] DECK_COMPOSITION = {0, 0, 4, 4, 4, 4, 4, 4, 4, 4, 16, 4};
+
+    // The remaining unknown composition is packed into the lower 32 bits of the transposition table
+    // keys, with 3 bits per card score, except for the 16 tens that need 5 bits.
+    private static final int[] COMPOSITION_SHIFT = {0, 0, 0, 3, 6, 9, 12, 15, 18, 21, 24, 29};
+
+    // the steps of a round, in the order they are played
+    private static final int DEAL_SAM_1 = 0;
+    private static final int DEAL_DEALER_1 = 1;
+    private static final int DEAL_SAM_2 = 2;
+    private static final int DEAL_DEALER_2 = 3;
+    private static final int SAM_TURN = 4;
+    private static final int SAM_HIT = 5;
+    private static final int DEALER_TURN = 6;
+    private static final int DEALER_HIT = 7;
+
+    // the indices of the probabilities in an outcome
+    private static final int WIN = 0;
+    private static final int LOSS = 1;
+    private static final int PUSH = 2;
+
+    private static final double[] SAM_WINS = {1, 0, 0};
+    private static final double[] DEALER_WINS = {0, 1, 0};
+    private static final double[] NOBODY_WINS = {0, 0, 1};
+
+    private final Strategy strategy;
+    private final int[] known;
+    private final int[] unknown;
+    private final ConcurrentHashMap<Long, double[]> table = new ConcurrentHashMap<Long, double[]>();
+
+    /** Odds are the exact probabilities of the outcomes of a round, as seen from Sam. */
+    public static final class Odds {
+
+        private final double win;
+        private final double loss;
+        private final double push;
+        private final int states;
+
+        private Odds(final double[] outcome, final int states) {
+            this.win = outcome[WIN];
+            this.loss = outcome[LOSS];
+            this.push = outcome[PUSH];
+            this.states = states;
+        }
+
+        /** @return the probability that Sam wins */
+        public double win() {
+            return win;
+        }
+
+        /** @return the probability that the dealer wins */
+        public double loss() {
+            return loss;
+        }
+
+        /** @return the probability of a push */
+        public double push() {
+            return push;
+        }
+
+        /** @return the probability that Sam wins, divided by the probability that Sam loses */
+        public double winRatio() {
+            return win / loss;
+        }
+
+        /** @return the number of positions in the transposition table */
+        public int states() {
+            return states;
+        }
+    }
+
+    /**
+     * Create a solver for a deck where the first cards are known.
+     *
+     * @param strategy is the strategy that Sam will be using
+     * @param knownCards are the first cards of the deck, in the order they are drawn
+     * @throws CardParseException if the known cards are not part of one deck of 52 cards
+     */
+    ExactSolver(final Strategy strategy, final CardCollection knownCards)
+            throws CardParseException {
+        this.strategy = strategy;
+        known = new int[knownCards.count()];
+        unknown = DECK_COMPOSITION.clone();
+        for (int i = 0; i < known.length; i++) {
+            known[i] = knownCards.get(i).score();
+            unknown[known[i]]--;
+            if (unknown[known[i]] < 0) {
+                throw new CardParseException(
+                        "the known cards are not part of one deck of 52 cards: "
+                                + knownCards.get(i));
+            }
+        }
+    }
+
+    /**
+     * Enumerate all possible rounds and find the exact probabilities of the outcomes.
+     *
+     * @param pool is the fork/join pool to run the search in
+     * @return the exact probabilities
+     */
+    public Odds solve(final ForkJoinPool pool) {
+        table.clear();
+        final double[] outcome = pool.invoke(new Search(this));
+        return new Odds(outcome, table.size());
+    }
+
+    /**
+     * Enumerate all possible rounds with the common fork/join pool.
+     *
+     * @return the exact probabilities
+     */
+    public Odds solve() {
+        return solve(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Search is the mutable state of a depth first search from one position in a round. A search
+     * is split into new searches for the first levels of random draws, that then run in parallel.
+     */
+    private static final class Search extends RecursiveTask<double[]> implements ShoeState {
+
+        private final ExactSolver solver;
+        private final int[] unknown;
+        private final Hand sam = new Hand();
+
+        private int step = DEAL_SAM_1;
+        private int drawn = 0;
+        private int unknownCount = 0;
+        private long compositionKey = 0;
+        private int runningCount = 0;
+        private int forks = 0;
+
+        private int samScore = 0;
+        private int samAces = 0;
+        private int dealerScore = 0;
+        private int upcardScore = 0;
+
+        // the score of the dealer's hole card, which Sam has not seen, or 0 before it is dealt
+        private int holeScore = 0;
+
+        // Search starts a search from the start of a round
+        Search(final ExactSolver solver) {
+            this.solver = solver;
+            this.unknown = solver.unknown.clone();
+            for (int score = 2; score <= 11; score++) {
+                unknownCount += unknown[score];
+                compositionKey += (long) unknown[score] << COMPOSITION_SHIFT[score];
+            }
+        }
+
+        // Search copies the position of another search
+        private Search(final Search other) {
+            solver = other.solver;
+            unknown = other.unknown.clone();
+            for (int i = 0; i < other.sam.count(); i++) {
+                sam.add(other.sam.get(i));
+            }
+            step = other.step;
+            drawn = other.drawn;
+            unknownCount = other.unknownCount;
+            compositionKey = other.compositionKey;
+            runningCount = other.runningCount;
+            forks = other.forks;
+            samScore = other.samScore;
+            samAces = other.samAces;
+            dealerScore = other.dealerScore;
+            upcardScore = other.upcardScore;
+            holeScore = other.holeScore;
+        }
+
+        @Override
+        protected double[] compute() {
+            return play(step);
+        }
+
+        // play finds the outcome of the round, from the given step of the round
+        private double[] play(final int step) {
+            switch (step) {
+                case DEAL_SAM_1:
+                    return draw(DEAL_SAM_1, DEAL_DEALER_1);
+                case DEAL_DEALER_1:
+                    return draw(DEAL_DEALER_1, DEAL_SAM_2);
+                case DEAL_SAM_2:
+                    return draw(DEAL_SAM_2, DEAL_DEALER_2);
+                case DEAL_DEALER_2:
+                    return draw(DEAL_DEALER_2, SAM_TURN);
+                case SAM_TURN:
+                    // the initial deal is complete
+                    if (samScore == 21) {
+                        return SAM_WINS;
+                    }
+                    if (samScore == 22 && dealerScore == 22) {
+                        return DEALER_WINS;
+                    }
+                    return samTurn();
+                case SAM_HIT:
+                    if (samScore > 21) {
+                        return DEALER_WINS;
+                    }
+                    return samTurn();
+                case DEALER_HIT:
+                    if (dealerScore > 21) {
+                        return SAM_WINS;
+                    }
+                    return dealerTurn();
+                default:
+                    return dealerTurn();
+            }
+        }
+
+        // samTurn lets Sam decide to hit or stand, and looks up or stores the outcome
+        private double[] samTurn() {
+            final long key = key(SAM_TURN);
+            final double[] cached = solver.table.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            double[] outcome;
+            if (samScore < 17
+                    && solver.strategy.shouldHit(sam, Card.ofScore(upcardScore), this)) {
+                outcome = draw(SAM_HIT, SAM_HIT);
+            } else {
+                outcome = dealerTurn();
+            }
+            solver.table.put(key, outcome);
+            return outcome;
+        }
+
+        // dealerTurn lets the dealer draw while below the score of Sam
+        private double[] dealerTurn() {
+            if (dealerScore >= samScore) {
+                return dealerScore > samScore ? DEALER_WINS : NOBODY_WINS;
+            }
+            final long key = key(DEALER_TURN);
+            final double[] cached = solver.table.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            final double[] outcome = draw(DEALER_HIT, DEALER_HIT);
+            solver.table.put(key, outcome);
+            return outcome;
+        }
+
+        // draw draws each possible next card for the player of the given step, and then plays on
+        // from the next step. The outcomes are weighted by the probability of each card.
+        private double[] draw(final int drawStep, final int nextStep) {
+            if (drawn < solver.known.length) {
+                final int score = solver.known[drawn];
+                apply(drawStep, score, false);
+                final double[] outcome = play(nextStep);
+                undo(drawStep, score, false);
+                return outcome;
+            }
+            if (unknownCount == 0) {
+                // a round never needs more than about 20 cards, so this can not happen
+                throw new IllegalStateException("the deck ran out of cards");
+            }
+            double[] outcome = new double[3];
+            if (forks < FORK_DEPTH) {
+                Search[] searches = new Search[12];
+                for (int score = 2; score <= 11; score++) {
+                    if (unknown[score] > 0) {
+                        searches[score] = new Search(this);
+                        searches[score].forks++;
+                        searches[score].apply(drawStep, score, true);
+                        searches[score].step = nextStep;
+                        searches[score].fork();
+                    }
+                }
+                for (int score = 2; score <= 11; score++) {
+                    if (searches[score] != null) {
+                        final double p = (double) unknown[score] / unknownCount;
+                        addWeighted(outcome, searches[score].join(), p);
+                    }
+                }
+                return outcome;
+            }
+            for (int score = 2; score <= 11; score++) {
+                if (unknown[score] == 0) {
+                    continue;
+                }
+                final double p = (double) unknown[score] / unknownCount;
+                apply(drawStep, score, true);
+                addWeighted(outcome, play(nextStep), p);
+                undo(drawStep, score, true);
+            }
+            return outcome;
+        }
+
+        // apply draws a card with the given score, for the player of the given step
+        private void apply(final int drawStep, final int score, final boolean fromUnknown) {
+            drawn++;
+            runningCount += hiLo(score);
+            if (fromUnknown) {
+                unknown[score]--;
+                unknownCount--;
+                compositionKey -= 1L << COMPOSITION_SHIFT[score];
+            }
+            switch (drawStep) {
+                case DEAL_SAM_1:
+                case DEAL_SAM_2:
+                case SAM_HIT:
+                    sam.add(Card.ofScore(score));
+                    samScore += score;
+                    samAces += score == 11 ? 1 : 0;
+                    break;
+                case DEAL_DEALER_1:
+                    holeScore = score;
+                    dealerScore += score;
+                    break;
+                case DEAL_DEALER_2:
+                    upcardScore = score;
+                    dealerScore += score;
+                    break;
+                default:
+                    dealerScore += score;
+            }
+        }
+
+        // undo puts back a card that was drawn by apply
+        private void undo(final int drawStep, final int score, final boolean fromUnknown) {
+            drawn--;
+            runningCount -= hiLo(score);
+            if (fromUnknown) {
+                unknown[score]++;
+                unknownCount++;
+                compositionKey += 1L << COMPOSITION_SHIFT[score];
+            }
+            switch (drawStep) {
+                case DEAL_SAM_1:
+                case DEAL_SAM_2:
+                case SAM_HIT:
+                    sam.removeLast();
+                    samScore -= score;
+                    samAces -= score == 11 ? 1 : 0;
+                    break;
+                case DEAL_DEALER_1:
+                    holeScore = 0;
+                    dealerScore -= score;
+                    break;
+                case DEAL_DEALER_2:
+                    upcardScore = 0;
+                    dealerScore -= score;
+                    break;
+                default:
+                    dealerScore -= score;
+            }
+        }
+
+        // key packs the position into a transposition table key. The position of Sam's hand and
+        // the dealer upcard only matter while Sam is deciding.
+        private long key(final int turn) {
+            long key = compositionKey;
+            key |= (long) Math.min(drawn, solver.known.length) << 32;
+            key |= (long) samScore << 38;
+            key |= (long) dealerScore << 43;
+            if (turn == SAM_TURN) {
+                key |= 1L << 48;
+                key |= (long) upcardScore << 49;
+                key |= (long) samAces << 53;
+                key |= (long) sam.count() << 56;
+            }
+            return key;
+        }
+
+        // hiLo returns the Hi-Lo count of a card with the given score, like Card.hiLo
+        private static int hiLo(final int score) {
+            if (score <= 6) {
+                return 1;
+            }
+            return score <= 9 ? 0 : -1;
+        }
+
+        // addWeighted adds the given outcome, weighted by p, to the sum
+        private static void addWeighted(final double[] sum, final double[] outcome, double p) {
+            sum[WIN] += p * outcome[WIN];
+            sum[LOSS] += p * outcome[LOSS];
+            sum[PUSH] += p * outcome[PUSH];
+        }
+
+        // the ShoeState of a search is what Sam can see, so the hole card is counted as unseen
+
+        @Override
+        public int runningCount() {
+            return holeScore == 0 ? runningCount : runningCount - hiLo(holeScore);
+        }
+
+        @Override
+        public double trueCount() {
+            final int remaining = count();
+            if (remaining == 0) {
+                return runningCount();
+            }
+            return runningCount() * 52.0 / remaining;
+        }
+
+        @Override
+        public int count() {
+            final int left = Math.max(0, solver.known.length - drawn) + unknownCount;
+            return holeScore == 0 ? left : left + 1;
+        }
+
+        @Override
+        public int remaining(final int cardScore) {
+            int n = holeScore == cardScore ? 1 : 0;
+            n += unknown[cardScore];
+            for (int i = drawn; i < solver.known.length; i++) {
+                if (solver.known[i] == cardScore) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+}
@@ -16,6 +16,12 @@ public final class Game {
     private final Dealer dealer;
     private final Player sam;
 
+    // the cards that Sam has not seen, which is what Sam's strategy is shown of the deck
+    private final UnseenCards unseen = new UnseenCards();
+
+    // where the rounds are logged, or null
+    private RoundLog log = null;
+
     /**
      * Construct a game of blackjack. Sam is the player and the dealer deals the cards.
      *
@@ -99,6 +105,54 @@ public final class Game {
         return sam.getStrategy();
     }
 
+    /**
+     * Let Sam use another strategy from the next round on.
+     *
+     * @param strat is the strategy that Sam will be using
+     */
+    public final void setStrategy(Strategy strat) {
+        sam.setStrategy(strat);
+    }
+
+    /**
+     * Log every round that is played with oneRound from now on, and every shoe that it is played
+     * with, starting with the cards that are left in the deck.
+     *
+     * @param log is the log, or null to stop logging
+     */
+    public final void setLog(final RoundLog log) {
+        this.log = log;
+        deck.setLog(log);
+        if (log != null) {
+            log.shoe(deck);
+        }
+    }
+
+    /** @return Sam, the player */
+    public final Player getSam() {
+        return sam;
+    }
+
+    /** @return the dealer */
+    public final Dealer getDealer() {
+        return dealer;
+    }
+
+    /**
+     * Start over with a fresh deck and empty hands, so that a Game can be re-used.
+     *
+     * @param maybeSeed is an optional seed for shuffling the deck, for repeatable results
+     */
+    public final void reset(Optional<Long> maybeSeed) {
+        if (maybeSeed.isPresent()) {
+            deck.setSeed(maybeSeed.get());
+        } else {
+            deck.clearSeed();
+        }
+        deck.renew();
+        prepareNewRound();
+    }
+
     // return a summary of the game containing the winner and the cards that everyone are holding
     public final String summary(final Result winner) {
         StringBuilder sb = new StringBuilder();
@@ -113,8 +167,8 @@ public final class Game {
                 sb.append("push\n");
                 break;
         }
-        sb.append("sam: " + sam.toString() + "\n");
-        sb.append("dealer: " + dealer.toString());
+        sb.append("sam: ").append(sam.toString()).append('\n');
+        sb.append("dealer: ").append(dealer.toString());
         return sb.toString();
     }
 
@@ -126,6 +180,15 @@ public final class Game {
         System.out.println(msg);
     }
 
+    // vmsg will write a message followed by a hand to stdout, if verbose is true. The hand is only
+    // turned into a string when it is written, since every round would pay for it otherwise.
+    private void vmsg(String msg, Hand hand) {
+        if (!verbose) {
+            return;
+        }
+        System.out.println(msg + hand);
+    }
+
     // vscore will write the score of both players and a message to stdout, if verbose is true
     private void vscore(String msg) {
         if (!verbose) {
@@ -149,13 +212,65 @@ public final class Game {
      * @throws OutOfCardsException if there are fewer than 4 cards in the deck
      */
     public final Result oneRound(final Strategy strat) throws OutOfCardsException {
+        Result result = samsTurn(strat);
+        if (result == null) {
+            result = dealersTurn();
+        }
+        if (log != null) {
+            log.round(sam, dealer, result);
+        }
+        return result;
+    }
+
+    /**
+     * oneRoundExpected will simulate one round of blackjack, like oneRound, but the outcome of the
+     * dealer's turn is replaced by its exact probabilities, found with the given DealerOdds for the
+     * dealer's upcard and the cards that Sam has not seen when Sam stands, which includes the hole
+     * card. This gives the expected outcome of the round, given what Sam saw before standing, which
+     * varies less between rounds than the outcome itself.
+     *
+     * <p>The dealer's cards are still dealt, so that the deck is left the same way as by oneRound
+     * for the next round. If Sam already won or lost, if the deck was renewed during Sam's turn, or
+     * if the odds can not be found for this deck, the outcome of the round has a probability of 1.
+     *
+     * @param strat is the strategy that Sam should use
+     * @param odds is the cache of exact dealer outcomes to use
+     * @param outcome is where the probabilities of SAM_WON, DEALER_WON and PUSH are written, at
+     *     the DealerOdds.WIN, DealerOdds.LOSS and DealerOdds.PUSH indices
+     * @throws OutOfCardsException if there are fewer than 4 cards in the deck
+     */
+    public final void oneRoundExpected(
+            final Strategy strat, final DealerOdds odds, final double[] outcome)
+            throws OutOfCardsException {
+        Result result = samsTurn(strat);
+        if (result == null) {
+            final boolean found =
+                    unseen.includesHoleCard()
+                            && odds.outcomeFromUpcard(
+                                    dealer.get(1).score(), sam.score(), unseen, outcome);
+            result = dealersTurn();
+            if (found) {
+                vmsg("The outcome of the dealer's turn was calculated.");
+                return;
+            }
+        }
+        outcome[DealerOdds.WIN] = result == Result.SAM_WON ? 1 : 0;
+        outcome[DealerOdds.LOSS] = result == Result.DEALER_WON ? 1 : 0;
+        outcome[DealerOdds.PUSH] = result == Result.PUSH ? 1 : 0;
+    }
+
+    // samsTurn deals the initial cards and lets Sam draw cards. It returns the result if the round
+    // is already decided, or null if Sam stands and it is the dealer's turn.
+    private Result samsTurn(final Strategy strat) throws OutOfCardsException {
 
         if (deck.count() < 4) {
             deck.renew();
         }
 
         vmsg("Starting a round of Blackjack");
-        vmsg("Deck: " + deck + " (shuffled: " + shuffle + ")");
+        if (verbose) {
+            vmsg("Deck: " + deck + " (shuffled: " + shuffle + ")");
+        }
 
         if (deck.count() < 4) {
             throw new OutOfCardsException(
@@ -168,8 +283,8 @@ public final class Game {
         // Let the dealer draw a card, and try to re-initialize the deck if needed
         dealer.draw(deck);
 
-        vmsg("Sam cards: " + sam);
-        vmsg("Dealer cards: " + dealer);
+        vmsg("Sam cards: ", sam);
+        vmsg("Dealer cards: ", dealer);
 
         // Let Sam draw a card, and try to re-initialize the deck if needed
         sam.draw(deck);
@@ -179,9 +294,10 @@ public final class Game {
 
         // Now we know that it is not empty
         Card dealerUpcard = maybeDealerUpcard.get();
+        unseen.reset(deck, dealer.get(0));
 
-        vmsg("Sam cards: " + sam);
-        vmsg("Dealer cards: " + dealer);
+        vmsg("Sam cards: ", sam);
+        vmsg("Dealer cards: ", dealer);
         vmsg("Initial draw is complete.");
 
         if (sam.blackjack()) {
@@ -189,11 +305,6 @@ public final class Game {
             return Result.SAM_WON;
         }
 
-        if (sam.score() == 22 && dealer.score() == 22) {
-            vmsg("Both have two aces. The dealer won.");
-            return Result.DEALER_WON;
-        }
-
         // Initialize the strategies
 
         if (verbose) {
@@ -205,7 +316,7 @@ public final class Game {
         while (sam.score() < 17) {
 
             // should Sam stay or hit?
-            if (!sam.shouldHit(dealerUpcard)) {
+            if (!sam.shouldHit(dealerUpcard, unseen)) {
                 // Sam stays
                 break;
             }
@@ -213,13 +324,26 @@ public final class Game {
             // Let Sam draw a card, and try to re-initialize the deck if needed
             sam.draw(deck);
 
-            vmsg("Sam cards: " + sam);
+            vmsg("Sam cards: ", sam);
             if (sam.score() > 21) {
                 vscore("The dealer won because Sam scored higher than 21.");
                 return Result.DEALER_WON;
             }
         }
 
+        return null;
+    }
+
+    // dealersTurn lets the dealer draw cards while below the score of Sam, and returns the result
+    private Result dealersTurn() throws OutOfCardsException {
+
+        // Sam never hits two aces, and they are only checked against the hole card here, so that
+        // Sam's turn does not depend on the hole card
+        if (sam.score() == 22 && dealer.score() == 22) {
+            vmsg("Both have two aces. The dealer won.");
+            return Result.DEALER_WON;
+        }
+
         // Dealer's turn to draw cards
 
         while (dealer.score() < sam.score()) {
@@ -228,7 +352,7 @@ public final class Game {
             // Let the Dealer draw a card, and try to re-initialize the deck if needed
             dealer.draw(deck);
 
-            vmsg("Dealer cards: " + dealer);
+            vmsg("Dealer cards: ", dealer);
             if (dealer.score() > 21) {
                 vscore("Sam won because the dealer scored higher than 21.");
                 return Result.SAM_WON;
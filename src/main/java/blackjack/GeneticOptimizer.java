@@ -0,0 +1,311 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * GeneticOptimizer evolves complete hit or stand tables, instead of the few parameters of the
+ * parameterized strategies.
+ *
+ * <p>A genome is one decision per player score from 4 to 16 and dealer upcard, since Sam always
+ * stands on 17 and above. Every generation is evaluated on the same rounds, that are dealt from
+ * freshly shuffled decks before the generation starts, and the genomes are evaluated in parallel.
+ * New genomes are bred with tournament selection, uniform crossover and mutation, and the best
+ * genomes are kept as they are (elitism). The rounds are dealt again for every generation, so that
+ * a genome that was lucky with one set of rounds does not stay on top.
+ *
+ * <p>The search runs until the wall-clock budget is used up, and the best genome is returned as a
+ * TableStrategy, that can be saved and loaded.
+ */
+public final class GeneticOptimizer {
+
+    /** The default number of genomes in a population */
+    public static final int DEFAULT_POPULATION = 64;
+
+    /** The default number of rounds that every genome plays per generation */
+    public static final int DEFAULT_ROUNDS = 50000;
+
+    // the highest score where Sam can choose to hit, since Sam always stands on 17
+    private static final int MAX_DECISION_SCORE = 16;
+
+    // the number of genes, one per score from 4 to 16 and upcard from 2 to 11
+    private static final int GENES = (MAX_DECISION_SCORE - TableStrategy.MIN_SCORE + 1) * 10;
+
+    // the number of cards that are dealt for every round, which is more than a round can use
+    private static final int CARDS_PER_ROUND = 16;
+
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final int ELITES = 2;
+    private static final double MUTATION_RATE = 2.0 / GENES;
+
+    private final int populationSize;
+    private final int rounds;
+    private final int threads;
+    private final SplittableRandom random;
+
+    // the cards of every round of the current generation, as card scores
+    private final byte[] shoes;
+
+    private boolean[][] population;
+    private double[] fitness;
+    private int generations = 0;
+
+    /**
+     * Create a new genetic optimizer.
+     *
+     * @param populationSize is the number of genomes in a population
+     * @param rounds is the number of rounds every genome plays per generation
+     * @param threads is the number of genomes to evaluate at the same time
+     * @param seed is the seed for dealing rounds and for breeding
+     */
+    GeneticOptimizer(
+            final int populationSize, final int rounds, final int threads, final long seed) {
+        this.populationSize = Math.max(ELITES + 1, populationSize);
+        this.rounds = rounds;
+        this.threads = Math.max(1, threads);
+        this.random = new SplittableRandom(seed);
+        this.shoes = new byte[rounds * CARDS_PER_ROUND];
+    }
+
+    /**
+     * Evolve tables until the budget is used up. The first population contains the table of the
+     * given strategy, and random tables.
+     *
+     * @param start is the strategy to start from
+     * @param budgetMillis is the wall-clock budget, in milliseconds
+     * @param verbose is for writing the best and mean fitness of every generation to stdout
+     * @return the best table that was found
+     */
+    public TableStrategy run(final Strategy start, final long budgetMillis, final boolean verbose) {
+        final long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        population = new boolean[populationSize][];
+        population[0] = genome(TableStrategy.of(start));
+        for (int i = 1; i < populationSize; i++) {
+            population[i] = randomGenome();
+        }
+        fitness = new double[populationSize];
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            do {
+                dealRounds();
+                evaluate(executor);
+                generations++;
+                if (verbose) {
+                    System.out.printf(
+                            "# generation %d: best win ratio %f, mean %f\n",
+                            generations, fitness[best()], mean(fitness));
+                }
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+                breed();
+            } while (true);
+        } finally {
+            executor.shutdown();
+        }
+        return table(population[best()]);
+    }
+
+    /** @return the number of generations that were evaluated by the last run */
+    public int generations() {
+        return generations;
+    }
+
+    /** @return the fitness of the best genome in the last generation */
+    public double bestFitness() {
+        return fitness[best()];
+    }
+
+    // dealRounds deals the cards of every round from a freshly shuffled deck
+    private void dealRounds() {
+        byte[] deck = new byte[52];
+        int i = 0;
+        for (int score = 2; score <= 11; score++) {
+            for (int n = 0; n < (score == 10 ? 16 : 4); n++) {
+                deck[i++] = (byte) score;
+            }
+        }
+        for (int round = 0; round < rounds; round++) {
+            // only the cards that can be used are shuffled into place
+            for (int k = 0; k < CARDS_PER_ROUND; k++) {
+                final int j = k + random.nextInt(52 - k);
+                final byte card = deck[j];
+                deck[j] = deck[k];
+                deck[k] = card;
+                shoes[round * CARDS_PER_ROUND + k] = card;
+            }
+        }
+    }
+
+    // evaluate finds the fitness of every genome, in parallel
+    private void evaluate(final ExecutorService executor) {
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+        for (boolean[] genome : population) {
+            final TableStrategy strat = table(genome);
+            tasks.add(() -> winRatio(strat, shoes, rounds));
+        }
+        try {
+            final List<Future<Double>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < populationSize; i++) {
+                fitness[i] = results.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    // breed creates the next population from the current one
+    private void breed() {
+        Integer[] order = new Integer[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+        boolean[][] next = new boolean[populationSize][];
+        for (int i = 0; i < ELITES; i++) {
+            next[i] = population[order[i]].clone();
+        }
+        for (int i = ELITES; i < populationSize; i++) {
+            final boolean[] mother = population[tournament()];
+            final boolean[] father = population[tournament()];
+            boolean[] child = new boolean[GENES];
+            for (int g = 0; g < GENES; g++) {
+                child[g] = random.nextBoolean() ? mother[g] : father[g];
+                if (random.nextDouble() < MUTATION_RATE) {
+                    child[g] = !child[g];
+                }
+            }
+            next[i] = child;
+        }
+        population = next;
+    }
+
+    // tournament picks a few genomes at random, and returns the index of the fittest one
+    private int tournament() {
+        int winner = random.nextInt(populationSize);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            final int challenger = random.nextInt(populationSize);
+            if (fitness[challenger] > fitness[winner]) {
+                winner = challenger;
+            }
+        }
+        return winner;
+    }
+
+    // best returns the index of the fittest genome
+    private int best() {
+        int best = 0;
+        for (int i = 1; i < populationSize; i++) {
+            if (fitness[i] > fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // randomGenome returns a genome where every decision is random
+    private boolean[] randomGenome() {
+        boolean[] genome = new boolean[GENES];
+        for (int g = 0; g < GENES; g++) {
+            genome[g] = random.nextBoolean();
+        }
+        return genome;
+    }
+
+    // genome returns the genes of a table
+    private static boolean[] genome(final TableStrategy strat) {
+        boolean[] genome = new boolean[GENES];
+        for (int g = 0; g < GENES; g++) {
+            genome[g] = strat.hits(TableStrategy.MIN_SCORE + g / 10, 2 + g % 10);
+        }
+        return genome;
+    }
+
+    // table returns the table of a genome, where Sam stands on 17 and above
+    private static TableStrategy table(final boolean[] genome) {
+        boolean[][] hit = new boolean[TableStrategy.MAX_SCORE + 1][12];
+        for (int g = 0; g < GENES; g++) {
+            hit[TableStrategy.MIN_SCORE + g / 10][2 + g % 10] = genome[g];
+        }
+        return new TableStrategy(hit);
+    }
+
+    // mean returns the mean of the given values
+    private static double mean(final double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Play the given rounds with a strategy, and return the win ratio, like Tally.winRatio.
+     *
+     * <p>Every round is played with the same rules as in Game.oneRound, from its own cards.
+     *
+     * @param strat is the strategy to play with
+     * @param shoes are the cards of every round, as card scores, 16 cards per round
+     * @param rounds is the number of rounds to play
+     * @return the win ratio
+     */
+    static double winRatio(final Strategy strat, final byte[] shoes, final int rounds) {
+        long wins = 0;
+        long losses = 0;
+        for (int round = 0; round < rounds; round++) {
+            final int result = playRound(strat, shoes, round * CARDS_PER_ROUND);
+            if (result > 0) {
+                wins++;
+            } else if (result < 0) {
+                losses++;
+            }
+        }
+        return (wins + 1.0) / (losses + 1.0);
+    }
+
+    // playRound plays one round from the cards at the given offset, and returns 1 if Sam won, -1
+    // if the dealer won and 0 for a push
+    private static int playRound(final Strategy strat, final byte[] cards, final int offset) {
+        int next = offset;
+        int sam = cards[next++];
+        int dealer = cards[next++];
+        sam += cards[next++];
+        final int upcard = cards[next++];
+        dealer += upcard;
+        if (sam == 21) {
+            return 1;
+        }
+        if (sam == 22 && dealer == 22) {
+            return -1;
+        }
+        int samAces = (cards[offset] == 11 ? 1 : 0) + (cards[offset + 2] == 11 ? 1 : 0);
+        int samCards = 2;
+        while (sam < 17 && strat.shouldHit(sam, samAces, samCards, upcard)) {
+            final int card = cards[next++];
+            sam += card;
+            samAces += card == 11 ? 1 : 0;
+            samCards++;
+            if (sam > 21) {
+                return -1;
+            }
+        }
+        while (dealer < sam) {
+            dealer += cards[next++];
+            if (dealer > 21) {
+                return 1;
+            }
+        }
+        return Integer.compare(sam, dealer);
+    }
+}
@@ -6,4 +6,18 @@ public class Hand extends CardCollection {
     Hand() {
         super(false); // don't start with any cards
     }
+
+    private Hand(Hand other) {
+        super(other);
+    }
+
+    /**
+     * Fork this hand in O(1), for looking ahead without changing it.
+     *
+     * @return a new hand with the same cards
+     */
+    @Override
+    public Hand fork() {
+        return new Hand(this);
+    }
 }
@@ -0,0 +1,12 @@
+package blackjack;
+
+/**
+ * If a flag that takes a value is given a value that can not be used, or no value at all, then this
+ * exception might be thrown.
+ */
+public final class InvalidFlagValueException extends Exception {
+
+    InvalidFlagValueException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,243 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * LocalSearch tunes the parameters of a strategy by hill climbing, starting from the parameters
+ * that the strategy already has. Every step evaluates all neighbors of the current parameters, as
+ * listed by StrategyFactory.neighbors, in parallel, and moves to the best of them if it is better
+ * than the current parameters. The search stops at a local optimum, where no neighbor is better.
+ *
+ * <p>When the current parameters are already good, like the defaults of a strategy after a small
+ * change of the rules, only a few steps of a handful of neighbors are needed, instead of all the
+ * possibilities that Optimizer.run goes through.
+ *
+ * <p>Every candidate is played on the same rounds, where every round starts from a freshly
+ * shuffled shoe from the same seed, like in PairedComparison. Neighbors that make the same
+ * decisions get the same outcomes, so the differences between them are not drowned in noise, and
+ * the value of a candidate is the same every time it is evaluated. The values are kept, so that no
+ * candidate is played twice. Since every round starts from a full shoe, strategies that count
+ * cards get no help from the count.
+ */
+public final class LocalSearch {
+
+    /** The default number of rounds that every candidate is played */
+    public static final int DEFAULT_ROUNDS = 100000;
+
+    /** Result is where the search ended, and how it got there. */
+    public static final class Result {
+
+        /** the parameters that the search started from, and their expected value per round */
+        public final Parameters start;
+
+        public final double startValue;
+
+        /** the local optimum, and its expected value per round */
+        public final Parameters best;
+
+        public final double bestValue;
+
+        /** the number of moves, and the number of different candidates that were played */
+        public final int steps;
+
+        public final int evaluations;
+
+        /** the number of seconds that the search took */
+        public final double seconds;
+
+        private final StrategyFactory factory;
+
+        private Result(
+                final StrategyFactory factory,
+                final Parameters start,
+                final double startValue,
+                final Parameters best,
+                final double bestValue,
+                final int steps,
+                final int evaluations,
+                final double seconds) {
+            this.factory = factory;
+            this.start = start;
+            this.startValue = startValue;
+            this.best = best;
+            this.bestValue = bestValue;
+            this.steps = steps;
+            this.evaluations = evaluations;
+            this.seconds = seconds;
+        }
+
+        /** @return the strategy with the best parameters */
+        public Strategy strategy() {
+            return factory.create(best);
+        }
+    }
+
+    private final Rules rules;
+    private final int rounds;
+    private final int threads;
+    private final long seed;
+
+    // the expected value of every candidate that has been played, by its parameters
+    private final HashMap<Parameters, Double> values = new HashMap<Parameters, Double>();
+
+    /**
+     * Create a new local search.
+     *
+     * @param rules are the rules to play with
+     * @param rounds is the number of rounds that every candidate is played
+     * @param threads is the number of candidates to play at the same time
+     * @param seed is the seed for shuffling the shoes
+     */
+    LocalSearch(final Rules rules, final int rounds, final int threads, final long seed) {
+        this.rules = rules;
+        this.rounds = Math.max(1, rounds);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Climb from the parameters of the given strategy to a local optimum.
+     *
+     * @param start is the strategy to start from
+     * @param verbose is for writing every step to stdout
+     * @return the local optimum
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public Result run(final Strategy start, final boolean verbose) throws OutOfCardsException {
+        final long startTime = System.nanoTime();
+        final StrategyFactory factory = start.factory();
+        final Parameters first = start.parameters();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            evaluate(executor, factory, List.of(first));
+            Parameters current = first;
+            int steps = 0;
+            while (true) {
+                final List<Parameters> neighbors = factory.neighbors(current);
+                evaluate(executor, factory, neighbors);
+                Parameters best = current;
+                for (Parameters neighbor : neighbors) {
+                    if (values.get(neighbor) > values.get(best)) {
+                        best = neighbor;
+                    }
+                }
+                if (best == current) {
+                    break;
+                }
+                current = best;
+                steps++;
+                if (verbose) {
+                    System.out.printf(
+                            Locale.ROOT,
+                            "# step %d: %s, expected value %f per round\n",
+                            steps,
+                            factory.create(current),
+                            values.get(current));
+                }
+            }
+            return new Result(
+                    factory,
+                    first,
+                    values.get(first),
+                    current,
+                    values.get(current),
+                    steps,
+                    values.size(),
+                    (System.nanoTime() - startTime) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Play the rounds with the strategy of the given parameters.
+     *
+     * @param factory is the factory of the strategy
+     * @param params are the parameters
+     * @return the expected value per round
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    double value(final StrategyFactory factory, final Parameters params)
+            throws OutOfCardsException {
+        final SplittableRandom random = new SplittableRandom(seed);
+        // a round that uses up the shoe goes on with the next shoe from the same seed
+        final Deck deck = new Deck(() -> ShoePipeline.shuffled(random));
+        final RoundEngine engine = rules.engine(deck, factory.create(params));
+        double net = 0;
+        for (int i = 0; i < rounds; i++) {
+            deck.renew();
+            net += engine.playRound();
+        }
+        return net / rounds;
+    }
+
+    // evaluate plays the candidates that have not been played yet, in parallel
+    private void evaluate(
+            final ExecutorService executor,
+            final StrategyFactory factory,
+            final List<Parameters> candidates)
+            throws OutOfCardsException {
+        List<Parameters> unknown = new ArrayList<Parameters>();
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+        for (Parameters params : candidates) {
+            if (!values.containsKey(params) && !unknown.contains(params)) {
+                unknown.add(params);
+                tasks.add(() -> value(factory, params));
+            }
+        }
+        try {
+            final List<Future<Double>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < unknown.size(); i++) {
+                values.put(unknown.get(i), results.get(i).get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("the local search was interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OutOfCardsException) {
+                throw (OutOfCardsException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Format a result, with the start and the local optimum.
+     *
+     * @param result is the result from run
+     * @return the result as text
+     */
+    public static String format(final Result result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "Started from %s, with an expected value of %f per round.\n",
+                        result.factory.create(result.start),
+                        result.startValue));
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "Found a local optimum after %d steps and %d candidates, in %.3f"
+                                + " seconds:\n",
+                        result.steps,
+                        result.evaluations,
+                        result.seconds));
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "%s, with an expected value of %f per round.\n",
+                        result.strategy(),
+                        result.bestValue));
+        return sb.toString();
+    }
+}
@@ -1,6 +1,11 @@
 package blackjack;
 
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /** Main has a main method that handles command line arguments and may start a game of Blackjack. */
@@ -8,7 +13,16 @@ public final class Main {
 
     private static final String VERSION_STRING = "blackjack 1.0.0";
 
-    private static final String USAGE =
+    // the number of rounds that are played when the current strategy is quickly tested
+    static final int QUICK_TEST_ITERATIONS = 420000;
+
+    // the flags that a plain --test uses, which are the only flags that --log can be given with
+    private static final String LOG_FLAGS =
+            "-b --basicopt -2 --second -3 --third -a --always-hit -s --always-stay -c --counting"
+                    + " --rollout --rollouts N --table FILE --policy FILE"
+                    + " -t --test --log FILE";
+
+    static final String USAGE =
             "Usage: blackjack [ flags ] FILE\n"
                     + "\n"
                     + "The BasicOptimized strategy is used by default for Sam.\n"
@@ -19,14 +33,95 @@ public final class Main {
                     + "-3 | --third          Use the Third strategy for Sam.\n"
                     + "-a | --always-hit     Use a strategy where Sam always hits.\n"
                     + "-s | --always-stay    Use a strategy where Sam always stays.\n"
+                    + "-c | --counting       Use BasicOptimized, adjusted by the Hi-Lo count.\n"
+                    + "--rollout             Use a strategy that looks ahead by simulating the\n"
+                    + "                      rest of the round, playing on with BasicOptimized.\n"
+                    + "--rollouts N          Simulate N rounds per decision. (default 200)\n"
+                    + "--table FILE          Use a strategy table from FILE, like from --solve.\n"
+                    + "--policy FILE         Use a strategy from a policy FILE, with rules like\n"
+                    + "                      \"hit if score < 17 and upcard >= 7\".\n"
                     + "-t | --test           Quickly test the current strategy.\n"
                     + "-n | --noshuffle      Don't shuffle the cards.\n"
+                    + "--hybrid              Calculate the dealer's turn exactly with --test.\n"
+                    + "--target-stderr PCT   Test on all threads until the standard error of the\n"
+                    + "                      win ratio is at most PCT percent.\n"
+                    + "--duration SECONDS    Test on all threads for this long.\n"
+                    + "--threads N           Use N threads with --target-stderr, --duration,\n"
+                    + "                      --bankroll or --local.\n"
+                    + "--seed N              Shuffle with this seed with --target-stderr,\n"
+                    + "                      --duration, --compare, --bankroll, --local or\n"
+                    + "                      --pipeline, for repeatable results.\n"
+                    + "--pipeline            Shuffle shoes on separate threads with --test.\n"
+                    + "--producers N         Shuffle shoes on N threads with --pipeline.\n"
+                    + "--consumers N         Play rounds on N threads with --pipeline.\n"
+                    + "--log FILE            Log every card and decision of --test to FILE.\n"
+                    + "                      Only the strategy flags can be added.\n"
+                    + "--replay FILE         Replay the rounds of a --log FILE, and list where\n"
+                    + "                      the chosen strategy decides differently.\n"
+                    + "--compare NAMES       Play strategies on the same rounds, and compare\n"
+                    + "                      them, like basicopt,second,policy.txt. \"all\" is\n"
+                    + "                      the five strategies that have a short flag.\n"
+                    + "--rounds N            Play N rounds per strategy with --compare or\n"
+                    + "                      --local. (default 100000)\n"
+                    + "--bankroll UNITS      Play betting sessions that start with UNITS minimum\n"
+                    + "                      bets, and find the risk of ruin.\n"
+                    + "--bet SIZING          Bet flat, kelly or count with --bankroll.\n"
+                    + "                      (default flat)\n"
+                    + "--session ROUNDS      Play at most ROUNDS rounds per session.\n"
+                    + "                      (default 1000)\n"
+                    + "--stop-loss UNITS     End a session when UNITS have been lost.\n"
+                    + "--sessions N          Play N sessions with --bankroll. (default 10000)\n"
+                    + "--payout RATIO        Pay RATIO for a blackjack on the initial deal with\n"
+                    + "                      --bankroll, like 3:2. (default 1:1)\n"
+                    + "--rules RULES         Test casino rules, like h17,double,split,bj=6:5,\n"
+                    + "                      or optimize for them with --local.\n"
+                    + "--seats N             Play at a table with N seats (1-7) and one deck.\n"
+                    + "--solve               Solve the best strategy table, and output it.\n"
+                    + "--ev                  Estimate the EV of hitting and standing in every\n"
+                    + "                      state, with a confidence interval.\n"
+                    + "--samples N           Play N samples per state with --ev. (default 1600)\n"
+                    + "--exact               Solve the exact odds of a round, where the cards in\n"
+                    + "                      FILE are the first cards of the deck.\n"
                     + "-o | --optimize       Optimize the parameters of the chosen strategy.\n"
                     + "-r | --random         Randomize parameters when optimizing them.\n"
+                    + "--local               Optimize by climbing from the current parameters\n"
+                    + "                      to the best of their neighbors, until none is\n"
+                    + "                      better.\n"
+                    + "--coordinator PORT    Optimize with worker processes that connect to PORT.\n"
+                    + "--workers N           Start N local worker processes for --coordinator.\n"
+                    + "--worker ADDRESS      Work for a coordinator at PORT or HOST:PORT.\n"
+                    + "-g | --genetic        Evolve a strategy table, starting from the chosen\n"
+                    + "                      strategy, and output the best one.\n"
+                    + "--budget SECONDS      Evolve strategy tables for this long. (default 10)\n"
+                    + "--results FILE        Write optimizer results to a .csv or .jsonl file.\n"
+                    + "--sample N            Only write every Nth optimizer result.\n"
+                    + "--batch FILE          Run one set of flags per line in FILE, in parallel.\n"
+                    + "--serve PORT          Serve simulations as JSON over HTTP on localhost.\n"
                     + "-h | --help           Output this help.\n"
                     + "-v | --verbose        Output detailed information about the games.\n"
                     + "--version             Output the current version number.\n";
 
+    /**
+     * Check that --log is only given with the flags of a plain --test, since every other mode
+     * would silently ignore it.
+     *
+     * @param pa is the parsed command line
+     * @throws InvalidFlagValueException if --log is given without --test, or with another flag
+     */
+    static void checkLogFlags(final ParsedFlagsAndArguments pa) throws InvalidFlagValueException {
+        if (!pa.hasFlag("--log")) {
+            return;
+        }
+        if (!pa.hasFlags("-t", "--test")) {
+            throw new InvalidFlagValueException("--log can only be used with --test");
+        }
+        final Optional<String> maybeOtherFlag = pa.findAnUnrecognizedFlag(LOG_FLAGS);
+        if (maybeOtherFlag.isPresent()) {
+            throw new InvalidFlagValueException(
+                    "--log can not be used with " + maybeOtherFlag.get());
+        }
+    }
+
     public static void main(String[] args) {
         try {
 
@@ -41,46 +136,436 @@ public final class Main {
                 return;
             }
 
-            final boolean useTheBasicStrategy = pa.hasFlags("-b", "--basicopt");
-            final boolean useTheSecondStrategy = pa.hasFlags("-2", "--second");
-            final boolean useTheThirdStrategy = pa.hasFlags("-3", "--third");
-            final boolean useTheHitStrategy = pa.hasFlags("-a", "--always-hit");
-            final boolean useTheStayStrategy = pa.hasFlags("-s", "--always-stay");
-
             final boolean quickTest = pa.hasFlags("-t", "--test");
             final boolean noShuffle = pa.hasFlags("-n", "--noshuffle");
             final boolean optimize = pa.hasFlags("-o", "--optimize");
             final boolean randomize = pa.hasFlags("-r", "--random");
             final boolean verbose = pa.hasFlags("-v", "--verbose");
 
-            Strategy strat = new BasicStrategyOptimized();
-            if (useTheBasicStrategy) {
-                // already using the BasicStrategyOptimized strategy
-            } else if (useTheSecondStrategy) {
-                strat = new SecondStrategyOptimized();
-            } else if (useTheThirdStrategy) {
-                strat = new ThirdStrategy();
-            } else if (useTheHitStrategy) {
-                strat = new AlwaysHitStrategy();
-            } else if (useTheStayStrategy) {
-                strat = new AlwaysStayStrategy();
+            Strategy strat = Strategies.fromFlags(pa);
+
+            checkLogFlags(pa);
+
+            // Run a batch of jobs from a file, in this JVM?
+
+            final Optional<String> maybeJobsFilename = pa.stringFlagValue("--batch");
+            if (maybeJobsFilename.isPresent()) {
+                final int threads = Runtime.getRuntime().availableProcessors();
+                BatchRunner.run(maybeJobsFilename.get(), USAGE, threads);
+                return;
+            }
+
+            // Serve simulations over HTTP, until the process is stopped?
+
+            final Optional<String> maybePort = pa.stringFlagValue("--serve");
+            if (maybePort.isPresent()) {
+                final int port = pa.intFlagValue("--serve", 0);
+                final int poolSize = Runtime.getRuntime().availableProcessors();
+                SimulationServer server = new SimulationServer(port, poolSize);
+                server.start();
+                System.out.printf("Serving simulations on http://127.0.0.1:%d/\n", server.port());
+                return;
             }
 
             // Try to optimize the parameters of the current strategy?
 
+            if (optimize && pa.hasFlag("--local")) {
+                final Rules rules = Rules.parse(pa.stringFlagValue("--rules").orElse("classic"));
+                final int rounds = pa.intFlagValue("--rounds", LocalSearch.DEFAULT_ROUNDS);
+                final int threads =
+                        pa.intFlagValue("--threads", Runtime.getRuntime().availableProcessors());
+                if (rounds < 1 || threads < 1) {
+                    throw new InvalidFlagValueException(
+                            "--rounds and --threads must be at least 1");
+                }
+                final long seed = pa.longFlagValue("--seed", System.nanoTime());
+                LocalSearch search = new LocalSearch(rules, rounds, threads, seed);
+                System.out.printf(
+                        "Rules: %s, %d rounds per candidate, with --seed %d.\n",
+                        rules, rounds, seed);
+                final LocalSearch.Result result = search.run(strat, true);
+                System.out.print(LocalSearch.format(result));
+                return;
+            }
             if (optimize) {
                 // maxIterations is only used if parameters are randomized, and not iterated over
                 final int maxIterations = 70000;
 
-                Optimizer.run(strat, 64, 256, 1024, randomize, maxIterations);
+                final Optional<String> maybeResultsFilename = pa.stringFlagValue("--results");
+                final int sampleEvery = pa.intFlagValue("--sample", 1);
+                if (sampleEvery < 1) {
+                    throw new InvalidFlagValueException("--sample must be at least 1");
+                }
+                ResultWriter writer;
+                if (maybeResultsFilename.isPresent()) {
+                    writer = ResultWriter.toFile(maybeResultsFilename.get(), sampleEvery);
+                } else {
+                    writer =
+                            new ResultWriter(
+                                    new OutputStreamWriter(System.out),
+                                    ResultWriter.Format.TEXT,
+                                    sampleEvery,
+                                    0,
+                                    false,
+                                    false);
+                }
+
+                Optimizer.run(strat, 64, 256, 1024, randomize, maxIterations, writer, 50);
+                return;
+            }
+
+            // Coordinate an optimization run with worker processes, or be one of the workers?
+
+            final Optional<String> maybeCoordinatorPort = pa.stringFlagValue("--coordinator");
+            if (maybeCoordinatorPort.isPresent()) {
+                final int port = pa.intFlagValue("--coordinator", 0);
+                final int workers = pa.intFlagValue("--workers", 0);
+                if (workers < 0) {
+                    throw new InvalidFlagValueException("--workers can not be negative");
+                }
+                DistributedOptimizer.coordinate(strat, port, workers, 64, 256, 1024, 50);
+                return;
+            }
+            final Optional<String> maybeCoordinator = pa.stringFlagValue("--worker");
+            if (maybeCoordinator.isPresent()) {
+                DistributedOptimizer.work(maybeCoordinator.get());
+                return;
+            }
+
+            // Evolve a strategy table with a genetic algorithm?
+
+            if (pa.hasFlags("-g", "--genetic")) {
+                final double budget = pa.doubleFlagValue("--budget", 10.0);
+                if (budget <= 0) {
+                    throw new InvalidFlagValueException("--budget must be a positive number");
+                }
+                final int threads = Runtime.getRuntime().availableProcessors();
+                GeneticOptimizer ga =
+                        new GeneticOptimizer(
+                                GeneticOptimizer.DEFAULT_POPULATION,
+                                GeneticOptimizer.DEFAULT_ROUNDS,
+                                threads,
+                                System.nanoTime());
+                final TableStrategy best = ga.run(strat, (long) (budget * 1000), true);
+                System.out.printf(
+                        "# Evolved from %s for %d generations.\n", strat, ga.generations());
+                System.out.print(best.format());
+                return;
+            }
+
+            // Compare several strategies on the same rounds?
+
+            final Optional<String> maybeNames = pa.stringFlagValue("--compare");
+            if (maybeNames.isPresent()) {
+                String[] names = maybeNames.get().split(",");
+                if (maybeNames.get().equals("all")) {
+                    names = PairedComparison.BUILT_IN;
+                }
+                List<Strategy> strategies = new ArrayList<Strategy>();
+                for (String name : names) {
+                    final Optional<Strategy> maybeStrategy = Strategies.create(name.trim());
+                    if (maybeStrategy.isPresent()) {
+                        strategies.add(maybeStrategy.get());
+                    } else if (new File(name.trim()).isFile()) {
+                        strategies.add(PolicyCompiler.load(name.trim()));
+                    } else {
+                        throw new InvalidFlagValueException("unknown strategy: " + name);
+                    }
+                }
+                final int rounds = pa.intFlagValue("--rounds", PairedComparison.DEFAULT_ROUNDS);
+                if (rounds < 2) {
+                    throw new InvalidFlagValueException("--rounds must be at least 2");
+                }
+                final long seed = pa.longFlagValue("--seed", System.nanoTime());
+                final int threads =
+                        Math.min(strategies.size(), Runtime.getRuntime().availableProcessors());
+                PairedComparison comparison =
+                        new PairedComparison(strategies, rounds, threads, seed);
+                final long start = System.nanoTime();
+                final List<PairedComparison.Result> results = comparison.run();
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf(
+                        "# Played %d strategies on the same %d rounds in %.3f seconds, with --seed"
+                                + " %d.\n",
+                        strategies.size(), rounds, seconds, seed);
+                System.out.print(PairedComparison.format(results));
+                return;
+            }
+
+            // Replay logged rounds, and compare the logged decisions with the current strategy?
+
+            final Optional<String> maybeReplayFilename = pa.stringFlagValue("--replay");
+            if (maybeReplayFilename.isPresent()) {
+                RoundReplay replay =
+                        new RoundReplay(
+                                maybeReplayFilename.get(), strat, RoundReplay.DEFAULT_LISTED);
+                final long start = System.nanoTime();
+                replay.run();
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf(
+                        "# Replayed %d rounds from %s with %s in %.3f seconds.\n",
+                        replay.rounds(), maybeReplayFilename.get(), strat, seconds);
+                System.out.printf(
+                        "# %d of %d decisions differ, in %d rounds.\n",
+                        replay.differing(), replay.decisions(), replay.differingRounds());
+                System.out.print(replay.format());
+                return;
+            }
+
+            // Play betting sessions, and find the risk of ruin?
+
+            final double bankroll = pa.doubleFlagValue("--bankroll", 0);
+            if (bankroll < 0) {
+                throw new InvalidFlagValueException("--bankroll must be a positive number");
+            }
+            if (bankroll > 0) {
+                final SessionSimulator.Betting betting =
+                        SessionSimulator.Betting.parse(pa.stringFlagValue("--bet").orElse("flat"));
+                final double payout = Rules.parsePayout(pa.stringFlagValue("--payout").orElse("1"));
+                final int rounds = pa.intFlagValue("--session", SessionSimulator.DEFAULT_ROUNDS);
+                final double stopLoss = pa.doubleFlagValue("--stop-loss", 0);
+                final int sessions =
+                        pa.intFlagValue("--sessions", SessionSimulator.DEFAULT_SESSIONS);
+                final int threads =
+                        pa.intFlagValue("--threads", Runtime.getRuntime().availableProcessors());
+                if (rounds < 1 || sessions < 1 || threads < 1) {
+                    throw new InvalidFlagValueException(
+                            "--session, --sessions and --threads must be at least 1");
+                }
+                if (stopLoss < 0) {
+                    throw new InvalidFlagValueException("--stop-loss must be a positive number");
+                }
+                final long seed = pa.longFlagValue("--seed", System.nanoTime());
+                SessionSimulator simulator =
+                        new SessionSimulator(
+                                strat,
+                                bankroll,
+                                betting,
+                                payout,
+                                rounds,
+                                stopLoss,
+                                sessions,
+                                threads,
+                                seed);
+                final SessionSimulator.Result result = simulator.run();
+                System.out.printf("Current strategy: %s\n", strat);
+                System.out.printf(
+                        "Played %d sessions of at most %d rounds, starting with %.2f units and"
+                                + " betting %s, in %.3f seconds, with --seed %d.\n",
+                        sessions,
+                        rounds,
+                        bankroll,
+                        betting.toString().toLowerCase(Locale.ROOT),
+                        result.seconds,
+                        seed);
+                if (betting == SessionSimulator.Betting.KELLY) {
+                    System.out.printf(
+                            "The Kelly fraction is %.4f of the bankroll, with a minimum bet of 1"
+                                    + " unit.\n",
+                            result.kellyFraction);
+                }
+                System.out.print(SessionSimulator.format(result));
+                return;
+            }
+
+            // Test the current strategy with other rules?
+
+            final Optional<String> maybeRules = pa.stringFlagValue("--rules");
+            if (maybeRules.isPresent()) {
+                final Rules rules = Rules.parse(maybeRules.get());
+                Deck deck = new Deck();
+                deck.shuffle();
+                final int iterations = QUICK_TEST_ITERATIONS;
+                final Tally tally = Optimizer.playRules(rules.engine(deck, strat), iterations);
+                System.out.printf("Current strategy: %s\n", strat);
+                System.out.printf("Rules: %s\n", rules);
+                System.out.printf(
+                        "After %d rounds, Sam wins %f%% of the rounds, with an expected value of"
+                                + " %f per round.\n",
+                        iterations, tally.winRatio() * 100.0, tally.expectedValue());
+                return;
+            }
+
+            // Play at a table with several seats?
+
+            final int seats = pa.intFlagValue("--seats", 0);
+            if (seats != 0) {
+                if (seats < 1 || seats > Table.MAX_SEATS) {
+                    throw new InvalidFlagValueException("--seats must be from 1 to 7");
+                }
+                Strategy[] strategies = new Strategy[seats];
+                for (int i = 0; i < seats; i++) {
+                    strategies[i] = strat;
+                }
+                Deck deck = new Deck();
+                if (pa.firstArg().isPresent()) {
+                    deck = new Deck(pa.firstArg().get());
+                }
+                Table table = new Table(deck, strategies, !noShuffle);
+                if (quickTest) {
+                    final int iterations = QUICK_TEST_ITERATIONS;
+                    final long start = System.nanoTime();
+                    final Tally[] tallies = Optimizer.playTable(table, iterations);
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("Current strategy: %s\n", strat);
+                    for (int i = 0; i < seats; i++) {
+                        System.out.printf(
+                                "After %d rounds, seat %d wins %f%% of the rounds.\n",
+                                iterations, i + 1, tallies[i].winRatio() * 100.0);
+                    }
+                    System.out.printf("%.0f hands per second.\n", iterations * seats / seconds);
+                    return;
+                }
+                System.out.println(table.summary(table.oneRound()));
+                return;
+            }
+
+            // Solve the best hit or stand decisions, and output them as a strategy table?
+
+            if (pa.hasFlag("--solve")) {
+                final long start = System.nanoTime();
+                final StrategySolver solver = new StrategySolver();
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("# Solved in %.3f seconds.\n", seconds);
+                System.out.printf(
+                        "# With a deck without memory, Sam wins %f%%, loses %f%% and pushes %f%%"
+                                + " of the rounds.\n",
+                        solver.win() * 100.0,
+                        solver.loss() * 100.0,
+                        solver.push() * 100.0);
+                System.out.print(solver.strategy().format());
+                return;
+            }
+
+            // Estimate the EV of hitting and standing in every state?
+
+            if (pa.hasFlag("--ev")) {
+                final int samples =
+                        pa.intFlagValue("--samples", StratifiedSampler.DEFAULT_SAMPLES);
+                if (samples < 2) {
+                    throw new InvalidFlagValueException("--samples must be at least 2");
+                }
+                final int threads = Runtime.getRuntime().availableProcessors();
+                StratifiedSampler sampler =
+                        new StratifiedSampler(strat, samples, threads, System.nanoTime());
+                final long start = System.nanoTime();
+                final List<StratifiedSampler.Estimate> estimates = sampler.run();
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf(
+                        "# Sampled %d rounds in %.3f seconds, playing on with %s after a hit.\n",
+                        sampler.rounds(), seconds, strat);
+                System.out.print(StratifiedSampler.format(estimates));
+                return;
+            }
+
+            // Find the exact odds of a round, where only the first cards are known?
+
+            if (pa.hasFlag("--exact")) {
+                CardCollection knownCards = new Hand();
+                if (pa.firstArg().isPresent()) {
+                    knownCards = new Deck(pa.firstArg().get());
+                }
+                final long start = System.nanoTime();
+                final ExactSolver.Odds odds = new ExactSolver(strat, knownCards).solve();
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Current strategy: %s\n", strat);
+                System.out.printf(
+                        "With %d known cards, Sam wins %f%%, loses %f%% and pushes %f%% of the"
+                                + " rounds.\n",
+                        knownCards.count(),
+                        odds.win() * 100.0,
+                        odds.loss() * 100.0,
+                        odds.push() * 100.0);
+                System.out.printf(
+                        "Searched %d positions in %.3f seconds.\n", odds.states(), seconds);
                 return;
             }
 
             // Run a quick test to confirm the win ratio for the current strategy?
 
+            final double targetStandardError = pa.doubleFlagValue("--target-stderr", 0);
+            final double duration = pa.doubleFlagValue("--duration", 0);
+            if (targetStandardError < 0 || duration < 0) {
+                throw new InvalidFlagValueException(
+                        "--target-stderr and --duration must be positive numbers");
+            }
+            if (quickTest && (targetStandardError > 0 || duration > 0)) {
+                final int threads =
+                        pa.intFlagValue("--threads", Runtime.getRuntime().availableProcessors());
+                if (threads < 1) {
+                    throw new InvalidFlagValueException("--threads must be at least 1");
+                }
+                final long seed = pa.longFlagValue("--seed", System.nanoTime());
+                BudgetedSimulation simulation = new BudgetedSimulation(strat, threads, seed);
+                final BudgetedSimulation.Result result =
+                        simulation.run(targetStandardError / 100.0, duration);
+                System.out.printf("Current strategy: %s\n", strat);
+                System.out.printf(
+                        "After %d rounds on %d threads, Sam wins %f%% +- %f%% of the rounds, with"
+                                + " 95%% confidence.\n",
+                        result.tally.rounds(),
+                        threads,
+                        result.winRatio() * 100.0,
+                        result.error() * 100.0);
+                System.out.printf(
+                        "Played for %.3f seconds, %.0f rounds per second, with --seed %d.\n",
+                        result.seconds, result.roundsPerSecond(), seed);
+                return;
+            }
+
+            if (quickTest && pa.hasFlag("--pipeline")) {
+                final int threads = Runtime.getRuntime().availableProcessors();
+                final int producers =
+                        pa.intFlagValue("--producers", ShoePipeline.defaultProducers(threads));
+                final int consumers =
+                        pa.intFlagValue("--consumers", Math.max(1, threads - producers));
+                if (producers < 1 || consumers < 1) {
+                    throw new InvalidFlagValueException(
+                            "--producers and --consumers must be at least 1");
+                }
+                final int iterations = QUICK_TEST_ITERATIONS;
+                final long seed = pa.longFlagValue("--seed", System.nanoTime());
+                ShoePipeline pipeline = new ShoePipeline(strat, producers, consumers, seed);
+                final long start = System.nanoTime();
+                final Tally tally = pipeline.run(iterations);
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Current strategy: %s\n", strat);
+                System.out.printf(
+                        "After %d iterations, Sam wins %f%% of the rounds.\n",
+                        iterations, tally.winRatio() * 100.0);
+                System.out.printf(
+                        "%d producers shuffled %d shoes for %d consumers, %.0f rounds per"
+                                + " second, with --seed %d.\n",
+                        pipeline.producers(),
+                        pipeline.shoes(),
+                        pipeline.consumers(),
+                        tally.rounds() / seconds,
+                        seed);
+                System.out.printf(
+                        "The consumers waited for a shoe %d times, and the producers were idle %d"
+                                + " times.\n",
+                        pipeline.consumerWaits(), pipeline.producerIdles());
+                return;
+            }
             if (quickTest) {
-                final int iterations = 420000;
-                final double winPercentage = Optimizer.getWinRatio(strat, iterations) * 100.0;
+                final int iterations = QUICK_TEST_ITERATIONS;
+                final Optional<String> maybeLogFilename = pa.stringFlagValue("--log");
+                double winPercentage;
+                if (pa.hasFlag("--hybrid")) {
+                    winPercentage = Optimizer.getExpectedWinRatio(strat, iterations) * 100.0;
+                } else if (maybeLogFilename.isPresent()) {
+                    Game game = new Game(strat);
+                    try (RoundLog log = new RoundLog(maybeLogFilename.get())) {
+                        game.setLog(log);
+                        winPercentage = Optimizer.play(game, iterations).winRatio() * 100.0;
+                        game.setLog(null);
+                        System.out.printf(
+                                "Logged %d rounds and %d shoes to %s, in %d bytes.\n",
+                                log.rounds(), log.shoes(), maybeLogFilename.get(), log.bytes());
+                    }
+                } else {
+                    winPercentage = Optimizer.getWinRatio(strat, iterations) * 100.0;
+                }
                 System.out.printf("Current strategy: %s\n", strat);
                 System.out.printf(
                         "After %d iterations, Sam wins %f%% of the rounds.\n",
@@ -95,8 +580,10 @@ public final class Main {
             System.out.println(game.summary(game.oneRound(strat)));
 
         } catch (CardParseException
-                | FileNotFoundException
+                | IOException
+                | InvalidFlagValueException
                 | OutOfCardsException
+                | PolicyParseException
                 | UnrecognizedFlagException ex) {
 
             System.err.println(ex);
@@ -1,12 +1,15 @@
 package blackjack;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Optional;
 
 public class Optimizer {
 
-    public static HashMap<Game.Result, Integer> stats = new HashMap<Game.Result, Integer>();
+    // the number of best results that are listed when an optimization run is done
+    private static final int DEFAULT_TOP_RESULTS = 50;
+
+    // a win ratio that is 0.1% better than the best so far is enough of an improvement
+    static final double AN_IMPROVEMENT = 1.001;
 
     /**
      * getWinRatio returns the win ratio of a benchmarked strategy
@@ -20,26 +23,158 @@ public class Optimizer {
             throws OutOfCardsException {
 
         // Create a new game and set the strategy. The deck will be re-initialized as needed.
-        Game game = new Game(strat);
+        return play(new Game(strat), nTimes).winRatio();
+    }
 
+    /**
+     * play plays rounds of the given game until nTimes rounds have been won or lost. Rounds that
+     * end in a push are played again.
+     *
+     * <p>This method only touches the given game, so several games can be played at the same time
+     * from different threads.
+     *
+     * @param game is the game to play, with the strategy that should be benchmarked
+     * @param nTimes is how many rounds that should be won or lost
+     * @return a tally of the won, lost and pushed rounds
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static final Tally play(final Game game, final int nTimes) throws OutOfCardsException {
+        final Strategy strat = game.getStrategy();
+        Tally tally = new Tally();
         Game.Result winner;
-        stats.clear();
-        stats.put(Game.Result.DEALER_WON, 1); // start with 1 to avoid divide by zero
-        stats.put(Game.Result.SAM_WON, 1);
         for (int i = 0; i < nTimes; i++) {
             winner = game.oneRound(strat);
+            tally.add(winner);
             if (winner == Game.Result.PUSH) {
                 // try again
                 i--;
-            } else {
-                // record statistics
-                stats.put(winner, stats.get(winner) + 1);
             }
             game.prepareNewRound();
         }
-        // return the win ratio
-        return stats.get(Game.Result.SAM_WON).doubleValue()
-                / stats.get(Game.Result.DEALER_WON).doubleValue();
+        return tally;
+    }
+
+    /**
+     * getExpectedWinRatio returns the win ratio of a benchmarked strategy, like getWinRatio, but
+     * the dealer's turn of each round is replaced by the exact probabilities of its outcomes. The
+     * estimate is much tighter than that of getWinRatio for the same number of rounds.
+     *
+     * @param strat is the Strategy to benchmark
+     * @param nTimes is how many rounds should be won or lost, on average
+     * @return the expected number of SAM_WON vs DEALER_WON after having simulated the rounds
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static final double getExpectedWinRatio(final Strategy strat, final int nTimes)
+            throws OutOfCardsException {
+        final double[] sums = playExpected(new Game(strat), new DealerOdds(), nTimes);
+        return (sums[DealerOdds.WIN] + 1.0) / (sums[DealerOdds.LOSS] + 1.0);
+    }
+
+    /**
+     * playExpected plays rounds of the given game with Game.oneRoundExpected, until the expected
+     * number of won or lost rounds has reached nTimes. This is the same as playing rounds that end
+     * in a push again, on average.
+     *
+     * @param game is the game to play, with the strategy that should be benchmarked
+     * @param odds is the cache of exact dealer outcomes to use
+     * @param nTimes is how many rounds that should be won or lost, on average
+     * @return the sums of the probabilities of SAM_WON, DEALER_WON and PUSH, at the
+     *     DealerOdds.WIN, DealerOdds.LOSS and DealerOdds.PUSH indices
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static final double[] playExpected(
+            final Game game, final DealerOdds odds, final int nTimes)
+            throws OutOfCardsException {
+        final Strategy strat = game.getStrategy();
+        double[] sums = new double[3];
+        double[] outcome = new double[3];
+        while (sums[DealerOdds.WIN] + sums[DealerOdds.LOSS] < nTimes) {
+            game.oneRoundExpected(strat, odds, outcome);
+            sums[DealerOdds.WIN] += outcome[DealerOdds.WIN];
+            sums[DealerOdds.LOSS] += outcome[DealerOdds.LOSS];
+            sums[DealerOdds.PUSH] += outcome[DealerOdds.PUSH];
+            game.prepareNewRound();
+        }
+        return sums;
+    }
+
+    /**
+     * playRules plays a number of rounds with a RoundEngine, and tallies the net winnings.
+     *
+     * @param engine is the engine for the rules to play with
+     * @param nTimes is how many rounds that should be played
+     * @return a tally of the won, lost and pushed rounds, and of the net winnings
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static final Tally playRules(final RoundEngine engine, final int nTimes)
+            throws OutOfCardsException {
+        Tally tally = new Tally();
+        for (int i = 0; i < nTimes; i++) {
+            tally.add(engine.playRound());
+        }
+        return tally;
+    }
+
+    /**
+     * playTable plays a number of rounds at the given table, and tallies the results per seat.
+     * Rounds that end in a push for some seats are not played again.
+     *
+     * @param table is the table to play at
+     * @param nTimes is how many rounds that should be played
+     * @return a tally of the won, lost and pushed rounds for each seat
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public static final Tally[] playTable(final Table table, final int nTimes)
+            throws OutOfCardsException {
+        Tally[] tallies = new Tally[table.seats()];
+        for (int i = 0; i < tallies.length; i++) {
+            tallies[i] = new Tally();
+        }
+        for (int round = 0; round < nTimes; round++) {
+            final Game.Result[] results = table.oneRound();
+            for (int i = 0; i < tallies.length; i++) {
+                tallies[i].add(results[i]);
+            }
+            table.prepareNewRound();
+        }
+        return tallies;
+    }
+
+    /**
+     * run will run through all possible parameters for the given Strategy, and find the parameters
+     * that gives the best win rate. Every candidate is written to stdout, and the 50 best results
+     * are listed at the end.
+     *
+     * @param strat the strategy to optimize
+     * @param n is the number of rounds to play when initially looking for a better win ratio
+     * @param nSecondary is the number of rounds to play after having simulated n rounds, if the win
+     *     ratio is better.
+     * @param nTertiary is the number of rounds to play after having simulated nSecondary rounds, if
+     *     the win ratio is better.
+     * @param randomValues is for trying random values for maxIterations instead of trying them out
+     *     progressively
+     * @param maxIterations is for limiting the iterations to a maximum number, set to 0 or -1 to
+     *     ignore
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     * @throws IOException if the results could not be written
+     */
+    public static void run(
+            Strategy strat,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final boolean randomValues,
+            final int maxIterations)
+            throws OutOfCardsException, IOException {
+        run(
+                strat,
+                n,
+                nSecondary,
+                nTertiary,
+                randomValues,
+                maxIterations,
+                ResultWriter.toStdout(),
+                DEFAULT_TOP_RESULTS);
     }
 
     /**
@@ -54,6 +189,11 @@ public class Optimizer {
      * win ratio for a given set of parameters does not appear to be giving good result, and
      * continue to the next ones.
      *
+     * <p>Only the topResults best results are kept in memory, and they are listed on stdout at the
+     * end. Equal win ratios are kept as separate results.
+     *
+     * <p>While running, the progress is available over JMX as "blackjack:type=OptimizerProgress".
+     *
      * @param strat the strategy to optimize
      * @param n is the number of rounds to play when initially looking for a better win ratio
      * @param nSecondary is the number of rounds to play after having simulated n rounds, if the win
@@ -64,7 +204,10 @@ public class Optimizer {
      *     progressively
      * @param maxIterations is for limiting the iterations to a maximum number, set to 0 or -1 to
      *     ignore
+     * @param writer is where each evaluated candidate is recorded. It is closed when done.
+     * @param topResults is the number of best results to keep and list at the end
      * @throws OutOfCardsException if there are less than 4 cards in the deck
+     * @throws IOException if the results could not be written
      */
     public static void run(
             Strategy strat,
@@ -72,73 +215,121 @@ public class Optimizer {
             final int nSecondary,
             final int nTertiary,
             final boolean randomValues,
-            final int maxIterations)
-            throws OutOfCardsException {
+            final int maxIterations,
+            final ResultWriter writer,
+            final int topResults)
+            throws OutOfCardsException, IOException {
+        run(
+                strat,
+                n,
+                nSecondary,
+                nTertiary,
+                randomValues,
+                maxIterations,
+                writer,
+                topResults,
+                Optimizer::getWinRatio);
+    }
+
+    // run is the same as above, but the candidates are measured with the given benchmark
+    static void run(
+            Strategy strat,
+            final int n,
+            final int nSecondary,
+            final int nTertiary,
+            final boolean randomValues,
+            final int maxIterations,
+            final ResultWriter writer,
+            final int topResults,
+            final Benchmark benchmark)
+            throws OutOfCardsException, IOException {
+
+        final StrategyFactory factory = strat.factory();
 
         int possibilities = maxIterations;
         if (maxIterations <= 0) {
-            possibilities = strat.possibilities();
+            possibilities = factory.possibilities();
         }
 
-        Strategy bestStrategySoFar = strat.copy();
+        // strategies are immutable, so the best one can be kept as it is
+        Strategy bestStrategySoFar = strat;
 
-        HashMap<Double, String> winratioToParams = new HashMap<Double, String>();
-        HashMap<String, Integer> stats;
+        TopResults top = new TopResults(topResults);
 
-        strat.resetParameters();
+        OptimizerProgress progress = new OptimizerProgress(possibilities);
+        progress.register();
 
-        double bestRatioSoFar = getWinRatio(strat, n);
+        try (writer) {
+            Parameters params = factory.first();
+            Strategy candidate = factory.create(params);
 
-        final double anImprovement = 1.001; // 0.1% better is enough of an improvement to count
+            double bestRatioSoFar = benchmark.winRatio(candidate, n);
+            progress.addRounds(n);
+            progress.best(bestRatioSoFar, bestStrategySoFar.toString());
 
-        double threshold = bestRatioSoFar * anImprovement;
+            double threshold = bestRatioSoFar * AN_IMPROVEMENT;
 
-        int counter = 0;
-        double winRatio = 0;
+            int counter = 0;
+            double winRatio = 0;
 
-        // iterate through all possible basic strategy parameters, as defined in the various classes
-        // that implements the Strategy interface
-        while (strat.nextParameter(randomValues)) {
-            // Check if the win rate is the best so far after n simulated games
-            winRatio = getWinRatio(strat, n);
-            if (winRatio > threshold) { // there must be a 1% improvement to count
-                // Check if the win rate is also better after a larger number of simulated games
-                winRatio = getWinRatio(strat, nSecondary);
+            // iterate through all possible basic strategy parameters, as defined in the various
+            // classes that implements the Strategy interface
+            while (true) {
+                if (randomValues) {
+                    params = factory.random();
+                } else {
+                    Optional<Parameters> next = factory.next(params);
+                    if (next.isEmpty()) {
+                        break;
+                    }
+                    params = next.get();
+                }
+                candidate = factory.create(params);
+                progress.candidate(candidate);
+                // Check if the win rate is the best so far after n simulated games
+                winRatio = benchmark.winRatio(candidate, n);
+                progress.addRounds(n);
                 if (winRatio > threshold) { // there must be a 1% improvement to count
-                    // Check if the win rate is also better after an even larger number of simulated
+                    // Check if the win rate is also better after a larger number of simulated
                     // games
-                    winRatio = getWinRatio(strat, nTertiary);
+                    winRatio = benchmark.winRatio(candidate, nSecondary);
+                    progress.addRounds(nSecondary);
                     if (winRatio > threshold) { // there must be a 1% improvement to count
-                        bestRatioSoFar = winRatio;
-                        bestStrategySoFar = strat.copy();
-                        threshold = bestRatioSoFar * anImprovement;
+                        // Check if the win rate is also better after an even larger number of
+                        // simulated games
+                        winRatio = benchmark.winRatio(candidate, nTertiary);
+                        progress.addRounds(nTertiary);
+                        if (winRatio > threshold) { // there must be a 1% improvement to count
+                            bestRatioSoFar = winRatio;
+                            bestStrategySoFar = candidate;
+                            threshold = bestRatioSoFar * AN_IMPROVEMENT;
+                            progress.best(bestRatioSoFar, bestStrategySoFar.toString());
+                        }
                     }
                 }
+                progress.candidateDone();
+                writer.record(
+                        counter,
+                        possibilities,
+                        winRatio,
+                        candidate,
+                        bestRatioSoFar,
+                        bestStrategySoFar,
+                        threshold);
+
+                top.offer(winRatio, candidate);
+                counter++;
+
+                if (randomValues && counter > maxIterations && maxIterations > 0) {
+                    break;
+                }
             }
-            System.out.printf(
-                    "[%d/%d] best win ratio %f: %s, now at %f: %s, threshold %f\n",
-                    counter,
-                    possibilities,
-                    bestRatioSoFar,
-                    bestStrategySoFar.toString(),
-                    winRatio,
-                    strat.toString(),
-                    threshold);
-
-            winratioToParams.put(winRatio, strat.toString());
-            counter++;
-
-            if (randomValues && counter > maxIterations && maxIterations > 0) {
-                break;
-            }
+        } finally {
+            progress.unregister();
         }
 
-        ArrayList<Double> sortedKeys = new ArrayList<Double>(winratioToParams.keySet());
-        Collections.sort(sortedKeys);
-
-        for (Double k : sortedKeys) {
-            String v = winratioToParams.get(k);
-            System.out.printf("%f: %s\n", k, v);
+        for (TopResults.Entry entry : top.sorted()) {
+            System.out.printf("%f: %s\n", entry.winRatio, entry.params);
         }
     }
 }
@@ -0,0 +1,174 @@
+package blackjack;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * OptimizerProgress keeps track of how far an Optimizer sweep has come, and exposes it over JMX.
+ *
+ * <p>The counters are lock-free, so that updating them from the optimizer loop costs next to
+ * nothing. Strings are only created when a JMX client asks for them.
+ */
+public final class OptimizerProgress implements OptimizerProgressMBean {
+
+    /** The JMX object name that the progress is registered under */
+    public static final String OBJECT_NAME = "blackjack:type=OptimizerProgress";
+
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final long totalCandidates;
+    private final long startNanos;
+
+    // the strategy that is being evaluated, only converted to a string when asked for
+    private volatile Strategy current;
+
+    // the best result so far, only written when there is an improvement
+    private volatile String bestParameters = "";
+    private volatile double bestWinRatio;
+
+    /**
+     * Create a new progress tracker. The clock starts ticking right away.
+     *
+     * @param totalCandidates is the number of candidates that the sweep is expected to evaluate
+     */
+    OptimizerProgress(final long totalCandidates) {
+        this.totalCandidates = totalCandidates;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Register this progress tracker with the platform MBean server. An earlier registration
+     * under the same name is replaced.
+     *
+     * @return true if the registration went well
+     */
+    public boolean register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return true;
+        } catch (JMException ex) {
+            System.err.println("could not register the optimizer progress MBean: " + ex);
+            return false;
+        }
+    }
+
+    /** Remove this progress tracker from the platform MBean server, if it is registered. */
+    public void unregister() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException ex) {
+            System.err.println("could not unregister the optimizer progress MBean: " + ex);
+        }
+    }
+
+    /**
+     * Record that a candidate is about to be evaluated.
+     *
+     * @param strat is the strategy with the current candidate parameters
+     */
+    public void candidate(final Strategy strat) {
+        current = strat;
+    }
+
+    /** Record that a candidate has been evaluated. */
+    public void candidateDone() {
+        candidates.increment();
+    }
+
+    /**
+     * Record that a number of rounds have been simulated.
+     *
+     * @param n is the number of rounds
+     */
+    public void addRounds(final long n) {
+        rounds.add(n);
+    }
+
+    /**
+     * Record a new best candidate.
+     *
+     * @param winRatio is the win ratio of the new best candidate
+     * @param params is the name and parameters of the new best candidate
+     */
+    public void best(final double winRatio, final String params) {
+        bestWinRatio = winRatio;
+        bestParameters = params;
+    }
+
+    @Override
+    public long getCandidatesEvaluated() {
+        return candidates.sum();
+    }
+
+    @Override
+    public long getTotalCandidates() {
+        return totalCandidates;
+    }
+
+    @Override
+    public long getRoundsPlayed() {
+        return rounds.sum();
+    }
+
+    @Override
+    public double getCandidatesPerSecond() {
+        return perSecond(candidates.sum());
+    }
+
+    @Override
+    public double getRoundsPerSecond() {
+        return perSecond(rounds.sum());
+    }
+
+    @Override
+    public String getCurrentCandidate() {
+        final Strategy strat = current;
+        return strat == null ? "" : strat.toString();
+    }
+
+    @Override
+    public String getBestParameters() {
+        return bestParameters;
+    }
+
+    @Override
+    public double getBestWinRatio() {
+        return bestWinRatio;
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    @Override
+    public double getEtaSeconds() {
+        final double rate = getCandidatesPerSecond();
+        if (rate <= 0 || totalCandidates <= 0) {
+            return -1;
+        }
+        final long remaining = Math.max(0, totalCandidates - candidates.sum());
+        return remaining / rate;
+    }
+
+    // perSecond divides the given count by the number of seconds since the start
+    private double perSecond(final long count) {
+        final double seconds = getElapsedSeconds();
+        if (seconds <= 0) {
+            return 0;
+        }
+        return count / seconds;
+    }
+}
@@ -0,0 +1,40 @@
+package blackjack;
+
+/**
+ * OptimizerProgressMBean is the JMX management interface for a running Optimizer sweep.
+ *
+ * <p>It can be inspected with jconsole or any other JMX client, under the name
+ * "blackjack:type=OptimizerProgress".
+ */
+public interface OptimizerProgressMBean {
+
+    /** @return the number of candidate parameter sets that have been evaluated so far */
+    public long getCandidatesEvaluated();
+
+    /** @return the number of candidate parameter sets that the sweep is expected to evaluate */
+    public long getTotalCandidates();
+
+    /** @return the number of rounds of Blackjack that have been simulated so far */
+    public long getRoundsPlayed();
+
+    /** @return the average number of candidates evaluated per second */
+    public double getCandidatesPerSecond();
+
+    /** @return the average number of rounds simulated per second */
+    public double getRoundsPerSecond();
+
+    /** @return the name and parameters of the candidate that is being evaluated right now */
+    public String getCurrentCandidate();
+
+    /** @return the name and parameters of the best candidate so far */
+    public String getBestParameters();
+
+    /** @return the win ratio of the best candidate so far */
+    public double getBestWinRatio();
+
+    /** @return the number of seconds since the sweep started */
+    public double getElapsedSeconds();
+
+    /** @return the estimated number of seconds until the sweep is done, or -1 if unknown */
+    public double getEtaSeconds();
+}
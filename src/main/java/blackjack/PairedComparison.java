@@ -0,0 +1,351 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * PairedComparison plays several strategies on exactly the same rounds, and finds out which of
+ * them wins more often, and which of them decides faster.
+ *
+ * <p>Every round starts from a freshly shuffled shoe, and all strategies get the same shoe for the
+ * same round, since the shoes are shuffled from the same seed. When two strategies make the same
+ * decisions, they also get the same outcome, so only the rounds where they decide differently add
+ * noise to the difference between them. That makes the paired difference much less noisy than the
+ * difference between two separate runs, and far fewer rounds are needed to tell the strategies
+ * apart. The strategies are played in parallel, one per thread.
+ *
+ * <p>Since every round starts from a full shoe, strategies that count cards get no help from the
+ * count.
+ */
+public final class PairedComparison {
+
+    /** The default number of rounds per strategy */
+    public static final int DEFAULT_ROUNDS = 100000;
+
+    /** The names of the strategies that are compared with "all" */
+    public static final String[] BUILT_IN = {
+        "basicopt", "second", "third", "always-hit", "always-stay"
+    };
+
+    // the number of standard deviations for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    // the number of decisions per strategy that are kept for timing the strategies
+    private static final int RECORDED_DECISIONS = 1 << 14;
+
+    // the number of times every strategy is timed, where the fastest time is kept
+    private static final int TIMINGS = 5;
+
+    // the shortest time that one timing should take, for the clock to be precise enough
+    private static final long MIN_TIMING_NANOS = 20000000L;
+
+    // the outcomes of a round, as stored per round
+    private static final byte WON = 1;
+    private static final byte LOST = -1;
+    private static final byte PUSHED = 0;
+
+    /** Result is how one strategy did. */
+    public static final class Result {
+
+        /** the strategy */
+        public final Strategy strat;
+
+        /** the number of won, lost and pushed rounds */
+        public final long wins;
+
+        public final long losses;
+        public final long pushes;
+
+        /** the number of nanoseconds per decision */
+        public final double nanosPerDecision;
+
+        private final byte[] outcomes;
+
+        private Result(final Strategy strat, final byte[] outcomes, final double nanosPerDecision) {
+            this.strat = strat;
+            this.outcomes = outcomes;
+            this.nanosPerDecision = nanosPerDecision;
+            long w = 0;
+            long l = 0;
+            for (byte outcome : outcomes) {
+                w += outcome == WON ? 1 : 0;
+                l += outcome == LOST ? 1 : 0;
+            }
+            wins = w;
+            losses = l;
+            pushes = outcomes.length - w - l;
+        }
+
+        /** @return the share of the rounds that were won */
+        public double winRate() {
+            return (double) wins / outcomes.length;
+        }
+
+        /** @return the win ratio, the number of won rounds divided by the number of lost rounds */
+        public double winRatio() {
+            return (wins + 1.0) / (losses + 1.0);
+        }
+    }
+
+    /** Difference is the paired difference between the win rates of two strategies. */
+    public static final class Difference {
+
+        /** the two strategies, where the difference is a minus b */
+        public final Result a;
+
+        public final Result b;
+
+        /** the difference between the win rates */
+        public final double difference;
+
+        /** the half-width of the 95% confidence interval, for the paired difference */
+        public final double error;
+
+        /** the half-width of the 95% confidence interval, if the rounds had not been paired */
+        public final double unpairedError;
+
+        private Difference(final Result a, final Result b) {
+            this.a = a;
+            this.b = b;
+            final int n = a.outcomes.length;
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int i = 0; i < n; i++) {
+                final int d = (a.outcomes[i] == WON ? 1 : 0) - (b.outcomes[i] == WON ? 1 : 0);
+                sum += d;
+                sumOfSquares += d * d;
+            }
+            difference = sum / n;
+            final double variance =
+                    Math.max(0, (sumOfSquares - n * difference * difference) / (n - 1));
+            error = Z_95 * Math.sqrt(variance / n);
+            final double pa = a.winRate();
+            final double pb = b.winRate();
+            unpairedError = Z_95 * Math.sqrt((pa * (1 - pa) + pb * (1 - pb)) / n);
+        }
+
+        /** @return true if the confidence interval of the difference does not include zero */
+        public boolean isSignificant() {
+            return Math.abs(difference) > error;
+        }
+
+        /**
+         * @return how many times more rounds an unpaired comparison would need for the same
+         *     precision, or infinity if both strategies made the same decisions in every round
+         */
+        public double pairingGain() {
+            if (error == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return (unpairedError * unpairedError) / (error * error);
+        }
+    }
+
+    private final List<Strategy> strategies;
+    private final int rounds;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Create a new comparison.
+     *
+     * @param strategies are the strategies to compare
+     * @param rounds is the number of rounds that every strategy plays
+     * @param threads is the number of strategies to play at the same time
+     * @param seed is the seed for shuffling the shoes
+     */
+    PairedComparison(
+            final List<Strategy> strategies, final int rounds, final int threads, final long seed) {
+        this.strategies = strategies;
+        this.rounds = Math.max(2, rounds);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Play all strategies on the same rounds, and time their decisions.
+     *
+     * @return the results, in the same order as the strategies
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public List<Result> run() throws OutOfCardsException {
+        List<Callable<Recorder>> tasks = new ArrayList<Callable<Recorder>>();
+        for (Strategy strat : strategies) {
+            tasks.add(() -> play(strat));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Recorder> played = new ArrayList<Recorder>();
+            for (Future<Recorder> result : executor.invokeAll(tasks)) {
+                played.add(result.get());
+            }
+            // the decisions are timed one strategy at a time, after all rounds have been played,
+            // so that the timings do not compete for the cores
+            List<Result> results = new ArrayList<Result>();
+            for (Recorder recorder : played) {
+                results.add(new Result(recorder.strat, recorder.outcomes, recorder.time()));
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<Result>();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OutOfCardsException) {
+                throw (OutOfCardsException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Find the paired differences between all pairs of strategies.
+     *
+     * @param results are the results from run
+     * @return the differences, where the strategy with the higher win rate comes first in a pair
+     */
+    public static List<Difference> differences(final List<Result> results) {
+        List<Difference> differences = new ArrayList<Difference>();
+        for (int i = 0; i < results.size(); i++) {
+            for (int j = i + 1; j < results.size(); j++) {
+                final Result a = results.get(i);
+                final Result b = results.get(j);
+                differences.add(a.wins >= b.wins ? new Difference(a, b) : new Difference(b, a));
+            }
+        }
+        return differences;
+    }
+
+    // play plays all rounds with one strategy, and returns the recorded outcomes and decisions
+    private Recorder play(final Strategy strat) throws OutOfCardsException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Recorder recorder = new Recorder(strat, rounds);
+        Deck deck = new Deck();
+        Game game = new Game(deck, recorder, false, false);
+        for (int i = 0; i < rounds; i++) {
+            deck.renew(ShoePipeline.shuffled(random));
+            game.prepareNewRound();
+            switch (game.oneRound(recorder)) {
+                case SAM_WON:
+                    recorder.outcomes[i] = WON;
+                    break;
+                case DEALER_WON:
+                    recorder.outcomes[i] = LOST;
+                    break;
+                default:
+                    recorder.outcomes[i] = PUSHED;
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Recorder passes decisions on to a strategy, and keeps the first of them, so that the time
+     * per decision can be measured afterwards on states that the strategy really met. It also
+     * keeps the outcome of every round. It is only used by one thread at a time.
+     */
+    private static final class Recorder implements Strategy {
+        private final Strategy strat;
+        private final int[] totals = new int[RECORDED_DECISIONS];
+        private final int[] aces = new int[RECORDED_DECISIONS];
+        private final int[] counts = new int[RECORDED_DECISIONS];
+        private final int[] upcards = new int[RECORDED_DECISIONS];
+        private final byte[] outcomes;
+        private int n = 0;
+
+        Recorder(final Strategy strat, final int rounds) {
+            this.strat = strat;
+            this.outcomes = new byte[rounds];
+        }
+
+        private void record(final Hand hand, final Card dealerUpcard) {
+            if (n < RECORDED_DECISIONS) {
+                totals[n] = hand.score();
+                aces[n] = hand.aces();
+                counts[n] = hand.count();
+                upcards[n] = dealerUpcard.score();
+                n++;
+            }
+        }
+
+        @Override
+        public boolean shouldHit(final Hand hand, final Card dealerUpcard) {
+            record(hand, dealerUpcard);
+            return strat.shouldHit(hand, dealerUpcard);
+        }
+
+        @Override
+        public boolean shouldHit(final Hand hand, final Card dealerUpcard, final ShoeState shoe) {
+            record(hand, dealerUpcard);
+            return strat.shouldHit(hand, dealerUpcard, shoe);
+        }
+
+        // time returns the fastest number of nanoseconds per decision, over the recorded states
+        double time() {
+            if (n == 0) {
+                return 0;
+            }
+            boolean[] decisions = new boolean[n];
+            double best = Double.POSITIVE_INFINITY;
+            for (int t = 0; t < TIMINGS; t++) {
+                long repetitions = 0;
+                final long start = System.nanoTime();
+                long elapsed;
+                do {
+                    strat.shouldHit(totals, aces, counts, upcards, decisions, n);
+                    repetitions++;
+                    elapsed = System.nanoTime() - start;
+                } while (elapsed < MIN_TIMING_NANOS);
+                best = Math.min(best, (double) elapsed / (repetitions * n));
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Format the results and the differences as tables.
+     *
+     * @param results are the results from run
+     * @return the tables as text
+     */
+    public static String format(final List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# win rate  win ratio  ns/decision  strategy\n");
+        for (Result r : results) {
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%9.3f%%  %9.6f  %11.1f  %s\n",
+                            r.winRate() * 100.0,
+                            r.winRatio(),
+                            r.nanosPerDecision,
+                            r.strat));
+        }
+        sb.append("#\n");
+        sb.append("# difference          unpaired      gain  significant  strategies\n");
+        for (Difference d : differences(results)) {
+            final String gain =
+                    d.error == 0 ? "same" : String.format(Locale.ROOT, "%.1f", d.pairingGain());
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%+8.3f%% +-%.3f%%  +-%.3f%%  %8s  %-11s  %s - %s\n",
+                            d.difference * 100.0,
+                            d.error * 100.0,
+                            d.unpairedError * 100.0,
+                            gain,
+                            d.isSignificant() ? "yes" : "no",
+                            d.a.strat,
+                            d.b.strat));
+        }
+        return sb.toString();
+    }
+}
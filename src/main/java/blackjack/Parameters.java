@@ -0,0 +1,91 @@
+package blackjack;
+
+import java.util.Arrays;
+
+/**
+ * Parameters is an immutable vector of strategy parameters, in the order that a StrategyFactory
+ * lists them. Since it never changes, it can be kept, shared between threads and used as a key
+ * without being copied.
+ */
+public final class Parameters {
+
+    /** No parameters, for strategies that can not be tuned */
+    public static final Parameters NONE = new Parameters(new double[0]);
+
+    private final double[] values;
+
+    private Parameters(final double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Create a parameter vector.
+     *
+     * @param values are the parameters, which are copied
+     * @return the parameter vector
+     */
+    public static Parameters of(final double... values) {
+        if (values.length == 0) {
+            return NONE;
+        }
+        return new Parameters(values.clone());
+    }
+
+    /** @return the number of parameters */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Get a parameter.
+     *
+     * @param index is the position of the parameter
+     * @return the parameter
+     */
+    public double get(final int index) {
+        return values[index];
+    }
+
+    /**
+     * Get a parameter that is a whole number.
+     *
+     * @param index is the position of the parameter
+     * @return the parameter, without any fraction
+     */
+    public int getInt(final int index) {
+        return (int) values[index];
+    }
+
+    /**
+     * Create a parameter vector where one parameter is replaced.
+     *
+     * @param index is the position of the parameter to replace
+     * @param value is the new value
+     * @return a new parameter vector
+     */
+    public Parameters with(final int index, final double value) {
+        double[] copy = values.clone();
+        copy[index] = value;
+        return new Parameters(copy);
+    }
+
+    /** @return a copy of the parameters, as an array */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof Parameters && Arrays.equals(values, ((Parameters) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
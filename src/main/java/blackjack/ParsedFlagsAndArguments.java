@@ -1,34 +1,60 @@
 package blackjack;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ParsedFlagsAndArguments {
 
     private final ArrayList<String> args; // non-flag arguments
     private final HashSet<String> flags; // flag arguments (starting with "-")
+    private final HashMap<String, String> values; // values given to flags, like "--results FILE"
 
     /**
      * Parse the arguments and flags in the given command line argument string list. This
-     * constructor does not deal with unrecognized flags.
+     * constructor does not deal with unrecognized flags, and only recognizes flag values that are
+     * given as "--flag=value".
      *
      * @param args can be the same args as the main function is given
      */
     ParsedFlagsAndArguments(final String[] args) {
+        this(args, new HashSet<String>());
+    }
+
+    /**
+     * Parse the arguments and flags in the given command line argument string list. This
+     * constructor does not deal with unrecognized flags.
+     *
+     * @param args can be the same args as the main function is given
+     * @param valueFlags are the flags that take the next argument as their value
+     */
+    private ParsedFlagsAndArguments(final String[] args, final HashSet<String> valueFlags) {
         ArrayList<String> parsedArgs = new ArrayList<String>();
         HashSet<String> parsedFlags = new HashSet<String>();
-        for (final String arg : args) {
-            if (arg.startsWith("-")) {
+        HashMap<String, String> parsedValues = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (!arg.startsWith("-")) {
+                parsedArgs.add(arg);
+                continue;
+            }
+            final int eq = arg.indexOf('=');
+            if (eq > 0) {
+                // a flag on the form "--flag=value"
+                parsedFlags.add(arg.substring(0, eq));
+                parsedValues.put(arg.substring(0, eq), arg.substring(eq + 1));
+            } else if (valueFlags.contains(arg) && i + 1 < args.length) {
+                // a flag on the form "--flag value"
                 parsedFlags.add(arg);
+                parsedValues.put(arg, args[++i]);
             } else {
-                parsedArgs.add(arg);
+                parsedFlags.add(arg);
             }
         }
         this.args = parsedArgs;
         this.flags = parsedFlags;
+        this.values = parsedValues;
     }
 
     /**
@@ -40,7 +66,7 @@ public class ParsedFlagsAndArguments {
      */
     ParsedFlagsAndArguments(final String[] args, final String usageText)
             throws UnrecognizedFlagException {
-        this(args);
+        this(args, allValueFlags(usageText));
         Optional<String> maybeUnrecognizedFlag = findAnUnrecognizedFlag(usageText);
         if (maybeUnrecognizedFlag.isPresent()) {
             throw new UnrecognizedFlagException(
@@ -55,7 +81,7 @@ public class ParsedFlagsAndArguments {
      * @return an Optional String if an unrecognized flag was found
      */
     public final Optional<String> findAnUnrecognizedFlag(final String usageText) {
-        ArrayList<String> recognizedFlags = allRecognizedFlags(usageText);
+        HashSet<String> recognizedFlags = allRecognizedFlags(usageText);
         // Check if one of the parsed flags are unrecognized
         for (String flag : flags) {
             if (!recognizedFlags.contains(flag)) {
@@ -67,23 +93,88 @@ public class ParsedFlagsAndArguments {
     }
 
     /**
-     * Find a list of all recognized flags, by looking for -+[\w]+ in the usage text.
+     * Find all flags that take a value, by looking for a flag followed by a single space and an
+     * upper case word, like "--results FILE", in the usage text.
+     *
+     * @param usageText is the help text that contains a description of all flags
+     * @return a set of all flags that take a value
+     */
+    private static HashSet<String> allValueFlags(final String usageText) {
+        HashSet<String> valueFlags = new HashSet<String>();
+        scanFlags(usageText, new HashSet<String>(), valueFlags);
+        return valueFlags;
+    }
+
+    /**
+     * Find a set of all recognized flags, by looking for -+\w[\w-]* in the usage text.
      *
      * @param usageText can be the same help text that is presented to the user when the --help flag
      *     is given
-     * @return a list of all recognized flags, based on the contents of the given usage string
-     */
-    private final ArrayList<String> allRecognizedFlags(final String usageText) {
-        // Look for any word starting with "-" in the given usage text
-        Pattern pattern = Pattern.compile("-+[\\w]+");
-        Matcher matcher = pattern.matcher(usageText);
-        ArrayList<String> recognizedFlags = new ArrayList<String>();
-        while (matcher.find()) {
-            recognizedFlags.add(matcher.group());
-        }
+     * @return a set of all recognized flags, based on the contents of the given usage string
+     */
+    private static HashSet<String> allRecognizedFlags(final String usageText) {
+        HashSet<String> recognizedFlags = new HashSet<String>();
+        scanFlags(usageText, recognizedFlags, new HashSet<String>());
         return recognizedFlags;
     }
 
+    /**
+     * Scan the usage text for flags, which are words like -+\w[\w-]*, and for the flags that take
+     * a value, which are followed by a single space and an upper case word, like "--results FILE".
+     * This is what the regular expressions "-+\w[\w-]*" and "(-+\w[\w-]*) [A-Z]+\b" would find,
+     * but without compiling them, since this is done every time the program starts.
+     *
+     * @param usageText is the help text that contains a description of all flags
+     * @param recognizedFlags is where all flags are added
+     * @param valueFlags is where the flags that take a value are added
+     */
+    private static void scanFlags(
+            final String usageText,
+            final HashSet<String> recognizedFlags,
+            final HashSet<String> valueFlags) {
+        final int n = usageText.length();
+        int i = 0;
+        while (i < n) {
+            if (usageText.charAt(i) != '-') {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < n && usageText.charAt(end) == '-') {
+                end++;
+            }
+            if (end == n || !isWordChar(usageText.charAt(end))) {
+                i = end;
+                continue;
+            }
+            while (end < n && (isWordChar(usageText.charAt(end)) || usageText.charAt(end) == '-')) {
+                end++;
+            }
+            final String flag = usageText.substring(i, end);
+            recognizedFlags.add(flag);
+
+            // a single space and an upper case word that ends at a non-word character
+            int word = end + 1;
+            if (end < n && usageText.charAt(end) == ' ') {
+                while (word < n && usageText.charAt(word) >= 'A' && usageText.charAt(word) <= 'Z') {
+                    word++;
+                }
+                if (word > end + 1 && (word == n || !isWordChar(usageText.charAt(word)))) {
+                    valueFlags.add(flag);
+                }
+            }
+            i = end;
+        }
+    }
+
+    // isWordChar returns true if c is matched by \w in a regular expression
+    private static boolean isWordChar(final char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '_';
+    }
+
     /**
      * Check if a flag was given.
      *
@@ -105,6 +196,94 @@ public class ParsedFlagsAndArguments {
         return flags.contains(shortFlag) || flags.contains(longFlag);
     }
 
+    /**
+     * Get the value that was given to a flag, either as "--flag value" or as "--flag=value".
+     *
+     * @param flag is the name of the flag, including leading dashes.
+     * @return the value of the flag as an optional string, empty if the flag was not given
+     * @throws InvalidFlagValueException if the flag was given without a value
+     */
+    public final Optional<String> stringFlagValue(final String flag)
+            throws InvalidFlagValueException {
+        if (!flags.contains(flag)) {
+            return Optional.empty();
+        }
+        final String value = values.get(flag);
+        if (value == null) {
+            throw new InvalidFlagValueException("missing value for flag: " + flag);
+        }
+        return Optional.of(value);
+    }
+
+    /**
+     * Get the value that was given to a flag as an integer.
+     *
+     * @param flag is the name of the flag, including leading dashes.
+     * @param defaultValue is returned if the flag was not given
+     * @return the value of the flag, or the default value
+     * @throws InvalidFlagValueException if the flag was given without a value, or if the value is
+     *     not an integer
+     */
+    public final int intFlagValue(final String flag, final int defaultValue)
+            throws InvalidFlagValueException {
+        final Optional<String> maybeValue = stringFlagValue(flag);
+        if (maybeValue.isEmpty()) {
+            return defaultValue;
+        }
+        final String value = maybeValue.get();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidFlagValueException("not an integer: " + flag + " " + value);
+        }
+    }
+
+    /**
+     * Get the value that was given to a flag as a long integer.
+     *
+     * @param flag is the name of the flag, including leading dashes.
+     * @param defaultValue is returned if the flag was not given
+     * @return the value of the flag, or the default value
+     * @throws InvalidFlagValueException if the flag was given without a value, or if the value is
+     *     not an integer
+     */
+    public final long longFlagValue(final String flag, final long defaultValue)
+            throws InvalidFlagValueException {
+        final Optional<String> maybeValue = stringFlagValue(flag);
+        if (maybeValue.isEmpty()) {
+            return defaultValue;
+        }
+        final String value = maybeValue.get();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidFlagValueException("not an integer: " + flag + " " + value);
+        }
+    }
+
+    /**
+     * Get the value that was given to a flag as a double.
+     *
+     * @param flag is the name of the flag, including leading dashes.
+     * @param defaultValue is returned if the flag was not given
+     * @return the value of the flag, or the default value
+     * @throws InvalidFlagValueException if the flag was given without a value, or if the value is
+     *     not a number
+     */
+    public final double doubleFlagValue(final String flag, final double defaultValue)
+            throws InvalidFlagValueException {
+        final Optional<String> maybeValue = stringFlagValue(flag);
+        if (maybeValue.isEmpty()) {
+            return defaultValue;
+        }
+        final String value = maybeValue.get();
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidFlagValueException("not a number: " + flag + " " + value);
+        }
+    }
+
     /**
      * Get the first argument, if it has been given.
      *
@@ -3,6 +3,7 @@ package blackjack;
 /** Player is a Hand with a Strategy. It inherits from Hand which inherits from CardCollection. */
 public final class Player extends Hand {
 
+    // strategies are immutable, so all players can share the default one
     public static final Strategy defaultStrategy = new BasicStrategyOptimized();
 
     private Strategy strategy;
@@ -23,4 +24,8 @@ public final class Player extends Hand {
     public final boolean shouldHit(Card dealerUpcard) {
         return this.strategy.shouldHit(this, dealerUpcard);
     }
+
+    public final boolean shouldHit(Card dealerUpcard, ShoeState shoe) {
+        return this.strategy.shouldHit(this, dealerUpcard, shoe);
+    }
 }
@@ -0,0 +1,593 @@
+package blackjack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PolicyCompiler compiles a policy, as read by PolicyParser, to the bytecode of a class that
+ * implements Strategy, and defines it as a hidden class. The decision becomes the same code that
+ * javac would write for a chain of if statements with the numbers of the policy as constants, so
+ * the JIT can inline and optimize it like a hand-written strategy, and there is no interpretation
+ * when rounds are played.
+ *
+ * <p>Every rule jumps past its own return when its condition is false, and "and" and "or" only
+ * look at their right side when they need to. Comparisons of whole numbers, like score &lt; 17,
+ * use int instructions, and doubles are only used for fractions and division. Since nothing is
+ * left on the operand stack at a jump, and the method never stores a local variable, every stack
+ * map frame is the same as the frame at the start of the method, which keeps the class file writer
+ * small.
+ */
+public final class PolicyCompiler {
+
+    // the class file version, Java 8
+    private static final int CLASS_VERSION = 52;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    // the opcodes that are used
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int BIPUSH = 0x10;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int IADD = 0x60;
+    private static final int DADD = 0x63;
+    private static final int ISUB = 0x64;
+    private static final int DSUB = 0x67;
+    private static final int IMUL = 0x68;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int INEG = 0x74;
+    private static final int DNEG = 0x77;
+    private static final int I2D = 0x87;
+    private static final int DCMPL = 0x97;
+    private static final int DCMPG = 0x98;
+    private static final int IFEQ = 0x99;
+    private static final int IF_ICMPEQ = 0x9f;
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+
+    // the comparisons, in the order of the jumps from IFEQ and IF_ICMPEQ, where every comparison
+    // is next to its opposite
+    private static final String[] RELATIONS = {"==", "!=", "<", ">=", ">", "<="};
+
+    // the arithmetic operators, and their instructions for ints and doubles
+    private static final String ARITHMETIC = "+-*/";
+    private static final int[] INT_ARITHMETIC = {IADD, ISUB, IMUL};
+    private static final int[] DOUBLE_ARITHMETIC = {DADD, DSUB, DMUL, DDIV};
+
+    // the largest value that a variable is taken to have, when finding out if int arithmetic can
+    // overflow; the numbers of a hand are far below it
+    private static final double VARIABLE_BOUND = 1 << 10;
+
+    // a number for every compiled class, so that the class names are unique
+    private static final AtomicInteger classes = new AtomicInteger();
+
+    private PolicyCompiler() {}
+
+    /**
+     * Load and compile a policy file.
+     *
+     * @param filename is the policy file
+     * @return the compiled strategy, which is immutable like other strategies
+     * @throws IOException if the file could not be read
+     * @throws PolicyParseException if it is not a valid policy
+     */
+    public static Strategy load(final String filename) throws IOException, PolicyParseException {
+        return compile(PolicyParser.parseFile(filename));
+    }
+
+    /**
+     * Compile a policy.
+     *
+     * @param policy is the parsed policy
+     * @return the compiled strategy, which is immutable like other strategies
+     */
+    static Strategy compile(final PolicyParser policy) {
+        final String className = "blackjack/CompiledPolicy" + classes.incrementAndGet();
+        final byte[] bytes = new ClassWriter(className, policy).toBytes();
+        try {
+            final MethodHandles.Lookup lookup =
+                    MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Strategy)
+                    lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                            .invoke();
+        } catch (Throwable ex) {
+            throw new IllegalStateException("could not define the compiled policy", ex);
+        }
+    }
+
+    /**
+     * Check if a number can be found with int arithmetic. That is the case when it only has whole
+     * numbers, variables, negation, + - and *, and can not overflow an int, so that the result is
+     * the same as with doubles.
+     *
+     * @param node is the number
+     * @return true if int arithmetic gives the same result
+     */
+    static boolean isInteger(final PolicyParser.Node node) {
+        return bound(node) < Integer.MAX_VALUE;
+    }
+
+    // bound returns the largest absolute value that a number can have, or infinity if it can be
+    // a fraction
+    private static double bound(final PolicyParser.Node node) {
+        switch (node.op) {
+            case "variable":
+                return VARIABLE_BOUND;
+            case "number":
+                return node.value == Math.rint(node.value)
+                        ? Math.abs(node.value)
+                        : Double.POSITIVE_INFINITY;
+            case "neg":
+                return bound(node.left);
+            case "+":
+            case "-":
+                return bound(node.left) + bound(node.right);
+            case "*":
+                return bound(node.left) * bound(node.right);
+            default:
+                return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /** ClassWriter writes the class file of one compiled policy. */
+    private static final class ClassWriter {
+        private final String className;
+        private final PolicyParser policy;
+
+        // the constant pool, and the index of every constant in it
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final HashMap<String, Integer> constants = new HashMap<String, Integer>();
+        private int poolCount = 1;
+
+        ClassWriter(final String className, final PolicyParser policy) {
+            this.className = className;
+            this.policy = policy;
+        }
+
+        byte[] toBytes() {
+            try {
+                // the methods are written first, since they add to the constant pool
+                ByteArrayOutputStream methods = new ByteArrayOutputStream();
+                DataOutputStream m = new DataOutputStream(methods);
+                m.writeShort(4);
+                writeConstructor(m);
+                writeDecision(m);
+                writeHandDecision(m);
+                writeToString(m);
+
+                final int thisClass = classConstant(className);
+                final int superClass = classConstant("java/lang/Object");
+                final int strategy = classConstant("blackjack/Strategy");
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(CLASS_VERSION);
+                out.writeShort(poolCount);
+                out.write(pool.toByteArray());
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1); // interfaces
+                out.writeShort(strategy);
+                out.writeShort(0); // fields
+                out.write(methods.toByteArray());
+                out.writeShort(0); // attributes
+                return bytes.toByteArray();
+            } catch (IOException ex) {
+                // writing to memory does not fail
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        // writeConstructor writes a constructor that only calls the one of Object
+        private void writeConstructor(final DataOutputStream m) throws IOException {
+            Code code = new Code();
+            code.op(ALOAD_0);
+            code.op(INVOKESPECIAL);
+            code.u2(methodConstant("java/lang/Object", "<init>", "()V"));
+            code.op(RETURN);
+            writeMethod(m, "<init>", "()V", code, 1, 1);
+        }
+
+        // writeDecision writes shouldHit(int, int, int, int), as a chain of "if (condition) return
+        // hit;" like javac would write it, and the default decision at the end
+        private void writeDecision(final DataOutputStream m) throws IOException {
+            Code code = new Code();
+            int maxStack = 1;
+            for (PolicyParser.Rule rule : policy.rules()) {
+                final Label next = new Label();
+                maxStack = Math.max(maxStack, jump(code, rule.condition, false, next));
+                code.op(rule.hit ? ICONST_1 : ICONST_0);
+                code.op(IRETURN);
+                code.bind(next);
+            }
+            code.op(policy.defaultHit() ? ICONST_1 : ICONST_0);
+            code.op(IRETURN);
+            writeMethod(m, "shouldHit", "(IIII)Z", code, maxStack, 5);
+        }
+
+        // writeHandDecision writes shouldHit(Hand, Card), which calls shouldHit(int, int, int,
+        // int), the way that the hand-written strategies do
+        private void writeHandDecision(final DataOutputStream m) throws IOException {
+            Code code = new Code();
+            code.op(ALOAD_0);
+            for (String method : new String[] {"score", "aces", "count"}) {
+                code.op(ALOAD_1);
+                code.op(INVOKEVIRTUAL);
+                code.u2(methodConstant("blackjack/Hand", method, "()I"));
+            }
+            code.op(ALOAD_2);
+            code.op(INVOKEVIRTUAL);
+            code.u2(methodConstant("blackjack/Card", "score", "()I"));
+            code.op(INVOKEVIRTUAL);
+            code.u2(methodConstant(className, "shouldHit", "(IIII)Z"));
+            code.op(IRETURN);
+            writeMethod(m, "shouldHit", "(Lblackjack/Hand;Lblackjack/Card;)Z", code, 5, 3);
+        }
+
+        // writeToString writes toString, which returns the name of the policy
+        private void writeToString(final DataOutputStream m) throws IOException {
+            Code code = new Code();
+            code.op(LDC_W);
+            code.u2(stringConstant(policy.name()));
+            code.op(ARETURN);
+            writeMethod(m, "toString", "()Ljava/lang/String;", code, 1, 1);
+        }
+
+        // jump writes the code that jumps to the target when the condition is the same as when,
+        // and returns the highest stack depth that it needs. Nothing is left on the stack.
+        private int jump(
+                final Code code,
+                final PolicyParser.Node node,
+                final boolean when,
+                final Label target) {
+            switch (node.op) {
+                case "true":
+                case "false":
+                    if (node.op.equals("true") == when) {
+                        code.jump(GOTO, target);
+                    }
+                    return 0;
+                case "not":
+                    return jump(code, node.left, !when, target);
+                case "and":
+                case "or":
+                    if (node.op.equals("and") != when) {
+                        // either side can decide on its own, like a false side of an "and"
+                        return Math.max(
+                                jump(code, node.left, when, target),
+                                jump(code, node.right, when, target));
+                    }
+                    {
+                        // both sides must agree, so the left side can only skip the right side
+                        final Label skip = new Label();
+                        final int d =
+                                Math.max(
+                                        jump(code, node.left, !when, skip),
+                                        jump(code, node.right, when, target));
+                        code.bind(skip);
+                        return d;
+                    }
+                default:
+                    return compare(code, node, when, target);
+            }
+        }
+
+        // compare writes a comparison that jumps to the target when it is the same as when
+        private int compare(
+                final Code code,
+                final PolicyParser.Node node,
+                final boolean when,
+                final Label target) {
+            int relation = 0;
+            while (!RELATIONS[relation].equals(node.op)) {
+                relation++;
+            }
+            // the relations come in pairs of opposites, so the opposite is the index xor 1
+            final int jumpRelation = when ? relation : relation ^ 1;
+            if (isInteger(node.left) && isInteger(node.right)) {
+                final int d =
+                        Math.max(
+                                number(code, node.left, false),
+                                1 + number(code, node.right, false));
+                code.jump(IF_ICMPEQ + jumpRelation, target);
+                return d;
+            }
+            final int d =
+                    Math.max(number(code, node.left, true), 2 + number(code, node.right, true));
+            // dcmpg makes NaN greater and dcmpl makes it less, and the one that is used makes the
+            // relation false for NaN, like in Java
+            code.op(node.op.startsWith("<") ? DCMPG : DCMPL);
+            code.jump(IFEQ + jumpRelation, target);
+            return d;
+        }
+
+        // number writes a number as an int, or as a double if asDouble is true or if it is not a
+        // whole number, and returns the highest stack depth that it needs
+        private int number(final Code code, final PolicyParser.Node node, final boolean asDouble) {
+            if (isInteger(node)) {
+                final int d = integer(code, node);
+                if (asDouble) {
+                    code.op(I2D);
+                    return Math.max(d, 2);
+                }
+                return d;
+            }
+            switch (node.op) {
+                case "number":
+                    code.op(LDC2_W);
+                    code.u2(doubleConstant(node.value));
+                    return 2;
+                case "neg":
+                    {
+                        final int d = number(code, node.left, true);
+                        code.op(DNEG);
+                        return d;
+                    }
+                default:
+                    {
+                        final int d =
+                                Math.max(
+                                        number(code, node.left, true),
+                                        2 + number(code, node.right, true));
+                        code.op(DOUBLE_ARITHMETIC[ARITHMETIC.indexOf(node.op)]);
+                        return d;
+                    }
+            }
+        }
+
+        // integer writes a number that isInteger accepts, with int instructions
+        private int integer(final Code code, final PolicyParser.Node node) {
+            switch (node.op) {
+                case "variable":
+                    code.op(ILOAD);
+                    code.u1(1 + (int) node.value);
+                    return 1;
+                case "number":
+                    {
+                        final int value = (int) node.value;
+                        if (value >= -1 && value <= 5) {
+                            code.op(ICONST_0 + value);
+                        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                            code.op(BIPUSH);
+                            code.u1(value);
+                        } else {
+                            code.op(LDC_W);
+                            code.u2(intConstant(value));
+                        }
+                        return 1;
+                    }
+                case "neg":
+                    {
+                        final int d = integer(code, node.left);
+                        code.op(INEG);
+                        return d;
+                    }
+                default:
+                    {
+                        final int d =
+                                Math.max(integer(code, node.left), 1 + integer(code, node.right));
+                        code.op(INT_ARITHMETIC[ARITHMETIC.indexOf(node.op)]);
+                        return d;
+                    }
+            }
+        }
+
+        private void writeMethod(
+                final DataOutputStream m,
+                final String name,
+                final String descriptor,
+                final Code code,
+                final int maxStack,
+                final int maxLocals)
+                throws IOException {
+            // constructors can not be final
+            m.writeShort(name.equals("<init>") ? ACC_PUBLIC : ACC_PUBLIC | ACC_FINAL);
+            m.writeShort(utf8Constant(name));
+            m.writeShort(utf8Constant(descriptor));
+            m.writeShort(1); // attributes
+            m.writeShort(utf8Constant("Code"));
+            final byte[] bytes = code.toBytes();
+            final byte[] frames = code.stackMapFrames();
+            final int attributes = frames.length == 0 ? 0 : 8 + frames.length;
+            m.writeInt(12 + bytes.length + attributes);
+            m.writeShort(maxStack);
+            m.writeShort(maxLocals);
+            m.writeInt(bytes.length);
+            m.write(bytes);
+            m.writeShort(0); // exception table
+            if (frames.length == 0) {
+                m.writeShort(0); // attributes
+            } else {
+                m.writeShort(1);
+                m.writeShort(utf8Constant("StackMapTable"));
+                m.writeInt(2 + frames.length);
+                m.writeShort(code.frameCount());
+                m.write(frames);
+            }
+        }
+
+        private int utf8Constant(final String value) {
+            return constant("utf8 " + value, 1, () -> {
+                poolOut.writeByte(1);
+                poolOut.writeUTF(value);
+            });
+        }
+
+        private int classConstant(final String name) {
+            final int nameIndex = utf8Constant(name);
+            return constant("class " + name, 1, () -> {
+                poolOut.writeByte(7);
+                poolOut.writeShort(nameIndex);
+            });
+        }
+
+        private int stringConstant(final String value) {
+            final int valueIndex = utf8Constant(value);
+            return constant("string " + value, 1, () -> {
+                poolOut.writeByte(8);
+                poolOut.writeShort(valueIndex);
+            });
+        }
+
+        private int intConstant(final int value) {
+            return constant("int " + value, 1, () -> {
+                poolOut.writeByte(3);
+                poolOut.writeInt(value);
+            });
+        }
+
+        private int doubleConstant(final double value) {
+            return constant("double " + Double.doubleToRawLongBits(value), 2, () -> {
+                poolOut.writeByte(6);
+                poolOut.writeDouble(value);
+            });
+        }
+
+        private int methodConstant(
+                final String owner, final String name, final String descriptor) {
+            final int ownerIndex = classConstant(owner);
+            final int nameIndex = utf8Constant(name);
+            final int descriptorIndex = utf8Constant(descriptor);
+            final int nameAndType =
+                    constant("nameandtype " + name + " " + descriptor, 1, () -> {
+                        poolOut.writeByte(12);
+                        poolOut.writeShort(nameIndex);
+                        poolOut.writeShort(descriptorIndex);
+                    });
+            return constant("method " + owner + " " + name + " " + descriptor, 1, () -> {
+                poolOut.writeByte(10);
+                poolOut.writeShort(ownerIndex);
+                poolOut.writeShort(nameAndType);
+            });
+        }
+
+        // Entry writes one constant to the pool
+        private interface Entry {
+            void write() throws IOException;
+        }
+
+        // constant returns the index of a constant, and adds it to the pool if it is new. Doubles
+        // take two places in the pool.
+        private int constant(final String key, final int size, final Entry entry) {
+            final Integer found = constants.get(key);
+            if (found != null) {
+                return found;
+            }
+            try {
+                entry.write();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            final int index = poolCount;
+            poolCount += size;
+            constants.put(key, index);
+            return index;
+        }
+    }
+
+    /** Label is a place in the code that jumps go to. */
+    private static final class Label {
+        // the offsets of the jumps to the label, that are filled in when it is bound
+        final List<Integer> jumps = new ArrayList<Integer>();
+    }
+
+    /**
+     * Code collects the bytes of the code of one method, and the offsets where it needs a stack
+     * map frame: at every label, and after every goto or return.
+     */
+    private static final class Code {
+        private byte[] bytes = new byte[64];
+        private int size = 0;
+        private final TreeSet<Integer> frames = new TreeSet<Integer>();
+        private boolean frameNext = false;
+
+        void op(final int opcode) {
+            if (frameNext) {
+                frames.add(size);
+                frameNext = false;
+            }
+            u1(opcode);
+            frameNext = opcode == GOTO || (opcode >= IRETURN && opcode <= RETURN);
+        }
+
+        void u1(final int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * size);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void u2(final int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        // jump writes a jump to a label, which is only bound after the jump
+        void jump(final int opcode, final Label label) {
+            label.jumps.add(size);
+            op(opcode);
+            u2(0);
+        }
+
+        void bind(final Label label) {
+            frames.add(size);
+            for (int jump : label.jumps) {
+                final int distance = size - jump;
+                bytes[jump + 1] = (byte) (distance >> 8);
+                bytes[jump + 2] = (byte) distance;
+            }
+        }
+
+        byte[] toBytes() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        int frameCount() {
+            return frames.size();
+        }
+
+        // stackMapFrames writes the frames as same_frame or same_frame_extended, which say that
+        // the locals and the stack are as at the start of the method
+        byte[] stackMapFrames() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int previous = -1;
+            for (int offset : frames) {
+                final int delta = offset - previous - 1;
+                if (delta < 64) {
+                    out.write(delta);
+                } else {
+                    out.write(251);
+                    out.write(delta >> 8);
+                    out.write(delta);
+                }
+                previous = offset;
+            }
+            return out.toByteArray();
+        }
+    }
+}
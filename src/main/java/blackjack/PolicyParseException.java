@@ -0,0 +1,12 @@
+package blackjack;
+
+/**
+ * PolicyParseException is thrown if a policy, like "hit if score < 12", can not be parsed. The
+ * message starts with the name of the policy file and the line number.
+ */
+public final class PolicyParseException extends Exception {
+
+    PolicyParseException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,376 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PolicyParser reads a policy, which is a small text format for "hit or stand" strategies, like:
+ *
+ * <pre>
+ * name Cautious
+ * # hit on low scores, and on medium scores against a strong dealer upcard
+ * hit if score &lt;= 11
+ * hit if score &lt; 17 and upcard &gt;= 7
+ * stand
+ * </pre>
+ *
+ * <p>The rules are tried from the top, and the first rule with a true condition decides. A rule
+ * without a condition is the default, and must be the last one. Without a default, Sam stands.
+ *
+ * <p>Conditions can use the numbers score, aces, cards and upcard, which are the arguments of
+ * Strategy.shouldHit(int, int, int, int), numbers like 3.5, the operators + - * / and parentheses,
+ * the comparisons &lt; &lt;= &gt; &gt;= == !=, and the words and, or, not, true and false.
+ */
+final class PolicyParser {
+
+    /** The numbers that a condition can use, in the order of the arguments of shouldHit */
+    static final String[] VARIABLES = {"score", "aces", "cards", "upcard"};
+
+    /**
+     * Node is a part of a condition. Numbers are doubles, and the other nodes are either numbers
+     * or true/false, depending on the operator.
+     */
+    static final class Node {
+
+        /**
+         * the operator, like "+" or "and", or "number", "variable", "true" or "false" for the
+         * leaves
+         */
+        final String op;
+
+        final Node left;
+        final Node right;
+
+        /** the value of a number, or the index of a variable in VARIABLES */
+        final double value;
+
+        Node(final String op, final Node left, final Node right, final double value) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+
+        /** @return true if this node is true or false, and not a number */
+        boolean isCondition() {
+            switch (op) {
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                case "==":
+                case "!=":
+                case "and":
+                case "or":
+                case "not":
+                case "true":
+                case "false":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /** Rule is one line of a policy: if the condition is true, then hit or stand. */
+    static final class Rule {
+
+        /** the condition */
+        final Node condition;
+
+        /** true for hit, false for stand */
+        final boolean hit;
+
+        Rule(final Node condition, final boolean hit) {
+            this.condition = condition;
+            this.hit = hit;
+        }
+    }
+
+    private final String source;
+    private String name = null;
+    private final List<Rule> rules = new ArrayList<Rule>();
+    private boolean defaultHit = false;
+
+    // the tokens of the line that is being parsed
+    private List<String> tokens;
+    private int position;
+    private int lineNumber;
+
+    private PolicyParser(final String source) {
+        this.source = source;
+    }
+
+    /**
+     * Parse a policy file.
+     *
+     * @param filename is the file to read
+     * @return the parsed policy, where the name is the filename if the file has no name line
+     * @throws IOException if the file could not be read
+     * @throws PolicyParseException if it is not a valid policy
+     */
+    static PolicyParser parseFile(final String filename)
+            throws IOException, PolicyParseException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            return parse(filename, reader);
+        }
+    }
+
+    /**
+     * Parse a policy from a string.
+     *
+     * @param source is the name of the policy in error messages, and its default name
+     * @param text is the policy
+     * @return the parsed policy
+     * @throws PolicyParseException if it is not a valid policy
+     */
+    static PolicyParser parse(final String source, final String text)
+            throws PolicyParseException {
+        try {
+            return parse(source, new StringReader(text));
+        } catch (IOException ex) {
+            // a string can always be read
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static PolicyParser parse(final String source, final Reader in)
+            throws IOException, PolicyParseException {
+        PolicyParser parser = new PolicyParser(source);
+        BufferedReader reader = new BufferedReader(in);
+        boolean done = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parser.lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("name ")) {
+                parser.name = line.substring(5).trim();
+                continue;
+            }
+            if (done) {
+                throw parser.error("a rule after the default rule can never be used");
+            }
+            done = parser.parseRule(line);
+        }
+        if (parser.name == null) {
+            parser.name = source;
+        }
+        return parser;
+    }
+
+    /** @return the name of the policy */
+    String name() {
+        return name;
+    }
+
+    /** @return the rules, in the order that they are tried */
+    List<Rule> rules() {
+        return rules;
+    }
+
+    /** @return true if Sam hits when no rule has a true condition */
+    boolean defaultHit() {
+        return defaultHit;
+    }
+
+    // parseRule parses one rule, and returns true if it was the default rule
+    private boolean parseRule(final String line) throws PolicyParseException {
+        tokens = tokenize(line);
+        position = 0;
+        final String decision = next();
+        if (!decision.equals("hit") && !decision.equals("stand")) {
+            throw error("a rule must start with hit or stand, not " + decision);
+        }
+        if (position == tokens.size()) {
+            defaultHit = decision.equals("hit");
+            return true;
+        }
+        expect("if");
+        final Node condition = parseOr();
+        if (position != tokens.size()) {
+            throw error("unexpected " + tokens.get(position));
+        }
+        if (!condition.isCondition()) {
+            throw error("the condition is a number, and not true or false");
+        }
+        rules.add(new Rule(condition, decision.equals("hit")));
+        return false;
+    }
+
+    private Node parseOr() throws PolicyParseException {
+        Node left = parseAnd();
+        while (accept("or")) {
+            left = condition("or", left, parseAnd());
+        }
+        return left;
+    }
+
+    private Node parseAnd() throws PolicyParseException {
+        Node left = parseNot();
+        while (accept("and")) {
+            left = condition("and", left, parseNot());
+        }
+        return left;
+    }
+
+    private Node parseNot() throws PolicyParseException {
+        if (accept("not")) {
+            return condition("not", parseNot(), null);
+        }
+        return parseComparison();
+    }
+
+    private Node parseComparison() throws PolicyParseException {
+        final Node left = parseSum();
+        if (position < tokens.size()) {
+            final String op = tokens.get(position);
+            switch (op) {
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                case "==":
+                case "!=":
+                    position++;
+                    return number(op, left, parseSum());
+                default:
+                    break;
+            }
+        }
+        return left;
+    }
+
+    private Node parseSum() throws PolicyParseException {
+        Node left = parseProduct();
+        while (position < tokens.size()
+                && (tokens.get(position).equals("+") || tokens.get(position).equals("-"))) {
+            final String op = next();
+            left = number(op, left, parseProduct());
+        }
+        return left;
+    }
+
+    private Node parseProduct() throws PolicyParseException {
+        Node left = parseUnary();
+        while (position < tokens.size()
+                && (tokens.get(position).equals("*") || tokens.get(position).equals("/"))) {
+            final String op = next();
+            left = number(op, left, parseUnary());
+        }
+        return left;
+    }
+
+    private Node parseUnary() throws PolicyParseException {
+        final String token = next();
+        if (token.equals("-")) {
+            return number("neg", parseUnary(), null);
+        }
+        if (token.equals("(")) {
+            final Node inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        if (token.equals("true") || token.equals("false")) {
+            return new Node(token, null, null, 0);
+        }
+        for (int i = 0; i < VARIABLES.length; i++) {
+            if (token.equals(VARIABLES[i])) {
+                return new Node("variable", null, null, i);
+            }
+        }
+        try {
+            return new Node("number", null, null, Double.parseDouble(token));
+        } catch (NumberFormatException ex) {
+            throw error("unknown word: " + token);
+        }
+    }
+
+    // number creates a node from operands that must be numbers
+    private Node number(final String op, final Node left, final Node right)
+            throws PolicyParseException {
+        if (left.isCondition() || (right != null && right.isCondition())) {
+            throw error(op + " needs numbers, not true or false");
+        }
+        return new Node(op, left, right, 0);
+    }
+
+    // condition creates a node from operands that must be true or false
+    private Node condition(final String op, final Node left, final Node right)
+            throws PolicyParseException {
+        if (!left.isCondition() || (right != null && !right.isCondition())) {
+            throw error(op + " needs true or false, not a number");
+        }
+        return new Node(op, left, right, 0);
+    }
+
+    private String next() throws PolicyParseException {
+        if (position >= tokens.size()) {
+            throw error("unexpected end of line");
+        }
+        return tokens.get(position++);
+    }
+
+    private boolean accept(final String token) {
+        if (position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final String token) throws PolicyParseException {
+        if (!accept(token)) {
+            throw error("expected " + token);
+        }
+    }
+
+    private PolicyParseException error(final String msg) {
+        return new PolicyParseException(String.format("%s:%d: %s", source, lineNumber, msg));
+    }
+
+    // tokenize splits a line into numbers, words and operators
+    private List<String> tokenize(final String line) throws PolicyParseException {
+        List<String> result = new ArrayList<String>();
+        int i = 0;
+        while (i < line.length()) {
+            final char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            if (Character.isDigit(c) || c == '.') {
+                while (end < line.length()
+                        && (Character.isDigit(line.charAt(end)) || line.charAt(end) == '.')) {
+                    end++;
+                }
+            } else if (Character.isLetter(c)) {
+                while (end < line.length() && Character.isLetter(line.charAt(end))) {
+                    end++;
+                }
+            } else if ("<>=!".indexOf(c) >= 0) {
+                if (end < line.length() && line.charAt(end) == '=') {
+                    end++;
+                }
+                if (c == '=' && end == i + 1 || c == '!' && end == i + 1) {
+                    throw error("expected == or !=");
+                }
+            } else if ("+-*/()".indexOf(c) < 0) {
+                throw error("unexpected character: " + c);
+            }
+            result.add(line.substring(i, end).toLowerCase(Locale.ROOT));
+            i = end;
+        }
+        return result;
+    }
+}
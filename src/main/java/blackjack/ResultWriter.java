@@ -0,0 +1,362 @@
+package blackjack;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResultWriter writes one line per evaluated Optimizer candidate, as text, CSV or JSON Lines.
+ *
+ * <p>The output is buffered. Lines can be sampled (only every Nth candidate is written) or
+ * throttled (at most one line per time interval), and the formatting and writing can be moved to a
+ * background thread. Strategies are only converted to strings for the lines that are written.
+ */
+public final class ResultWriter implements AutoCloseable {
+
+    /** Format is the output format of a ResultWriter. */
+    public enum Format {
+        TEXT, // the human readable format that the optimizer has always used
+        CSV,
+        JSONL
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int QUEUE_SIZE = 8192;
+
+    // how long a full queue is waited for before checking that the background thread still runs
+    private static final long QUEUE_WAIT_MILLIS = 100;
+
+    // the output is flushed at least this often while lines are being written
+    private static final long FLUSH_INTERVAL_NANOS = 1000000000L;
+
+    private static final String CSV_HEADER =
+            "candidate,possibilities,win_ratio,params,best_win_ratio,best_params,threshold\n";
+
+    // END is put on the queue to tell the background thread to stop
+    private static final Candidate END = new Candidate(0, 0, 0, null, 0, null, 0);
+
+    /** Candidate is one recorded candidate, that is formatted when its line is written. */
+    private static final class Candidate {
+        final long counter;
+        final long possibilities;
+        final double winRatio;
+        final Strategy strat;
+        final double bestRatio;
+        final Strategy best;
+        final double threshold;
+
+        Candidate(
+                final long counter,
+                final long possibilities,
+                final double winRatio,
+                final Strategy strat,
+                final double bestRatio,
+                final Strategy best,
+                final double threshold) {
+            this.counter = counter;
+            this.possibilities = possibilities;
+            this.winRatio = winRatio;
+            this.strat = strat;
+            this.bestRatio = bestRatio;
+            this.best = best;
+            this.threshold = threshold;
+        }
+    }
+
+    private final Writer out;
+    private final Format format;
+    private final int sampleEvery;
+    private final long minIntervalNanos;
+    private final boolean closeOut;
+    private final BlockingQueue<Candidate> queue;
+    private final Thread background;
+
+    private long lastWriteNanos;
+    private long lastFlushNanos = System.nanoTime();
+    private boolean wroteHeader = false;
+    private volatile IOException error;
+
+    // stopped is set when the background thread has stopped taking lines from the queue
+    private volatile boolean stopped = false;
+
+    /**
+     * Create a new ResultWriter.
+     *
+     * @param out is where the lines are written to. It is buffered by the ResultWriter.
+     * @param format is the output format
+     * @param sampleEvery is for writing only every Nth candidate, 1 writes all of them
+     * @param minIntervalMillis is the minimum time between two written lines, 0 for no limit
+     * @param async is for formatting and writing the lines on a background thread
+     * @param closeOut is for closing out when the ResultWriter is closed, and not just flushing it
+     */
+    ResultWriter(
+            final Writer out,
+            final Format format,
+            final int sampleEvery,
+            final long minIntervalMillis,
+            final boolean async,
+            final boolean closeOut) {
+        this.out = new BufferedWriter(out, BUFFER_SIZE);
+        this.format = format;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.minIntervalNanos = minIntervalMillis * 1000000L;
+        this.closeOut = closeOut;
+        this.lastWriteNanos = System.nanoTime() - this.minIntervalNanos;
+        if (async) {
+            queue = new ArrayBlockingQueue<Candidate>(QUEUE_SIZE);
+            background = new Thread(this::drain, "result-writer");
+            background.setDaemon(true);
+            background.start();
+        } else {
+            queue = null;
+            background = null;
+        }
+    }
+
+    /**
+     * Create a ResultWriter that writes every candidate as text to stdout.
+     *
+     * @return a new ResultWriter
+     */
+    public static ResultWriter toStdout() {
+        return new ResultWriter(
+                new OutputStreamWriter(System.out), Format.TEXT, 1, 0, false, false);
+    }
+
+    /**
+     * Create a ResultWriter that writes to a file, on a background thread. Filenames that end with
+     * ".jsonl" or ".json" gives JSON Lines, ".txt" gives text and everything else gives CSV.
+     *
+     * @param filename is the file to write to
+     * @param sampleEvery is for writing only every Nth candidate, 1 writes all of them
+     * @return a new ResultWriter
+     * @throws IOException if the file could not be opened for writing
+     */
+    public static ResultWriter toFile(final String filename, final int sampleEvery)
+            throws IOException {
+        Format format = Format.CSV;
+        final String lower = filename.toLowerCase();
+        if (lower.endsWith(".jsonl") || lower.endsWith(".json")) {
+            format = Format.JSONL;
+        } else if (lower.endsWith(".txt")) {
+            format = Format.TEXT;
+        }
+        return new ResultWriter(new FileWriter(filename), format, sampleEvery, 0, true, true);
+    }
+
+    /**
+     * Record an evaluated candidate. Depending on the sampling and throttling settings, a line may
+     * or may not be written.
+     *
+     * @param counter is the number of the candidate, starting at 0
+     * @param possibilities is the total number of candidates
+     * @param winRatio is the win ratio of this candidate
+     * @param strat is the strategy with the parameters of this candidate
+     * @param bestRatio is the best win ratio so far
+     * @param best is the strategy with the best parameters so far
+     * @param threshold is the win ratio that a candidate must beat to count as an improvement
+     */
+    public void record(
+            final long counter,
+            final long possibilities,
+            final double winRatio,
+            final Strategy strat,
+            final double bestRatio,
+            final Strategy best,
+            final double threshold) {
+        if (counter % sampleEvery != 0) {
+            return;
+        }
+        if (minIntervalNanos > 0) {
+            final long now = System.nanoTime();
+            if (now - lastWriteNanos < minIntervalNanos) {
+                return;
+            }
+            lastWriteNanos = now;
+        }
+        final Candidate candidate =
+                new Candidate(counter, possibilities, winRatio, strat, bestRatio, best, threshold);
+        if (queue != null) {
+            // strategies are immutable, so they can be converted to strings on the background
+            // thread, after the optimizer has moved on
+            try {
+                enqueue(candidate);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        write(format(candidate));
+    }
+
+    /**
+     * Wait for the background thread, if any, and flush the output.
+     *
+     * @throws IOException if any of the lines could not be formatted or written
+     */
+    @Override
+    public void close() throws IOException {
+        if (background != null) {
+            try {
+                enqueue(END);
+                background.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (closeOut) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        } catch (IOException ex) {
+            if (error == null) {
+                error = ex;
+            }
+        } catch (RuntimeException ex) {
+            if (error == null) {
+                error = new IOException("could not write a result line", ex);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // enqueue puts a candidate on the queue, unless the background thread has stopped, since a
+    // full queue would then never be taken from
+    private void enqueue(final Candidate candidate) throws InterruptedException {
+        while (!stopped) {
+            if (queue.offer(candidate, QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    // drain writes lines from the queue until END is found. Runs on the background thread. If a
+    // line can not be formatted, the failure is kept and thrown by close.
+    private void drain() {
+        try {
+            while (true) {
+                final Candidate candidate = queue.take();
+                if (candidate == END) {
+                    return;
+                }
+                write(format(candidate));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            if (error == null) {
+                error = new IOException("could not write a result line", ex);
+            }
+        } finally {
+            stopped = true;
+        }
+    }
+
+    // write a line, and the CSV header if it has not been written yet
+    private void write(final String line) {
+        if (error != null) {
+            return;
+        }
+        try {
+            if (!wroteHeader && format == Format.CSV) {
+                out.write(CSV_HEADER);
+            }
+            wroteHeader = true;
+            out.write(line);
+            out.write('\n');
+            final long now = System.nanoTime();
+            if (now - lastFlushNanos > FLUSH_INTERVAL_NANOS) {
+                out.flush();
+                lastFlushNanos = now;
+            }
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+
+    // format a line in the chosen output format
+    private String format(final Candidate c) {
+        final long counter = c.counter;
+        final long possibilities = c.possibilities;
+        final double winRatio = c.winRatio;
+        final String params = c.strat.toString();
+        final double bestRatio = c.bestRatio;
+        final String bestParams = c.best.toString();
+        final double threshold = c.threshold;
+        switch (format) {
+            case CSV:
+                return String.format(
+                        Locale.ROOT,
+                        "%d,%d,%f,%s,%f,%s,%f",
+                        counter,
+                        possibilities,
+                        winRatio,
+                        csvQuote(params),
+                        bestRatio,
+                        csvQuote(bestParams),
+                        threshold);
+            case JSONL:
+                return String.format(
+                        Locale.ROOT,
+                        "{\"candidate\":%d,\"possibilities\":%d,\"winRatio\":%f,\"params\":%s,"
+                                + "\"bestWinRatio\":%f,\"bestParams\":%s,\"threshold\":%f}",
+                        counter,
+                        possibilities,
+                        winRatio,
+                        jsonQuote(params),
+                        bestRatio,
+                        jsonQuote(bestParams),
+                        threshold);
+            default:
+                return String.format(
+                        "[%d/%d] best win ratio %f: %s, now at %f: %s, threshold %f",
+                        counter, possibilities, bestRatio, bestParams, winRatio, params, threshold);
+        }
+    }
+
+    // csvQuote wraps a string in double quotes, and doubles any double quotes within it
+    static String csvQuote(final String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    // jsonQuote wraps a string in double quotes, and escapes it for use in JSON
+    static String jsonQuote(final String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,206 @@
+package blackjack;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RolloutStrategy decides "hit or stand" by looking ahead. For every decision, it plays a number of
+ * rollouts, which are continuations of the round from the current state, where the cards that Sam
+ * has not seen are shuffled. Every rollout plays both hitting and standing on the same cards, and
+ * Sam hits if hitting won more rollouts than standing did. After hitting, Sam plays on with a
+ * simpler strategy, the rollout policy.
+ *
+ * <p>The cards that Sam has not seen are the dealer's hole card and the cards that are left in the
+ * deck, as given by the ShoeState, when the state of the deck is known. Otherwise they are one deck
+ * of 52 cards without the cards in Sam's hand and the dealer upcard. The first unseen card of a
+ * rollout is the hole card. The order of the real deck is never used. Like in Game.oneRound, a
+ * deck that runs out is renewed, so a rollout that runs out of unseen cards draws from a full deck.
+ *
+ * <p>The rollouts are played on card scores in a workspace per thread, that is only allocated
+ * once, so that deciding does not allocate, and one RolloutStrategy can be used by many threads.
+ */
+public final class RolloutStrategy implements Strategy {
+
+    /** The default number of rollouts per decision */
+    public static final int DEFAULT_ROLLOUTS = 200;
+
+    // the number of cards per card score in one deck of 52 cards
+    private static final int[] DECK_COMPOSITION = {0, 0, 4, 4, 4, 4, 4, 4, 4, 4, 16, 4};
+
+    // one deck of 52 cards, as card scores, for drawing from a renewed deck
+    private static final byte[] FULL_DECK = new byte[52];
+
+    static {
+        int i = 0;
+        for (int score = 2; score <= 11; score++) {
+            for (int n = 0; n < DECK_COMPOSITION[score]; n++) {
+                FULL_DECK[i++] = (byte) score;
+            }
+        }
+    }
+
+    private static final ThreadLocal<Workspace> workspaces =
+            ThreadLocal.withInitial(Workspace::new);
+
+    private final Strategy policy;
+    private final int rollouts;
+
+    /** Create a RolloutStrategy with the default number of rollouts and BasicOptimized. */
+    RolloutStrategy() {
+        this(new BasicStrategyOptimized(), DEFAULT_ROLLOUTS);
+    }
+
+    /**
+     * Create a RolloutStrategy.
+     *
+     * @param policy is the strategy that Sam plays on with after hitting, in a rollout
+     * @param rollouts is the number of rollouts per decision
+     */
+    RolloutStrategy(final Strategy policy, final int rollouts) {
+        this.policy = policy;
+        this.rollouts = Math.max(1, rollouts);
+    }
+
+    @Override
+    public final boolean shouldHit(Hand hand, Card dealerUpcard) {
+        Workspace w = workspaces.get();
+        System.arraycopy(DECK_COMPOSITION, 0, w.composition, 0, 12);
+        for (int i = 0; i < hand.count(); i++) {
+            w.composition[hand.get(i).score()]--;
+        }
+        w.composition[dealerUpcard.score()]--;
+        return decide(w, hand.score(), hand.aces(), hand.count(), dealerUpcard.score());
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        // the cards in the hand are not known, so only the upcard is taken out of the deck
+        Workspace w = workspaces.get();
+        System.arraycopy(DECK_COMPOSITION, 0, w.composition, 0, 12);
+        w.composition[dealerUpcardScore]--;
+        return decide(w, playerTotal, softAces, cardCount, dealerUpcardScore);
+    }
+
+    @Override
+    public final boolean shouldHit(Hand hand, Card dealerUpcard, ShoeState shoe) {
+        Workspace w = workspaces.get();
+        for (int score = 2; score <= 11; score++) {
+            w.composition[score] = shoe.remaining(score);
+        }
+        return decide(w, hand.score(), hand.aces(), hand.count(), dealerUpcard.score());
+    }
+
+    // decide plays the rollouts, and returns true if hitting won more of them than standing
+    private boolean decide(
+            final Workspace w,
+            final int sam,
+            final int samAces,
+            final int samCards,
+            final int upcard) {
+        w.fill();
+        int difference = 0;
+        for (int r = 0; r < rollouts; r++) {
+            w.reshuffle();
+            final int dealer = w.card(0) + upcard;
+            difference += hit(w, sam, samAces, samCards, upcard, dealer);
+            difference -= dealerTurn(w, 1, sam, dealer);
+        }
+        return difference > 0;
+    }
+
+    // hit returns 1 if Sam wins by hitting, and then playing on with the policy, -1 if the dealer
+    // wins and 0 for a push
+    private int hit(
+            final Workspace w,
+            int sam,
+            int samAces,
+            int samCards,
+            final int upcard,
+            final int dealer) {
+        int next = 1;
+        do {
+            final int card = w.card(next++);
+            sam += card;
+            samAces += card == 11 ? 1 : 0;
+            samCards++;
+            if (sam > 21) {
+                return -1;
+            }
+        } while (sam < 17 && policy.shouldHit(sam, samAces, samCards, upcard));
+        return dealerTurn(w, next, sam, dealer);
+    }
+
+    // dealerTurn lets the dealer draw from the given position while below the score of Sam, and
+    // returns 1 if Sam wins, -1 if the dealer wins and 0 for a push
+    private static int dealerTurn(final Workspace w, int next, final int sam, int dealer) {
+        while (dealer < sam) {
+            dealer += w.card(next++);
+            if (dealer > 21) {
+                return 1;
+            }
+        }
+        return Integer.compare(sam, dealer);
+    }
+
+    /**
+     * Workspace holds the unseen cards of one thread, as card scores. Cards are only shuffled into
+     * place when a rollout reads them.
+     */
+    private static final class Workspace {
+        final int[] composition = new int[12];
+        final SplittableRandom random =
+                new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        byte[] cards = new byte[52];
+        int size = 0;
+        int shuffled = 0;
+
+        // fill puts the cards of the composition in the workspace
+        void fill() {
+            size = 0;
+            for (int score = 2; score <= 11; score++) {
+                size += Math.max(0, composition[score]);
+            }
+            if (size > cards.length) {
+                cards = new byte[size];
+            }
+            int i = 0;
+            for (int score = 2; score <= 11; score++) {
+                for (int n = 0; n < composition[score]; n++) {
+                    cards[i++] = (byte) score;
+                }
+            }
+        }
+
+        // reshuffle starts a new order of the cards, for the next rollout
+        void reshuffle() {
+            shuffled = 0;
+        }
+
+        // card returns the card at the given position, and shuffles it into place if needed
+        int card(final int position) {
+            if (position >= size) {
+                // the unseen cards ran out, and the deck is renewed
+                return FULL_DECK[random.nextInt(FULL_DECK.length)];
+            }
+            while (shuffled <= position) {
+                final int j = shuffled + random.nextInt(size - shuffled);
+                final byte card = cards[j];
+                cards[j] = cards[shuffled];
+                cards[shuffled] = card;
+                shuffled++;
+            }
+            return cards[position];
+        }
+    }
+
+    /**
+     * Create a string representation.
+     *
+     * @return a strategy name + the number of rollouts and the rollout policy
+     */
+    @Override
+    public final String toString() {
+        return String.format("R (%d) %s", rollouts, policy);
+    }
+}
@@ -0,0 +1,18 @@
+package blackjack;
+
+/**
+ * RoundEngine plays rounds of Blackjack with one specific set of Rules.
+ *
+ * <p>A RoundEngine is created by Rules.engine, which picks an implementation that only does the
+ * work that the rules call for.
+ */
+interface RoundEngine {
+
+    /**
+     * Play one round of Blackjack, with a fresh pair of hands.
+     *
+     * @return the net winnings of Sam, in units of the initial bet
+     * @throws OutOfCardsException if there are fewer than 4 cards in the deck
+     */
+    public double playRound() throws OutOfCardsException;
+}
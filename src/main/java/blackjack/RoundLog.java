@@ -0,0 +1,244 @@
+package blackjack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * RoundLog writes every card and decision of every round that a Game plays to a compact binary
+ * file, which RoundReplay can play again.
+ *
+ * <p>The cards are not written per round. Every time the deck is renewed, its cards are written in
+ * the order that they will be dealt, and a round is then written as what it took from the deck: how
+ * many times Sam hit, if Sam stood, how many cards were dealt, and the outcome. That is two bytes
+ * per round. The cards of a round are the next cards of the last shoe in the log, so they can
+ * always be found again by playing the rounds in order.
+ *
+ * <p>A shoe of the 52 different cards, which is what a deck is renewed with, is written as the
+ * rank of every card among the cards of the shoe that have not been written yet. The first card
+ * has 52 possible ranks and needs 6 bits, while the last ones need fewer, and the last card needs
+ * none, so the whole shoe fits in 32 bytes instead of 52. Other shoes, like decks from a file, are
+ * written with one byte per card.
+ *
+ * <p>The file starts with the 4 bytes "BJRL" and a version byte, followed by the records:
+ *
+ * <pre>
+ * shoe:        0xFF, the number of cards as 2 bytes, and one byte per card, from Card.index
+ * ranked shoe: 0xFE, and the ranks of the 52 cards, as bits from the highest bit of each byte
+ * round:       hits &lt;&lt; 3 | stood &lt;&lt; 2 | outcome, and the number of cards dealt
+ * </pre>
+ *
+ * <p>The outcome is the ordinal of the Game.Result. The records are collected in a direct buffer
+ * and written to a FileChannel when it is full, so logging costs little more than the two bytes.
+ * Errors are kept until the log is closed, so that the rounds are never interrupted.
+ */
+public final class RoundLog implements AutoCloseable {
+
+    /** The bytes that every log starts with */
+    static final byte[] MAGIC = {'B', 'J', 'R', 'L'};
+
+    /** The version of the format */
+    static final int VERSION = 1;
+
+    /** The first byte of a shoe record, which no round record starts with */
+    static final int SHOE = 0xFF;
+
+    /** The first byte of a ranked shoe record, which no round record starts with */
+    static final int RANKED_SHOE = 0xFE;
+
+    /** The number of cards in a ranked shoe */
+    static final int RANKED_CARDS = 52;
+
+    /** The bits of all the cards in a ranked shoe, by Card.index */
+    static final long ALL_CARDS = (1L << RANKED_CARDS) - 1;
+
+    /** The number of bytes after the first byte of a ranked shoe record */
+    static final int RANKED_BYTES = rankedBytes();
+
+    /**
+     * The largest number of hits that fits in a round record, while keeping its first byte below
+     * the first bytes of the shoe records. Sam stops hitting at 17, and every card counts at least
+     * 2, so Sam never hits more than 7 times, and every round fits.
+     */
+    static final int MAX_HITS = 15;
+
+    /** The largest number of cards in a shoe record */
+    static final int MAX_SHOE = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long rounds = 0;
+    private long shoes = 0;
+    private long bytes = 0;
+    private IOException error = null;
+
+    /**
+     * Create a new log, and replace the file if it exists.
+     *
+     * @param filename is the file to write to
+     * @throws IOException if the file could not be opened for writing
+     */
+    public RoundLog(final String filename) throws IOException {
+        channel =
+                FileChannel.open(
+                        Paths.get(filename),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.put(MAGIC);
+        buffer.put((byte) VERSION);
+    }
+
+    /**
+     * Write the cards that are left in a deck, in the order that they will be dealt. It is called
+     * when a logged deck is renewed.
+     *
+     * @param deck is the deck
+     */
+    void shoe(final CardCollection deck) {
+        final int n = deck.count();
+        long cards = 0;
+        if (n == RANKED_CARDS) {
+            for (int i = 0; i < n; i++) {
+                cards |= 1L << deck.get(i).index();
+            }
+        }
+        if (cards == ALL_CARDS) {
+            rankedShoe(deck);
+            return;
+        }
+        if (n > MAX_SHOE) {
+            throw new IllegalArgumentException("too many cards to log: " + n);
+        }
+        room(3);
+        buffer.put((byte) SHOE);
+        buffer.putShort((short) n);
+        for (int i = 0; i < n; i++) {
+            room(1);
+            buffer.put((byte) deck.get(i).index());
+        }
+        shoes++;
+    }
+
+    // rankedShoe writes a shoe of the 52 different cards as the ranks of the cards
+    private void rankedShoe(final CardCollection deck) {
+        room(1 + RANKED_BYTES);
+        buffer.put((byte) RANKED_SHOE);
+        long left = ALL_CARDS;
+        long bits = 0;
+        int nbits = 0;
+        for (int i = 0; i < RANKED_CARDS; i++) {
+            final int index = deck.get(i).index();
+            final int width = width(RANKED_CARDS - i);
+            bits = bits << width | Long.bitCount(left & ((1L << index) - 1));
+            nbits += width;
+            left &= ~(1L << index);
+            while (nbits >= 8) {
+                nbits -= 8;
+                buffer.put((byte) (bits >>> nbits));
+            }
+        }
+        if (nbits > 0) {
+            buffer.put((byte) (bits << (8 - nbits)));
+        }
+        shoes++;
+    }
+
+    /**
+     * Find the number of bits that the rank of a card needs.
+     *
+     * @param left is the number of cards that the card can be one of
+     * @return the number of bits
+     */
+    static int width(final int left) {
+        return 32 - Integer.numberOfLeadingZeros(left - 1);
+    }
+
+    // rankedBytes returns the number of bytes of the ranks of a ranked shoe
+    private static int rankedBytes() {
+        int bits = 0;
+        for (int left = RANKED_CARDS; left > 0; left--) {
+            bits += width(left);
+        }
+        return (bits + 7) / 8;
+    }
+
+    /**
+     * Write a round that has been played. Sam stood if the score is below 17, since every other
+     * way that Sam's turn can end gives a score of 17 or more.
+     *
+     * @param sam is the hand of Sam at the end of the round
+     * @param dealer is the hand of the dealer at the end of the round
+     * @param result is the outcome of the round
+     */
+    void round(final Hand sam, final Hand dealer, final Game.Result result) {
+        final int hits = sam.count() - 2;
+        if (hits > MAX_HITS) {
+            throw new IllegalArgumentException("too many hits to log: " + hits);
+        }
+        room(2);
+        buffer.put((byte) (hits << 3 | (sam.score() < 17 ? 4 : 0) | result.ordinal()));
+        buffer.put((byte) (sam.count() + dealer.count()));
+        rounds++;
+    }
+
+    /** @return the number of rounds that have been logged */
+    public long rounds() {
+        return rounds;
+    }
+
+    /** @return the number of shoes that have been logged */
+    public long shoes() {
+        return shoes;
+    }
+
+    /** @return the number of bytes that have been logged */
+    public long bytes() {
+        return bytes + buffer.position();
+    }
+
+    /**
+     * Write what is left in the buffer, and close the file.
+     *
+     * @throws IOException if any of the records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            if (error == null) {
+                error = ex;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // room makes room for n more bytes in the buffer, by writing it to the file if needed
+    private void room(final int n) {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    // flush writes the buffer to the file, unless an earlier write failed
+    private void flush() {
+        buffer.flip();
+        bytes += buffer.remaining();
+        try {
+            while (error == null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException ex) {
+            error = ex;
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,323 @@
+package blackjack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RoundReplay plays the rounds of a RoundLog again, with the same cards and the same decisions,
+ * and asks another strategy what it would have done at every decision. Since the logged decisions
+ * are followed, every decision is asked in the same state as when the round was logged, and all of
+ * the decisions where the strategy differs are found, not only the first one in a round.
+ *
+ * <p>The replayed rounds must end like the logged ones, or the log is reported as invalid.
+ */
+public final class RoundReplay {
+
+    /** The default number of differences that are kept, for listing them */
+    public static final int DEFAULT_LISTED = 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Difference is a decision where the strategy does not do what the log says. */
+    public static final class Difference {
+
+        /** the number of the round, starting at 1, and of the decision in the round */
+        public final long round;
+
+        public final int decision;
+
+        /** the state of the decision, as in Strategy.shouldHit(int, int, int, int) */
+        public final int score;
+
+        public final int aces;
+        public final int cards;
+        public final int upcard;
+
+        /** true if the logged decision was to hit */
+        public final boolean loggedHit;
+
+        private Difference(
+                final long round,
+                final int decision,
+                final Hand hand,
+                final Card dealerUpcard,
+                final boolean loggedHit) {
+            this.round = round;
+            this.decision = decision;
+            this.score = hand.score();
+            this.aces = hand.aces();
+            this.cards = hand.count();
+            this.upcard = dealerUpcard.score();
+            this.loggedHit = loggedHit;
+        }
+    }
+
+    private final String filename;
+    private final Strategy strat;
+    private final int listed;
+
+    private long rounds = 0;
+    private long decisions = 0;
+    private long differing = 0;
+    private long differingRounds = 0;
+    private final List<Difference> differences = new ArrayList<Difference>();
+
+    // the logged decisions of the round that is being replayed
+    private int hits;
+    private boolean stood;
+    private int decision;
+    private boolean roundDiffers;
+
+    /**
+     * Create a new replay.
+     *
+     * @param filename is the log to replay
+     * @param strat is the strategy to compare with the logged decisions
+     * @param listed is the number of differences to keep, for listing them
+     */
+    public RoundReplay(final String filename, final Strategy strat, final int listed) {
+        this.filename = filename;
+        this.strat = strat;
+        this.listed = listed;
+    }
+
+    /**
+     * Replay all rounds in the log.
+     *
+     * @throws IOException if the log could not be read, or if the rounds do not replay like they
+     *     were logged
+     * @throws OutOfCardsException if a logged shoe has too few cards
+     */
+    public void run() throws IOException, OutOfCardsException {
+        try (FileChannel channel =
+                FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            final Input in = new Input(channel);
+            for (byte b : RoundLog.MAGIC) {
+                if (!in.more() || in.u1() != (b & 0xFF)) {
+                    throw error("not a round log");
+                }
+            }
+            final int version = in.u1();
+            if (version != RoundLog.VERSION) {
+                throw error("unknown version " + version);
+            }
+
+            // the shoes that have been read, but not dealt from yet
+            final ArrayDeque<ArrayList<Card>> shoes = new ArrayDeque<ArrayList<Card>>();
+            if (!in.more()) {
+                throw error("the log does not start with a shoe");
+            }
+            final int first = in.u1();
+            if (first != RoundLog.SHOE && first != RoundLog.RANKED_SHOE) {
+                throw error("the log does not start with a shoe");
+            }
+            shoes.add(first == RoundLog.SHOE ? readShoe(in) : readRankedShoe(in));
+            final Deck deck = new Deck(shoes::poll);
+            final Follower follower = new Follower();
+            final Game game = new Game(deck, follower, false, false);
+
+            while (in.more()) {
+                final int record = in.u1();
+                if (record == RoundLog.SHOE) {
+                    shoes.add(readShoe(in));
+                    continue;
+                }
+                if (record == RoundLog.RANKED_SHOE) {
+                    shoes.add(readRankedShoe(in));
+                    continue;
+                }
+                final int cards = in.u1();
+                rounds++;
+                hits = record >> 3;
+                stood = (record & 4) != 0;
+                decision = 0;
+                roundDiffers = false;
+                final Game.Result result = game.oneRound(follower);
+                if (result.ordinal() != (record & 3)
+                        || cards != game.getSam().count() + game.getDealer().count()
+                        || decision != hits + (stood ? 1 : 0)) {
+                    throw error("the round does not replay like it was logged");
+                }
+                game.prepareNewRound();
+            }
+        }
+    }
+
+    /** @return the number of rounds that were replayed */
+    public long rounds() {
+        return rounds;
+    }
+
+    /** @return the number of decisions that were compared */
+    public long decisions() {
+        return decisions;
+    }
+
+    /** @return the number of decisions where the strategy differs from the log */
+    public long differing() {
+        return differing;
+    }
+
+    /** @return the number of rounds with at least one differing decision */
+    public long differingRounds() {
+        return differingRounds;
+    }
+
+    /** @return the first differences, in the order that they were found */
+    public List<Difference> differences() {
+        return differences;
+    }
+
+    /**
+     * Format the kept differences as a table.
+     *
+     * @return the table as text
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("#    round  decision  score  aces  cards  upcard  logged  replayed\n");
+        for (Difference d : differences) {
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%10d  %8d  %5d  %4d  %5d  %6d  %-6s  %s\n",
+                            d.round,
+                            d.decision,
+                            d.score,
+                            d.aces,
+                            d.cards,
+                            d.upcard,
+                            d.loggedHit ? "hit" : "stand",
+                            d.loggedHit ? "stand" : "hit"));
+        }
+        return sb.toString();
+    }
+
+    // readShoe reads the cards of a shoe record, after its first byte
+    private ArrayList<Card> readShoe(final Input in) throws IOException {
+        final int n = in.u1() << 8 | in.u1();
+        ArrayList<Card> shoe = new ArrayList<Card>(n);
+        for (int i = 0; i < n; i++) {
+            final int index = in.u1();
+            if (index >= 52) {
+                throw error("invalid card " + index);
+            }
+            shoe.add(Card.ofIndex(index));
+        }
+        return shoe;
+    }
+
+    // readRankedShoe reads the cards of a ranked shoe record, after its first byte
+    private ArrayList<Card> readRankedShoe(final Input in) throws IOException {
+        ArrayList<Card> shoe = new ArrayList<Card>(RoundLog.RANKED_CARDS);
+        long left = RoundLog.ALL_CARDS;
+        long bits = 0;
+        int nbits = 0;
+        for (int i = 0; i < RoundLog.RANKED_CARDS; i++) {
+            final int width = RoundLog.width(RoundLog.RANKED_CARDS - i);
+            while (nbits < width) {
+                bits = bits << 8 | in.u1();
+                nbits += 8;
+            }
+            nbits -= width;
+            final int rank = (int) (bits >>> nbits) & ((1 << width) - 1);
+            if (rank >= RoundLog.RANKED_CARDS - i) {
+                throw error("invalid card rank " + rank);
+            }
+            // the card is the one with the given rank among the cards that are left
+            long candidates = left;
+            for (int r = 0; r < rank; r++) {
+                candidates &= candidates - 1;
+            }
+            final int index = Long.numberOfTrailingZeros(candidates);
+            left &= ~(1L << index);
+            shoe.add(Card.ofIndex(index));
+        }
+        return shoe;
+    }
+
+    private IOException error(final String msg) {
+        return new IOException(String.format("%s: round %d: %s", filename, rounds, msg));
+    }
+
+    /**
+     * Follower makes the logged decisions, and compares them with the decisions of the strategy.
+     */
+    private final class Follower implements Strategy {
+
+        @Override
+        public boolean shouldHit(final Hand hand, final Card dealerUpcard) {
+            return follow(hand, dealerUpcard, strat.shouldHit(hand, dealerUpcard));
+        }
+
+        @Override
+        public boolean shouldHit(final Hand hand, final Card dealerUpcard, final ShoeState shoe) {
+            return follow(hand, dealerUpcard, strat.shouldHit(hand, dealerUpcard, shoe));
+        }
+
+        // follow returns the logged decision, after comparing it with the replayed one
+        private boolean follow(final Hand hand, final Card dealerUpcard, final boolean replayed) {
+            // Sam hit the logged number of times, and then stood
+            final boolean logged = decision < hits;
+            decision++;
+            decisions++;
+            if (logged != replayed) {
+                differing++;
+                if (!roundDiffers) {
+                    differingRounds++;
+                    roundDiffers = true;
+                }
+                if (differences.size() < listed) {
+                    differences.add(
+                            new Difference(rounds, decision, hand, dealerUpcard, logged));
+                }
+            }
+            return logged;
+        }
+
+        @Override
+        public String toString() {
+            return "the logged decisions";
+        }
+    }
+
+    /** Input reads bytes from a FileChannel, through a direct buffer. */
+    private final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(final FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        // more returns true if there is at least one more byte, and reads more of the file if
+        // needed
+        boolean more() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            return n > 0;
+        }
+
+        int u1() throws IOException {
+            if (!more()) {
+                throw error("the log ends in the middle of a record");
+            }
+            return buffer.get() & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package blackjack;
+
+import java.util.Locale;
+
+/**
+ * Rules is a set of Blackjack rules.
+ *
+ * <p>The classic rules are the ones in Game.oneRound: no splits or doubles, the dealer draws while
+ * below the score of Sam, any 21 on the initial deal wins at once and two aces lose against two
+ * aces.
+ *
+ * <p>The casino rules count aces as 1 or 11, the dealer stands on 17 (or hits a soft 17), a natural
+ * Blackjack pays the blackjack payout, the dealer peeks for Blackjack, and doubling, splitting and
+ * late surrender can be allowed.
+ *
+ * <p>A set of rules is resolved into a RoundEngine once, so that the round loop does not check for
+ * features that are not in use.
+ */
+public final class Rules {
+
+    /** The rules that Game.oneRound implements */
+    public static final Rules CLASSIC = new Rules(true, false, false, false, false, 1.0);
+
+    private final boolean classic;
+    private final boolean dealerHitsSoft17;
+    private final boolean doubling;
+    private final boolean splitting;
+    private final boolean surrender;
+    private final double blackjackPayout;
+
+    private Rules(
+            boolean classic,
+            boolean dealerHitsSoft17,
+            boolean doubling,
+            boolean splitting,
+            boolean surrender,
+            double blackjackPayout) {
+        this.classic = classic;
+        this.dealerHitsSoft17 = dealerHitsSoft17;
+        this.doubling = doubling;
+        this.splitting = splitting;
+        this.surrender = surrender;
+        this.blackjackPayout = blackjackPayout;
+    }
+
+    /**
+     * Create a set of casino rules.
+     *
+     * @param dealerHitsSoft17 is true if the dealer hits a soft 17, and false if the dealer stands
+     * @param doubling is true if doubling down is allowed
+     * @param splitting is true if pairs can be split, into at most 4 hands
+     * @param surrender is true if late surrender is allowed
+     * @param blackjackPayout is how much a natural Blackjack pays, like 1.5 for 3:2
+     */
+    Rules(
+            boolean dealerHitsSoft17,
+            boolean doubling,
+            boolean splitting,
+            boolean surrender,
+            double blackjackPayout) {
+        this(false, dealerHitsSoft17, doubling, splitting, surrender, blackjackPayout);
+    }
+
+    /**
+     * Parse a comma separated list of rule names, like "h17,double,split,surrender,bj=6:5".
+     *
+     * <p>"classic" gives the classic rules. Otherwise, the casino rules are used, where the dealer
+     * stands on soft 17 ("s17") unless "h17" is given, and Blackjack pays 3:2 unless "bj=X" is
+     * given, where X is a number like 1.2 or a ratio like 6:5.
+     *
+     * @param spec is the list of rule names
+     * @return the parsed rules
+     * @throws InvalidFlagValueException if a rule name is not recognized
+     */
+    public static Rules parse(final String spec) throws InvalidFlagValueException {
+        if (spec.trim().equalsIgnoreCase("classic")) {
+            return CLASSIC;
+        }
+        boolean dealerHitsSoft17 = false;
+        boolean doubling = false;
+        boolean splitting = false;
+        boolean surrender = false;
+        double blackjackPayout = 1.5;
+        for (String field : spec.split(",")) {
+            final String name = field.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty() || name.equals("s17")) {
+                continue;
+            } else if (name.equals("h17")) {
+                dealerHitsSoft17 = true;
+            } else if (name.equals("double")) {
+                doubling = true;
+            } else if (name.equals("split")) {
+                splitting = true;
+            } else if (name.equals("surrender")) {
+                surrender = true;
+            } else if (name.startsWith("bj=")) {
+                blackjackPayout = parsePayout(name.substring(3));
+            } else {
+                throw new InvalidFlagValueException("unrecognized rule: " + name);
+            }
+        }
+        return new Rules(dealerHitsSoft17, doubling, splitting, surrender, blackjackPayout);
+    }
+
+    /**
+     * Parse a payout like "1.5" or "3:2".
+     *
+     * @param payout is the payout
+     * @return the payout as a number, like 1.5
+     * @throws InvalidFlagValueException if the payout is not a number or a ratio
+     */
+    static double parsePayout(final String payout) throws InvalidFlagValueException {
+        try {
+            final int colon = payout.indexOf(':');
+            if (colon < 0) {
+                return Double.parseDouble(payout);
+            }
+            return Double.parseDouble(payout.substring(0, colon))
+                    / Double.parseDouble(payout.substring(colon + 1));
+        } catch (NumberFormatException ex) {
+            throw new InvalidFlagValueException("invalid blackjack payout: " + payout);
+        }
+    }
+
+    /**
+     * Resolve these rules into a RoundEngine that plays rounds with the given deck and strategy.
+     *
+     * @param deck is the deck to draw cards from. It is not shuffled by the engine.
+     * @param strat is the strategy that Sam will be using
+     * @return a RoundEngine that is specialized for these rules
+     */
+    RoundEngine engine(final Deck deck, final Strategy strat) {
+        if (classic) {
+            return new ClassicEngine(deck, strat);
+        }
+        if (splitting) {
+            return new SplittingEngine(this, deck, strat);
+        }
+        return new CasinoEngine(this, deck, strat);
+    }
+
+    /** @return true if these are the classic rules of Game.oneRound */
+    public boolean isClassic() {
+        return classic;
+    }
+
+    /** @return true if the dealer hits a soft 17 */
+    public boolean dealerHitsSoft17() {
+        return dealerHitsSoft17;
+    }
+
+    /** @return true if doubling down is allowed */
+    public boolean doubling() {
+        return doubling;
+    }
+
+    /** @return true if pairs can be split */
+    public boolean splitting() {
+        return splitting;
+    }
+
+    /** @return true if late surrender is allowed */
+    public boolean surrender() {
+        return surrender;
+    }
+
+    /** @return how much a natural Blackjack pays, in units of the bet */
+    public double blackjackPayout() {
+        return blackjackPayout;
+    }
+
+    /**
+     * Create a string representation.
+     *
+     * @return the rules as a list of rule names, that can be parsed by the parse method
+     */
+    @Override
+    public String toString() {
+        if (classic) {
+            return "classic";
+        }
+        StringBuilder sb = new StringBuilder(dealerHitsSoft17 ? "h17" : "s17");
+        if (doubling) {
+            sb.append(",double");
+        }
+        if (splitting) {
+            sb.append(",split");
+        }
+        if (surrender) {
+            sb.append(",surrender");
+        }
+        sb.append(String.format(Locale.ROOT, ",bj=%s", blackjackPayout));
+        return sb.toString();
+    }
+}
@@ -1,74 +1,134 @@
 package blackjack;
 
+import java.util.List;
+import java.util.Optional;
+
 /** SecondStrategyOptimized implements a new Blackjack strategy with optimized parameters. */
 public final class SecondStrategyOptimized implements Strategy {
 
+    /** The factory for SecondStrategyOptimized strategies with other parameters */
+    static final StrategyFactory FACTORY = new Factory();
+
     // These values were found by running the program with the -s -o flags
-    private double a = 3.728042;
-    private double b = 4.422105;
-    private double c = 12.990700;
+    private static final SecondStrategyOptimized DEFAULT =
+            new SecondStrategyOptimized(3.728042, 4.422105, 12.990700);
+
+    private final double a;
+    private final double b;
+    private final double c;
+
+    /** Create a SecondStrategyOptimized strategy with the optimized parameters. */
+    SecondStrategyOptimized() {
+        this(DEFAULT.a, DEFAULT.b, DEFAULT.c);
+    }
+
+    /**
+     * Create a SecondStrategyOptimized strategy with the given parameters.
+     *
+     * @param a is the weight of the hand score
+     * @param b is the weight of the dealer upcard score
+     * @param c is the limit that the weighted sum must be above for Sam to hit
+     */
+    SecondStrategyOptimized(double a, double b, double c) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
 
     @Override
     public final boolean shouldHit(Hand hand, Card dealerUpcard) {
-        return hand.score() * a + dealerUpcard.score() * b > c;
+        return shouldHit(hand.score(), hand.aces(), hand.count(), dealerUpcard.score());
     }
 
     @Override
-    public void resetParameters() {
-        a = 0; // 0 .. 13
-        b = 0; // 0 .. 9
-        c = 0; // 0 .. 19
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return playerTotal * a + dealerUpcardScore * b > c;
     }
 
-    private final double rDouble(final double min, final double max) {
-        return (Math.random() * (max - min)) + min;
+    @Override
+    public final Parameters parameters() {
+        return Parameters.of(a, b, c);
     }
 
-    private void setRandomParameters() {
-        a = rDouble(0, 13);
-        b = rDouble(0, 9);
-        c = rDouble(0, 19);
+    @Override
+    public final StrategyFactory factory() {
+        return FACTORY;
     }
 
-    /*
-     * nextSetting iterates over all the parameters
-     *
-     * @return true when the largest numbers has been reached.
-     */
-    @Override
-    public final boolean nextParameter(final boolean randomValues) {
-        if (randomValues) {
-            setRandomParameters();
-            return true;
+    /** Factory lists the parameters of SecondStrategyOptimized, from 0 to 13, 9 and 19 */
+    private static final class Factory implements StrategyFactory {
+
+        // the step between the parameters that are listed by next
+        private static final double STEP = 0.15;
+
+        // the lowest values of the parameters, and the values that they stay below
+        private static final double[] LOWEST = {0, 0, 0};
+        private static final double[] LIMITS = {13, 9, 19};
+
+        @Override
+        public Parameters defaults() {
+            return DEFAULT.parameters();
+        }
+
+        @Override
+        public Parameters first() {
+            return Parameters.of(0, 0, 0);
         }
-        c += 0.15;
-        if (c >= 19.0) {
-            c = 0;
-            b += 0.15;
-            if (b >= 9.0) {
-                b = 0;
-                a += 0.15;
-                if (a >= 13.0) {
-                    return false;
+
+        /*
+         * next iterates over all the parameters, where the last parameter changes the fastest
+         *
+         * @return the next parameters, or an empty Optional when the upper values have been reached
+         */
+        @Override
+        public Optional<Parameters> next(final Parameters params) {
+            double a = params.get(0);
+            double b = params.get(1);
+            double c = params.get(2);
+            c += STEP;
+            if (c >= 19.0) {
+                c = 0;
+                b += STEP;
+                if (b >= 9.0) {
+                    b = 0;
+                    a += STEP;
+                    if (a >= 13.0) {
+                        return Optional.empty();
+                    }
                 }
             }
+            return Optional.of(Parameters.of(a, b, c));
         }
-        return true;
-    }
 
-    @Override
-    public final int possibilities() {
-        // it's really 6.6 and not 7, but it's close enough for this purpose
-        return 7 * 13 * 7 * 9 * 7 * 19;
-    }
+        @Override
+        public Parameters random() {
+            return Parameters.of(rDouble(0, 13), rDouble(0, 9), rDouble(0, 19));
+        }
 
-    @Override
-    public final SecondStrategyOptimized copy() {
-        SecondStrategyOptimized strat = new SecondStrategyOptimized();
-        strat.a = a;
-        strat.b = b;
-        strat.c = c;
-        return strat;
+        private static double rDouble(final double min, final double max) {
+            return (Math.random() * (max - min)) + min;
+        }
+
+        @Override
+        public int possibilities() {
+            // it's really 6.6 and not 7, but it's close enough for this purpose
+            return 7 * 13 * 7 * 9 * 7 * 19;
+        }
+
+        @Override
+        public List<Parameters> neighbors(final Parameters params) {
+            return StrategyFactory.neighbors(params, STEP, LOWEST, LIMITS);
+        }
+
+        @Override
+        public SecondStrategyOptimized create(final Parameters params) {
+            if (params.size() != 3) {
+                throw new IllegalArgumentException(
+                        "SecondStrategyOptimized has 3 parameters, not " + params.size());
+            }
+            return new SecondStrategyOptimized(params.get(0), params.get(1), params.get(2));
+        }
     }
 
     /**
@@ -0,0 +1,378 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SessionSimulator plays betting sessions, where Sam starts with a bankroll and bets on every
+ * round, until the session is over, the bankroll is lost or a stop-loss is reached. Money is
+ * counted in units of the minimum bet, and Sam is ruined when the bankroll is smaller than that.
+ *
+ * <p>The sessions are split into blocks of SESSIONS_PER_BLOCK, and every block plays its sessions
+ * one after the other with its own Game and a deck that is seeded from the given seed, so the
+ * results only depend on the seed, and not on the number of threads. Every session writes its
+ * final bankroll and the round where it was ruined to its own index in primitive arrays, so the
+ * threads never share an accumulator, and nothing is boxed.
+ */
+public final class SessionSimulator {
+
+    /** The default number of sessions */
+    public static final int DEFAULT_SESSIONS = 10000;
+
+    /** The default largest number of rounds per session */
+    public static final int DEFAULT_ROUNDS = 1000;
+
+    /** The largest bet with count-based betting, in units */
+    public static final int COUNT_SPREAD = 8;
+
+    /** The number of sessions that are played after each other with the same Game */
+    static final int SESSIONS_PER_BLOCK = 256;
+
+    // the number of rounds that are played to find the Kelly fraction
+    private static final int PILOT_ROUNDS = 200000;
+
+    // the smallest bet, which is the unit that money is counted in
+    private static final double MIN_BET = 1.0;
+
+    // the number of standard deviations for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    // the percentiles in the formatted table
+    private static final double[] PERCENTILES = {1, 5, 10, 25, 50, 75, 90, 95, 99};
+
+    /** Betting is how much Sam bets on a round. */
+    public enum Betting {
+        FLAT, // the minimum bet on every round
+        KELLY, // the Kelly fraction of the bankroll, found from the results of the strategy
+        COUNT; // one unit per Hi-Lo true count, from 1 to COUNT_SPREAD units
+
+        /**
+         * Parse a betting name, like "flat".
+         *
+         * @param name is the name
+         * @return the betting
+         * @throws InvalidFlagValueException if the name is not flat, kelly or count
+         */
+        public static Betting parse(final String name) throws InvalidFlagValueException {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidFlagValueException("unknown betting: " + name);
+            }
+        }
+    }
+
+    /** Result is how all the sessions ended. */
+    public static final class Result {
+
+        /** the final bankroll of every session, from the lowest to the highest */
+        public final double[] finals;
+
+        /** the number of rounds until ruin, for every ruined session, from the lowest */
+        public final int[] ruinRounds;
+
+        /** the number of sessions that ended on the stop-loss */
+        public final int stopped;
+
+        /** the fraction of the bankroll that Kelly betting bets, or 0 without Kelly betting */
+        public final double kellyFraction;
+
+        /** the number of seconds that the sessions took */
+        public final double seconds;
+
+        private Result(
+                final double[] finals,
+                final int[] ruinRounds,
+                final int stopped,
+                final double kellyFraction,
+                final double seconds) {
+            this.finals = finals;
+            this.ruinRounds = ruinRounds;
+            this.stopped = stopped;
+            this.kellyFraction = kellyFraction;
+            this.seconds = seconds;
+        }
+
+        /** @return the share of the sessions where Sam was ruined */
+        public double riskOfRuin() {
+            return (double) ruinRounds.length / finals.length;
+        }
+
+        /** @return the half-width of the 95% confidence interval of the risk of ruin */
+        public double riskOfRuinError() {
+            final double p = riskOfRuin();
+            return Z_95 * Math.sqrt(p * (1 - p) / finals.length);
+        }
+
+        /** @return the average final bankroll */
+        public double meanFinal() {
+            double sum = 0;
+            for (double f : finals) {
+                sum += f;
+            }
+            return sum / finals.length;
+        }
+
+        /**
+         * Find a percentile of the final bankrolls.
+         *
+         * @param percent is the percentile, from 0 to 100
+         * @return the final bankroll at that percentile
+         */
+        public double finalPercentile(final double percent) {
+            return finals[rank(percent, finals.length)];
+        }
+
+        /**
+         * Find a percentile of the number of rounds until ruin, of the ruined sessions.
+         *
+         * @param percent is the percentile, from 0 to 100
+         * @return the number of rounds at that percentile, or -1 if no session was ruined
+         */
+        public int ruinPercentile(final double percent) {
+            if (ruinRounds.length == 0) {
+                return -1;
+            }
+            return ruinRounds[rank(percent, ruinRounds.length)];
+        }
+
+        // rank returns the index of a percentile in a sorted array of length n, by nearest rank
+        private static int rank(final double percent, final int n) {
+            final int rank = (int) Math.ceil(percent / 100.0 * n);
+            return Math.max(0, Math.min(n - 1, rank - 1));
+        }
+    }
+
+    private final Strategy strat;
+    private final double bankroll;
+    private final Betting betting;
+    private final double blackjackPayout;
+    private final int rounds;
+    private final double stopLoss;
+    private final int sessions;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Create a new simulator.
+     *
+     * @param strat is the strategy that Sam plays with
+     * @param bankroll is the bankroll that every session starts with, in units of the minimum bet
+     * @param betting is how much Sam bets on a round
+     * @param blackjackPayout is how much a blackjack on the initial deal pays, like 1.5 for 3:2
+     * @param rounds is the largest number of rounds per session
+     * @param stopLoss is how much Sam can lose before a session ends, or 0 for no stop-loss
+     * @param sessions is the number of sessions
+     * @param threads is the number of blocks of sessions to play at the same time
+     * @param seed is the seed for shuffling the decks
+     */
+    SessionSimulator(
+            final Strategy strat,
+            final double bankroll,
+            final Betting betting,
+            final double blackjackPayout,
+            final int rounds,
+            final double stopLoss,
+            final int sessions,
+            final int threads,
+            final long seed) {
+        this.strat = strat;
+        this.bankroll = bankroll;
+        this.betting = betting;
+        this.blackjackPayout = blackjackPayout;
+        this.rounds = Math.max(1, rounds);
+        this.stopLoss = stopLoss > 0 ? stopLoss : Double.POSITIVE_INFINITY;
+        this.sessions = Math.max(1, sessions);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Play all sessions.
+     *
+     * @return how the sessions ended
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public Result run() throws OutOfCardsException {
+        final long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        final double kellyFraction = betting == Betting.KELLY ? kellyFraction(random.split()) : 0;
+
+        final double[] finals = new double[sessions];
+        final int[] ruinRounds = new int[sessions];
+        final boolean[] stopped = new boolean[sessions];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int first = 0; first < sessions; first += SESSIONS_PER_BLOCK) {
+            final int from = first;
+            final int to = Math.min(sessions, first + SESSIONS_PER_BLOCK);
+            final long blockSeed = random.nextLong();
+            tasks.add(
+                    () -> {
+                        playBlock(
+                                blockSeed, kellyFraction, from, to, finals, ruinRounds, stopped);
+                        return null;
+                    });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> done : executor.invokeAll(tasks)) {
+                done.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OutOfCardsException) {
+                throw (OutOfCardsException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        int ruined = 0;
+        int stops = 0;
+        for (int i = 0; i < sessions; i++) {
+            ruined += ruinRounds[i] > 0 ? 1 : 0;
+            stops += stopped[i] ? 1 : 0;
+        }
+        final int[] ruins = new int[ruined];
+        for (int i = 0, j = 0; i < sessions; i++) {
+            if (ruinRounds[i] > 0) {
+                ruins[j++] = ruinRounds[i];
+            }
+        }
+        Arrays.sort(finals);
+        Arrays.sort(ruins);
+        return new Result(
+                finals, ruins, stops, kellyFraction, (System.nanoTime() - start) / 1e9);
+    }
+
+    // playBlock plays the sessions from index from to index to, with one Game
+    private void playBlock(
+            final long blockSeed,
+            final double kellyFraction,
+            final int from,
+            final int to,
+            final double[] finals,
+            final int[] ruinRounds,
+            final boolean[] stopped)
+            throws OutOfCardsException {
+        final Deck deck = new Deck();
+        final Game game = new Game(deck, strat, false, true);
+        game.reset(Optional.of(blockSeed));
+        final double floor = bankroll - stopLoss;
+        for (int s = from; s < to; s++) {
+            double money = bankroll;
+            for (int round = 1; round <= rounds; round++) {
+                final double bet = Math.min(money, bet(money, deck, kellyFraction));
+                money += bet * payout(game, game.oneRound(strat));
+                game.prepareNewRound();
+                if (money < MIN_BET) {
+                    ruinRounds[s] = round;
+                    break;
+                }
+                if (money <= floor) {
+                    stopped[s] = true;
+                    break;
+                }
+            }
+            finals[s] = money;
+        }
+    }
+
+    // bet returns how much Sam bets on the next round, before it is limited to the bankroll
+    private double bet(final double money, final Deck deck, final double kellyFraction) {
+        switch (betting) {
+            case KELLY:
+                return Math.max(MIN_BET, kellyFraction * money);
+            case COUNT:
+                {
+                    // a deck with less than 4 cards is renewed before the round, and the count
+                    // starts over
+                    final double trueCount = deck.count() < 4 ? 0 : deck.trueCount();
+                    final double units = Math.floor(trueCount);
+                    return MIN_BET * Math.max(1, Math.min(COUNT_SPREAD, units));
+                }
+            default:
+                return MIN_BET;
+        }
+    }
+
+    // payout returns the net winnings of a round, per unit that was bet
+    private double payout(final Game game, final Game.Result result) {
+        switch (result) {
+            case SAM_WON:
+                {
+                    final Player sam = game.getSam();
+                    return sam.count() == 2 && sam.score() == 21 ? blackjackPayout : 1;
+                }
+            case DEALER_WON:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+    // kellyFraction finds the Kelly fraction of the strategy from a pilot run, as the expected
+    // payout per round divided by the expected squared payout, which is the fraction of the
+    // bankroll that grows it the fastest when the edge is small. It is 0 if the strategy loses
+    // money on average.
+    private double kellyFraction(final SplittableRandom random) throws OutOfCardsException {
+        final Game game = new Game(strat);
+        game.reset(Optional.of(random.nextLong()));
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < PILOT_ROUNDS; i++) {
+            final double payout = payout(game, game.oneRound(strat));
+            game.prepareNewRound();
+            sum += payout;
+            sumOfSquares += payout * payout;
+        }
+        return Math.max(0, sum / sumOfSquares);
+    }
+
+    /**
+     * Format a result as text, with the risk of ruin, and percentiles of the final bankrolls and
+     * of the number of rounds until ruin.
+     *
+     * @param result is the result from run
+     * @return the text
+     */
+    public static String format(final Result result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "Risk of ruin: %.3f%% +- %.3f%%, with 95%% confidence.\n",
+                        result.riskOfRuin() * 100.0,
+                        result.riskOfRuinError() * 100.0));
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "The stop-loss ended %.3f%% of the sessions. The average final bankroll is"
+                                + " %.2f units.\n",
+                        100.0 * result.stopped / result.finals.length,
+                        result.meanFinal()));
+        sb.append("# percentile  final bankroll  rounds to ruin\n");
+        for (double percent : PERCENTILES) {
+            final int ruin = result.ruinPercentile(percent);
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%11.0f%%  %14.2f  %14s\n",
+                            percent,
+                            result.finalPercentile(percent),
+                            ruin < 0 ? "-" : Integer.toString(ruin)));
+        }
+        return sb.toString();
+    }
+}
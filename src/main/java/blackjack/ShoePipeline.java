@@ -0,0 +1,242 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ShoePipeline plays rounds on consumer threads, while producer threads shuffle the shoes that
+ * they play with. Every consumer has its own Game, and gets its shoes from its own ShoeRing, so
+ * the consumers never wait for each other. A producer fills the rings of one or more consumers.
+ *
+ * <p>Every ring has its own source of randomness, that the producer shuffles its shoes with, so
+ * the shoes that a consumer gets only depend on the seed, and not on the timing of the threads.
+ *
+ * <p>The number of times that the consumers waited for a shoe, and that the producers had nothing
+ * to do, shows which side is the bottleneck, and how the threads should be split between them.
+ */
+public final class ShoePipeline {
+
+    /** The number of shoes that can be shuffled ahead of each consumer */
+    public static final int RING_CAPACITY = 64;
+
+    // how long a producer sleeps when all of its rings are full
+    private static final long PARK_NANOS = 20000;
+
+    // the cards of one deck, in order, that every shoe is shuffled from
+    private static final ArrayList<Card> FULL_DECK = new ArrayList<Card>();
+
+    static {
+        for (Card.Suite suite : Card.Suite.values()) {
+            for (Card.Value value : Card.Value.values()) {
+                FULL_DECK.add(new Card(suite, value));
+            }
+        }
+    }
+
+    // Lane is the ring of one consumer, and the randomness that its shoes are shuffled with
+    private static final class Lane {
+        final ShoeRing ring = new ShoeRing(RING_CAPACITY);
+        final SplittableRandom random;
+
+        Lane(final SplittableRandom random) {
+            this.random = random;
+        }
+
+        ArrayList<Card> shuffled() {
+            return ShoePipeline.shuffled(random);
+        }
+    }
+
+    /**
+     * Create a new shoe of 52 cards, shuffled with a Fisher-Yates shuffle.
+     *
+     * @param random is the source of randomness
+     * @return the shoe
+     */
+    static ArrayList<Card> shuffled(final SplittableRandom random) {
+        ArrayList<Card> shoe = new ArrayList<Card>(FULL_DECK);
+        for (int i = shoe.size() - 1; i > 0; i--) {
+            Collections.swap(shoe, i, random.nextInt(i + 1));
+        }
+        return shoe;
+    }
+
+    private final Strategy strat;
+    private final int producers;
+    private final int consumers;
+    private final long seed;
+
+    private volatile boolean running = false;
+    private final AtomicLong shoes = new AtomicLong();
+    private final AtomicLong idle = new AtomicLong();
+    private long waits = 0;
+
+    /**
+     * Create a new pipeline.
+     *
+     * @param strat is the strategy that Sam plays with, on all consumer threads
+     * @param producers is the number of threads that shuffle shoes
+     * @param consumers is the number of threads that play rounds
+     * @param seed is the seed for shuffling
+     */
+    ShoePipeline(final Strategy strat, final int producers, final int consumers, final long seed) {
+        this.strat = strat;
+        this.consumers = Math.max(1, consumers);
+        // a producer without a consumer would have nothing to do
+        this.producers = Math.max(1, Math.min(producers, this.consumers));
+        this.seed = seed;
+    }
+
+    /**
+     * Find the default number of producers, for the given number of threads. Shuffling a shoe
+     * takes less time than playing the rounds that it lasts for, so most threads are consumers.
+     *
+     * @param threads is the total number of threads
+     * @return the number of producers
+     */
+    public static int defaultProducers(final int threads) {
+        return Math.max(1, threads / 4);
+    }
+
+    /**
+     * Play rounds until nTimes rounds have been won or lost, like Optimizer.play, split between
+     * the consumers.
+     *
+     * @param nTimes is how many rounds that should be won or lost
+     * @return a tally of the won, lost and pushed rounds of all consumers
+     * @throws OutOfCardsException if there are less than 4 cards in the deck
+     */
+    public Tally run(final int nTimes) throws OutOfCardsException {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Lane> lanes = new ArrayList<Lane>();
+        for (int i = 0; i < consumers; i++) {
+            lanes.add(new Lane(random.split()));
+        }
+
+        // the counts are only for this run
+        shoes.set(0);
+        idle.set(0);
+        waits = 0;
+
+        running = true;
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            final List<Lane> own = new ArrayList<Lane>();
+            for (int i = p; i < consumers; i += producers) {
+                own.add(lanes.get(i));
+            }
+            Thread thread = new Thread(() -> produce(own), "shoe-producer-" + p);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        List<Callable<Tally>> tasks = new ArrayList<Callable<Tally>>();
+        for (int i = 0; i < consumers; i++) {
+            final Lane lane = lanes.get(i);
+            final int share = nTimes / consumers + (i < nTimes % consumers ? 1 : 0);
+            tasks.add(() -> consume(lane, share));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(consumers);
+        Tally tally = new Tally();
+        try {
+            for (Future<Tally> result : executor.invokeAll(tasks)) {
+                tally.add(result.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof OutOfCardsException) {
+                throw (OutOfCardsException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdown();
+            running = false;
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        for (Lane lane : lanes) {
+            waits += lane.ring.waits();
+        }
+        return tally;
+    }
+
+    // produce keeps the rings of the given lanes full, until the consumers are done. The rings are
+    // closed when the producer stops, also if it fails, so that no consumer waits for it forever.
+    private void produce(final List<Lane> lanes) {
+        long made = 0;
+        long idlePasses = 0;
+        Throwable failure = null;
+        try {
+            while (running) {
+                boolean progress = false;
+                for (Lane lane : lanes) {
+                    if (!lane.ring.isFull()) {
+                        lane.ring.offer(lane.shuffled());
+                        made++;
+                        progress = true;
+                    }
+                }
+                if (!progress) {
+                    idlePasses++;
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            for (Lane lane : lanes) {
+                lane.ring.close(failure);
+            }
+            shoes.addAndGet(made);
+            idle.addAndGet(idlePasses);
+        }
+    }
+
+    // consume plays rounds with the shoes from the given lane
+    private Tally consume(final Lane lane, final int nTimes) throws OutOfCardsException {
+        Deck deck = new Deck(lane.ring);
+        return Optimizer.play(new Game(deck, strat, false, false), nTimes);
+    }
+
+    /** @return the number of producer threads */
+    public int producers() {
+        return producers;
+    }
+
+    /** @return the number of consumer threads */
+    public int consumers() {
+        return consumers;
+    }
+
+    /** @return the number of shoes that were shuffled during the last run */
+    public long shoes() {
+        return shoes.get();
+    }
+
+    /** @return the number of times that a consumer had to wait for a shoe during the last run */
+    public long consumerWaits() {
+        return waits;
+    }
+
+    /** @return the number of times that a producer had nothing to do during the last run */
+    public long producerIdles() {
+        return idle.get();
+    }
+}
@@ -0,0 +1,162 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ShoeRing is a lock-free ring buffer of shuffled shoes, from one producer thread to one consumer
+ * thread. The producer only writes the tail counter and the consumer only writes the head counter,
+ * so neither of them ever waits for a lock, and a counter is only read by the other thread when the
+ * ring looks full or empty from the last reading of it.
+ *
+ * <p>The producer closes the ring when it stops, so that a consumer that waits for a shoe that will
+ * never come fails with the reason, instead of waiting forever.
+ */
+final class ShoeRing {
+
+    // the head and the tail are kept this many longs apart, so that they are not on the same cache
+    // line, and the producer and the consumer do not slow each other down by writing them
+    private static final int PAD = 16;
+    private static final int HEAD = PAD;
+    private static final int TAIL = 2 * PAD;
+
+    // the number of times that take spins before it lets other threads run
+    private static final int SPINS = 100;
+
+    private final ArrayList<?>[] slots;
+    private final int mask;
+
+    // the number of shoes that have been taken out (HEAD) and put in (TAIL)
+    private final AtomicLongArray counters = new AtomicLongArray(3 * PAD);
+
+    // the last reading of the head, by the producer
+    private long cachedHead = 0;
+
+    // the last reading of the tail, and the number of times that the ring was empty, by the
+    // consumer
+    private long cachedTail = 0;
+    private long waits = 0;
+
+    // set by the producer when it stops, with the exception that it stopped with, if any
+    private volatile boolean closed = false;
+    private volatile Throwable failure = null;
+
+    /**
+     * Create a new ring.
+     *
+     * @param capacity is the number of shoes that the ring can hold, rounded up to a power of two
+     */
+    ShoeRing(final int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new ArrayList<?>[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Check if there is room for another shoe. Only to be called by the producer.
+     *
+     * @return true if the ring is full
+     */
+    public boolean isFull() {
+        final long tail = counters.get(TAIL);
+        if (tail - cachedHead < slots.length) {
+            return false;
+        }
+        cachedHead = counters.get(HEAD);
+        return tail - cachedHead >= slots.length;
+    }
+
+    /**
+     * Put a shoe in the ring, if there is room. Only to be called by the producer.
+     *
+     * @param shoe is the shoe, which is owned by the consumer from now on
+     * @return false if the ring was full
+     */
+    public boolean offer(final ArrayList<Card> shoe) {
+        if (isFull()) {
+            return false;
+        }
+        final long tail = counters.get(TAIL);
+        slots[(int) tail & mask] = shoe;
+        // the shoe is written before the new tail can be seen by the consumer
+        counters.lazySet(TAIL, tail + 1);
+        return true;
+    }
+
+    /**
+     * Take a shoe from the ring, if there is one. Only to be called by the consumer.
+     *
+     * @return the shoe, or null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<Card> poll() {
+        final long head = counters.get(HEAD);
+        if (head >= cachedTail) {
+            cachedTail = counters.get(TAIL);
+            if (head >= cachedTail) {
+                return null;
+            }
+        }
+        final int slot = (int) head & mask;
+        final ArrayList<Card> shoe = (ArrayList<Card>) slots[slot];
+        slots[slot] = null;
+        counters.lazySet(HEAD, head + 1);
+        return shoe;
+    }
+
+    /**
+     * Tell the consumer that no more shoes will be put in the ring. The shoes that are already in
+     * the ring can still be taken. Only to be called by the producer.
+     *
+     * @param cause is the exception that the producer stopped with, or null if it was done
+     */
+    public void close(final Throwable cause) {
+        failure = cause;
+        closed = true;
+    }
+
+    /**
+     * Take a shoe from the ring, and wait for the producer if it is empty. Only to be called by the
+     * consumer.
+     *
+     * @return the shoe
+     * @throws IllegalStateException if the ring is empty and closed, with the exception that the
+     *     producer stopped with as the cause
+     */
+    public ArrayList<Card> take() {
+        ArrayList<Card> shoe = poll();
+        if (shoe != null) {
+            return shoe;
+        }
+        waits++;
+        for (int spins = 0; (shoe = poll()) == null; spins++) {
+            if (closed) {
+                // the producer may have put in a last shoe before it closed the ring
+                shoe = poll();
+                if (shoe != null) {
+                    return shoe;
+                }
+                throw new IllegalStateException("the producer of the shoes has stopped", failure);
+            }
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return shoe;
+    }
+
+    /** @return the number of times that the consumer had to wait for a shoe */
+    public long waits() {
+        return waits;
+    }
+
+    /** @return the number of shoes that the ring can hold */
+    public int capacity() {
+        return slots.length;
+    }
+}
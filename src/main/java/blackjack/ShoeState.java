@@ -0,0 +1,28 @@
+package blackjack;
+
+/**
+ * ShoeState is a read-only view of the cards that are left in a deck, for strategies that count
+ * cards. All methods are O(1), since the deck keeps the counts up to date as cards are drawn.
+ *
+ * <p>While Sam plays, strategies are given UnseenCards, where the dealer's hole card is one of the
+ * cards that are left.
+ */
+interface ShoeState {
+
+    /** @return the Hi-Lo running count of the cards drawn since the deck was last renewed */
+    public int runningCount();
+
+    /** @return the Hi-Lo true count, the running count per remaining deck of 52 cards */
+    public double trueCount();
+
+    /** @return the number of cards left in the deck */
+    public int count();
+
+    /**
+     * Count the cards left in the deck with the given card score.
+     *
+     * @param cardScore is the card score, from 2 to 11, where 10 is all tens and face cards
+     * @return the number of cards left with that score
+     */
+    public int remaining(int cardScore);
+}
@@ -0,0 +1,319 @@
+package blackjack;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SimulationServer is a small HTTP service on localhost that simulates rounds of Blackjack.
+ *
+ * <p>Endpoints:
+ *
+ * <ul>
+ *   <li>GET /winratio?strategy=basicopt&amp;params=4,3,20,5,14&amp;rounds=100000&amp;seed=42
+ *   <li>GET /round?strategy=third&amp;deck=CA,D5,H9,HQ,S8&amp;shuffle=false
+ * </ul>
+ *
+ * <p>All query parameters are optional. The results are returned as JSON.
+ *
+ * <p>Requests are handled on virtual threads, when the JVM has them, and on a cached thread pool if
+ * not. The simulations themselves run on a fixed pool of warm Game instances, one per core, so that
+ * a burst of requests queues up instead of fighting over the cores.
+ */
+public final class SimulationServer {
+
+    private static final int DEFAULT_ROUNDS = 100000;
+    private static final int MAX_ROUNDS = 10000000;
+    private static final int WARMUP_ROUNDS = 20000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<Game> pool;
+
+    /**
+     * Create a new simulation server, and warm up the pool of games. The server is not started.
+     *
+     * @param port is the port to listen to, on the loopback interface
+     * @param poolSize is the number of games that can be simulated at the same time
+     * @throws IOException if the server could not listen to the given port
+     * @throws OutOfCardsException if the games could not be warmed up
+     */
+    SimulationServer(final int port, final int poolSize) throws IOException, OutOfCardsException {
+        pool = new ArrayBlockingQueue<Game>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            Game game = new Game(new BasicStrategyOptimized());
+            Optimizer.play(game, WARMUP_ROUNDS);
+            pool.add(game);
+        }
+        executor = newVirtualThreadExecutor();
+        server =
+                HttpServer.create(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/winratio", this::handleWinRatio);
+        server.createContext("/round", this::handleRound);
+    }
+
+    /** Start handling requests. */
+    public void start() {
+        server.start();
+    }
+
+    /** Stop handling requests, and wait at most a second for the ongoing ones. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /** @return the port the server is listening to */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // newVirtualThreadExecutor uses virtual threads if this JVM has them (Java 21 and later)
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // handleWinRatio simulates a number of rounds and responds with the win ratio
+    private void handleWinRatio(final HttpExchange exchange) throws IOException {
+        try {
+            final HashMap<String, String> query = parseQuery(exchange);
+            final Strategy strat = strategy(query);
+            final int rounds = intParam(query, "rounds", DEFAULT_ROUNDS);
+            if (rounds < 1 || rounds > MAX_ROUNDS) {
+                throw new IllegalArgumentException("rounds must be from 1 to " + MAX_ROUNDS);
+            }
+            final long start = System.nanoTime();
+            final Tally tally;
+            if (query.containsKey("deck")) {
+                tally = Optimizer.play(customGame(query, strat), rounds);
+            } else {
+                final Game game = pool.take();
+                try {
+                    game.setStrategy(strat);
+                    game.reset(seed(query));
+                    tally = Optimizer.play(game, rounds);
+                } finally {
+                    pool.put(game);
+                }
+            }
+            final double millis = (System.nanoTime() - start) / 1e6;
+            respond(
+                    exchange,
+                    200,
+                    String.format(
+                            Locale.ROOT,
+                            "{\"strategy\":%s,\"rounds\":%d,\"wins\":%d,\"losses\":%d,"
+                                    + "\"pushes\":%d,\"winRatio\":%f,\"millis\":%.3f}",
+                            ResultWriter.jsonQuote(strat.toString()),
+                            rounds,
+                            tally.wins(),
+                            tally.losses(),
+                            tally.pushes(),
+                            tally.winRatio(),
+                            millis));
+        } catch (IllegalArgumentException | CardParseException ex) {
+            respondError(exchange, 400, ex.getMessage());
+        } catch (OutOfCardsException ex) {
+            respondError(exchange, 500, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respondError(exchange, 503, "interrupted");
+        }
+    }
+
+    // handleRound simulates a single round and responds with the winner and all the cards
+    private void handleRound(final HttpExchange exchange) throws IOException {
+        try {
+            final HashMap<String, String> query = parseQuery(exchange);
+            final Strategy strat = strategy(query);
+            String body;
+            if (query.containsKey("deck")) {
+                body = roundJson(customGame(query, strat), strat);
+            } else {
+                final Game game = pool.take();
+                try {
+                    game.setStrategy(strat);
+                    game.reset(seed(query));
+                    body = roundJson(game, strat);
+                } finally {
+                    pool.put(game);
+                }
+            }
+            respond(exchange, 200, body);
+        } catch (IllegalArgumentException | CardParseException ex) {
+            respondError(exchange, 400, ex.getMessage());
+        } catch (OutOfCardsException ex) {
+            respondError(exchange, 500, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respondError(exchange, 503, "interrupted");
+        }
+    }
+
+    // roundJson plays one round of the given game and describes the result as JSON
+    private static String roundJson(final Game game, final Strategy strat)
+            throws OutOfCardsException {
+        final Game.Result result = game.oneRound(strat);
+        final String json =
+                String.format(
+                        "{\"strategy\":%s,\"winner\":%s,\"sam\":%s,\"samScore\":%d,"
+                                + "\"dealer\":%s,\"dealerScore\":%d}",
+                        ResultWriter.jsonQuote(strat.toString()),
+                        ResultWriter.jsonQuote(winnerName(result)),
+                        cardsJson(game.getSam()),
+                        game.getSam().score(),
+                        cardsJson(game.getDealer()),
+                        game.getDealer().score());
+        game.prepareNewRound();
+        return json;
+    }
+
+    // winnerName returns the same names as the ones that are used by Game.summary
+    private static String winnerName(final Game.Result result) {
+        switch (result) {
+            case SAM_WON:
+                return "sam";
+            case DEALER_WON:
+                return "dealer";
+            default:
+                return "push";
+        }
+    }
+
+    // cardsJson returns the cards in the given collection as a JSON array of card strings
+    private static String cardsJson(final CardCollection cards) {
+        if (cards.isEmpty()) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        boolean first = true;
+        for (String code : cards.toString().split(", ")) {
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append(ResultWriter.jsonQuote(code));
+            first = false;
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    // customGame creates a new game with the deck that is given in the query
+    private static Game customGame(final HashMap<String, String> query, final Strategy strat)
+            throws CardParseException {
+        Deck deck = new Deck();
+        deck.setCards(query.get("deck"));
+        if (deck.count() < 4) {
+            // a round needs at least 4 cards, so this is a bad request and not a server error
+            throw new IllegalArgumentException("too few cards in the deck: " + deck.count());
+        }
+        final Optional<Long> maybeSeed = seed(query);
+        if (maybeSeed.isPresent()) {
+            deck.setSeed(maybeSeed.get());
+        }
+        final boolean shuffle = !"false".equals(query.getOrDefault("shuffle", "true"));
+        return new Game(deck, strat, false, shuffle);
+    }
+
+    // strategy creates the strategy that is given in the query, or BasicOptimized by default
+    private static Strategy strategy(final HashMap<String, String> query) {
+        final String name = query.getOrDefault("strategy", "basicopt");
+        final String params = query.getOrDefault("params", "");
+        if (params.isBlank()) {
+            return Strategies.create(name, new double[0]);
+        }
+        final String[] fields = params.split(",");
+        double[] values = new double[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                values[i] = Double.parseDouble(fields[i].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("not a number: " + fields[i]);
+            }
+        }
+        return Strategies.create(name, values);
+    }
+
+    // seed returns the seed that is given in the query, if any
+    private static Optional<Long> seed(final HashMap<String, String> query) {
+        if (!query.containsKey("seed")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(query.get("seed")));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("not an integer: seed=" + query.get("seed"));
+        }
+    }
+
+    // intParam returns an integer from the query, or the default value if it is not given
+    private static int intParam(
+            final HashMap<String, String> query, final String key, final int defaultValue) {
+        if (!query.containsKey(key)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(query.get(key));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("not an integer: " + key + "=" + query.get(key));
+        }
+    }
+
+    // parseQuery decodes the query string of the request into a map of keys and values
+    private static HashMap<String, String> parseQuery(final HttpExchange exchange) {
+        HashMap<String, String> query = new HashMap<String, String>();
+        final String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            final int eq = pair.indexOf('=');
+            if (eq < 0) {
+                query.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+            } else {
+                query.put(
+                        URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    // respondError responds with a JSON object that contains the error message
+    private static void respondError(final HttpExchange exchange, final int status, String msg)
+            throws IOException {
+        final String json = ResultWriter.jsonQuote(String.valueOf(msg));
+        respond(exchange, status, "{\"error\":" + json + "}");
+    }
+
+    // respond sends the given JSON body with the given HTTP status code
+    private static void respond(final HttpExchange exchange, final int status, final String body)
+            throws IOException {
+        final byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package blackjack;
+
+/**
+ * SplittingEngine plays rounds with casino rules where pairs can be split, into at most 4 hands.
+ *
+ * <p>Split aces get one card each, and can not be split again. Doubling after a split is allowed
+ * if doubling is allowed. A 21 on a split hand is not a Blackjack.
+ */
+final class SplittingEngine implements RoundEngine {
+
+    /** The maximum number of hands that Sam can have after splitting */
+    static final int MAX_HANDS = 4;
+
+    private final boolean dealerHitsSoft17;
+    private final boolean doubling;
+    private final boolean surrender;
+    private final double blackjackPayout;
+
+    private final Deck deck;
+    private final Strategy strat;
+    private final Hand[] hands = new Hand[MAX_HANDS];
+    private final double[] bets = new double[MAX_HANDS];
+    private final Dealer dealer = new Dealer();
+
+    // the cards that Sam has not seen, which is what the strategy is shown of the deck
+    private final UnseenCards unseen = new UnseenCards();
+
+    // the hand that the strategy is shown, with the best score of the hand being played
+    private final Hand view = new Hand();
+
+    /**
+     * Create a SplittingEngine.
+     *
+     * @param rules are the casino rules to play with
+     * @param deck is the deck to draw cards from
+     * @param strat is the strategy that Sam will be using
+     */
+    SplittingEngine(Rules rules, Deck deck, Strategy strat) {
+        this.dealerHitsSoft17 = rules.dealerHitsSoft17();
+        this.doubling = rules.doubling();
+        this.surrender = rules.surrender();
+        this.blackjackPayout = rules.blackjackPayout();
+        this.deck = deck;
+        this.strat = strat;
+        for (int i = 0; i < MAX_HANDS; i++) {
+            hands[i] = new Hand();
+        }
+    }
+
+    @Override
+    public double playRound() throws OutOfCardsException {
+        for (Hand hand : hands) {
+            hand.clear();
+        }
+        dealer.clear();
+        if (deck.count() < 4) {
+            deck.renew();
+        }
+
+        final Hand first = hands[0];
+        first.draw(deck);
+        dealer.draw(deck);
+        first.draw(deck);
+        final Card dealerUpcard = dealer.draw(deck).get();
+        unseen.reset(deck, dealer.get(0));
+
+        // The dealer peeks for Blackjack before Sam plays
+        final boolean samNatural = first.bestScore() == 21;
+        if (dealer.bestScore() == 21) {
+            return samNatural ? 0 : -1;
+        }
+        if (samNatural) {
+            return blackjackPayout;
+        }
+
+        if (surrender && strat.shouldSurrender(CasinoEngine.bestView(first, view), dealerUpcard)) {
+            return -0.5;
+        }
+
+        // Play each hand, splitting pairs into new hands as they come up
+        int count = 1;
+        bets[0] = 1;
+        for (int i = 0; i < count; i++) {
+            final Hand hand = hands[i];
+            if (hand.count() == 1) {
+                // this hand was split off, and needs its second card
+                hand.draw(deck);
+            }
+            while (count < MAX_HANDS
+                    && hand.get(0).score() == hand.get(1).score()
+                    && !(count > 1 && hand.get(0).score() == 11) // no re-splitting of aces
+                    // the strategy sees the pair itself, since its cards are what matter
+                    && strat.shouldSplit(hand, dealerUpcard)) {
+                hands[count].add(hand.removeLast().get());
+                bets[count] = 1;
+                count++;
+                hand.draw(deck);
+            }
+            if (hand.get(0).score() == 11 && count > 1) {
+                // split aces get exactly one card each
+                continue;
+            }
+            if (doubling && strat.shouldDouble(CasinoEngine.bestView(hand, view), dealerUpcard)) {
+                bets[i] = 2;
+                hand.draw(deck);
+                continue;
+            }
+            while (hand.bestScore() < 21
+                    && strat.shouldHit(CasinoEngine.bestView(hand, view), dealerUpcard, unseen)) {
+                hand.draw(deck);
+            }
+        }
+
+        // Busted hands lose at once, and the dealer only plays if there is a hand left
+        double net = 0;
+        boolean anyLeft = false;
+        for (int i = 0; i < count; i++) {
+            if (hands[i].bestScore() > 21) {
+                net -= bets[i];
+            } else {
+                anyLeft = true;
+            }
+        }
+        if (!anyLeft) {
+            return net;
+        }
+
+        CasinoEngine.dealerPlays(dealer, deck, dealerHitsSoft17);
+        final int dealerScore = dealer.bestScore();
+        for (int i = 0; i < count; i++) {
+            final int score = hands[i].bestScore();
+            if (score <= 21) {
+                net += bets[i] * CasinoEngine.settle(score, dealerScore);
+            }
+        }
+        return net;
+    }
+}
@@ -0,0 +1,133 @@
+package blackjack;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/** Strategies can create any of the available strategies, by name or from command line flags. */
+public final class Strategies {
+
+    /** The names that are recognized by the create method */
+    public static final String[] NAMES = {
+        "basicopt", "second", "third", "always-hit", "always-stay", "basic", "counting", "rollout"
+    };
+
+    private Strategies() {}
+
+    /**
+     * Create a strategy by name, with its default parameters.
+     *
+     * @param name is the name of the strategy, like "basicopt" or "third"
+     * @return either a Strategy wrapped in an Optional, or an empty Optional if the name is unknown
+     */
+    public static Optional<Strategy> create(final String name) {
+        switch (name.toLowerCase()) {
+            case "b":
+            case "basicopt":
+                return Optional.of(new BasicStrategyOptimized());
+            case "2":
+            case "second":
+                return Optional.of(new SecondStrategyOptimized());
+            case "3":
+            case "third":
+                return Optional.of(new ThirdStrategy());
+            case "a":
+            case "always-hit":
+                return Optional.of(new AlwaysHitStrategy());
+            case "s":
+            case "always-stay":
+                return Optional.of(new AlwaysStayStrategy());
+            case "basic":
+                return Optional.of(new BasicStrategy());
+            case "c":
+            case "counting":
+                return Optional.of(new BasicStrategyCounting());
+            case "rollout":
+                return Optional.of(new RolloutStrategy());
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Find the name of a strategy, that can be given to create to get the same kind of strategy.
+     *
+     * @param strat is the strategy to find the name of
+     * @return the name, or an empty Optional if this kind of strategy can not be created by name
+     */
+    public static Optional<String> nameOf(final Strategy strat) {
+        for (String name : NAMES) {
+            if (create(name).get().getClass() == strat.getClass()) {
+                return Optional.of(name);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Create a strategy by name, with the given parameters.
+     *
+     * @param name is the name of the strategy, like "basicopt" or "second"
+     * @param params are the parameters, in the same order as they are listed by toString
+     * @return the new strategy
+     * @throws IllegalArgumentException if the name is unknown, or if the number of parameters is
+     *     wrong for this strategy
+     */
+    public static Strategy create(final String name, final double[] params) {
+        final Optional<Strategy> maybeStrategy = create(name);
+        if (maybeStrategy.isEmpty()) {
+            throw new IllegalArgumentException("unknown strategy: " + name);
+        }
+        final Strategy strat = maybeStrategy.get();
+        if (params.length == 0) {
+            return strat;
+        }
+        final StrategyFactory factory = strat.factory();
+        if (params.length != factory.defaults().size()) {
+            throw new IllegalArgumentException(
+                    String.format("wrong number of parameters for %s: %d", name, params.length));
+        }
+        return factory.create(Parameters.of(params));
+    }
+
+    /**
+     * Create the strategy that is chosen by the given command line flags. The BasicOptimized
+     * strategy is used if no strategy flag is given.
+     *
+     * @param pa is the parsed command line flags and arguments
+     * @return the new strategy
+     * @throws InvalidFlagValueException if --table is given without a filename, or if --rollouts
+     *     is not a positive number
+     * @throws IOException if the table file for --table or the policy file for --policy could not
+     *     be loaded
+     * @throws PolicyParseException if the policy file for --policy is not a valid policy
+     */
+    public static Strategy fromFlags(final ParsedFlagsAndArguments pa)
+            throws InvalidFlagValueException, IOException, PolicyParseException {
+        final Optional<String> maybeTableFilename = pa.stringFlagValue("--table");
+        if (maybeTableFilename.isPresent()) {
+            return TableStrategy.load(maybeTableFilename.get());
+        }
+        final Optional<String> maybePolicyFilename = pa.stringFlagValue("--policy");
+        if (maybePolicyFilename.isPresent()) {
+            return PolicyCompiler.load(maybePolicyFilename.get());
+        }
+        if (pa.hasFlags("-2", "--second")) {
+            return new SecondStrategyOptimized();
+        } else if (pa.hasFlags("-3", "--third")) {
+            return new ThirdStrategy();
+        } else if (pa.hasFlags("-a", "--always-hit")) {
+            return new AlwaysHitStrategy();
+        } else if (pa.hasFlags("-s", "--always-stay")) {
+            return new AlwaysStayStrategy();
+        } else if (pa.hasFlags("-c", "--counting")) {
+            return new BasicStrategyCounting();
+        } else if (pa.hasFlag("--rollout")) {
+            final int rollouts = pa.intFlagValue("--rollouts", RolloutStrategy.DEFAULT_ROLLOUTS);
+            if (rollouts < 1) {
+                throw new InvalidFlagValueException("--rollouts must be a positive number");
+            }
+            return new RolloutStrategy(new BasicStrategyOptimized(), rollouts);
+        }
+        return new BasicStrategyOptimized();
+    }
+}
@@ -1,6 +1,10 @@
 package blackjack;
 
-/** Strategy is a Blackjack strategy. */
+/**
+ * Strategy is a Blackjack strategy. Strategies are immutable, so one instance can be used by many
+ * games and threads at the same time. Strategies with other parameters are created by the
+ * StrategyFactory that is returned by factory.
+ */
 interface Strategy {
 
     /**
@@ -11,19 +15,116 @@ interface Strategy {
     public boolean shouldHit(Hand hand, Card dealerUpcard);
 
     /**
-     * If the Strategy has parameters/settings, try the next one. Return false when the last
-     * possible setting has been reached.
+     * draw another card or stop ("hit or stand"), given only numbers, so that the caller does not
+     * need to have a Hand or a Card
+     *
+     * <p>By default, a Hand with the same score, aces and number of cards is built and passed to
+     * shouldHit(Hand, Card), so that all strategies support this method. Strategies that only look
+     * at numbers should override it, and let shouldHit(Hand, Card) call it instead.
+     *
+     * @param playerTotal is the score of the hand, where aces count as 11, like Hand.score
+     * @param softAces is the number of aces in the hand
+     * @param cardCount is the number of cards in the hand
+     * @param dealerUpcardScore is the score of the dealer upcard, from 2 to 11
+     * @return true if another card should be drawn
      */
-    public boolean nextParameter(boolean randomValues);
+    public default boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return shouldHit(
+                SyntheticHand.of(playerTotal, softAces, cardCount),
+                Card.ofScore(dealerUpcardScore));
+    }
 
-    /** For returning the number of possible parameters, ref. the nextParameter method */
-    public int possibilities();
+    /**
+     * decide "hit or stand" for many hands in one call
+     *
+     * <p>The arrays hold one hand per index, as described by shouldHit(int, int, int, int).
+     *
+     * @param playerTotals are the scores of the hands, where aces count as 11
+     * @param softAces are the number of aces in each hand
+     * @param cardCounts are the number of cards in each hand
+     * @param dealerUpcardScores are the scores of the dealer upcards
+     * @param decisions is where the decisions are written, true if another card should be drawn
+     * @param n is the number of hands to decide for, from index 0
+     */
+    public default void shouldHit(
+            int[] playerTotals,
+            int[] softAces,
+            int[] cardCounts,
+            int[] dealerUpcardScores,
+            boolean[] decisions,
+            int n) {
+        for (int i = 0; i < n; i++) {
+            decisions[i] =
+                    shouldHit(playerTotals[i], softAces[i], cardCounts[i], dealerUpcardScores[i]);
+        }
+    }
+
+    /**
+     * draw another card or stop ("hit or stand"), knowing what is left in the deck
+     *
+     * <p>By default, the state of the deck is not used.
+     *
+     * @return true if another card should be drawn
+     */
+    public default boolean shouldHit(Hand hand, Card dealerUpcard, ShoeState shoe) {
+        return shouldHit(hand, dealerUpcard);
+    }
 
-    /** For resetting the parameters to their initial/lowest values */
-    public void resetParameters();
+    /**
+     * double the bet and draw exactly one more card, when the rules allow doubling
+     *
+     * <p>By default, doubling is done on a hard 10 or 11 when the dealer upcard is lower.
+     *
+     * @return true if the bet should be doubled
+     */
+    public default boolean shouldDouble(Hand hand, Card dealerUpcard) {
+        final int score = hand.bestScore();
+        return !hand.isSoft() && (score == 10 || score == 11) && dealerUpcard.score() < score;
+    }
 
-    /** For making a copy / deep clone */
-    public Strategy copy();
+    /**
+     * split a pair into two hands, when the rules allow splitting
+     *
+     * <p>By default, aces and eights are split.
+     *
+     * @return true if the pair should be split
+     */
+    public default boolean shouldSplit(Hand hand, Card dealerUpcard) {
+        final int cardScore = hand.get(0).score();
+        return cardScore == 11 || cardScore == 8;
+    }
+
+    /**
+     * give up half the bet instead of playing the hand, when the rules allow surrender
+     *
+     * <p>By default, a hard 16 is surrendered against a dealer upcard of 10 or an ace.
+     *
+     * @return true if the hand should be surrendered
+     */
+    public default boolean shouldSurrender(Hand hand, Card dealerUpcard) {
+        return !hand.isSoft() && hand.bestScore() == 16 && dealerUpcard.score() >= 10;
+    }
+
+    /**
+     * parameters returns the parameters of this strategy, as listed by its factory
+     *
+     * @return the parameters, or Parameters.NONE if the strategy can not be tuned
+     */
+    public default Parameters parameters() {
+        return Parameters.NONE;
+    }
+
+    /**
+     * factory returns a factory for strategies of the same kind, with other parameters
+     *
+     * <p>By default, the factory only has this strategy, with no parameters.
+     *
+     * @return the factory
+     */
+    public default StrategyFactory factory() {
+        return StrategyFactory.of(this);
+    }
 
     /**
      * toString returns the name of this strategy
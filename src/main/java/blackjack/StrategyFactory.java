@@ -0,0 +1,131 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * StrategyFactory lists the possible parameters of a kind of strategy, and creates strategies from
+ * them. The created strategies are immutable, so one instance can be used by many threads, and
+ * kept as a result without being copied.
+ */
+interface StrategyFactory {
+
+    /** @return the parameters that the strategy uses by default, as found by the optimizer */
+    public Parameters defaults();
+
+    /** @return the lowest parameters, where the optimizer starts */
+    public Parameters first();
+
+    /**
+     * Find the parameters that come after the given ones, when trying all possible parameters.
+     *
+     * @param params are the current parameters
+     * @return the next parameters, or an empty Optional if the given ones were the last
+     */
+    public Optional<Parameters> next(Parameters params);
+
+    /** @return random parameters, within the same ranges as the ones listed by next */
+    public Parameters random();
+
+    /** @return the number of possible parameters, ref. the next method */
+    public int possibilities();
+
+    /**
+     * Create a strategy with the given parameters.
+     *
+     * @param params are the parameters, in the same order as they are listed by the strategy
+     * @return a new strategy that is safe to share between threads
+     * @throws IllegalArgumentException if the number of parameters is wrong for this strategy
+     */
+    public Strategy create(Parameters params);
+
+    /**
+     * Find the parameters that are one step away from the given ones, where one parameter is
+     * moved one step up or down, within the same ranges as the ones listed by next. This is what
+     * a local search tries from the given parameters.
+     *
+     * @param params are the current parameters
+     * @return the neighboring parameters, which may be none
+     */
+    public List<Parameters> neighbors(Parameters params);
+
+    /**
+     * Find the parameters that are one step away from the given ones, for a factory where every
+     * parameter is listed in the same steps from a lowest value up to a limit.
+     *
+     * @param params are the current parameters
+     * @param step is the step between the listed values of every parameter
+     * @param lowest are the lowest values of the parameters
+     * @param limits are the values that the parameters stay below
+     * @return the neighboring parameters, first the steps down and then up, per parameter
+     */
+    public static List<Parameters> neighbors(
+            final Parameters params,
+            final double step,
+            final double[] lowest,
+            final double[] limits) {
+        // a small margin, so that rounding errors in values that are added up do not count
+        final double margin = step * 1e-6;
+        List<Parameters> neighbors = new ArrayList<Parameters>();
+        for (int i = 0; i < params.size(); i++) {
+            final double down = params.get(i) - step;
+            if (down > lowest[i] - margin) {
+                neighbors.add(params.with(i, Math.max(lowest[i], down)));
+            }
+            final double up = params.get(i) + step;
+            if (up < limits[i] - margin) {
+                neighbors.add(params.with(i, up));
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Create a factory for a strategy that has no parameters, that always returns that strategy.
+     *
+     * @param strat is the strategy
+     * @return a factory with one possibility
+     */
+    public static StrategyFactory of(final Strategy strat) {
+        return new StrategyFactory() {
+            @Override
+            public Parameters defaults() {
+                return Parameters.NONE;
+            }
+
+            @Override
+            public Parameters first() {
+                return Parameters.NONE;
+            }
+
+            @Override
+            public Optional<Parameters> next(final Parameters params) {
+                return Optional.empty();
+            }
+
+            @Override
+            public Parameters random() {
+                return Parameters.NONE;
+            }
+
+            @Override
+            public List<Parameters> neighbors(final Parameters params) {
+                return new ArrayList<Parameters>();
+            }
+
+            @Override
+            public int possibilities() {
+                return 1;
+            }
+
+            @Override
+            public Strategy create(final Parameters params) {
+                if (params.size() != 0) {
+                    throw new IllegalArgumentException(strat + " has no parameters");
+                }
+                return strat;
+            }
+        };
+    }
+}
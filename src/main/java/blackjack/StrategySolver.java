@@ -0,0 +1,191 @@
+package blackjack;
+
+/**
+ * StrategySolver finds the hit or stand decisions that give the best win ratio, for every player
+ * score and dealer upcard, by dynamic programming.
+ *
+ * <p>The rules are the ones in Game.oneRound. Since the dealer draws while below the score of Sam,
+ * the final outcome for the dealer depends on the score that Sam stands on, so the outcomes are
+ * found for every dealer score and every score that Sam can stand on. The decisions are then found
+ * from the highest score and down, where hitting is compared with standing.
+ *
+ * <p>The win ratio is the number of wins divided by the number of losses, so it can not be
+ * maximized one decision at a time. Instead, wins - ratio * losses is maximized, and the ratio is
+ * updated with the result, until the decisions no longer change (Dinkelbach's method).
+ *
+ * <p>The cards are drawn with the probabilities of a full deck of 52 cards, as if the deck had no
+ * memory. The optimizer plays many rounds from the same deck, so this is close, but not exact.
+ */
+public final class StrategySolver {
+
+    // the largest number of times the win ratio is updated, it usually settles after 3 or 4
+    private static final int MAX_ITERATIONS = 20;
+
+    // the probability of drawing a card with each score, from a full deck of 52 cards
+    private static final double[] CARD_PROBABILITY = new double[12];
+
+    static {
+        for (int score = 2; score <= 11; score++) {
+            CARD_PROBABILITY[score] = (score == 10 ? 16 : 4) / 52.0;
+        }
+    }
+
+    // the indices of the probabilities in an outcome
+    private static final int WIN = 0;
+    private static final int LOSS = 1;
+    private static final int PUSH = 2;
+
+    // the highest score that can be held, which is two aces
+    private static final int MAX = 22;
+
+    // dealer[d][s] is the outcome for Sam if Sam stands on s and the dealer has d
+    private final double[][][] dealer = new double[MAX + 1][MAX + 1][];
+
+    // value[s][u] is the outcome for Sam, with the best decisions, from score s against upcard u
+    private final double[][][] value = new double[MAX + 1][12][];
+
+    private final boolean[][] hit = new boolean[TableStrategy.MAX_SCORE + 1][12];
+
+    private double win;
+    private double loss;
+    private double push;
+    private int iterations;
+
+    /** Solve the best decisions. This only takes a few milliseconds. */
+    StrategySolver() {
+        solveDealer();
+        double ratio = 1.0;
+        boolean changed = true;
+        while (changed && iterations < MAX_ITERATIONS) {
+            changed = solveSam(ratio);
+            iterations++;
+            solveRound();
+            ratio = win / loss;
+        }
+    }
+
+    /** @return the strategy with the best decisions */
+    public TableStrategy strategy() {
+        return new TableStrategy(hit);
+    }
+
+    /** @return the probability that Sam wins a round, with the best decisions */
+    public double win() {
+        return win;
+    }
+
+    /** @return the probability that the dealer wins a round, with the best decisions */
+    public double loss() {
+        return loss;
+    }
+
+    /** @return the probability of a push, with the best decisions */
+    public double push() {
+        return push;
+    }
+
+    /** @return the number of times the decisions were solved, before they stopped changing */
+    public int iterations() {
+        return iterations;
+    }
+
+    // solveDealer finds the outcome for Sam for every dealer score and score that Sam stands on
+    private void solveDealer() {
+        for (int s = 2; s <= MAX; s++) {
+            for (int d = MAX; d >= 2; d--) {
+                if (d >= s) {
+                    // the dealer stops, and a dealer with two aces wins against anything but 22
+                    dealer[d][s] = outcome(d > s ? LOSS : PUSH);
+                    continue;
+                }
+                double[] sum = new double[3];
+                for (int card = 2; card <= 11; card++) {
+                    final int next = d + card;
+                    add(sum, next > 21 ? outcome(WIN) : dealer[next][s], CARD_PROBABILITY[card]);
+                }
+                dealer[d][s] = sum;
+            }
+        }
+    }
+
+    // solveSam finds the best decisions for the given ratio, and returns true if any changed
+    private boolean solveSam(final double ratio) {
+        boolean changed = false;
+        for (int u = 2; u <= 11; u++) {
+            for (int s = MAX; s >= 2; s--) {
+                final double[] stand = stand(s, u);
+                if (s >= 17) {
+                    value[s][u] = stand;
+                    continue;
+                }
+                double[] hits = new double[3];
+                for (int card = 2; card <= 11; card++) {
+                    final int next = s + card;
+                    add(hits, next > 21 ? outcome(LOSS) : value[next][u], CARD_PROBABILITY[card]);
+                }
+                final boolean shouldHit = score(hits, ratio) > score(stand, ratio);
+                value[s][u] = shouldHit ? hits : stand;
+                if (s >= TableStrategy.MIN_SCORE && hit[s][u] != shouldHit) {
+                    hit[s][u] = shouldHit;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // stand returns the outcome when Sam stands on s against upcard u, and any dealer hole card
+    private double[] stand(final int s, final int u) {
+        double[] sum = new double[3];
+        for (int hole = 2; hole <= 11; hole++) {
+            add(sum, dealer[hole + u][s], CARD_PROBABILITY[hole]);
+        }
+        return sum;
+    }
+
+    // solveRound finds the outcome of a whole round, including the initial deal
+    private void solveRound() {
+        double[] sum = new double[3];
+        for (int a = 2; a <= 11; a++) {
+            for (int b = 2; b <= 11; b++) {
+                final int s = a + b;
+                final double p = CARD_PROBABILITY[a] * CARD_PROBABILITY[b];
+                for (int u = 2; u <= 11; u++) {
+                    final double pu = p * CARD_PROBABILITY[u];
+                    if (s == 21) {
+                        add(sum, outcome(WIN), pu);
+                    } else if (s == 22) {
+                        // two aces lose against two aces, and win against anything else
+                        final double both = u == 11 ? CARD_PROBABILITY[11] : 0;
+                        add(sum, outcome(LOSS), pu * both);
+                        add(sum, outcome(WIN), pu * (1 - both));
+                    } else {
+                        add(sum, value[s][u], pu);
+                    }
+                }
+            }
+        }
+        win = sum[WIN];
+        loss = sum[LOSS];
+        push = sum[PUSH];
+    }
+
+    // score is what is maximized: the wins, minus the losses weighted by the win ratio
+    private static double score(final double[] outcome, final double ratio) {
+        return outcome[WIN] - ratio * outcome[LOSS];
+    }
+
+    // outcome returns a new outcome where the result at the given index is certain
+    private static double[] outcome(final int index) {
+        double[] result = new double[3];
+        result[index] = 1;
+        return result;
+    }
+
+    // add adds the given outcome, weighted by p, to the sum
+    private static void add(final double[] sum, final double[] outcome, final double p) {
+        sum[WIN] += p * outcome[WIN];
+        sum[LOSS] += p * outcome[LOSS];
+        sum[PUSH] += p * outcome[PUSH];
+    }
+}
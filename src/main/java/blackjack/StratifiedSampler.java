@@ -0,0 +1,312 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * StratifiedSampler estimates the expected value of hitting and of standing, for every player score
+ * where Sam can choose and every dealer upcard.
+ *
+ * <p>Plain rounds from Game.oneRound rarely reach some states, like a score of 4, so the estimates
+ * for those states are noisy. Instead, every state (stratum) gets the same number of samples. A
+ * sample starts from a freshly shuffled deck with the upcard taken out, where Sam is dealt two
+ * cards with the score of the state and the dealer is dealt a hole card. Then both decisions are
+ * played on the same order of the rest of the cards, which makes the difference between them much
+ * less noisy than if they were played on different cards. After hitting, Sam plays on with the
+ * given strategy. The rules are the ones in Game.oneRound.
+ *
+ * <p>The states are sampled in parallel, and every state has its own source of randomness, so the
+ * results are the same for the same seed, regardless of the number of threads.
+ */
+public final class StratifiedSampler {
+
+    /**
+     * The default number of samples per state. Every sample plays two rounds, so this is about as
+     * many rounds in total as a quick test with --test.
+     */
+    public static final int DEFAULT_SAMPLES = 1600;
+
+    // the highest score where Sam can choose to hit, since Sam always stands on 17
+    private static final int MAX_DECISION_SCORE = 16;
+
+    // the number of standard deviations for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    /** Estimate is the expected value of hitting and of standing in one state. */
+    public static final class Estimate {
+
+        /** the score of Sam */
+        public final int score;
+
+        /** the score of the dealer upcard */
+        public final int upcard;
+
+        /** the mean net winnings of hitting, and the half-width of its 95% confidence interval */
+        public final double hit;
+
+        public final double hitError;
+
+        /** the mean net winnings of standing, and the half-width of its 95% confidence interval */
+        public final double stand;
+
+        public final double standError;
+
+        /** the mean of hitting minus standing, and the half-width of its 95% confidence interval */
+        public final double difference;
+
+        public final double differenceError;
+
+        private Estimate(
+                final int score,
+                final int upcard,
+                final Moments hits,
+                final Moments stands,
+                final Moments differences) {
+            this.score = score;
+            this.upcard = upcard;
+            this.hit = hits.mean();
+            this.hitError = hits.error();
+            this.stand = stands.mean();
+            this.standError = stands.error();
+            this.difference = differences.mean();
+            this.differenceError = differences.error();
+        }
+
+        /** @return true if hitting has the higher expected value */
+        public boolean hitIsBetter() {
+            return difference > 0;
+        }
+
+        /** @return true if the confidence interval of the difference does not include zero */
+        public boolean isSignificant() {
+            return Math.abs(difference) > differenceError;
+        }
+    }
+
+    // Moments sums the values of samples, for finding the mean and the confidence interval
+    private static final class Moments {
+        private long n = 0;
+        private double sum = 0;
+        private double sumOfSquares = 0;
+
+        void add(final double value) {
+            n++;
+            sum += value;
+            sumOfSquares += value * value;
+        }
+
+        double mean() {
+            return n == 0 ? 0 : sum / n;
+        }
+
+        // error returns the half-width of the 95% confidence interval of the mean
+        double error() {
+            if (n < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            final double mean = mean();
+            final double variance = Math.max(0, (sumOfSquares - n * mean * mean) / (n - 1));
+            return Z_95 * Math.sqrt(variance / n);
+        }
+    }
+
+    private final Strategy strat;
+    private final int samples;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Create a new sampler.
+     *
+     * @param strat is the strategy that Sam plays on with after hitting
+     * @param samples is the number of samples per state
+     * @param threads is the number of states to sample at the same time
+     * @param seed is the seed for shuffling
+     */
+    StratifiedSampler(final Strategy strat, final int samples, final int threads, final long seed) {
+        this.strat = strat;
+        this.samples = Math.max(1, samples);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * Sample every state, in parallel.
+     *
+     * @return the estimates, ordered by score and then by upcard
+     */
+    public List<Estimate> run() {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<Estimate>> tasks = new ArrayList<Callable<Estimate>>();
+        for (int score = TableStrategy.MIN_SCORE; score <= MAX_DECISION_SCORE; score++) {
+            for (int upcard = 2; upcard <= 11; upcard++) {
+                final int s = score;
+                final int u = upcard;
+                final SplittableRandom stratumRandom = random.split();
+                tasks.add(() -> sample(s, u, stratumRandom));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Estimate> estimates = new ArrayList<Estimate>();
+            for (Future<Estimate> result : executor.invokeAll(tasks)) {
+                estimates.add(result.get());
+            }
+            return estimates;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<Estimate>();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** @return the number of rounds that a run plays, two per sample */
+    public long rounds() {
+        return 2L * samples * (MAX_DECISION_SCORE - TableStrategy.MIN_SCORE + 1) * 10;
+    }
+
+    /**
+     * Format the estimates as a table, with one line per state. The best decision is in upper case
+     * if the difference is significant, and in lower case if not.
+     *
+     * @param estimates are the estimates to format
+     * @return the table as text
+     */
+    public static String format(final List<Estimate> estimates) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# score upcard  hit EV          stand EV        hit - stand     best\n");
+        for (Estimate e : estimates) {
+            String best = e.hitIsBetter() ? "H" : "S";
+            if (!e.isSignificant()) {
+                best = best.toLowerCase(Locale.ROOT);
+            }
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%7d %6s  %+.3f +-%.3f  %+.3f +-%.3f  %+.3f +-%.3f  %s\n",
+                            e.score,
+                            e.upcard == 11 ? "A" : e.upcard == 10 ? "T" : e.upcard,
+                            e.hit,
+                            e.hitError,
+                            e.stand,
+                            e.standError,
+                            e.difference,
+                            e.differenceError,
+                            best));
+        }
+        return sb.toString();
+    }
+
+    // sample estimates one state, by playing both decisions on the same cards for every sample
+    private Estimate sample(final int score, final int upcard, final SplittableRandom random) {
+        Moments hits = new Moments();
+        Moments stands = new Moments();
+        Moments differences = new Moments();
+        Shoe shoe = new Shoe(upcard, random);
+        for (int i = 0; i < samples; i++) {
+            shoe.deal(score);
+            final int stand = stand(shoe, score, upcard);
+            final int hit = hit(shoe, score, upcard);
+            hits.add(hit);
+            stands.add(stand);
+            differences.add(hit - stand);
+        }
+        return new Estimate(score, upcard, hits, stands, differences);
+    }
+
+    // stand returns 1 if Sam wins by standing on the score, -1 if the dealer wins and 0 for a push
+    private static int stand(final Shoe shoe, final int score, final int upcard) {
+        return dealerTurn(shoe, Shoe.FIRST_DRAW, score, shoe.card(Shoe.HOLE) + upcard);
+    }
+
+    // hit returns 1 if Sam wins by hitting, and then playing on with the strategy, -1 if the
+    // dealer wins and 0 for a push
+    private int hit(final Shoe shoe, final int score, final int upcard) {
+        int next = Shoe.FIRST_DRAW;
+        int sam = score;
+        int samAces = (shoe.card(0) == 11 ? 1 : 0) + (shoe.card(1) == 11 ? 1 : 0);
+        int samCards = 2;
+        do {
+            final int card = shoe.card(next++);
+            sam += card;
+            samAces += card == 11 ? 1 : 0;
+            samCards++;
+            if (sam > 21) {
+                return -1;
+            }
+        } while (sam < 17 && strat.shouldHit(sam, samAces, samCards, upcard));
+        return dealerTurn(shoe, next, sam, shoe.card(Shoe.HOLE) + upcard);
+    }
+
+    // dealerTurn lets the dealer draw from the given position while below the score of Sam
+    private static int dealerTurn(final Shoe shoe, int next, final int sam, int dealer) {
+        while (dealer < sam) {
+            dealer += shoe.card(next++);
+            if (dealer > 21) {
+                return 1;
+            }
+        }
+        return Integer.compare(sam, dealer);
+    }
+
+    /**
+     * Shoe is one deck of 52 cards, as card scores, without the dealer upcard. Cards are only
+     * shuffled into place when they are needed, so that both decisions can read the same cards
+     * without shuffling the whole deck.
+     */
+    private static final class Shoe {
+
+        // the positions of Sam's two cards, the dealer's hole card and the first card to draw
+        static final int HOLE = 2;
+        static final int FIRST_DRAW = 3;
+
+        private final byte[] cards = new byte[51];
+        private final SplittableRandom random;
+        private int shuffled = 0;
+
+        Shoe(final int upcard, final SplittableRandom random) {
+            this.random = random;
+            int i = 0;
+            boolean upcardRemoved = false;
+            for (int score = 2; score <= 11; score++) {
+                for (int n = 0; n < (score == 10 ? 16 : 4); n++) {
+                    if (score == upcard && !upcardRemoved) {
+                        upcardRemoved = true;
+                        continue;
+                    }
+                    cards[i++] = (byte) score;
+                }
+            }
+        }
+
+        // deal shuffles the deck again, until Sam's two cards have the given score
+        void deal(final int score) {
+            do {
+                shuffled = 0;
+            } while (card(0) + card(1) != score);
+            card(HOLE);
+        }
+
+        // card returns the card at the given position, and shuffles it into place if needed
+        int card(final int position) {
+            while (shuffled <= position) {
+                final int j = shuffled + random.nextInt(cards.length - shuffled);
+                final byte card = cards[j];
+                cards[j] = cards[shuffled];
+                cards[shuffled] = card;
+                shuffled++;
+            }
+            return cards[position];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package blackjack;
+
+/**
+ * SyntheticHand builds a Hand from a score, a number of aces and a number of cards, for calling a
+ * Strategy that only knows how to look at a Hand.
+ *
+ * <p>The hand is re-used per thread, so it must not be kept after the call.
+ */
+final class SyntheticHand {
+
+    private static final ThreadLocal<Hand> hands = ThreadLocal.withInitial(Hand::new);
+
+    private SyntheticHand() {}
+
+    /**
+     * Get a hand with the given score, number of aces and number of cards. If there is no such
+     * hand, the closest possible hand with the given number of cards is returned.
+     *
+     * @param score is the score of the hand, where aces count as 11
+     * @param aces is the number of aces in the hand
+     * @param cardCount is the number of cards in the hand
+     * @return a hand that is re-used by the next call from the same thread
+     */
+    static Hand of(final int score, final int aces, final int cardCount) {
+        return fill(hands.get(), score, aces, cardCount);
+    }
+
+    /**
+     * Fill a hand with the given score, number of aces and number of cards, like of does, for a
+     * caller that keeps its own hand.
+     *
+     * @param hand is the hand to clear and fill
+     * @param score is the score of the hand, where aces count as 11
+     * @param aces is the number of aces in the hand
+     * @param cardCount is the number of cards in the hand
+     * @return the given hand
+     */
+    static Hand fill(final Hand hand, final int score, final int aces, final int cardCount) {
+        hand.clear();
+        for (int i = 0; i < aces; i++) {
+            hand.add(Card.ofScore(11));
+        }
+        // spread the rest of the score over the rest of the cards, with scores from 2 to 10
+        int rest = score - 11 * aces;
+        for (int left = cardCount - aces; left > 0; left--) {
+            final int cardScore = Math.max(2, Math.min(10, rest - 2 * (left - 1)));
+            hand.add(Card.ofScore(cardScore));
+            rest -= cardScore;
+        }
+        return hand;
+    }
+}
@@ -0,0 +1,227 @@
+package blackjack;
+
+/**
+ * Table is a Blackjack table with 1 to 7 seats, each with its own Strategy, that are dealt from one
+ * shared deck against the same dealer hand.
+ *
+ * <p>The cards are dealt in casino order: one card to each seat and then to the dealer, twice. The
+ * seats then play in order, and finally the dealer draws.
+ *
+ * <p>Each seat is settled with the same rules as in Game.oneRound, where the dealer draws while
+ * below the score of the player. Since the dealer draws the same cards no matter who the dealer is
+ * playing against, the dealer draws while below the highest score that is still in play, and each
+ * seat is settled against the dealer hand as it was when it first reached the score of that seat.
+ * With a single seat, this gives exactly the same result as Game.oneRound.
+ */
+public final class Table {
+
+    /** The maximum number of seats at a table */
+    public static final int MAX_SEATS = 7;
+
+    // the largest number of cards the dealer can hold, since 11 cards are always above 21
+    private static final int MAX_DEALER_CARDS = 12;
+
+    private final Deck deck;
+    private final Dealer dealer;
+    private final Player[] seats;
+
+    // the cards that the seats have not seen, which is what their strategies are shown of the deck
+    private final UnseenCards unseen = new UnseenCards();
+
+    // the results of the last round, re-used between rounds
+    private final Game.Result[] results;
+
+    // the dealer score after the initial deal, and after each card the dealer has drawn
+    private final int[] dealerScores = new int[MAX_DEALER_CARDS];
+
+    /**
+     * Create a table where the seats are dealt from the given deck.
+     *
+     * @param deck is the shared deck of cards
+     * @param strategies is the strategy for each seat, from the first to the last seat
+     * @param shuffle is if the cards should be shuffled when the table is created, or not
+     */
+    Table(Deck deck, Strategy[] strategies, boolean shuffle) {
+        if (strategies.length < 1 || strategies.length > MAX_SEATS) {
+            throw new IllegalArgumentException(
+                    "a table must have from 1 to " + MAX_SEATS + " seats");
+        }
+        dealer = new Dealer();
+        seats = new Player[strategies.length];
+        for (int i = 0; i < strategies.length; i++) {
+            seats[i] = new Player(strategies[i]);
+        }
+        results = new Game.Result[strategies.length];
+        if (shuffle) {
+            deck.shuffle();
+        }
+        this.deck = deck;
+    }
+
+    /**
+     * Create a table with a new shuffled deck of 52 cards.
+     *
+     * @param strategies is the strategy for each seat, from the first to the last seat
+     */
+    Table(Strategy[] strategies) {
+        this(new Deck(), strategies, true);
+    }
+
+    /** @return the number of seats at this table */
+    public int seats() {
+        return seats.length;
+    }
+
+    /**
+     * Get the player in a seat.
+     *
+     * @param seat is the seat number, starting at 0
+     * @return the player in that seat
+     */
+    public Player getSeat(final int seat) {
+        return seats[seat];
+    }
+
+    /** @return the dealer */
+    public Dealer getDealer() {
+        return dealer;
+    }
+
+    /** @return the shared deck */
+    public Deck getDeck() {
+        return deck;
+    }
+
+    /**
+     * oneRound will simulate one round of blackjack for all seats at the table.
+     *
+     * @return the result for each seat. The array is re-used by the next round.
+     * @throws OutOfCardsException if there are fewer than 4 cards in the deck
+     */
+    public Game.Result[] oneRound() throws OutOfCardsException {
+        final int n = seats.length;
+
+        if (deck.count() < 2 * (n + 1)) {
+            deck.renew();
+        }
+        if (deck.count() < 4) {
+            throw new OutOfCardsException(
+                    "too few cards in the deck to start a round of Blackjack");
+        }
+
+        // Deal one card to each seat and then to the dealer, twice. The last one is the upcard.
+        for (int i = 0; i < n; i++) {
+            seats[i].draw(deck);
+        }
+        dealer.draw(deck);
+        for (int i = 0; i < n; i++) {
+            seats[i].draw(deck);
+        }
+        final Card dealerUpcard = dealer.draw(deck).get();
+        unseen.reset(deck, dealer.get(0));
+
+        // Let each seat play, in order. A null result means that the seat waits for the dealer.
+        int highestScore = 0;
+        for (int i = 0; i < n; i++) {
+            results[i] = playSeat(seats[i], dealerUpcard);
+            if (results[i] == null) {
+                highestScore = Math.max(highestScore, seats[i].score());
+            }
+        }
+        if (highestScore == 0) {
+            return results;
+        }
+
+        // The dealer draws while below the highest score that is still in play
+        int draws = 0;
+        dealerScores[0] = dealer.score();
+        while (dealerScores[draws] < highestScore && dealerScores[draws] <= 21) {
+            dealer.draw(deck);
+            draws++;
+            dealerScores[draws] = dealer.score();
+        }
+
+        // Settle each remaining seat against the dealer hand as it was for that seat
+        for (int i = 0; i < n; i++) {
+            if (results[i] == null) {
+                results[i] = settle(seats[i].score(), draws);
+            }
+        }
+        return results;
+    }
+
+    // playSeat lets a seat draw cards, and returns the result if it is already decided
+    private Game.Result playSeat(final Player seat, final Card dealerUpcard)
+            throws OutOfCardsException {
+        if (seat.blackjack()) {
+            return Game.Result.SAM_WON;
+        }
+        if (seat.score() == 22 && dealer.score() == 22) {
+            return Game.Result.DEALER_WON;
+        }
+        while (seat.score() < 17) {
+            if (!seat.shouldHit(dealerUpcard, unseen)) {
+                break;
+            }
+            seat.draw(deck);
+            if (seat.score() > 21) {
+                return Game.Result.DEALER_WON;
+            }
+        }
+        return null;
+    }
+
+    // settle finds the dealer score that the dealer would have stopped at against the given score
+    private Game.Result settle(final int score, final int draws) {
+        int k = 0;
+        while (dealerScores[k] < score && k < draws) {
+            k++;
+            if (dealerScores[k] > 21) {
+                return Game.Result.SAM_WON;
+            }
+        }
+        final int dealerScore = dealerScores[k];
+        if (score > dealerScore) {
+            return Game.Result.SAM_WON;
+        }
+        if (score < dealerScore) {
+            return Game.Result.DEALER_WON;
+        }
+        return Game.Result.PUSH;
+    }
+
+    /** prepareNewRound keeps the same deck, but clears the hand of the dealer and all seats */
+    public void prepareNewRound() {
+        dealer.clear();
+        for (Player seat : seats) {
+            seat.clear();
+        }
+    }
+
+    /**
+     * Return a summary of a round, with the result and the cards of each seat and of the dealer.
+     *
+     * @param results are the results from oneRound
+     * @return a summary with one line per seat and one for the dealer
+     */
+    public String summary(final Game.Result[] results) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats.length; i++) {
+            sb.append(String.format("seat %d: %s (%s)\n", i + 1, seats[i], resultName(results[i])));
+        }
+        sb.append("dealer: " + dealer.toString());
+        return sb.toString();
+    }
+
+    // resultName returns "won", "lost" or "push", as seen from the seat
+    private static String resultName(final Game.Result result) {
+        switch (result) {
+            case SAM_WON:
+                return "won";
+            case DEALER_WON:
+                return "lost";
+            default:
+                return "push";
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * TableStrategy is a Blackjack strategy that looks up "hit or stand" in a table, with one row per
+ * player score (from 4 to 21) and one column per dealer upcard score (from 2 to 11).
+ *
+ * <p>Since aces always count as 11 in this game, the number of aces does not change what can happen
+ * next, and the table only needs the score. Tables can be saved to and loaded from a text file with
+ * one row per line, like "12 H H S S S H H H H H", where lines starting with "#" are comments.
+ */
+public final class TableStrategy implements Strategy {
+
+    /** The lowest player score in a table */
+    public static final int MIN_SCORE = 4;
+
+    /** The highest player score in a table */
+    public static final int MAX_SCORE = 21;
+
+    // the header of a saved table
+    private static final String HEADER = "# score  2 3 4 5 6 7 8 9 T A";
+
+    // hit[score][upcard] is true if Sam should hit
+    private final boolean[][] hit;
+
+    /**
+     * Create a strategy from a table of decisions.
+     *
+     * @param hit is indexed by player score and then dealer upcard score, and is true for "hit".
+     *     Scores outside of the table means "stand". The table is copied.
+     */
+    TableStrategy(final boolean[][] hit) {
+        this.hit = new boolean[MAX_SCORE + 1][12];
+        for (int score = MIN_SCORE; score <= MAX_SCORE && score < hit.length; score++) {
+            for (int ds = 2; ds <= 11 && ds < hit[score].length; ds++) {
+                this.hit[score][ds] = hit[score][ds];
+            }
+        }
+    }
+
+    /**
+     * Create a table from another strategy, by asking it about every score and upcard. The other
+     * strategy is asked with a hand of two cards, or three cards for scores above 20.
+     *
+     * @param strat is the strategy to copy the decisions of
+     * @return a new table strategy
+     */
+    public static TableStrategy of(final Strategy strat) {
+        boolean[][] hit = new boolean[MAX_SCORE + 1][12];
+        for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+            final int cards = score > 20 ? 3 : 2;
+            final int aces = score == 21 ? 1 : 0;
+            for (int ds = 2; ds <= 11; ds++) {
+                hit[score][ds] = strat.shouldHit(score, aces, cards, ds);
+            }
+        }
+        return new TableStrategy(hit);
+    }
+
+    /**
+     * Load a table from a text file, as written by save.
+     *
+     * @param filename is the file to read
+     * @return the loaded strategy
+     * @throws IOException if the file could not be read, or if it is not a valid table
+     */
+    public static TableStrategy load(final String filename) throws IOException {
+        boolean[][] hit = new boolean[MAX_SCORE + 1][12];
+        boolean[] found = new boolean[MAX_SCORE + 1];
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split("\\s+");
+                final int score = parseScore(fields[0]);
+                if (fields.length != 11 || score < MIN_SCORE || score > MAX_SCORE) {
+                    throw new IOException(
+                            String.format(
+                                    "%s:%d: expected a score from %d to %d and 10 decisions",
+                                    filename, lineNumber, MIN_SCORE, MAX_SCORE));
+                }
+                for (int ds = 2; ds <= 11; ds++) {
+                    final String decision = fields[ds - 1];
+                    if (!decision.equals("H") && !decision.equals("S")) {
+                        throw new IOException(
+                                String.format(
+                                        "%s:%d: expected H or S, got %s",
+                                        filename, lineNumber, decision));
+                    }
+                    hit[score][ds] = decision.equals("H");
+                }
+                found[score] = true;
+            }
+        }
+        for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+            if (!found[score]) {
+                throw new IOException(filename + ": no row for score " + score);
+            }
+        }
+        return new TableStrategy(hit);
+    }
+
+    // parseScore parses the score at the start of a row, or returns -1
+    private static int parseScore(final String field) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Save the table to a text file, that can be loaded again.
+     *
+     * @param filename is the file to write
+     * @throws IOException if the file could not be written
+     */
+    public void save(final String filename) throws IOException {
+        try (Writer out = new FileWriter(filename)) {
+            out.write(format());
+        }
+    }
+
+    /**
+     * Format the table as text, the same way as it is saved.
+     *
+     * @return the table, with a header and one line per score
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder(HEADER);
+        sb.append('\n');
+        for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+            sb.append(String.format("%-8d", score));
+            for (int ds = 2; ds <= 11; ds++) {
+                sb.append(hit[score][ds] ? " H" : " S");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Check if the table says "hit" for a score and upcard.
+     *
+     * @param score is the player score
+     * @param dealerUpcardScore is the score of the dealer upcard, from 2 to 11
+     * @return true if the table says "hit"
+     */
+    public boolean hits(final int score, final int dealerUpcardScore) {
+        if (score < MIN_SCORE || score > MAX_SCORE) {
+            return false;
+        }
+        return hit[score][dealerUpcardScore];
+    }
+
+    @Override
+    public final boolean shouldHit(Hand hand, Card dealerUpcard) {
+        return hits(hand.score(), dealerUpcard.score());
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
+        return hits(playerTotal, dealerUpcardScore);
+    }
+
+    @Override
+    public final String toString() {
+        return "Table";
+    }
+}
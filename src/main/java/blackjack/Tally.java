@@ -0,0 +1,109 @@
+package blackjack;
+
+/** Tally counts how many rounds Sam won, lost and pushed. */
+public final class Tally {
+
+    private long wins = 0;
+    private long losses = 0;
+    private long pushes = 0;
+    private double net = 0; // the net winnings of Sam, in units of the initial bet
+
+    /**
+     * Count the result of a round.
+     *
+     * @param result is the result of the round
+     */
+    public void add(final Game.Result result) {
+        switch (result) {
+            case SAM_WON:
+                wins++;
+                net++;
+                break;
+            case DEALER_WON:
+                losses++;
+                net--;
+                break;
+            case PUSH:
+                pushes++;
+                break;
+        }
+    }
+
+    /**
+     * Count the net winnings of a round, where a positive amount is a win and a negative amount is
+     * a loss.
+     *
+     * @param payout is the net winnings of Sam, in units of the initial bet
+     */
+    public void add(final double payout) {
+        if (payout > 0) {
+            wins++;
+        } else if (payout < 0) {
+            losses++;
+        } else {
+            pushes++;
+        }
+        net += payout;
+    }
+
+    /**
+     * Add all the counts from another tally to this one.
+     *
+     * @param other is the other tally
+     */
+    public void add(final Tally other) {
+        wins += other.wins;
+        losses += other.losses;
+        pushes += other.pushes;
+        net += other.net;
+    }
+
+    /** @return the number of rounds that Sam won */
+    public long wins() {
+        return wins;
+    }
+
+    /** @return the number of rounds that the dealer won */
+    public long losses() {
+        return losses;
+    }
+
+    /** @return the number of rounds that ended in a push */
+    public long pushes() {
+        return pushes;
+    }
+
+    /** @return the number of rounds that have been counted */
+    public long rounds() {
+        return wins + losses + pushes;
+    }
+
+    /** @return the net winnings of Sam, in units of the initial bet */
+    public double net() {
+        return net;
+    }
+
+    /**
+     * Calculate the expected value, the average net winnings per round.
+     *
+     * @return the expected value, in units of the initial bet
+     */
+    public double expectedValue() {
+        final long rounds = rounds();
+        if (rounds == 0) {
+            return 0;
+        }
+        return net / rounds;
+    }
+
+    /**
+     * Calculate the win ratio, the number of won rounds divided by the number of lost rounds.
+     *
+     * <p>Both counts start at 1, to avoid dividing by zero.
+     *
+     * @return the win ratio
+     */
+    public double winRatio() {
+        return (wins + 1.0) / (losses + 1.0);
+    }
+}
@@ -5,28 +5,35 @@ public final class ThirdStrategy implements Strategy {
 
     @Override
     public final boolean shouldHit(Hand hand, Card dealerUpcard) {
+        return shouldHit(hand.score(), hand.aces(), hand.count(), dealerUpcard.score());
+    }
+
+    @Override
+    public final boolean shouldHit(
+            int playerTotal, int softAces, int cardCount, int dealerUpcardScore) {
 
         // This simple algorithm is inspired by:
         // https://betandbeat.com/blackjack/blog/when-to-stop-hitting-in-blackjack/
 
-        int ds = dealerUpcard.score();
+        final int ds = dealerUpcardScore;
+        final int score = playerTotal;
 
-        boolean stay = hand.score() >= 17;
+        boolean stay = score >= 17;
 
         if (ds >= 2 && ds <= 6) {
-            stay = hand.score() >= 13;
+            stay = score >= 13;
         }
 
-        if (hand.score() == 20) {
+        if (score == 20) {
             stay = true;
         }
 
         if (ds >= 4 && ds <= 6) {
-            stay = hand.score() >= 12;
+            stay = score >= 12;
         }
 
         if (ds == 2 || (ds <= 7 && ds <= 8)) {
-            if (hand.score() == 18) {
+            if (score == 18) {
                 stay = true;
             }
         }
@@ -34,24 +41,6 @@ public final class ThirdStrategy implements Strategy {
         return !stay;
     }
 
-    @Override
-    public boolean nextParameter(boolean randomValues) {
-        return true;
-    }
-
-    @Override
-    public void resetParameters() {}
-
-    @Override
-    public final int possibilities() {
-        return 1;
-    }
-
-    @Override
-    public final ThirdStrategy copy() {
-        return new ThirdStrategy();
-    }
-
     @Override
     public final String toString() { // return a name
         return "Third";
@@ -0,0 +1,127 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * TopResults keeps the K best win ratios seen so far, together with the parameters that gave them.
+ *
+ * <p>The results are kept in a min-heap of at most K entries, so memory use does not grow with the
+ * number of candidates. Candidates with equal win ratios are kept as separate entries.
+ */
+public final class TopResults {
+
+    /** Entry is a win ratio together with the name and parameters of the strategy. */
+    public static final class Entry {
+        public final double winRatio;
+        public final String params;
+        public final long index; // the order in which the entry was seen
+
+        Entry(final double winRatio, final String params, final long index) {
+            this.winRatio = winRatio;
+            this.params = params;
+            this.index = index;
+        }
+    }
+
+    // worst first, and for equal win ratios, the most recently seen first
+    private static final Comparator<Entry> WORST_FIRST =
+            Comparator.comparingDouble((Entry e) -> e.winRatio)
+                    .thenComparing(Comparator.comparingLong((Entry e) -> e.index).reversed());
+
+    private final int capacity;
+    private final PriorityQueue<Entry> heap;
+    private long seen = 0;
+
+    /**
+     * Create a new collection of top results.
+     *
+     * @param capacity is the maximum number of results to keep
+     */
+    TopResults(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<Entry>(capacity + 1, WORST_FIRST);
+    }
+
+    /**
+     * Offer a result. The strategy is only converted to a string if the result is kept.
+     *
+     * @param winRatio is the win ratio of the strategy
+     * @param strat is the strategy with the parameters that gave this win ratio
+     * @return true if the result was kept
+     */
+    public boolean offer(final double winRatio, final Strategy strat) {
+        final long index = seen++;
+        if (!makeRoom(winRatio)) {
+            return false;
+        }
+        heap.add(new Entry(winRatio, strat.toString(), index));
+        return true;
+    }
+
+    /**
+     * Offer a result where the parameters are already a string, like a result from another process.
+     *
+     * @param winRatio is the win ratio of the strategy
+     * @param params is the name and parameters of the strategy, as given by toString
+     * @return true if the result was kept
+     */
+    public boolean offer(final double winRatio, final String params) {
+        final long index = seen++;
+        if (!makeRoom(winRatio)) {
+            return false;
+        }
+        heap.add(new Entry(winRatio, params, index));
+        return true;
+    }
+
+    // makeRoom removes the worst result if needed, and returns false if the win ratio is not kept
+    private boolean makeRoom(final double winRatio) {
+        if (heap.size() >= capacity) {
+            // an equal win ratio does not push out the one that was seen first
+            if (winRatio <= heap.peek().winRatio) {
+                return false;
+            }
+            heap.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Get the kept results.
+     *
+     * @return the kept results, sorted from the lowest to the highest win ratio
+     */
+    public ArrayList<Entry> sorted() {
+        ArrayList<Entry> entries = new ArrayList<Entry>(heap);
+        entries.sort(WORST_FIRST);
+        return entries;
+    }
+
+    /**
+     * Get the best result.
+     *
+     * @return the entry with the highest win ratio, or null if no results have been offered
+     */
+    public Entry best() {
+        ArrayList<Entry> entries = sorted();
+        if (entries.isEmpty()) {
+            return null;
+        }
+        return entries.get(entries.size() - 1);
+    }
+
+    /** @return the number of results that are kept */
+    public int size() {
+        return heap.size();
+    }
+
+    /** @return the number of results that have been offered */
+    public long seen() {
+        return seen;
+    }
+}
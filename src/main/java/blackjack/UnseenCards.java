@@ -0,0 +1,68 @@
+package blackjack;
+
+/**
+ * UnseenCards is the ShoeState that a strategy is given while Sam plays, which is the cards that
+ * Sam has not seen: the cards that are left in the deck, and the dealer's hole card. The hole card
+ * has already been drawn from the deck, so the deck alone would count it as seen, and leave it out
+ * of the remaining cards, which tells a counting strategy something about a card that nobody at the
+ * table can see.
+ *
+ * <p>If the deck is renewed during the round, the hole card is not part of the new deck, and the
+ * deck is shown as it is. One UnseenCards is kept per round engine, and re-used every round, so
+ * that deciding does not allocate.
+ */
+final class UnseenCards implements ShoeState {
+
+    private ShoeState shoe;
+    private Card holeCard;
+
+    // the number of cards that were left in the shoe right after the hole card was drawn. The
+    // count only goes down until the shoe is renewed.
+    private int countAfterDeal;
+
+    /**
+     * Show the given shoe, with the hole card that was drawn from it put back. This is called
+     * once per round, after the initial deal.
+     *
+     * @param shoe is the deck that the round is dealt from
+     * @param holeCard is the dealer's card that is face down
+     */
+    void reset(final ShoeState shoe, final Card holeCard) {
+        this.shoe = shoe;
+        this.holeCard = holeCard;
+        this.countAfterDeal = shoe.count();
+    }
+
+    /**
+     * @return true if the hole card is one of the unseen cards, and false if the shoe has been
+     *     renewed since the hole card was drawn from it
+     */
+    boolean includesHoleCard() {
+        return shoe.count() <= countAfterDeal;
+    }
+
+    @Override
+    public int runningCount() {
+        return includesHoleCard() ? shoe.runningCount() - holeCard.hiLo() : shoe.runningCount();
+    }
+
+    @Override
+    public double trueCount() {
+        final int remaining = count();
+        if (remaining == 0) {
+            return runningCount();
+        }
+        return runningCount() * 52.0 / remaining;
+    }
+
+    @Override
+    public int count() {
+        return includesHoleCard() ? shoe.count() + 1 : shoe.count();
+    }
+
+    @Override
+    public int remaining(final int cardScore) {
+        final int n = shoe.remaining(cardScore);
+        return includesHoleCard() && holeCard.score() == cardScore ? n + 1 : n;
+    }
+}
@@ -0,0 +1,55 @@
+import spock.lang.Shared
+import spock.lang.Specification
+import java.nio.file.Files
+import java.nio.file.Paths
+import blackjack.*
+
+class MacroPerformanceTest extends Specification {
+
+    // record new baselines instead of comparing with them, with gradle perfTest -Pperf.update
+    static final boolean UPDATE = Boolean.getBoolean("perf.update")
+
+    @Shared
+    def baselineFile = Paths.get(System.getProperty("perf.baseline", "src/perfTest/baseline.properties"))
+
+    @Shared
+    def directory = Files.createTempDirectory("perf")
+
+    @Shared
+    Map<String, MacroBenchmark.Workload> workloads = [:]
+
+    @Shared
+    List<MacroBenchmark.Measurement> measurements = []
+
+    // the speed of this JVM on this machine, that the speed of the workloads is compared to
+    @Shared
+    MacroBenchmark.Measurement calibration
+
+    def setupSpec() {
+        MacroBenchmark.workloads(directory).each { workloads[it.name()] = it }
+        calibration = MacroBenchmark.measure(MacroBenchmark.calibration())
+    }
+
+    def cleanupSpec() {
+        print MacroBenchmark.format([calibration] + measurements, calibration)
+        if (UPDATE) {
+            new MacroBenchmark.Baseline(baselineFile).update(baselineFile, measurements, calibration)
+        }
+        directory.toFile().deleteDir()
+    }
+
+    def "the #name workload is as fast as the baseline, relative to the calibration, and allocates as little"() {
+        when:
+        def measurement = MacroBenchmark.measure(workloads[name])
+        measurements << measurement
+        def baseline = new MacroBenchmark.Baseline(baselineFile)
+        def regressions = UPDATE ? [] : baseline.regressions(measurement, calibration)
+
+        then:
+        measurement.operations > 0
+        regressions == []
+
+        where:
+        name << ["test", "optimize", "deckfile"]
+    }
+}
@@ -0,0 +1,412 @@
+package blackjack;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * MacroBenchmark plays the game at the scale of a real run, with fixed seeds, and measures how
+ * many operations per second it does and how many bytes it allocates per operation. The
+ * measurements are compared with a baseline file, so that changes to Game or CardCollection that
+ * make the whole program slower, or make it allocate more, are found before they are merged.
+ *
+ * <p>The speed of a workload is compared as a ratio to the speed of a calibration workload, that
+ * sorts seeded random numbers and does not use the game at all, measured in the same JVM. A faster
+ * or slower machine changes both by about the same factor, so the same baseline can be used on
+ * other machines than the one that recorded it. The allocated bytes do not depend on the machine,
+ * and are compared as they are.
+ *
+ * <p>Every workload is played once to warm up the JIT compiler, and then timed a few times, where
+ * the fastest run is kept. The allocated bytes are counted by the ThreadMXBean of the thread that
+ * plays, so the workloads run on the calling thread only.
+ */
+final class MacroBenchmark {
+
+    /** The seed that all workloads are played with */
+    static final long SEED = 42L;
+
+    /** The number of rounds that are played by the "test" workload, like --test */
+    static final int TEST_ROUNDS = 1000000;
+
+    /** The number of candidates and rounds per candidate of the "optimize" workload */
+    static final int SWEEP_CANDIDATES = 40;
+
+    static final int SWEEP_ROUNDS = 20000;
+
+    /** The number of numbers that the calibration workload sorts, and how many times */
+    static final int CALIBRATION_NUMBERS = 1 << 20;
+
+    static final int CALIBRATION_SORTS = 8;
+
+    /** The number of cards in the deck file of the "deckfile" workload, and per line */
+    static final int DECK_FILE_CARDS = 52000;
+
+    static final int CARDS_PER_LINE = 13;
+
+    /** The tolerances that are used when the baseline file does not have them */
+    static final double DEFAULT_THROUGHPUT_TOLERANCE = 0.25;
+
+    static final double DEFAULT_ALLOCATION_TOLERANCE = 0.10;
+
+    // the number of bytes per operation that are always allowed on top of the tolerance, since
+    // a workload that allocates almost nothing can not be compared in percent
+    private static final double ALLOCATION_SLACK = 16.0;
+
+    // the number of timed runs, where the fastest one is kept
+    private static final int RUNS = 3;
+
+    /** Workload is a fixed amount of work, that gives the same result every time it is played. */
+    interface Workload {
+
+        /** @return the name of the workload, as used in the baseline file */
+        String name();
+
+        /** @return what one operation of the workload is, like "round" or "card" */
+        String unit();
+
+        /**
+         * Play the workload once.
+         *
+         * @return the number of operations that were done
+         * @throws Exception if the workload could not be played
+         */
+        long play() throws Exception;
+    }
+
+    /** Measurement is how fast a workload ran, and how much it allocated. */
+    static final class Measurement {
+
+        public final Workload workload;
+
+        /** the number of operations of one run */
+        public final long operations;
+
+        /** the number of operations per second, of the fastest run */
+        public final double perSecond;
+
+        /** the number of allocated bytes per operation, of the run that allocated the least */
+        public final double bytesPer;
+
+        Measurement(
+                final Workload workload,
+                final long operations,
+                final double perSecond,
+                final double bytesPer) {
+            this.workload = workload;
+            this.operations = operations;
+            this.perSecond = perSecond;
+            this.bytesPer = bytesPer;
+        }
+    }
+
+    private MacroBenchmark() {}
+
+    /**
+     * Find the workloads: a --test of TEST_ROUNDS rounds, the first SWEEP_CANDIDATES candidates of
+     * an --optimize sweep, and a load of a deck file with DECK_FILE_CARDS cards.
+     *
+     * @param directory is where the deck file is written
+     * @return the workloads
+     * @throws IOException if the deck file could not be written
+     */
+    static List<Workload> workloads(final Path directory) throws IOException {
+        final Path deckFile = writeDeckFile(directory.resolve("deck.txt"));
+        List<Workload> workloads = new ArrayList<Workload>();
+        workloads.add(workload("test", "round", MacroBenchmark::quickTest));
+        workloads.add(workload("optimize", "round", MacroBenchmark::sweep));
+        workloads.add(workload("deckfile", "card", () -> loadDeck(deckFile.toString())));
+        return workloads;
+    }
+
+    // quickTest plays like --test with the default strategy, but from a seeded deck
+    private static long quickTest() throws OutOfCardsException {
+        Game game = new Game(Player.defaultStrategy);
+        game.reset(Optional.of(SEED));
+        return Optimizer.play(game, TEST_ROUNDS).rounds();
+    }
+
+    // sweep plays the first round of candidates of --optimize, with a seeded deck per candidate
+    private static long sweep() throws OutOfCardsException {
+        final StrategyFactory factory = Player.defaultStrategy.factory();
+        Parameters params = factory.first();
+        long rounds = 0;
+        for (int i = 0; i < SWEEP_CANDIDATES; i++) {
+            Game game = new Game(factory.create(params));
+            game.reset(Optional.of(SEED));
+            rounds += Optimizer.play(game, SWEEP_ROUNDS).rounds();
+            Optional<Parameters> next = factory.next(params);
+            if (next.isEmpty()) {
+                break;
+            }
+            params = next.get();
+        }
+        return rounds;
+    }
+
+    /**
+     * Find the calibration workload, which sorts CALIBRATION_NUMBERS seeded random numbers
+     * CALIBRATION_SORTS times. It only depends on the machine and the JVM, and not on the game.
+     *
+     * @return the calibration workload
+     */
+    static Workload calibration() {
+        final int[] numbers = new int[CALIBRATION_NUMBERS];
+        return workload(
+                "calibration",
+                "number",
+                () -> {
+                    SplittableRandom random = new SplittableRandom(SEED);
+                    for (int i = 0; i < CALIBRATION_SORTS; i++) {
+                        for (int j = 0; j < numbers.length; j++) {
+                            numbers[j] = random.nextInt();
+                        }
+                        Arrays.sort(numbers);
+                    }
+                    return (long) CALIBRATION_SORTS * numbers.length;
+                });
+    }
+
+    // loadDeck loads a deck file, and returns the number of cards in it
+    private static long loadDeck(final String filename) throws Exception {
+        return new Deck(filename).count();
+    }
+
+    // writeDeckFile writes DECK_FILE_CARDS seeded random cards, in the format of cards.txt
+    private static Path writeDeckFile(final Path path) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (PrintWriter out =
+                new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            for (int i = 0; i < DECK_FILE_CARDS; i++) {
+                out.print(Card.ofIndex(random.nextInt(52)));
+                out.print((i + 1) % CARDS_PER_LINE == 0 ? "\n" : ", ");
+            }
+        }
+        return path;
+    }
+
+    // workload returns a named workload that plays the given body
+    private static Workload workload(
+            final String name, final String unit, final Callable<Long> body) {
+        return new Workload() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String unit() {
+                return unit;
+            }
+
+            @Override
+            public long play() throws Exception {
+                return body.call();
+            }
+        };
+    }
+
+    /**
+     * Play a workload once to warm up, and then measure the fastest of a few runs.
+     *
+     * @param workload is the workload
+     * @return the measurement
+     * @throws Exception if the workload could not be played
+     */
+    static Measurement measure(final Workload workload) throws Exception {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        workload.play();
+        long operations = 0;
+        long fastest = Long.MAX_VALUE;
+        long leastBytes = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            operations = workload.play();
+            final long elapsed = System.nanoTime() - start;
+            final long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            fastest = Math.min(fastest, elapsed);
+            leastBytes = Math.min(leastBytes, bytes);
+        }
+        return new Measurement(
+                workload,
+                operations,
+                operations / (Math.max(1, fastest) / 1e9),
+                (double) leastBytes / Math.max(1, operations));
+    }
+
+    /**
+     * Baseline is the stored measurements that new measurements are compared with. It is a
+     * properties file with the keys "NAME.relative" and "NAME.bytesPer" per workload, where the
+     * relative speed is the operations per second divided by those of the calibration workload,
+     * and the keys "tolerance.throughput" and "tolerance.allocation", as fractions of the
+     * baseline. The operations per second of the calibration workload are kept as
+     * "calibration.perSecond", to show how fast the machine that recorded the baseline was.
+     */
+    static final class Baseline {
+        private final Properties values = new Properties();
+
+        /**
+         * Load a baseline.
+         *
+         * @param path is the baseline file, which does not need to exist
+         * @throws IOException if the file exists, but could not be read
+         */
+        Baseline(final Path path) throws IOException {
+            if (Files.exists(path)) {
+                try (InputStream in = new FileInputStream(path.toFile())) {
+                    values.load(in);
+                }
+            }
+        }
+
+        /** @return the fraction that the throughput may drop below the baseline */
+        double throughputTolerance() {
+            return fraction("tolerance.throughput", DEFAULT_THROUGHPUT_TOLERANCE);
+        }
+
+        /** @return the fraction that the allocated bytes may rise above the baseline */
+        double allocationTolerance() {
+            return fraction("tolerance.allocation", DEFAULT_ALLOCATION_TOLERANCE);
+        }
+
+        /**
+         * Compare a measurement with the baseline.
+         *
+         * @param m is the measurement
+         * @param calibration is the measurement of the calibration workload, in the same JVM
+         * @return a description of every regression, or an empty list if there are none
+         * @throws IllegalStateException if the baseline has no values for the workload
+         */
+        List<String> regressions(final Measurement m, final Measurement calibration) {
+            final String name = m.workload.name();
+            final double relative = value(name + ".relative");
+            final double bytesPer = value(name + ".bytesPer");
+            List<String> regressions = new ArrayList<String>();
+            final double measuredRelative = m.perSecond / calibration.perSecond;
+            if (measuredRelative < relative * (1.0 - throughputTolerance())) {
+                regressions.add(
+                        String.format(
+                                Locale.ROOT,
+                                "%s: %.0f %ss per second, %.4f of the calibration, below the"
+                                        + " baseline of %.4f - %.0f%%",
+                                name,
+                                m.perSecond,
+                                m.workload.unit(),
+                                measuredRelative,
+                                relative,
+                                throughputTolerance() * 100.0));
+            }
+            final double maxBytesPer =
+                    bytesPer * (1.0 + allocationTolerance()) + ALLOCATION_SLACK;
+            if (m.bytesPer > maxBytesPer) {
+                regressions.add(
+                        String.format(
+                                Locale.ROOT,
+                                "%s: %.1f bytes per %s, above the baseline of %.1f + %.0f%%",
+                                name,
+                                m.bytesPer,
+                                m.workload.unit(),
+                                bytesPer,
+                                allocationTolerance() * 100.0));
+            }
+            return regressions;
+        }
+
+        /**
+         * Replace the values of the measured workloads, and write the baseline file.
+         *
+         * @param path is the baseline file
+         * @param measurements are the new measurements
+         * @param calibration is the measurement of the calibration workload, in the same JVM
+         * @throws IOException if the file could not be written
+         */
+        void update(
+                final Path path,
+                final List<Measurement> measurements,
+                final Measurement calibration)
+                throws IOException {
+            values.setProperty("tolerance.throughput", Double.toString(throughputTolerance()));
+            values.setProperty("tolerance.allocation", Double.toString(allocationTolerance()));
+            values.setProperty(
+                    "calibration.perSecond",
+                    String.format(Locale.ROOT, "%.0f", calibration.perSecond));
+            for (Measurement m : measurements) {
+                final String name = m.workload.name();
+                // the speed on the machine that recorded it is not used any more
+                values.remove(name + ".perSecond");
+                values.setProperty(
+                        name + ".relative",
+                        String.format(Locale.ROOT, "%.6f", m.perSecond / calibration.perSecond));
+                values.setProperty(
+                        name + ".bytesPer", String.format(Locale.ROOT, "%.1f", m.bytesPer));
+            }
+            // the keys are sorted, and there is no date, so that updates give small diffs
+            TreeMap<String, String> sorted = new TreeMap<String, String>();
+            for (String key : values.stringPropertyNames()) {
+                sorted.put(key, values.getProperty(key));
+            }
+            try (PrintWriter out =
+                    new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+                out.print("# The macro performance baseline, as written by gradle perfTest");
+                out.print(" -Pperf.update\n");
+                for (String key : sorted.keySet()) {
+                    out.print(key + "=" + sorted.get(key) + "\n");
+                }
+            }
+        }
+
+        private double fraction(final String key, final double defaultValue) {
+            final String value = values.getProperty(key);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+
+        private double value(final String key) {
+            final String value = values.getProperty(key);
+            if (value == null) {
+                throw new IllegalStateException(
+                        "no baseline for " + key + ", record one with -Pperf.update");
+            }
+            return Double.parseDouble(value);
+        }
+    }
+
+    /**
+     * Format measurements as a table, with their speed relative to the calibration workload.
+     *
+     * @param measurements are the measurements
+     * @param calibration is the measurement of the calibration workload
+     * @return the table as text
+     */
+    static String format(final List<Measurement> measurements, final Measurement calibration) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# workload   operations  per second  relative  bytes per operation\n");
+        for (Measurement m : measurements) {
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "%-11s  %10d  %10.0f  %8.4f  %8.1f per %s\n",
+                            m.workload.name(),
+                            m.operations,
+                            m.perSecond,
+                            m.perSecond / calibration.perSecond,
+                            m.bytesPer,
+                            m.workload.unit()));
+        }
+        return sb.toString();
+    }
+}
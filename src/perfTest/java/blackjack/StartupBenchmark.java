@@ -0,0 +1,101 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * StartupBenchmark starts commands many times, and measures the time until each of them has
+ * written its first line of output, which is the time to the first result for a short run, and the
+ * time until it has exited. It is for comparing ways of starting the program, like the plain jar
+ * and the launcher of the fast startup image.
+ *
+ * <p>The arguments are the number of runs per command, and then the commands, separated by ";".
+ */
+final class StartupBenchmark {
+
+    // the number of runs per command that are not measured, so that the files are cached
+    private static final int WARMUP_RUNS = 2;
+
+    private StartupBenchmark() {}
+
+    /**
+     * Run the benchmark and print a table of the median and fastest times.
+     *
+     * @param args are the number of runs, and the commands separated by ";"
+     * @throws IOException if a command could not be started
+     * @throws InterruptedException if the benchmark was interrupted
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: StartupBenchmark RUNS COMMAND [ ; COMMAND ... ]");
+            System.exit(1);
+        }
+        final int runs = Integer.parseInt(args[0]);
+        List<List<String>> commands = new ArrayList<List<String>>();
+        List<String> command = new ArrayList<String>();
+        for (String arg : Arrays.asList(args).subList(1, args.length)) {
+            if (arg.equals(";")) {
+                commands.add(command);
+                command = new ArrayList<String>();
+            } else {
+                command.add(arg);
+            }
+        }
+        commands.add(command);
+
+        System.out.printf("# milliseconds to the first line, and to exit, of %d runs\n", runs);
+        System.out.println("#     first line    exit");
+        System.out.println("#  median fastest median fastest  command");
+        for (List<String> c : commands) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(c);
+            }
+            long[] firstLine = new long[runs];
+            long[] exit = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                final long[] times = run(c);
+                firstLine[i] = times[0];
+                exit[i] = times[1];
+            }
+            Arrays.sort(firstLine);
+            Arrays.sort(exit);
+            System.out.printf(
+                    Locale.ROOT,
+                    "%8.1f %7.1f %6.1f %7.1f  %s\n",
+                    firstLine[runs / 2] / 1e6,
+                    firstLine[0] / 1e6,
+                    exit[runs / 2] / 1e6,
+                    exit[0] / 1e6,
+                    String.join(" ", c));
+        }
+    }
+
+    // run starts a command, and returns the nanoseconds until its first line and until its exit
+    private static long[] run(final List<String> command)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long firstLine = -1;
+        try (BufferedReader in =
+                new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            while (in.readLine() != null) {
+                if (firstLine < 0) {
+                    firstLine = System.nanoTime() - start;
+                }
+            }
+        }
+        final int status = process.waitFor();
+        final long exit = System.nanoTime() - start;
+        if (status != 0) {
+            throw new IOException("exit status " + status + ": " + String.join(" ", command));
+        }
+        return new long[] {firstLine < 0 ? exit : firstLine, exit};
+    }
+}
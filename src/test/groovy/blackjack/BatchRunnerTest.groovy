@@ -0,0 +1,51 @@
+import spock.lang.Specification
+import blackjack.*
+
+class BatchRunnerTest extends Specification {
+
+    def "quick tests and single rounds are run"() {
+        when:
+        def row = BatchRunner.runJob(1, line, Main.USAGE)
+
+        then:
+        row[0] == "1"
+        row[1] == line
+        row[2] == strategy
+        row[3].startsWith(result)
+
+        where:
+        line            | strategy                     | result
+        "-t -3"         | "Third"                      | "Sam wins "
+        "-t --counting" | "C (4,3,20,5,14) (0.150000)" | "Sam wins "
+        "-n cards.txt"  | "B (4,3,20,5,14)"            | "sam; sam: CA, H9; dealer: D5, HQ, S8"
+        "--third"       | "Third"                      | ""
+    }
+
+    def "jobs with flags that batch mode does not handle are errors, and are not run"() {
+        when:
+        def row = BatchRunner.runJob(2, line, Main.USAGE)
+
+        then:
+        row[2] == ""
+        row[3] == "error: only quick tests and single rounds can be batched, not " + flag
+
+        where:
+        line               | flag
+        "--solve"          | "--solve"
+        "--worker 9000"    | "--worker"
+        "-t --hybrid"      | "--hybrid"
+        "-t --rules h17"   | "--rules"
+        "-t --pipeline"    | "--pipeline"
+        "-o"               | "-o"
+        "--batch jobs.txt" | "--batch"
+        "-v cards.txt"     | "-v"
+    }
+
+    def "unknown flags are errors"() {
+        when:
+        def row = BatchRunner.runJob(3, "-t --no-such-flag", Main.USAGE)
+
+        then:
+        row[3].startsWith("error: ")
+    }
+}
@@ -0,0 +1,42 @@
+import spock.lang.Specification
+import blackjack.*
+
+class BudgetedSimulationTest extends Specification {
+
+    def "the standard error of the win ratio follows from the share of won rounds"() {
+        setup:
+        def tally = new Tally()
+        300.times { tally.add(Game.Result.SAM_WON) }
+        100.times { tally.add(Game.Result.DEALER_WON) }
+        50.times { tally.add(Game.Result.PUSH) }
+
+        expect:
+        // p = 0.75, so the win ratio is 3 and its standard error is sqrt(0.75 * 0.25 / 400) / 0.0625
+        Math.abs(BudgetedSimulation.standardError(tally) - 0.3464) < 0.0001
+        BudgetedSimulation.standardError(new Tally()) == Double.POSITIVE_INFINITY
+    }
+
+    def "the same seed and number of threads give the same result"() {
+        setup:
+        def strat = new BasicStrategyOptimized()
+
+        when:
+        def first = new BudgetedSimulation(strat, 2, 42L).run(1.0, 0)
+        def second = new BudgetedSimulation(strat, 2, 42L).run(1.0, 0)
+
+        then:
+        first.tally.wins() == second.tally.wins()
+        first.tally.losses() == second.tally.losses()
+        first.tally.wins() + first.tally.losses() == 2 * BudgetedSimulation.ROUNDS_PER_STEP
+        first.error() > 0
+    }
+
+    def "play until the standard error is small enough"() {
+        when:
+        def result = new BudgetedSimulation(new BasicStrategyOptimized(), 2, 7L).run(0.003, 0)
+
+        then:
+        result.error() / 1.96 <= 0.003
+        result.tally.wins() + result.tally.losses() > 2 * BudgetedSimulation.ROUNDS_PER_STEP
+    }
+}
@@ -104,4 +104,38 @@ class CardCollectionTest extends Specification {
         score == 380
     }
 
+    def "drawing from a fork does not change the original"() {
+        setup:
+        def deck = new Deck()
+        deck.shuffle()
+        def fork = deck.fork()
+        def hand = new Hand()
+
+        when:
+        hand.draw(fork)
+        hand.draw(fork)
+
+        then:
+        deck.count() == 52
+        fork.count() == 50
+        deck.toString().endsWith(fork.toString())
+        fork.remaining(10) + fork.remaining(2) + fork.remaining(11) <= 24
+    }
+
+    def "changing a fork copies the cards"() {
+        setup:
+        def cc = new CardCollection()
+        cc.addCards("C2, D3, H4")
+        def fork = cc.fork()
+
+        when:
+        cc.draw()
+        fork.add(new Card("S5"))
+
+        then:
+        cc.toString() == "D3, H4"
+        fork.toString() == "C2, D3, H4, S5"
+        fork.score() == 14
+    }
+
 }
@@ -63,4 +63,20 @@ class CardTest extends Specification {
         result == "HK"
     }
 
+    def "every card parses back from its card string, in upper or lower case"() {
+        expect:
+        (0..<52).every { new Card(Card.ofIndex(it).toString()).index() == it }
+        (0..<52).every { new Card(Card.ofIndex(it).toString().toLowerCase()).index() == it }
+    }
+
+    def "#code is not a valid card code"() {
+        when:
+        new Card(code)
+
+        then:
+        thrown CardParseException
+
+        where:
+        code << ["H1", "H11", "H01", "S1O", "DT", "H", "X10"]
+    }
 }
@@ -0,0 +1,98 @@
+import spock.lang.Specification
+import blackjack.*
+
+class DealerOddsTest extends Specification {
+
+    def "the dealer busts or pushes when drawing one card to 21"() {
+        setup:
+        def odds = new DealerOdds()
+        def outcome = new double[3]
+
+        when:
+        // the dealer has 19 and Sam has 21, so only a two gives a push
+        def found = odds.outcome(19, 21, new Deck(), outcome)
+
+        then:
+        found
+        Math.abs(outcome[DealerOdds.WIN] - 48 / 52) < 1e-9
+        outcome[DealerOdds.LOSS] == 0.0
+        Math.abs(outcome[DealerOdds.PUSH] - 4 / 52) < 1e-9
+    }
+
+    def "two aces beat Sam without drawing"() {
+        setup:
+        def outcome = new double[3]
+
+        when:
+        new DealerOdds().outcome(22, 20, new Deck(), outcome)
+
+        then:
+        outcome[DealerOdds.LOSS] == 1.0
+    }
+
+    def "the probabilities add up to one and are cached"() {
+        setup:
+        def odds = new DealerOdds()
+        def outcome = new double[3]
+
+        when:
+        odds.outcome(5, 18, new Deck(), outcome)
+
+        then:
+        Math.abs(outcome[0] + outcome[1] + outcome[2] - 1.0) < 1e-9
+        odds.positions() > 0
+    }
+
+    def "the hole card is one of the unseen cards"() {
+        setup:
+        def unseen = new Deck()
+        unseen.setCards("CK, DK, HK, SK, CQ, DQ, HQ, SQ, CJ, CA")
+        def outcome = new double[3]
+
+        when:
+        // the upcard is a ten and Sam has 20, so the dealer wins with an ace and pushes otherwise
+        def found = new DealerOdds().outcomeFromUpcard(10, 20, unseen, outcome)
+
+        then:
+        found
+        outcome[DealerOdds.WIN] == 0.0
+        Math.abs(outcome[DealerOdds.LOSS] - 0.1) < 1e-9
+        Math.abs(outcome[DealerOdds.PUSH] - 0.9) < 1e-9
+    }
+
+    def "two aces beat two aces when the hole card is enumerated"() {
+        setup:
+        def outcome = new double[3]
+
+        when:
+        // any other hole card makes the dealer draw until busting
+        new DealerOdds().outcomeFromUpcard(11, 22, new Deck(), outcome)
+
+        then:
+        Math.abs(outcome[DealerOdds.LOSS] - 4 / 52) < 1e-9
+        Math.abs(outcome[DealerOdds.WIN] - 48 / 52) < 1e-9
+    }
+
+    def "a deck that may run out is left to the game"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("C2, D3, H4")
+
+        expect:
+        !new DealerOdds().outcome(10, 20, deck, new double[3])
+        !new DealerOdds().outcomeFromUpcard(10, 20, deck, new double[3])
+    }
+
+    def "the expected win ratio is close to the simulated one"() {
+        setup:
+        def strat = new BasicStrategyOptimized()
+
+        when:
+        def simulated = Optimizer.getWinRatio(strat, 200000)
+        def expected = Optimizer.getExpectedWinRatio(strat, 200000)
+
+        then:
+        Math.abs(simulated - expected) < 0.02
+    }
+
+}
@@ -50,4 +50,57 @@ class DeckTest extends Specification {
         cardScore + deckScore == 380
     }
 
+    def "keep the running count up to date when drawing"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("H2, S5, CK, DA, H8")
+
+        when:
+        deck.draw() // +1
+        deck.draw() // +1
+        deck.draw() // -1
+
+        then:
+        deck.runningCount() == 1
+        deck.remaining(11) == 1
+        deck.remaining(10) == 0
+        deck.count() == 2
+    }
+
+    def "reset the running count when the deck is renewed"() {
+        setup:
+        def deck = new Deck()
+        deck.draw()
+        deck.draw()
+
+        when:
+        deck.renew()
+
+        then:
+        deck.runningCount() == 0
+        deck.remaining(10) == 16
+        deck.remaining(11) == 4
+    }
+
+    def "start a new running count when the cards are replaced"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("H2, S5, CK, DA, H8")
+        deck.draw() // +1
+        deck.draw() // +1
+
+        when:
+        replace(deck)
+
+        then:
+        deck.runningCount() == 0
+        deck.trueCount() == 0.0d
+
+        where:
+        replace << [
+            { it.setCards("C3, D4, H5, S6") },
+            { it.clear() }
+        ]
+    }
+
 }
@@ -0,0 +1,95 @@
+import spock.lang.Specification
+import spock.lang.Timeout
+import blackjack.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class DistributedOptimizerTest extends Specification {
+
+    // a benchmark that gives every candidate a repeatable win ratio, without playing any rounds
+    def benchmark = { strat, nTimes ->
+        new Random(strat.toString().hashCode()).nextDouble()
+    }
+
+    def strat = new BasicStrategyOptimized()
+
+    def loopback() {
+        new ServerSocket(0, 50, InetAddress.getLoopbackAddress())
+    }
+
+    // stdout returns what the given closure wrote to stdout, from any thread
+    def stdout(Closure closure) {
+        def original = System.out
+        def output = new ByteArrayOutputStream()
+        System.setOut(new PrintStream(output, true, "UTF-8"))
+        try {
+            closure()
+        } finally {
+            System.setOut(original)
+        }
+        output.toString("UTF-8")
+    }
+
+    // topResults returns the "winRatio: params" lines that list the best results
+    def topResults(String output) {
+        output.readLines().findAll { it ==~ /\d+\.\d+: .*/ }
+    }
+
+    @Timeout(60)
+    def "the merged results of two workers, where one is killed in the middle of a chunk, are the same as those of one process"() {
+        setup:
+        def writer = new ResultWriter(new StringWriter(), ResultWriter.Format.TEXT, 1000, 0, false, true)
+        def server = loopback()
+        def address = Integer.toString(server.localPort)
+        def started = new CountDownLatch(1)
+        def calls = new AtomicInteger()
+        def failure = null
+        def dying = { candidate, nTimes ->
+            started.countDown()
+            if (calls.incrementAndGet() == 100) {
+                throw new IllegalStateException("killed")
+            }
+            benchmark(candidate, nTimes)
+        }
+
+        when:
+        def single = stdout { Optimizer.run(strat, 64, 256, 1024, false, 0, writer, 5, benchmark) }
+        def distributed = stdout {
+            def coordinator = Thread.start {
+                DistributedOptimizer.coordinate(strat, server, 64, 256, 1024, 5, 30000, benchmark)
+            }
+            def killed = Thread.start {
+                try {
+                    DistributedOptimizer.work(address, dying)
+                } catch (IllegalStateException ex) {
+                    failure = ex
+                }
+            }
+            started.await()
+            def healthy = Thread.start { DistributedOptimizer.work(address, benchmark) }
+            [coordinator, killed, healthy]*.join()
+        }
+
+        then:
+        failure.message == "killed"
+        calls.get() == 100
+        topResults(single).size() == 5
+        topResults(distributed) == topResults(single)
+        distributed.contains("Evaluated ${strat.factory().possibilities() - 1} candidates")
+    }
+
+    @Timeout(10)
+    def "the run fails if no worker finishes a chunk in time"() {
+        setup:
+        def server = loopback()
+
+        when:
+        stdout { DistributedOptimizer.coordinate(strat, server, 64, 256, 1024, 5, 500, benchmark) }
+
+        then:
+        def ex = thrown(IOException)
+        ex.message.startsWith("no worker finished a chunk in ")
+        ex.message.endsWith(" ms, 197 of 197 chunks are left")
+        server.closed
+    }
+}
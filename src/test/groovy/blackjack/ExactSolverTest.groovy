@@ -0,0 +1,60 @@
+import spock.lang.Specification
+import blackjack.*
+
+class ExactSolverTest extends Specification {
+
+    def "a fully known deck gives the same result as a game"() {
+        setup:
+        def deck = new Deck()
+        deck.shuffle()
+        def known = new Deck()
+        known.setCards(deck.toString())
+        def strat = new BasicStrategyOptimized()
+        def result = new Game(deck, strat, false, false).oneRound(strat)
+
+        when:
+        def odds = new ExactSolver(strat, known).solve()
+
+        then:
+        result != Game.Result.SAM_WON || odds.win() == 1.0
+        result != Game.Result.DEALER_WON || odds.loss() == 1.0
+        result != Game.Result.PUSH || odds.push() == 1.0
+    }
+
+    def "the dealer draws from the unknown cards"() {
+        setup:
+        // Sam has 20 and stands, the dealer has a 5 and draws while below 20
+        def known = new Deck()
+        known.setCards("CA, D5, H9")
+
+        when:
+        def odds = new ExactSolver(new BasicStrategyOptimized(), known).solve()
+
+        then:
+        Math.abs(odds.win() - 0.758439) < 1e-6
+        Math.abs(odds.loss() - 0.126604) < 1e-6
+        Math.abs(odds.push() - 0.114957) < 1e-6
+    }
+
+    def "the probabilities of a shuffled deck add up to one"() {
+        when:
+        def odds = new ExactSolver(new ThirdStrategy(), new Hand()).solve()
+
+        then:
+        Math.abs(odds.win() + odds.loss() + odds.push() - 1.0) < 1e-9
+        odds.states() > 0
+    }
+
+    def "the known cards must be part of one deck"() {
+        setup:
+        def known = new Deck()
+        known.setCards("CA, DA, HA, SA, CA")
+
+        when:
+        new ExactSolver(new BasicStrategyOptimized(), known)
+
+        then:
+        thrown CardParseException
+    }
+
+}
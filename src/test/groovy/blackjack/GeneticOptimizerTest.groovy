@@ -0,0 +1,33 @@
+import spock.lang.Specification
+import blackjack.*
+
+class GeneticOptimizerTest extends Specification {
+
+    def "rounds are played with the rules of the game"() {
+        setup:
+        // Sam gets 10 and 11 for 21 in the first round, and 10 and 7 against 10 and 9 in the
+        // second round, where the dealer already has more than Sam and does not draw
+        def shoes = new byte[32]
+        [10, 5, 11, 9].eachWithIndex { card, i -> shoes[i] = card }
+        [10, 10, 7, 9].eachWithIndex { card, i -> shoes[16 + i] = card }
+
+        expect:
+        GeneticOptimizer.winRatio(new AlwaysStayStrategy(), shoes, 1) == 2.0
+        GeneticOptimizer.winRatio(new AlwaysStayStrategy(), shoes, 2) == 1.0
+    }
+
+    def "evolve a table within the budget"() {
+        setup:
+        def ga = new GeneticOptimizer(8, 1000, 2, 42)
+
+        when:
+        def table = ga.run(new AlwaysStayStrategy(), 200, false)
+
+        then:
+        table != null
+        ga.generations() >= 1
+        ga.bestFitness() > 0
+        !table.hits(17, 10)
+    }
+
+}
@@ -0,0 +1,48 @@
+import spock.lang.Specification
+import blackjack.*
+
+class LocalSearchTest extends Specification {
+
+    def "the search climbs to a point where no neighbor is better"() {
+        setup:
+        def search = new LocalSearch(Rules.parse("h17,double,bj=6:5"), 5000, 2, 42L)
+        def strat = new BasicStrategyOptimized()
+
+        when:
+        def result = search.run(strat, false)
+        def factory = strat.factory()
+
+        then:
+        result.start == strat.parameters()
+        result.bestValue >= result.startValue
+        result.evaluations > result.steps
+        factory.neighbors(result.best).every { search.value(factory, it) <= result.bestValue }
+        result.strategy().parameters() == result.best
+    }
+
+    def "the same seed gives the same result, with any number of threads"() {
+        setup:
+        def rules = Rules.parse("classic")
+        def strat = new BasicStrategyCounting()
+
+        when:
+        def one = new LocalSearch(rules, 5000, 1, 7L).run(strat, false)
+        def two = new LocalSearch(rules, 5000, 2, 7L).run(strat, false)
+
+        then:
+        one.best == two.best
+        one.bestValue == two.bestValue
+        one.steps == two.steps
+    }
+
+    def "a strategy without parameters is already at its optimum"() {
+        when:
+        def result = new LocalSearch(Rules.parse("classic"), 5000, 1, 1L).run(new ThirdStrategy(), false)
+
+        then:
+        result.steps == 0
+        result.evaluations == 1
+        result.best == result.start
+        LocalSearch.format(result).contains("after 0 steps and 1 candidates")
+    }
+}
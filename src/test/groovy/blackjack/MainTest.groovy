@@ -0,0 +1,40 @@
+import spock.lang.Specification
+import blackjack.*
+
+class MainTest extends Specification {
+
+    def parse(String line) {
+        new ParsedFlagsAndArguments(line.split(" ") as String[], Main.USAGE)
+    }
+
+    def "--log is rejected with the flags of modes that would not log"() {
+        when:
+        Main.checkLogFlags(parse(line))
+
+        then:
+        def ex = thrown(InvalidFlagValueException)
+        ex.message == message
+
+        where:
+        line                                   | message
+        "-t --log /tmp/x.log --seats 2"        | "--log can not be used with --seats"
+        "-t --log /tmp/x.log --rules h17"      | "--log can not be used with --rules"
+        "-t --log /tmp/x.log --hybrid"         | "--log can not be used with --hybrid"
+        "--log /tmp/x.log --exact cards.txt"   | "--log can only be used with --test"
+    }
+
+    def "--log is accepted with a plain --test and the strategy flags"() {
+        when:
+        Main.checkLogFlags(parse(line))
+
+        then:
+        notThrown(InvalidFlagValueException)
+
+        where:
+        line << [
+            "-t --log /tmp/x.log",
+            "--test -2 --log=/tmp/x.log",
+            "-t --rollout --rollouts 50 --log /tmp/x.log"
+        ]
+    }
+}
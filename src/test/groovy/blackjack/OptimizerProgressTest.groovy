@@ -0,0 +1,88 @@
+import spock.lang.Specification
+import blackjack.*
+import java.lang.management.ManagementFactory
+import javax.management.ObjectName
+
+class OptimizerProgressTest extends Specification {
+
+    def server = ManagementFactory.getPlatformMBeanServer()
+    def name = new ObjectName(OptimizerProgress.OBJECT_NAME)
+
+    def cleanup() {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name)
+        }
+    }
+
+    def "the counters, the best ratio and the current candidate can be read over JMX"() {
+        setup:
+        def progress = new OptimizerProgress(10)
+
+        when:
+        def registered = progress.register()
+        progress.candidate(new BasicStrategyOptimized())
+        progress.addRounds(300)
+        progress.addRounds(200)
+        progress.candidateDone()
+        progress.candidateDone()
+        progress.best(0.75d, "B (4,3,20,5,14)")
+
+        then:
+        registered
+        server.isRegistered(name)
+        server.getAttribute(name, "TotalCandidates") == 10L
+        server.getAttribute(name, "CandidatesEvaluated") == 2L
+        server.getAttribute(name, "RoundsPlayed") == 500L
+        server.getAttribute(name, "CurrentCandidate") == "B (4,3,20,5,14)"
+        server.getAttribute(name, "BestParameters") == "B (4,3,20,5,14)"
+        server.getAttribute(name, "BestWinRatio") == 0.75d
+        server.getAttribute(name, "EtaSeconds") >= 0.0d
+    }
+
+    def "a second progress tracker can register after the first one is gone"() {
+        setup:
+        def first = new OptimizerProgress(10)
+        def second = new OptimizerProgress(20)
+
+        when:
+        first.register()
+        first.unregister()
+        def unregistered = !server.isRegistered(name)
+        def registered = second.register()
+
+        then:
+        unregistered
+        registered
+        server.getAttribute(name, "TotalCandidates") == 20L
+    }
+
+    def "a progress tracker that is still registered is replaced"() {
+        setup:
+        def first = new OptimizerProgress(10)
+        def second = new OptimizerProgress(20)
+
+        when:
+        first.register()
+        def registered = second.register()
+
+        then:
+        registered
+        server.getAttribute(name, "TotalCandidates") == 20L
+    }
+
+    def "every optimizer run registers its progress, and unregisters it when done"() {
+        setup:
+        def strat = new BasicStrategyCounting()
+        def output = new StringWriter()
+
+        when:
+        2.times {
+            def writer = new ResultWriter(output, ResultWriter.Format.TEXT, 1, 0, false, true)
+            Optimizer.run(strat, 200, 400, 800, false, 0, writer, 3)
+        }
+
+        then:
+        !server.isRegistered(name)
+        output.toString().readLines().size() == 2 * (strat.factory().possibilities() - 1)
+    }
+}
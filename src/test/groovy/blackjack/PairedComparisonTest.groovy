@@ -0,0 +1,45 @@
+import spock.lang.Specification
+import blackjack.*
+
+class PairedComparisonTest extends Specification {
+
+    def "the same strategy twice has no difference at all"() {
+        setup:
+        def strat = new BasicStrategyOptimized()
+        def comparison = new PairedComparison([strat, strat], 2000, 2, 42L)
+
+        when:
+        def results = comparison.run()
+        def differences = PairedComparison.differences(results)
+
+        then:
+        results[0].wins == results[1].wins
+        differences.size() == 1
+        differences[0].difference == 0
+        differences[0].error == 0
+        !differences[0].isSignificant()
+    }
+
+    def "pairing makes the confidence interval narrower"() {
+        setup:
+        def strategies = [new BasicStrategyOptimized(), new ThirdStrategy(), new AlwaysStayStrategy()]
+
+        when:
+        def results = new PairedComparison(strategies, 20000, 2, 7L).run()
+        def differences = PairedComparison.differences(results)
+
+        then:
+        differences.size() == 3
+        differences.every { it.difference >= 0 && it.error < it.unpairedError }
+        results.every { it.wins + it.losses + it.pushes == 20000 && it.nanosPerDecision > 0 }
+    }
+
+    def "the same seed gives the same rounds"() {
+        setup:
+        def strategies = [new BasicStrategy(), new AlwaysHitStrategy()]
+
+        expect:
+        new PairedComparison(strategies, 3000, 1, 1L).run()*.wins ==
+                new PairedComparison(strategies, 3000, 2, 1L).run()*.wins
+    }
+}
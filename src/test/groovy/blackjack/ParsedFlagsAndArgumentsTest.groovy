@@ -0,0 +1,115 @@
+import spock.lang.Specification
+import blackjack.*
+
+class ParsedFlagsAndArgumentsTest extends Specification {
+
+    def "flags followed by an upper case word take the next argument as their value"() {
+        setup:
+        String[] args = ["--results", "out.csv", "-v", "cards.txt", "--sample=3"]
+
+        when:
+        def pa = new ParsedFlagsAndArguments(args, Main.USAGE)
+
+        then:
+        pa.stringFlagValue("--results").get() == "out.csv"
+        pa.intFlagValue("--sample", 0) == 3
+        pa.hasFlags("-v", "--verbose")
+        pa.firstArg().get() == "cards.txt"
+    }
+
+    def "values can be given as --flag=value without a usage text"() {
+        when:
+        def pa = new ParsedFlagsAndArguments(["--sample=7", "--results", "out.csv"] as String[])
+
+        then:
+        pa.intFlagValue("--sample", 1) == 7
+        pa.hasFlag("--results")
+        pa.firstArg().get() == "out.csv"
+    }
+
+    def "flags that were not given get the default value"() {
+        when:
+        def pa = new ParsedFlagsAndArguments([] as String[], Main.USAGE)
+
+        then:
+        pa.stringFlagValue("--results") == Optional.empty()
+        pa.intFlagValue("--sample", 1) == 1
+        pa.longFlagValue("--seed", 42L) == 42L
+        pa.doubleFlagValue("--target-stderr", 0.5d) == 0.5d
+    }
+
+    def "numbers are parsed as longs and doubles too"() {
+        setup:
+        String[] args = ["--seed", "-12345678901", "--target-stderr=0.001"]
+
+        when:
+        def pa = new ParsedFlagsAndArguments(args, Main.USAGE)
+
+        then:
+        pa.longFlagValue("--seed", 0L) == -12345678901L
+        pa.doubleFlagValue("--target-stderr", 0d) == 0.001d
+        pa.args().isEmpty()
+    }
+
+    def "a value flag at the end of the arguments has no value"() {
+        setup:
+        def pa = new ParsedFlagsAndArguments(["-o", "--results"] as String[], Main.USAGE)
+
+        when:
+        pa.stringFlagValue("--results")
+
+        then:
+        thrown InvalidFlagValueException
+    }
+
+    def "values that are not numbers are rejected"() {
+        setup:
+        def pa = new ParsedFlagsAndArguments([flag, value] as String[], Main.USAGE)
+
+        when:
+        pa."$method"(flag, 0)
+
+        then:
+        thrown InvalidFlagValueException
+
+        where:
+        flag              | value | method
+        "--sample"        | "ten" | "intFlagValue"
+        "--sample"        | "1.5" | "intFlagValue"
+        "--seed"          | "x"   | "longFlagValue"
+        "--target-stderr" | "1,5" | "doubleFlagValue"
+    }
+
+    def "hyphenated flags are recognized"() {
+        when:
+        def pa = new ParsedFlagsAndArguments(["--always-hit", "--always-stay"] as String[], Main.USAGE)
+
+        then:
+        pa.hasFlag("--always-hit")
+        pa.hasFlag("--always-stay")
+    }
+
+    def "flags that are not in the usage text are not recognized"() {
+        when:
+        new ParsedFlagsAndArguments(["--no-such-flag"] as String[], Main.USAGE)
+
+        then:
+        thrown UnrecognizedFlagException
+    }
+
+    def "flags are found in any text, like the regular expression -+\\w[\\w-]* would find them"() {
+        setup:
+        def pa = new ParsedFlagsAndArguments(["-a", "--b-c", "-d", "---e"] as String[])
+
+        expect:
+        pa.findAnUnrecognizedFlag(usage) == Optional.ofNullable(unrecognized)
+
+        where:
+        usage                  | unrecognized
+        "-a --b-c N -d ---e"   | null
+        "x-a --b-c -- -d ---e" | null
+        "-a --b- -d ---e"      | "--b-c"
+        "-a --b-c -d --e"      | "---e"
+        "-- a --b-c -d ---e"   | "-a"
+    }
+}
@@ -0,0 +1,128 @@
+import spock.lang.Specification
+import blackjack.*
+
+class PolicyCompilerTest extends Specification {
+
+    def "a policy can decide exactly like a hand-written strategy"() {
+        setup:
+        def policy = PolicyCompiler.compile(PolicyParser.parse("test", """
+                # the rules of BasicStrategyOptimized
+                hit if upcard >= 4 and score < 20
+                hit if upcard > 3 and score < 5
+                hit if score < 14
+                """))
+        def strat = new BasicStrategyOptimized()
+
+        expect:
+        (4..21).every { score ->
+            (2..11).every { upcard ->
+                policy.shouldHit(score, 0, 2, upcard) == strat.shouldHit(score, 0, 2, upcard)
+            }
+        }
+    }
+
+    def "the first rule with a true condition decides"() {
+        setup:
+        def policy = PolicyCompiler.compile(PolicyParser.parse("test", """
+                name First rule
+                stand if score >= 17 or aces > 0 and upcard < 7
+                hit if score >= 12
+                stand if cards == 2
+                hit
+                """))
+
+        expect:
+        policy.toString() == "First rule"
+        policy.shouldHit(score, aces, cards, 10) == hit
+
+        where:
+        score | aces | cards | hit
+        18    | 0    | 2     | false
+        13    | 1    | 2     | true
+        13    | 0    | 3     | true
+        11    | 0    | 2     | false
+        11    | 0    | 3     | true
+    }
+
+    def "without a default rule, Sam stands"() {
+        setup:
+        def policy = PolicyCompiler.compile(PolicyParser.parse("test", "hit if score < 12"))
+
+        expect:
+        policy.toString() == "test"
+        policy.shouldHit(11, 0, 2, 10)
+        !policy.shouldHit(12, 0, 2, 10)
+    }
+
+    def "conditions work like in Java"() {
+        setup:
+        def policy = PolicyCompiler.compile(PolicyParser.parse("test", "hit if " + condition))
+
+        expect:
+        policy.shouldHit(12, 1, 3, 10) == hit
+
+        where:
+        condition                               | hit
+        "score == 12 and aces != 0"             | true
+        "not (score == 12)"                     | false
+        "-score + 2 * upcard > 7.5"             | true
+        "(score - 2) / 4 == 2.5"                | true
+        "score / 8 < 1.5"                       | false
+        "0 / 0 < 1 or 0 / 0 >= 1"               | false
+        "0 / 0 != 0 / 0"                        | true
+        "score * 1000000 * 1000 > 1000000000"   | true
+        "false or cards <= 3 and not false"     | true
+    }
+
+    def "only whole numbers that can not overflow use int arithmetic"() {
+        expect:
+        PolicyCompiler.isInteger(PolicyParser.parse("test", "hit if " + number + " > 0")
+                .rules()[0].condition.left) == integer
+
+        where:
+        number                  | integer
+        "score * 2 - upcard"    | true
+        "-cards + 12.0"         | true
+        "score / 2"             | false
+        "score + 0.5"           | false
+        "score * 1000000000"    | false
+    }
+
+    def "invalid policies are reported with their line"() {
+        when:
+        PolicyParser.parse("test", text)
+
+        then:
+        PolicyParseException ex = thrown()
+        ex.message.startsWith("test:" + line + ": ")
+
+        where:
+        text                                    | line
+        "hit if score < 12\nhit if bust"        | 2
+        "stand\nhit if score < 12"              | 2
+        "hit if score + 1"                      | 1
+        "hit if score < 12 and 3"               | 1
+        "maybe if score < 12"                   | 1
+        "hit if score = 12"                     | 1
+    }
+
+    def "an invalid policy file is a parse error, and a missing one is an I/O error"() {
+        setup:
+        def file = File.createTempFile("policy", ".txt")
+        file.deleteOnExit()
+        file.text = "name Broken\nhit if score = 12\n"
+
+        when:
+        PolicyCompiler.load(file.path)
+
+        then:
+        PolicyParseException ex = thrown()
+        ex.message == file.path + ":2: expected == or !="
+
+        when:
+        PolicyCompiler.load(file.path + ".missing")
+
+        then:
+        thrown(FileNotFoundException)
+    }
+}
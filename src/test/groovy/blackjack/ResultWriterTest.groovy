@@ -0,0 +1,98 @@
+import spock.lang.Specification
+import spock.lang.Timeout
+import blackjack.*
+
+class ResultWriterTest extends Specification {
+
+    def record(ResultWriter writer, int candidates) {
+        def best = new BasicStrategyOptimized()
+        candidates.times {
+            writer.record(it, candidates, 0.5d + it / 1000d, new ThirdStrategy(), 0.75d, best, 0.76d)
+        }
+        writer.close()
+    }
+
+    def "lines are formatted the same on the background thread as on the caller's thread"() {
+        setup:
+        def direct = new StringWriter()
+        def background = new StringWriter()
+
+        when:
+        record(new ResultWriter(direct, format, 1, 0, false, false), 100)
+        record(new ResultWriter(background, format, 1, 0, true, false), 100)
+
+        then:
+        background.toString() == direct.toString()
+        direct.toString().readLines().size() == lines
+
+        where:
+        format                    | lines
+        ResultWriter.Format.TEXT  | 100
+        ResultWriter.Format.CSV   | 101
+        ResultWriter.Format.JSONL | 100
+    }
+
+    def "every format has the fields of a candidate"() {
+        setup:
+        def out = new StringWriter()
+
+        when:
+        record(new ResultWriter(out, format, 1, 0, true, true), 1)
+
+        then:
+        out.toString() == expected
+
+        where:
+        format << [ResultWriter.Format.TEXT, ResultWriter.Format.CSV, ResultWriter.Format.JSONL]
+        expected << [
+            "[0/1] best win ratio 0.750000: B (4,3,20,5,14), now at 0.500000: Third, threshold 0.760000\n",
+            "candidate,possibilities,win_ratio,params,best_win_ratio,best_params,threshold\n"
+                + "0,1,0.500000,\"Third\",0.750000,\"B (4,3,20,5,14)\",0.760000\n",
+            "{\"candidate\":0,\"possibilities\":1,\"winRatio\":0.500000,\"params\":\"Third\","
+                + "\"bestWinRatio\":0.750000,\"bestParams\":\"B (4,3,20,5,14)\",\"threshold\":0.760000}\n"
+        ]
+    }
+
+    def "only every Nth candidate is written when sampling"() {
+        setup:
+        def out = new StringWriter()
+
+        when:
+        record(new ResultWriter(out, ResultWriter.Format.TEXT, 10, 0, true, false), 95)
+
+        then:
+        def lines = out.toString().readLines()
+        lines.size() == 10
+        lines[0].startsWith("[0/95] ")
+        lines[9].startsWith("[90/95] ")
+    }
+
+    @Timeout(10)
+    def "a failure on the background thread is thrown by close, and does not block record"() {
+        setup:
+        def failing = new Writer() {
+            void write(char[] buffer, int offset, int length) {
+                throw new IllegalStateException("disk full")
+            }
+
+            void flush() {}
+
+            void close() {}
+        }
+
+        when:
+        // many more lines than the queue holds, which the background thread stops taking
+        record(new ResultWriter(failing, ResultWriter.Format.TEXT, 1, 0, true, true), 50000)
+
+        then:
+        def ex = thrown(IOException)
+        ex.message == "could not write a result line"
+        ex.cause.message == "disk full"
+    }
+
+    def "strings are quoted for CSV and JSON"() {
+        expect:
+        ResultWriter.csvQuote('a "b", c') == '"a ""b"", c"'
+        ResultWriter.jsonQuote('a "b"\\\n') == '"a \\"b\\"\\\\\\n"'
+    }
+}
@@ -0,0 +1,95 @@
+import spock.lang.Specification
+import blackjack.*
+
+class RoundLogTest extends Specification {
+
+    def logRounds(Game game, int rounds) {
+        def file = File.createTempFile("rounds", ".log")
+        file.deleteOnExit()
+        def log = new RoundLog(file.path)
+        game.setLog(log)
+        Optimizer.play(game, rounds)
+        game.setLog(null)
+        log.close()
+        return [file, log]
+    }
+
+    def "a logged game replays without differences"() {
+        setup:
+        def (file, log) = logRounds(new Game(new BasicStrategyOptimized()), 5000)
+        def replay = new RoundReplay(file.path, new BasicStrategyOptimized(), 10)
+
+        when:
+        replay.run()
+
+        then:
+        replay.rounds() == log.rounds()
+        replay.decisions() > 0
+        replay.differing() == 0
+        replay.differences().isEmpty()
+        file.length() == log.bytes()
+    }
+
+    def "another strategy is compared at every logged decision"() {
+        setup:
+        def (file, log) = logRounds(new Game(new BasicStrategyOptimized()), 5000)
+        def same = new RoundReplay(file.path, new BasicStrategyOptimized(), 10)
+        def other = new RoundReplay(file.path, new AlwaysHitStrategy(), 10)
+
+        when:
+        same.run()
+        other.run()
+
+        then:
+        other.decisions() == same.decisions()
+        other.differing() > 0
+        other.differingRounds() == other.differing()
+        other.differences().size() == 10
+        other.differences().every { !it.loggedHit && it.score < 17 }
+    }
+
+    def "shoes that are not the 52 different cards are logged card by card"() {
+        setup:
+        def deckFile = File.createTempFile("deck", ".txt")
+        deckFile.deleteOnExit()
+        deckFile.text = "H2,H3,H4,H5,H6,H7,H8,H9,H10,HJ,S2,S3,S4,S5,S6,S7"
+        def game = new Game(deckFile.path, false, true)
+        def (file, log) = logRounds(game, 300)
+        def replay = new RoundReplay(file.path, new ThirdStrategy(), 10)
+
+        when:
+        replay.run()
+
+        then:
+        replay.rounds() == log.rounds()
+        log.shoes() > 1
+    }
+
+    def "a shoe of the 52 different cards takes 32 bytes"() {
+        expect:
+        RoundLog.RANKED_BYTES == 32
+        RoundLog.width(52) == 6
+        RoundLog.width(2) == 1
+        RoundLog.width(1) == 0
+    }
+
+    def "a damaged log is reported"() {
+        setup:
+        def (file, log) = logRounds(new Game(new BasicStrategyOptimized()), 100)
+        def bytes = file.bytes
+
+        when:
+        file.bytes = damage(bytes)
+        new RoundReplay(file.path, new BasicStrategyOptimized(), 10).run()
+
+        then:
+        thrown(IOException)
+
+        where:
+        damage << [
+            { b -> "not a log".bytes },
+            { b -> b[0..-2] as byte[] },
+            { b -> def c = b.clone(); c[-2] = (byte) (c[-2] ^ 3); c }
+        ]
+    }
+}
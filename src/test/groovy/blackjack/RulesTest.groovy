@@ -0,0 +1,206 @@
+import spock.lang.Specification
+import blackjack.*
+
+class RulesTest extends Specification {
+
+    def "parse a list of casino rules"() {
+        when:
+        def rules = Rules.parse("h17, double, split, surrender, bj=6:5")
+
+        then:
+        !rules.isClassic()
+        rules.dealerHitsSoft17()
+        rules.doubling()
+        rules.splitting()
+        rules.surrender()
+        rules.blackjackPayout() == 1.2d
+    }
+
+    def "an unknown rule can not be parsed"() {
+        when:
+        Rules.parse("s17,five-card-charlie")
+
+        then:
+        thrown InvalidFlagValueException
+    }
+
+    def "a natural blackjack pays the blackjack payout"() {
+        setup:
+        def deck = new Deck()
+        // sam draws card 1 and 3 for a natural, the dealer draws 2 and 4 for 12
+        deck.setCards("HK, C2, SA, DK")
+        def engine = Rules.parse("s17").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == 1.5d
+    }
+
+    def "the dealer stands on soft 17"() {
+        setup:
+        def deck = new Deck()
+        // sam stays on 18, the dealer has a soft 17 and stands
+        deck.setCards("HK, SA, H8, C6, D5")
+        def engine = Rules.parse("s17").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == 1.0d
+    }
+
+    def "the dealer hits soft 17 with h17, and stands with s17"() {
+        setup:
+        def deck = new Deck()
+        // sam stays on 18, the dealer has a soft 17, and would draw a 4 for 21
+        deck.setCards("HK, SA, H8, C6, D4")
+        def engine = Rules.parse(rules).engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == expected
+        deck.count() == left
+
+        where:
+        rules | expected | left
+        "s17" | 1.0d     | 1
+        "h17" | -1.0d    | 0
+    }
+
+    def "a double takes exactly one card, at twice the stake"() {
+        setup:
+        def deck = new Deck()
+        // sam has a hard 11 against a 9, doubles and draws one card, the dealer has 19
+        deck.setCards("S6, HK, D5, C9, " + card + ", S2")
+        def engine = Rules.parse("double").engine(deck, new AlwaysHitStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == expected
+        deck.count() == 1
+
+        where:
+        card  | expected
+        "H10" | 2.0d
+        "H2"  | -2.0d
+    }
+
+    def "a surrender pays back half of the stake"() {
+        setup:
+        def deck = new Deck()
+        // sam has a hard 16, the dealer has 19
+        deck.setCards("S10, H9, D6, " + upcard + ", S2")
+        def engine = Rules.parse("surrender").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == expected
+        deck.count() == 1
+
+        where:
+        upcard | expected
+        "CK"   | -0.5d // surrendered against a 10
+        "C9"   | -1.0d // played against a 9
+    }
+
+    def "a pair is split into two hands that are played one after the other"() {
+        setup:
+        def deck = new Deck()
+        // sam splits eights, and gets 18 and 19 against the dealer's 19
+        deck.setCards("S8, HK, D8, C9, H10, CA, S2")
+        def engine = Rules.parse("split").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == -1.0d
+        deck.count() == 1
+    }
+
+    def "split aces get one card each, even when the strategy would hit"() {
+        setup:
+        def deck = new Deck()
+        // sam splits aces, and gets a soft 16 and 20 against the dealer's 19
+        deck.setCards("SA, HK, DA, C9, H5, D9, S2")
+        def engine = Rules.parse("split").engine(deck, new AlwaysHitStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == 0.0d
+        deck.count() == 1
+    }
+
+    def "pairs are split again, into at most 4 hands"() {
+        setup:
+        def deck = new Deck()
+        // sam keeps getting eights, and has a pair of eights left when there are 4 hands
+        deck.setCards("S8, HK, D8, C9, H8, C8, S8, D10, H10, C10, S10, D2")
+        def engine = Rules.parse("split").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        SplittingEngine.MAX_HANDS == 4
+        payout == -4.0d
+        deck.count() == 2
+    }
+
+    def "a split hand can be doubled"() {
+        setup:
+        def deck = new Deck()
+        // sam splits eights, doubles 11 into 21 and 10 into 12, against the dealer's 19
+        deck.setCards("S8, HK, D8, C9, H3, D10, S2, C2")
+        def engine = Rules.parse("split,double").engine(deck, new AlwaysStayStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == 0.0d
+        deck.count() == 0
+    }
+
+    def "the strategy is shown the best score, and hits a hard 12 that holds an ace"() {
+        setup:
+        def deck = new Deck()
+        // sam hits a soft 16 to get A,5,6, which is a hard 12 that hits again against the
+        // dealer's 17, and stands on 20
+        deck.setCards("SA, H7, D5, CK, H6, C8")
+        def engine = Rules.parse(rules).engine(deck, new BasicStrategy())
+
+        when:
+        def payout = engine.playRound()
+
+        then:
+        payout == 1.0d
+        deck.count() == 0
+
+        where:
+        rules << ["s17", "s17, split"]
+    }
+
+    def "aces count as 1 when needed"() {
+        setup:
+        def hand = new Hand()
+        hand.addCards("SA, HA, D9")
+
+        expect:
+        hand.score() == 31
+        hand.bestScore() == 21
+        hand.isSoft()
+    }
+
+}
@@ -0,0 +1,72 @@
+import spock.lang.Specification
+import blackjack.*
+
+class SessionSimulatorTest extends Specification {
+
+    def simulate(Map args) {
+        def strat = args.strat ?: new BasicStrategyOptimized()
+        return new SessionSimulator(
+                strat,
+                args.bankroll ?: 20.0,
+                args.betting ?: SessionSimulator.Betting.FLAT,
+                args.payout ?: 1.0,
+                args.rounds ?: 200,
+                args.stopLoss ?: 0.0,
+                args.sessions ?: 600,
+                args.threads ?: 2,
+                args.seed ?: 42L).run()
+    }
+
+    def "the results only depend on the seed, and not on the number of threads"() {
+        expect:
+        simulate(threads: 1, betting: betting).finals == simulate(threads: 3, betting: betting).finals
+
+        where:
+        betting << SessionSimulator.Betting.values()
+    }
+
+    def "a session is ruined when less than the minimum bet is left"() {
+        when:
+        def result = simulate(bankroll: 5.0)
+
+        then:
+        result.finals.length == 600
+        result.ruinRounds.length == result.finals.count { it < 1.0 }
+        result.ruinRounds.length > 0
+        result.ruinRounds.every { it >= 5 && it <= 200 }
+        Math.abs(result.riskOfRuin() - result.ruinRounds.length / 600.0) < 1e-9
+        result.ruinPercentile(0) == result.ruinRounds[0]
+        result.ruinPercentile(100) == result.ruinRounds[-1]
+        result.finalPercentile(50) <= result.finalPercentile(90)
+    }
+
+    def "the stop-loss ends sessions before they are ruined"() {
+        when:
+        def result = simulate(strat: new AlwaysStayStrategy(), bankroll: 100.0, stopLoss: 5.0)
+
+        then:
+        result.stopped > 0
+        result.ruinRounds.length == 0
+        result.finals.every { it >= 95.0 }
+    }
+
+    def "a higher blackjack payout wins more on the same rounds"() {
+        when:
+        def even = simulate(bankroll: 1000000.0, payout: 1.0)
+        def higher = simulate(bankroll: 1000000.0, payout: 2.0)
+
+        then:
+        higher.meanFinal() > even.meanFinal()
+    }
+
+    def "unknown betting is rejected"() {
+        expect:
+        SessionSimulator.Betting.parse(" Kelly ") == SessionSimulator.Betting.KELLY
+
+        when:
+        SessionSimulator.Betting.parse("martingale")
+
+        then:
+        thrown(InvalidFlagValueException)
+    }
+}
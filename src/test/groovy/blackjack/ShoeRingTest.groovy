@@ -0,0 +1,122 @@
+import spock.lang.Specification
+import blackjack.*
+
+class ShoeRingTest extends Specification {
+
+    def "shoes come out in the order they went in, until the ring is full"() {
+        setup:
+        def ring = new ShoeRing(3)
+        def shoes = (1..4).collect { new ArrayList<Card>() }
+
+        when:
+        def accepted = shoes.collect { ring.offer(it) }
+
+        then:
+        ring.capacity() == 4
+        accepted == [true, true, true, true]
+        !ring.offer(new ArrayList<Card>())
+        ring.poll().is(shoes[0])
+        ring.poll().is(shoes[1])
+        ring.offer(new ArrayList<Card>())
+    }
+
+    def "an empty ring has nothing to poll"() {
+        expect:
+        new ShoeRing(8).poll() == null
+    }
+
+    def "every shoe reaches the consumer thread"() {
+        setup:
+        def ring = new ShoeRing(4)
+        int n = 10000
+        def producer = Thread.start {
+            for (int i = 0; i < n; i++) {
+                def shoe = new ArrayList<Card>()
+                shoe.add(new Card(i % 2 == 0 ? "H2" : "S3"))
+                while (!ring.offer(shoe)) {
+                    Thread.onSpinWait()
+                }
+            }
+        }
+
+        when:
+        int twos = 0
+        for (int i = 0; i < n; i++) {
+            if (ring.take().get(0).score() == 2) {
+                twos++
+            }
+        }
+        producer.join()
+
+        then:
+        twos == n / 2
+        ring.poll() == null
+    }
+
+    def "the shoes in a closed ring can still be taken"() {
+        setup:
+        def ring = new ShoeRing(4)
+        def shoe = new ArrayList<Card>()
+
+        when:
+        ring.offer(shoe)
+        ring.close(null)
+
+        then:
+        ring.take().is(shoe)
+    }
+
+    def "a consumer that waits for a producer that failed gets the failure"() {
+        setup:
+        def ring = new ShoeRing(4)
+        def failure = new IllegalArgumentException("no cards")
+        def caught = null
+        def consumer = Thread.start {
+            try {
+                ring.take()
+            } catch (IllegalStateException ex) {
+                caught = ex
+            }
+        }
+
+        when:
+        Thread.sleep(50)
+        ring.close(failure)
+        consumer.join(5000)
+
+        then:
+        !consumer.alive
+        caught.message == "the producer of the shoes has stopped"
+        caught.cause.is(failure)
+    }
+
+    def "a pipeline with the same seed plays the same rounds"() {
+        setup:
+        def strat = new BasicStrategyOptimized()
+
+        when:
+        def first = new ShoePipeline(strat, 1, 2, 42L).run(2000)
+        def second = new ShoePipeline(strat, 2, 2, 42L).run(2000)
+
+        then:
+        first.wins() == second.wins()
+        first.pushes() == second.pushes()
+        first.wins() + first.losses() == 2000
+    }
+
+    def "the counts of a pipeline are for its last run"() {
+        setup:
+        def pipeline = new ShoePipeline(new BasicStrategyOptimized(), 1, 2, 42L)
+
+        when:
+        pipeline.run(20000)
+        def first = pipeline.shoes()
+        pipeline.run(20000)
+        def second = pipeline.shoes()
+
+        then:
+        // both runs use the same shoes, and only differ in how far the producer got ahead
+        first > 2 * ShoePipeline.RING_CAPACITY
+        Math.abs(second - first) <= 2 * (ShoePipeline.RING_CAPACITY + 1)
+    }
+}
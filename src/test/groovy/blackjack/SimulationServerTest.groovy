@@ -0,0 +1,98 @@
+import spock.lang.Shared
+import spock.lang.Specification
+import blackjack.*
+import groovy.json.JsonSlurper
+
+class SimulationServerTest extends Specification {
+
+    // one game in the pool, so that every request uses the same game
+    @Shared
+    def server = new SimulationServer(0, 1)
+
+    def setupSpec() {
+        server.start()
+    }
+
+    def cleanupSpec() {
+        server.stop()
+    }
+
+    // get returns the status code and the parsed JSON body of a request
+    def get(String path) {
+        def connection = new URL("http://127.0.0.1:${server.port()}${path}").openConnection() as HttpURLConnection
+        def status = connection.responseCode
+        def stream = status < 400 ? connection.inputStream : connection.errorStream
+        [status, new JsonSlurper().parseText(stream.getText("UTF-8"))]
+    }
+
+    def "the win ratio is returned with the rounds that were played"() {
+        when:
+        def (status, json) = get("/winratio?strategy=basicopt&params=4,3,20,5,14&rounds=2000&seed=42")
+
+        then:
+        status == 200
+        json.keySet() == ["strategy", "rounds", "wins", "losses", "pushes", "winRatio", "millis"] as Set
+        json.strategy == "B (4,3,20,5,14)"
+        json.rounds == 2000
+        json.wins + json.losses == 2000
+        json.pushes >= 0
+        json.winRatio > 0
+        json.millis >= 0
+    }
+
+    def "a round is returned with all the cards"() {
+        when:
+        def (status, json) = get("/round?strategy=third&deck=CA,D5,H9,HQ,S8&shuffle=false")
+
+        then:
+        status == 200
+        json == [
+            strategy: "Third",
+            winner: "sam",
+            sam: ["CA", "H9"],
+            samScore: 20,
+            dealer: ["D5", "HQ", "S8"],
+            dealerScore: 23
+        ]
+    }
+
+    def "bad or missing parameters are rejected with 400"() {
+        when:
+        def (status, json) = get(path)
+
+        then:
+        status == 400
+        json.error.contains(message)
+
+        where:
+        path                             | message
+        "/winratio?strategy=nope"        | "unknown strategy"
+        "/winratio?rounds=0"             | "rounds must be"
+        "/winratio?rounds=abc"           | "not an integer"
+        "/winratio?rounds="              | "not an integer"
+        "/winratio?seed="                | "not an integer"
+        "/winratio?params=1,2"           | "wrong number of parameters"
+        "/winratio?params=a,b,c,d,e"     | "not a number"
+        "/round?seed=x"                  | "not an integer"
+        "/round?deck=XX"                 | "invalid card"
+        "/round?deck="                   | "invalid length"
+        "/round?deck=CA,D5"              | "too few cards"
+    }
+
+    def "the pooled game is reset, so the same seed gives the same response"() {
+        when:
+        def (firstStatus, first) = get(path + "&seed=7")
+        get(other)
+        def (status, second) = get(path + "&seed=7")
+
+        then:
+        firstStatus == 200
+        status == 200
+        second.findAll { it.key != "millis" } == first.findAll { it.key != "millis" }
+
+        where:
+        path                                   | other
+        "/round?strategy=basicopt"             | "/round?strategy=third"
+        "/winratio?strategy=second&rounds=500" | "/winratio?strategy=always-hit&rounds=300"
+    }
+}
@@ -0,0 +1,130 @@
+import spock.lang.Specification
+import blackjack.*
+
+class StrategyFactoryTest extends Specification {
+
+    def "the factory lists as many parameters as it says"() {
+        setup:
+        def factory = strat.factory()
+        def params = Optional.of(factory.first())
+        int count = 0
+
+        when:
+        while (params.isPresent()) {
+            count++
+            params = factory.next(params.get())
+        }
+
+        then:
+        count == expected
+        factory.possibilities() == expected
+
+        where:
+        strat                        | expected
+        new BasicStrategyOptimized() | 8 * 8 * 5 * 21 * 15
+        new BasicStrategyCounting()  | 21
+        new ThirdStrategy()          | 1
+    }
+
+    def "the last counting weight is exactly 1"() {
+        setup:
+        def factory = new BasicStrategyCounting().factory()
+        def params = factory.first()
+
+        when:
+        20.times { params = factory.next(params).get() }
+
+        then:
+        params.get(0) == 1.0d
+        !factory.next(params).isPresent()
+    }
+
+    def "a strategy is created from its own parameters"() {
+        setup:
+        def factory = strat.factory()
+
+        expect:
+        factory.create(strat.parameters()).toString() == strat.toString()
+        factory.defaults() == strat.parameters()
+
+        where:
+        strat << [
+            new BasicStrategyOptimized(),
+            new SecondStrategyOptimized(),
+            new BasicStrategyCounting(),
+            new BasicStrategy()
+        ]
+    }
+
+    def "the neighbors are one step away in one parameter, within the limits"() {
+        setup:
+        def factory = strat.factory()
+
+        when:
+        def neighbors = factory.neighbors(params)
+
+        then:
+        neighbors.size() == expected
+        neighbors.every { n ->
+            (0..<params.size()).count { n.get(it) != params.get(it) } == 1
+        }
+        !neighbors.contains(params)
+
+        where:
+        strat                         | params                          | expected
+        new BasicStrategyOptimized()  | Parameters.of(3, 3, 16, 0, 2)   | 5
+        new BasicStrategyOptimized()  | Parameters.of(4, 3, 20, 5, 14)  | 8
+        new SecondStrategyOptimized() | Parameters.of(3.7, 4.4, 12.9)   | 6
+        new ThirdStrategy()           | Parameters.of()                 | 0
+    }
+
+    def "the counting weight steps down from 1, but not above it"() {
+        setup:
+        def factory = new BasicStrategyCounting().factory()
+
+        when:
+        def neighbors = factory.neighbors(Parameters.of(1.0d))
+
+        then:
+        neighbors.size() == 1
+        Math.abs(neighbors[0].get(0) - 0.95d) < 1e-9
+    }
+
+    def "the wrong number of parameters is rejected"() {
+        when:
+        new BasicStrategyOptimized().factory().create(Parameters.of(1, 2))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "parameters can not be changed from the outside"() {
+        setup:
+        double[] values = [1, 2, 3]
+        def params = Parameters.of(values)
+
+        when:
+        values[0] = 9
+        params.toArray()[1] = 9
+        def other = params.with(2, 9)
+
+        then:
+        params == Parameters.of(1, 2, 3)
+        other == Parameters.of(1, 2, 9)
+    }
+
+    def "one strategy can be shared by many threads"() {
+        setup:
+        def strat = new BasicStrategyOptimized()
+        def pool = java.util.concurrent.Executors.newFixedThreadPool(4)
+        def tasks = (1..4).collect { { -> Optimizer.getWinRatio(strat, 2000) } as java.util.concurrent.Callable }
+
+        when:
+        def ratios = pool.invokeAll(tasks).collect { it.get() }
+        pool.shutdown()
+
+        then:
+        ratios.every { it > 0.5 && it < 1.0 }
+        strat.toString() == "B (4,3,20,5,14)"
+    }
+}
@@ -0,0 +1,57 @@
+import spock.lang.Specification
+import blackjack.*
+
+class StrategySolverTest extends Specification {
+
+    def "the solved strategy beats the optimized strategy"() {
+        setup:
+        def solver = new StrategySolver()
+
+        when:
+        def solved = new ExactSolver(solver.strategy(), new Hand()).solve()
+        def optimized = new ExactSolver(new BasicStrategyOptimized(), new Hand()).solve()
+
+        then:
+        solved.winRatio() > optimized.winRatio()
+        Math.abs(solver.win() + solver.loss() + solver.push() - 1.0) < 1e-9
+    }
+
+    def "always hit on low scores and stand on 16 and above"() {
+        setup:
+        def strat = new StrategySolver().strategy()
+
+        expect:
+        strat.hits(11, 10)
+        !strat.hits(16, 10)
+        !strat.hits(20, 2)
+    }
+
+    def "a saved table can be loaded again"() {
+        setup:
+        def strat = TableStrategy.of(new BasicStrategy())
+        def file = File.createTempFile("table", ".txt")
+        file.deleteOnExit()
+
+        when:
+        strat.save(file.path)
+        def loaded = TableStrategy.load(file.path)
+
+        then:
+        loaded.format() == strat.format()
+        loaded.shouldHit(15, 0, 2, 10) == new BasicStrategy().shouldHit(15, 0, 2, 10)
+    }
+
+    def "a table must have a row for every score"() {
+        setup:
+        def file = File.createTempFile("table", ".txt")
+        file.deleteOnExit()
+        file.text = "4 H H H H H H H H H H\n"
+
+        when:
+        TableStrategy.load(file.path)
+
+        then:
+        thrown IOException
+    }
+
+}
@@ -0,0 +1,71 @@
+import spock.lang.Specification
+import blackjack.*
+
+class StrategyTest extends Specification {
+
+    def "the primitive decision matches the hand decision"() {
+        setup:
+        def hand = new Hand()
+        hand.setCards("H9, C5")
+        def upcard = new Card("D7")
+
+        expect:
+        strat.shouldHit(hand, upcard) == strat.shouldHit(14, 0, 2, 7)
+
+        where:
+        strat << [
+            new BasicStrategy(),
+            new BasicStrategyOptimized(),
+            new SecondStrategyOptimized(),
+            new ThirdStrategy(),
+            new BasicStrategyCounting()
+        ]
+    }
+
+    def "a strategy that only knows hands gets a synthetic hand"() {
+        setup:
+        def strat = new Strategy() {
+            boolean shouldHit(Hand hand, Card dealerUpcard) {
+                return hand.score() < 15 && dealerUpcard.score() == 10
+            }
+        }
+
+        expect:
+        strat.shouldHit(14, 0, 3, 10)
+        !strat.shouldHit(15, 0, 2, 10)
+        !strat.shouldHit(14, 0, 2, 9)
+    }
+
+    def "decide for many hands in one call"() {
+        setup:
+        def strat = new BasicStrategy()
+        def decisions = new boolean[3]
+
+        when:
+        strat.shouldHit(
+                [12, 18, 16] as int[],
+                [0, 0, 0] as int[],
+                [2, 2, 3] as int[],
+                [5, 10, 10] as int[],
+                decisions,
+                3)
+
+        then:
+        decisions == [false, false, true] as boolean[]
+    }
+
+    def "a rollout strategy hits on a low score and stands on a high one"() {
+        setup:
+        def strat = new RolloutStrategy(new BasicStrategyOptimized(), 100)
+        def low = new Hand()
+        low.setCards("C2, D3")
+        def high = new Hand()
+        high.setCards("CT, DK")
+
+        expect:
+        strat.shouldHit(low, new Card("H9"))
+        !strat.shouldHit(high, new Card("H9"), new Deck())
+        strat.toString() == "R (100) B (4,3,20,5,14)"
+    }
+
+}
@@ -0,0 +1,34 @@
+import spock.lang.Specification
+import blackjack.*
+
+class StratifiedSamplerTest extends Specification {
+
+    def "every state where Sam can choose is sampled"() {
+        when:
+        def estimates = new StratifiedSampler(new BasicStrategyOptimized(), 50, 2, 42).run()
+
+        then:
+        estimates.size() == 13 * 10
+        estimates[0].score == 4
+        estimates[0].upcard == 2
+        estimates.every { it.hit >= -1 && it.hit <= 1 && it.stand >= -1 && it.stand <= 1 }
+    }
+
+    def "standing on 4 never wins, since the dealer already has 4 or more"() {
+        when:
+        def estimates = new StratifiedSampler(new BasicStrategyOptimized(), 200, 2, 1).run()
+
+        then:
+        estimates.findAll { it.score == 4 }.every { it.stand <= 0 && it.hitIsBetter() }
+    }
+
+    def "the results only depend on the seed"() {
+        when:
+        def a = new StratifiedSampler(new BasicStrategyOptimized(), 100, 1, 7).run()
+        def b = new StratifiedSampler(new BasicStrategyOptimized(), 100, 4, 7).run()
+
+        then:
+        StratifiedSampler.format(a) == StratifiedSampler.format(b)
+    }
+
+}
@@ -0,0 +1,45 @@
+import spock.lang.Specification
+import blackjack.*
+
+class TableTest extends Specification {
+
+    def "a single seat gives the same result as a game"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("CA, D5, H9, HQ, S8")
+        def table = new Table(deck, [new BasicStrategyOptimized()] as Strategy[], false)
+
+        when:
+        def results = table.oneRound()
+
+        then:
+        results[0] == Game.Result.SAM_WON
+    }
+
+    def "deal in casino order and settle each seat"() {
+        setup:
+        def deck = new Deck()
+        // seat 1 gets HK and SA for blackjack, seat 2 gets C9 and C8 for 17,
+        // the dealer gets D2 and D3 and then draws H10 and S2 for 17
+        deck.setCards("HK, C9, D2, SA, C8, D3, H10, S2")
+        def strategies = [new AlwaysStayStrategy(), new AlwaysStayStrategy()] as Strategy[]
+        def table = new Table(deck, strategies, false)
+
+        when:
+        def results = table.oneRound()
+
+        then:
+        results[0] == Game.Result.SAM_WON
+        results[1] == Game.Result.PUSH
+        table.getDealer().score() == 17
+    }
+
+    def "a table can not have more than seven seats"() {
+        when:
+        new Table(new Strategy[8])
+
+        then:
+        thrown IllegalArgumentException
+    }
+
+}
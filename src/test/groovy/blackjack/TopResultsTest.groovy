@@ -0,0 +1,64 @@
+import spock.lang.Specification
+import blackjack.*
+
+class TopResultsTest extends Specification {
+
+    def "keep only the best results"() {
+        setup:
+        def top = new TopResults(2)
+
+        when:
+        top.offer(0.5, new BasicStrategy())
+        top.offer(0.9, new ThirdStrategy())
+        top.offer(0.7, new AlwaysHitStrategy())
+        def sorted = top.sorted()
+
+        then:
+        sorted.size() == 2
+        sorted[0].winRatio == 0.7
+        sorted[1].winRatio == 0.9
+        sorted[1].params == "Third"
+    }
+
+    def "equal win ratios are kept as separate results"() {
+        setup:
+        def top = new TopResults(3)
+
+        when:
+        top.offer(0.8, new BasicStrategy())
+        top.offer(0.8, new ThirdStrategy())
+
+        then:
+        top.size() == 2
+        top.seen() == 2
+    }
+
+    def "an equal win ratio does not replace an earlier one when full"() {
+        setup:
+        def top = new TopResults(1)
+
+        when:
+        top.offer(0.8, new BasicStrategy())
+        def kept = top.offer(0.8, new ThirdStrategy())
+
+        then:
+        kept == false
+        top.best().params == "Basic"
+    }
+
+    def "results from other processes are merged by their parameters"() {
+        setup:
+        def top = new TopResults(2)
+
+        when:
+        top.offer(0.5, new BasicStrategy())
+        top.offer(0.9, "B (3,6,17,4,16)")
+        top.offer(0.7, "B (3,4,16,19,9)")
+
+        then:
+        top.seen() == 3
+        top.best().params == "B (3,6,17,4,16)"
+        top.sorted()[0].winRatio == 0.7
+    }
+
+}
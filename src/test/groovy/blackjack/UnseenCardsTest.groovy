@@ -0,0 +1,116 @@
+import spock.lang.Specification
+import blackjack.*
+
+class UnseenCardsTest extends Specification {
+
+    // Sam gets S9 and S3, the dealer gets a hole card and C10, and the rest are low cards
+    static String deckWithHoleCard(String holeCard) {
+        "S9, " + holeCard + ", S3, C10, H4, D4, C4, S4, H5, D5"
+    }
+
+    def "the hole card is counted as not seen"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("S9, HK, S3, C10, H4, D4")
+        4.times { deck.draw() }
+        def unseen = new UnseenCards()
+
+        when:
+        unseen.reset(deck, new Card("HK"))
+
+        then:
+        deck.runningCount() == -1
+        unseen.runningCount() == 0
+        unseen.trueCount() == 0.0d
+        unseen.count() == 3
+        unseen.remaining(10) == 1
+        unseen.remaining(4) == 2
+    }
+
+    def "a deck that is renewed during the round is shown as it is"() {
+        setup:
+        def deck = new Deck()
+        deck.setCards("S9, HK, S3, C10")
+        4.times { deck.draw() }
+        def unseen = new UnseenCards()
+        unseen.reset(deck, new Card("HK"))
+
+        when:
+        deck.renew()
+        deck.draw()
+
+        then:
+        unseen.count() == 3
+        unseen.runningCount() == deck.runningCount()
+        unseen.remaining(10) == deck.remaining(10)
+    }
+
+    def "a counting strategy in a game decides the same, whatever the hole card is"() {
+        setup:
+        def strat = new BasicStrategyCounting(1.0d)
+        def hands = ["H9", "HK"].collect { holeCard ->
+            def deck = new Deck()
+            deck.setCards(deckWithHoleCard(holeCard))
+            def game = new Game(deck, strat, false, false)
+            game.oneRound(strat)
+            game.getSam().toString()
+        }
+
+        expect:
+        hands[0] == hands[1]
+        hands[0] == "S9, S3, H4"
+    }
+
+    def "a counting strategy at a table decides the same, whatever the hole card is"() {
+        setup:
+        def hands = ["H9", "HK"].collect { holeCard ->
+            def deck = new Deck()
+            deck.setCards(deckWithHoleCard(holeCard))
+            def table = new Table(deck, [new BasicStrategyCounting(1.0d)] as Strategy[], false)
+            table.oneRound()
+            table.getSeat(0).toString()
+        }
+
+        expect:
+        hands[0] == hands[1]
+    }
+
+    def "a counting strategy with casino rules decides the same, whatever the hole card is"() {
+        setup:
+        // the dealer stands on 19 and 20, so only Sam's cards are drawn from the deck
+        def left = ["H9", "HK"].collect { holeCard ->
+            def deck = new Deck()
+            deck.setCards(deckWithHoleCard(holeCard))
+            Rules.parse(rules).engine(deck, new BasicStrategyCounting(1.0d)).playRound()
+            deck.count()
+        }
+
+        expect:
+        left[0] == left[1]
+
+        where:
+        rules << ["s17", "split"]
+    }
+
+    def "the exact solver shows a counting strategy the same cards as a game"() {
+        setup:
+        def strat = new BasicStrategyCounting(1.0d)
+
+        when:
+        // a fully known deck has one outcome, which must be the outcome of the game
+        def mismatches = (1L..200L).findAll { seed ->
+            def deck = new Deck()
+            deck.setSeed(seed)
+            deck.shuffle()
+            def known = new Deck()
+            known.setCards(deck.toString())
+            def result = new Game(deck, strat, false, false).oneRound(strat)
+            def odds = new ExactSolver(strat, known).solve()
+            def p = [(Game.Result.SAM_WON): odds.win(), (Game.Result.DEALER_WON): odds.loss(), (Game.Result.PUSH): odds.push()]
+            p[result] != 1.0d
+        }
+
+        then:
+        mismatches == []
+    }
+}